@@ -0,0 +1,58 @@
+package org.mosip.nist.nfiq1.jmh;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.mosip.nist.nfiq1.imagetools.DecodedImage;
+import org.mosip.nist.nfiq1.imagetools.ImageDecoder;
+import org.mosip.nist.nfiq1.util.ImageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/***********************************************************************
+************************************************************************
+#cat: DecodeBenchmark - Average time to decode a sample ISO 19794-4
+#cat:             record and to bring it to a ByteImage, the stages in
+#cat:             front of StageBenchmark.computeNfiq.
+
+   Usage:
+      java -jar target/benchmarks.jar DecodeBenchmark -prof gc
+************************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Thread)
+public class DecodeBenchmark {
+	@Param({"info_wsq.iso", "info_jp2.iso"})
+	public String image;
+
+	private byte [] isoData;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		isoData = Files.readAllBytes(StageState.isoFile(image).toPath());
+	}
+
+	@Benchmark
+	public Object decodeGrayscaleImage() {
+		return ImageDecoder.getInstance().decodeGrayscaleImage(isoData).getImage();
+	}
+
+	@Benchmark
+	public Object decodeToByteImage() throws Exception {
+		DecodedImage decoded = ImageDecoder.getInstance().decodeGrayscaleImage(isoData);
+		return ImageUtil.convertToByteImage(decoded.getImage());
+	}
+}
@@ -0,0 +1,195 @@
+package org.mosip.nist.nfiq1.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.mosip.nist.nfiq1.Nfiq1Globals;
+import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.mlp.CompiledMlp;
+import org.mosip.nist.nfiq1.mlp.RunMlp;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/***********************************************************************
+************************************************************************
+#cat: StageBenchmark - Average time of each MINDTCT/NFIQ stage and of
+#cat:             the whole computation, on the images of StageState.
+#cat:             Stages that modify their input get a fresh copy before
+#cat:             every call, made into buffers kept by the thread so
+#cat:             that the copies do not show in -prof gc.
+
+   Usage:
+      java -jar target/benchmarks.jar StageBenchmark -prof gc
+************************************************************************/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class StageBenchmark {
+
+	/* Binarized image for lfsDetectV2, which converts it in place */
+	@State(Scope.Thread)
+	public static class DetectInput {
+		int [] binarizedImageData;
+		final AtomicReference<Minutiae> minutiae = new AtomicReference<Minutiae>(new Minutiae());
+
+		@Setup(Level.Invocation)
+		public void setUp(StageState state) {
+			binarizedImageData = copy(state.binarizedImageData, binarizedImageData);
+		}
+	}
+
+	/* Binary image and minutiae for lfsRemoveFalseMinutiaV2, which may */
+	/* fill loops in the image                                          */
+	@State(Scope.Thread)
+	public static class RemoveInput {
+		int [] binaryImageData;
+		final AtomicReference<Minutiae> minutiae = new AtomicReference<Minutiae>(new Minutiae());
+
+		@Setup(Level.Invocation)
+		public void setUp(StageState state) {
+			binaryImageData = copy(state.detectedImageData, binaryImageData);
+			StageState.copyOf(state.detectedMinutiae, minutiae.get());
+		}
+	}
+
+	/* Binary image and minutiae for the last detection stage */
+	@State(Scope.Thread)
+	public static class RidgeInput {
+		int [] binaryImageData;
+		final AtomicReference<Minutiae> minutiae = new AtomicReference<Minutiae>(new Minutiae());
+
+		@Setup(Level.Invocation)
+		public void setUp(StageState state) {
+			binaryImageData = copy(state.cleanedImageData, binaryImageData);
+			StageState.copyOf(state.cleanedMinutiae, minutiae.get());
+		}
+	}
+
+	/* Default NFIQ network, boxed as runMlp2 takes it */
+	@State(Scope.Thread)
+	public static class MlpInput {
+		Nfiq1Globals globals;
+		AtomicReferenceArray<Double> weights;
+		AtomicReferenceArray<Double> outAcs;
+		double [] scratch;
+
+		@Setup(Level.Trial)
+		public void setUp(StageState state) {
+			globals = state.engine.getNfiqGlobals();
+			double [] dfltWts = globals.getDfltWts();
+			weights = new AtomicReferenceArray<Double>(dfltWts.length);
+			for (int index = 0; index < dfltWts.length; index++)
+				weights.set(index, dfltWts[index]);
+			outAcs = new AtomicReferenceArray<Double>(globals.getDfltNOuts());
+			scratch = new double[CompiledMlp.getInstance().getScratchLength()];
+		}
+	}
+
+	private static int [] copy(int [] src, int [] dest) {
+		if (dest == null || dest.length != src.length)
+			dest = new int[src.length];
+		System.arraycopy(src, 0, dest, 0, src.length);
+		return dest;
+	}
+
+	@Benchmark
+	public Object padImage(StageState state) {
+		AtomicInteger ret = new AtomicInteger(0);
+		return state.detect.lfsPadImageV2(ret, new AtomicInteger(0), new AtomicInteger(0), 
+			state.grayImage, state.lfsParams);
+	}
+
+	/* Maps.genImageMaps, as called by lfsDetectMinutiaeV2 */
+	@Benchmark
+	public int genImageMaps(StageState state) {
+		return state.detect.lfsGenImageMapsV2(state.scratchMaps, state.paddedImageData, 
+			state.paddedImageWidth, state.paddedImageHeight, state.imageWidth, state.imageHeight, state.lfsParams);
+	}
+
+	/* Binarization.binarizeV2, as called by lfsDetectMinutiaeV2 */
+	@Benchmark
+	public Object binarizeV2(StageState state) {
+		AtomicInteger ret = new AtomicInteger(0);
+		return state.detect.lfsBinarizeV2(ret, new AtomicInteger(0), new AtomicInteger(0), state.maps, 
+			state.paddedImageData, state.paddedImageWidth, state.paddedImageHeight, 
+			state.imageWidth, state.imageHeight, state.lfsParams);
+	}
+
+	/* MinutiaHelper.detectMinutiaeV2, as called by lfsDetectMinutiaeV2 */
+	@Benchmark
+	public int detectMinutiaeV2(StageState state, DetectInput input) {
+		return state.detect.lfsDetectV2(input.minutiae, state.maps, input.binarizedImageData, 
+			state.imageWidth, state.imageHeight, state.lfsParams);
+	}
+
+	/* RemoveMinutia.removeFalseMinutiaV2, as called by lfsDetectMinutiaeV2 */
+	@Benchmark
+	public int removeFalseMinutiaV2(StageState state, RemoveInput input) {
+		return state.detect.lfsRemoveFalseMinutiaV2(input.minutiae, state.maps, input.binaryImageData, 
+			state.imageWidth, state.imageHeight, state.lfsParams);
+	}
+
+	/* Ridges.countMinutiaeRidges, the last MINDTCT stage */
+	@Benchmark
+	public int countMinutiaeRidges(StageState state, RidgeInput input) {
+		return state.detect.lfsCountRidgesV2(input.minutiae, state.maps, input.binaryImageData, 
+			state.imageWidth, state.imageHeight, state.lfsParams);
+	}
+
+	/* Last detection stage in DETECT_MODE_NFIQ, in place of the ridge counts */
+	@Benchmark
+	public int removeRedundantMinutiaV2(StageState state, RidgeInput input) {
+		return state.detect.lfsRemoveRedundantMinutiaV2(input.minutiae, state.maps, 
+			state.imageWidth, state.imageHeight);
+	}
+
+	@Benchmark
+	public int generateQualityMap(StageState state) {
+		return state.quality.generateQualityMap(state.maps);
+	}
+
+	/* Reassigns the reliability of the final minutiae */
+	@Benchmark
+	public int combinedMinutiaQuality(StageState state) {
+		return state.quality.combinedMinutiaQuality(state.finalMinutiae, state.maps, 
+			state.lfsParams.getBlockSize(), state.grayImage, state.imageDepth, state.imagePPMM);
+	}
+
+	/* Reference MLP on boxed weights */
+	@Benchmark
+	public int runMlp2(StageState state, MlpInput input) {
+		AtomicInteger hypClass = new AtomicInteger(0);
+		AtomicReference<Double> confidence = new AtomicReference<Double>(0.0d);
+		Nfiq1Globals globals = input.globals;
+		RunMlp.getInstance().runMlp2(globals.getDfltNInps(), globals.getDfltNHids(), globals.getDfltNOuts(), 
+			globals.getDfltAcFuncHids(), globals.getDfltAcFuncOuts(), input.weights, state.featureVector, 
+			input.outAcs, hypClass, confidence);
+		return hypClass.get();
+	}
+
+	/* MLP used by computeNfiq */
+	@Benchmark
+	public int compiledMlp(StageState state, MlpInput input) {
+		return CompiledMlp.getInstance().classify(state.featureVector, input.scratch);
+	}
+
+	/* Nfiq1Helper.computeNfiq end to end, from the grayscale image */
+	@Benchmark
+	public int computeNfiq(StageState state) {
+		return state.engine.computeNfiq(state.context, new AtomicInteger(0), new AtomicReference<Double>(0.0d), 
+			state.grayImage, state.imageDepth, state.imagePPI);
+	}
+}
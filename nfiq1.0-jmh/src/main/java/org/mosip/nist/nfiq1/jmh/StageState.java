@@ -0,0 +1,164 @@
+package org.mosip.nist.nfiq1.jmh;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.NfiqContext;
+import org.mosip.nist.nfiq1.NfiqEngine;
+import org.mosip.nist.nfiq1.Nist;
+import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
+import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+import org.mosip.nist.nfiq1.imagetools.DecodedImage;
+import org.mosip.nist.nfiq1.imagetools.ImageDecoder;
+import org.mosip.nist.nfiq1.imagetools.SyntheticFingerprint;
+import org.mosip.nist.nfiq1.mindtct.Detect;
+import org.mosip.nist.nfiq1.mindtct.Globals;
+import org.mosip.nist.nfiq1.mindtct.Maps;
+import org.mosip.nist.nfiq1.mindtct.Quality;
+import org.mosip.nist.nfiq1.util.ImageUtil;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/***********************************************************************
+************************************************************************
+#cat: StageState - Input of every stage benchmark for one image, made
+#cat:             by running the stages before it once per trial.  The
+#cat:             image is one of the sample ISO records, found in the
+#cat:             nfiq.data directory (../nfiq1.0 by default), or a
+#cat:             500 x 500 synthetic print, clean or riddled with the
+#cat:             defects that load RemoveMinutia.  Scope.Thread, as
+#cat:             the MINDTCT singletons keep per-thread log settings.
+************************************************************************/
+@State(Scope.Thread)
+public class StageState {
+	public static final String SYNTHETIC = "synthetic";
+	public static final String SYNTHETIC_DEFECTS = "synthetic-defects";
+
+	@Param({"info_wsq.iso", "info_jp2.iso", SYNTHETIC, SYNTHETIC_DEFECTS})
+	public String image;
+
+	final Detect detect = Detect.getInstance();
+	final NfiqEngine engine = new NfiqEngine(false);
+	final LfsParams lfsParams = Globals.getInstance().getLfsParamsV2();
+
+	ByteImage grayImage;
+	int imageDepth, imagePPI;
+	double imagePPMM;
+	int imageWidth, imageHeight;
+	int [] paddedImageData;
+	int paddedImageWidth, paddedImageHeight;
+	/* Image maps of the padded image, and maps rebuilt by genImageMaps */
+	Maps maps, scratchMaps;
+	/* Binarized image {0 = black, 255 = white} from lfsBinarizeV2 */
+	int [] binarizedImageData;
+	/* Binary image {1 = black, 0 = white} after detection, and after */
+	/* false minutiae removal                                         */
+	int [] detectedImageData, cleanedImageData;
+	Minutiae detectedMinutiae, cleanedMinutiae;
+	/* Sorted, unique minutiae with reliability assigned */
+	AtomicReference<Minutiae> finalMinutiae;
+	Quality quality;
+	NfiqContext context;
+	/* Z-normalized feature vector of the image */
+	double [] featureVector;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		AtomicInteger ret = new AtomicInteger(0);
+		AtomicInteger width = new AtomicInteger(0), height = new AtomicInteger(0);
+
+		Nist.setShowLogs(false);
+		loadImage();
+		imagePPMM = engine.getImagePPMM(imagePPI);
+		imageWidth = grayImage.getWidth();
+		imageHeight = grayImage.getHeight();
+
+		paddedImageData = detect.lfsPadImageV2(ret, width, height, grayImage, lfsParams);
+		check("lfsPadImageV2", ret.get());
+		paddedImageWidth = width.get();
+		paddedImageHeight = height.get();
+
+		maps = Maps.newInstance();
+		scratchMaps = Maps.newInstance();
+		check("lfsGenImageMapsV2", detect.lfsGenImageMapsV2(maps, paddedImageData, 
+			paddedImageWidth, paddedImageHeight, imageWidth, imageHeight, lfsParams));
+
+		binarizedImageData = detect.lfsBinarizeV2(ret, width, height, maps, paddedImageData, 
+			paddedImageWidth, paddedImageHeight, imageWidth, imageHeight, lfsParams);
+		check("lfsBinarizeV2", ret.get());
+
+		AtomicReference<Minutiae> minutiae = new AtomicReference<Minutiae>(new Minutiae());
+		detectedImageData = binarizedImageData.clone();
+		check("lfsDetectV2", detect.lfsDetectV2(minutiae, maps, detectedImageData, 
+			imageWidth, imageHeight, lfsParams));
+		detectedMinutiae = copyOf(minutiae.get(), new Minutiae());
+
+		cleanedImageData = detectedImageData.clone();
+		check("lfsRemoveFalseMinutiaV2", detect.lfsRemoveFalseMinutiaV2(minutiae, maps, cleanedImageData, 
+			imageWidth, imageHeight, lfsParams));
+		cleanedMinutiae = copyOf(minutiae.get(), new Minutiae());
+
+		check("lfsRemoveRedundantMinutiaV2", detect.lfsRemoveRedundantMinutiaV2(minutiae, maps, 
+			imageWidth, imageHeight));
+		quality = Quality.newInstance();
+		check("generateQualityMap", quality.generateQualityMap(maps));
+		check("combinedMinutiaQuality", quality.combinedMinutiaQuality(minutiae, maps, 
+			lfsParams.getBlockSize(), grayImage, imageDepth, imagePPMM));
+		finalMinutiae = minutiae;
+
+		context = new NfiqContext();
+		int nfiqRet = engine.computeNfiq(context, new AtomicInteger(0), new AtomicReference<Double>(0.0d), 
+			grayImage, imageDepth, imagePPI);
+		if (nfiqRet < ILfs.FALSE)
+			check("computeNfiq", nfiqRet);
+		featureVector = context.getFeatureVector().clone();
+	}
+
+	private void loadImage() throws Exception {
+		if (SYNTHETIC.equals(image) || SYNTHETIC_DEFECTS.equals(image))
+		{
+			SyntheticFingerprint fingerprint = new SyntheticFingerprint(500, 500, 500, 1L);
+			if (SYNTHETIC_DEFECTS.equals(image))
+				fingerprint.setDefects(1.0d);
+			grayImage = fingerprint.generate();
+			imageDepth = ILfs.IMAGE_DEPTH;
+			imagePPI = 500;
+			return;
+		}
+
+		DecodedImage decoded = ImageDecoder.getInstance().decodeGrayscaleImage(Files.readAllBytes(isoFile(image).toPath()));
+		check("decodeGrayscaleImage", decoded.getReturnCode());
+		grayImage = ImageUtil.convertToByteImage(decoded.getImage());
+		imageDepth = decoded.getDepth();
+		imagePPI = decoded.getPPI();
+	}
+
+	/* Sample record in the nfiq.data directory */
+	static File isoFile(String name) {
+		return new File(System.getProperty("nfiq.data", "../nfiq1.0"), name);
+	}
+
+	static void check(String stage, int ret) {
+		if (ret != ILfs.FALSE)
+			throw new IllegalStateException(String.format("%s failed : %d", stage, ret));
+	}
+
+	/* Overwrites dest with the minutiae of src, which have no neighbours yet */
+	static Minutiae copyOf(Minutiae src, Minutiae dest) {
+		dest.clear();
+		for (int index = 0; index < src.getNum(); index++)
+		{
+			dest.add(src.getX(index), src.getY(index), src.getEx(index), src.getEy(index), 
+				src.getDirection(index), src.getReliability(index), src.getType(index), 
+				src.getAppearing(index), src.getFeatureId(index));
+		}
+		return dest;
+	}
+}
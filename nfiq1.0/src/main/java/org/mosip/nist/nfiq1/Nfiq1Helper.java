@@ -1,18 +1,21 @@
 package org.mosip.nist.nfiq1;
 
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.mosip.nist.nfiq1.common.IAn2k;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.INfiq;
-import org.mosip.nist.nfiq1.common.ILfs.Minutia;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
 import org.mosip.nist.nfiq1.common.INfiq.INfiq1Helper;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 import org.mosip.nist.nfiq1.mindtct.Maps;
 import org.mosip.nist.nfiq1.mindtct.Quality;
+import org.mosip.nist.nfiq1.mindtct.ScratchArena;
+import org.mosip.nist.nfiq1.mlp.CompiledMlp;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.mosip.nist.nfiq1.util.NfiqMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,7 +44,7 @@ public class Nfiq1Helper extends Nfiq1 implements INfiq1Helper{
 		int foreground;
 		int featureVectorIndex;
 		int qualityMapHist [] = new int[ILfs.QMAP_LEVELS];
-		AtomicIntegerArray qptr = null;
+		ByteBlockMap qptr = null;
 		int qualityMapLength;
 		int num_rel_bins = INfiq.NFIQ_NUM_CLASSES;
 		double[] rel_threshs = {0.5, 0.6, 0.7, 0.8, 0.9};
@@ -70,13 +73,14 @@ public class Nfiq1Helper extends Nfiq1 implements INfiq1Helper{
 		}
 
 		/* Compute reliability bins */
-		for (i = 0; i < oMinutiae.get().getNum(); i++)
+		Minutiae minutiae = oMinutiae.get();
+		for (i = 0; i < minutiae.getNum(); i++)
 		{
 			passed_thresh = 1;
-			Minutia minutia = oMinutiae.get().getList().get(i);
+			double reliability = minutiae.getReliability(i);
 			for (t = 0; (t < num_rel_bins) && (passed_thresh == 1); t++)
 			{
-				if (minutia.getReliability() > rel_threshs[t])
+				if (reliability > rel_threshs[t])
 				{
 					rel_bins[t]++;
 				}
@@ -114,18 +118,13 @@ public class Nfiq1Helper extends Nfiq1 implements INfiq1Helper{
 		/* 11. qmap count == 4 */
 		featureVector [featureVectorIndex++] = qualityMapHist[i++] / (double)foreground;
 
+		/* Only format the values when they are logged */
 		if (isShowLogs())
 		{
 			LOGGER.info(String.format(" \nCOMPUTED NFIQ1.0 VALUES\n[\n Quality Map Foreground Count=%d,\n number of minutiae=%d,\n (reliability count > 0.5) = %d,\n (reliability count > 0.6) = %d,\n (reliability count > 0.7) = %d,\n (reliability count > 0.8) = %d,\n (reliability count > 0.9) = %d,\n (qmap count == 1) = %2f,\n (qmap count == 2) = %2f,\n (qmap count == 3) = %2f,\n (qmap count == 4) = %2f\n]\n\n", foreground, 
 					oMinutiae.get().getNum(), rel_bins [0], rel_bins [1], rel_bins [2], rel_bins [3], rel_bins [4], 
 					(double)(qualityMapHist [1] / (float)foreground), (double)(qualityMapHist[2] / (float)foreground), (double)(qualityMapHist[3] / (float)foreground), (double)(qualityMapHist[4] / (float)foreground)));
 		}
-		else if (!isShowLogs())
-		{		
-			System.out.println(String.format(" \nCOMPUTED NFIQ1.0 VALUES\n[\n Quality Map Foreground Count=%d,\n number of minutiae=%d,\n (reliability count > 0.5) = %d,\n (reliability count > 0.6) = %d,\n (reliability count > 0.7) = %d,\n (reliability count > 0.8) = %d,\n (reliability count > 0.9) = %d,\n (qmap count == 1) = %2f,\n (qmap count == 2) = %2f,\n (qmap count == 3) = %2f,\n (qmap count == 4) = %2f\n]\n\n", foreground, 
-				oMinutiae.get().getNum(), rel_bins [0], rel_bins [1], rel_bins [2], rel_bins [3], rel_bins [4], 
-				(double)(qualityMapHist [1] / (float)foreground), (double)(qualityMapHist[2] / (float)foreground), (double)(qualityMapHist[3] / (float)foreground), (double)(qualityMapHist[4] / (float)foreground)));
-		}
 		/* return normally */
 		return (ILfs.FALSE);
 	}
@@ -208,50 +207,169 @@ public class Nfiq1Helper extends Nfiq1 implements INfiq1Helper{
 		double[] zNormMeans, double[] zNormStds, 
 		int nInps, int nHids, int nOuts, final int acFuncHids, final int acFuncOuts,
 		double[] weights) {
+		return computeNfiqFlex(new NfiqContext(), oNfiq, oConf, imageData, 
+				imageWidth, imageHeight, imageDepth, imagePPI, 
+				zNormMeans, zNormStds, nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiqFlex - Same as above, but all intermediate maps,
+	#cat:             minutiae and vectors are kept in the caller supplied
+	#cat:             context, so concurrent calls on separate contexts
+	#cat:             do not interfere with each other.
+	   Input:
+	      context       - per-call working state (not shared between threads)
+	      (remaining arguments as above)
+	   Output:
+	      oNfiq       	- resulting NFIQ value
+	      oConf       	- max output class MLP activation
+	   Return Code:
+	      (as above)
+	************************************************************************/
+	public int computeNfiqFlex(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, int [] imageData, 
+		final int imageWidth, final int imageHeight, final int imageDepth, final int imagePPI,
+		double[] zNormMeans, double[] zNormStds, 
+		int nInps, int nHids, int nOuts, final int acFuncHids, final int acFuncOuts,
+		double[] weights) {
 
 		AtomicInteger ret = new AtomicInteger(0);
 
-		double[] featureVector = new double[INfiq.NFIQ_VCTRLEN];
-		double[] outacsarr = new double[INfiq.NFIQ_NUM_CLASSES];
+		context.reset();
 		AtomicInteger binarizedImageWidth = new AtomicInteger(0), 
 			binarizedImageHeight = new AtomicInteger(0), 
 			binarizedImageDepth = new AtomicInteger(0);
 		double binarizedImageWidthPPMM = 0.0d;
 		int[] binarizedImageData = null;
 
-		AtomicReferenceArray<Double> wts = new AtomicReferenceArray<Double>(weights.length);
-		for (int index = 0; index < weights.length; index++)
-		{
-			wts.set(index, weights[index]);
-		}
-
-		AtomicReference<Minutiae> minutiae = new AtomicReference<Minutiae>();
-		minutiae.set(new Minutiae());
+		AtomicReference<Minutiae> minutiae = context.getMinutiae();
 		//AtomicInteger quality_map = new AtomicInteger ();
 
-		AtomicInteger class_i = new AtomicInteger();
-		AtomicReference<Double> maxact = new AtomicReference<Double>(0.0d);
-
 		/* If image ppi not defined, then assume 500 */
-		if(imagePPI == ILfs.UNDEFINED)
-			binarizedImageWidthPPMM  = INfiq.DEFAULT_PPI / (double)IAn2k.MM_PER_INCH;
-		else 
-			binarizedImageWidthPPMM  = imagePPI / (double)IAn2k.MM_PER_INCH;
+		binarizedImageWidthPPMM = getImagePPMM(imagePPI);
 
-		Maps imageMap = Maps.getInstance();
-		Quality imageQualityMap = Quality.getInstance(); 
+		Maps imageMap = context.getMaps();
+		Quality imageQualityMap = context.getQuality(); 
 		
-		/* Detect minutiae */
-		binarizedImageData = getGetMinutiae().getMinutiae(ret, minutiae, 
-			imageMap, imageQualityMap, binarizedImageWidth, binarizedImageHeight, binarizedImageDepth, 
-			imageData, imageWidth, imageHeight, imageDepth, binarizedImageWidthPPMM, 
-			getGlobals().getLfsParamsV2());
+		/* Detect minutiae, skipping the stages NFIQ never reads.  The */
+		/* padded and binarized images are scratch of this thread,     */
+		/* reused by its next image.                                   */
+		ScratchArena arena = ScratchArena.current();
+		int mark = arena.openScope();
+		try
+		{
+			binarizedImageData = getGetMinutiae().getMinutiae(ret, minutiae, 
+				imageMap, imageQualityMap, binarizedImageWidth, binarizedImageHeight, binarizedImageDepth, 
+				imageData, imageWidth, imageHeight, imageDepth, binarizedImageWidthPPMM, 
+				getGlobals().getLfsParamsV2(), ILfs.DETECT_MODE_NFIQ);
+		}
+		finally
+		{
+			arena.closeScope(mark);
+		}
 		if (ret.get() != ILfs.FALSE)
 		{
 			return (ret.get());
 		}
 		
 		binarizedImageData = null;
+		return classifyNfiq(context, oNfiq, oConf, zNormMeans, zNormStds, 
+			nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiqFlex - Same as above, for an image of one byte per
+	#cat:             pixel, which is read in place and never widened to
+	#cat:             an int copy.
+	   Input:
+	      context       - per-call working state (not shared between threads)
+	      image         - grayscale fingerprint image
+	      (remaining arguments as above)
+	   Output:
+	      oNfiq       	- resulting NFIQ value
+	      oConf       	- max output class MLP activation
+	   Return Code:
+	      (as above)
+	************************************************************************/
+	public int computeNfiqFlex(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, ByteImage image, 
+		final int imageDepth, final int imagePPI,
+		double[] zNormMeans, double[] zNormStds, 
+		int nInps, int nHids, int nOuts, final int acFuncHids, final int acFuncOuts,
+		double[] weights) {
+		AtomicInteger ret = new AtomicInteger(0);
+		AtomicInteger binarizedImageWidth = new AtomicInteger(0), 
+			binarizedImageHeight = new AtomicInteger(0), 
+			binarizedImageDepth = new AtomicInteger(0);
+
+		context.reset();
+		/* Detect minutiae, skipping the stages NFIQ never reads.  The */
+		/* padded and binarized images are scratch of this thread.     */
+		ScratchArena arena = ScratchArena.current();
+		int mark = arena.openScope();
+		try
+		{
+			getGetMinutiae().getMinutiae(ret, context.getMinutiae(), 
+				context.getMaps(), context.getQuality(), binarizedImageWidth, binarizedImageHeight, binarizedImageDepth, 
+				image, imageDepth, getImagePPMM(imagePPI), getGlobals().getLfsParamsV2(), ILfs.DETECT_MODE_NFIQ);
+		}
+		finally
+		{
+			arena.closeScope(mark);
+		}
+		if (ret.get() != ILfs.FALSE)
+		{
+			return (ret.get());
+		}
+
+		return classifyNfiq(context, oNfiq, oConf, zNormMeans, zNormStds, 
+			nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: classifyNfiq - Last part of computeNfiqFlex.  Takes the minutiae,
+	#cat:             image maps and quality map already in the context,
+	#cat:             computes the feature vector and classifies it with
+	#cat:             the MLP.  The time taken is reported to the
+	#cat:             installed NfiqMetrics as the MLP stage.
+	   Input:
+	      context       - per-call working state holding the detection results
+	      (remaining arguments as computeNfiqFlex)
+	   Output:
+	      oNfiq       	- resulting NFIQ value
+	      oConf       	- max output class MLP activation
+	   Return Code:
+	      (as computeNfiqFlex)
+	************************************************************************/
+	public int classifyNfiq(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, 
+		double[] zNormMeans, double[] zNormStds, 
+		int nInps, int nHids, int nOuts, final int acFuncHids, final int acFuncOuts,
+		double[] weights) {
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+		long startTime = metrics.start();
+
+		int ret = classifyMinutiae(context, oNfiq, oConf, zNormMeans, zNormStds, 
+			nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights);
+		metrics.stop(Stage.MLP, startTime);
+		return ret;
+	}
+
+	private int classifyMinutiae(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, 
+		double[] zNormMeans, double[] zNormStds, 
+		int nInps, int nHids, int nOuts, final int acFuncHids, final int acFuncOuts,
+		double[] weights) {
+
+		AtomicInteger ret = new AtomicInteger(0);
+
+		double[] featureVector = context.getFeatureVector();
+		double[] outacsarr = context.getOutAcs();
+
+		AtomicReference<Minutiae> minutiae = context.getMinutiae();
+
+		Maps imageMap = context.getMaps();
+		Quality imageQualityMap = context.getQuality(); 
+
 		/* Catch case where too few minutiae detected */
 		if (minutiae.get().getNum() <= INfiq.MIN_MINUTIAE)
 		{
@@ -280,31 +398,34 @@ public class Nfiq1Helper extends Nfiq1 implements INfiq1Helper{
 		/* ZNormalize feature vector */
 		getZNorm().ZNormalizeFeatureVector(featureVector, zNormMeans, zNormStds, INfiq.NFIQ_VCTRLEN);
 
-		AtomicReferenceArray<Double> outacs = new AtomicReferenceArray<Double>(outacsarr.length);
-		for (int index = 0; index < outacsarr.length; index++)
-		{
-			outacs.set(index, outacsarr[index]);
-		}
-		
 		/* Classify feature vector with feedforward MLP */
-		ret.set(getRunMlp().runMlp2(nInps, nHids, nOuts, acFuncHids, acFuncOuts, wts, 
-			featureVector, outacs, class_i, maxact));
-		if (ret.get() != ILfs.FALSE)
+		CompiledMlp mlp = CompiledMlp.getInstance();
+		if (!mlp.isCompiledFrom(nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights))
 		{
-			return (ret.get());
+			AtomicReference<CompiledMlp> oMlp = new AtomicReference<CompiledMlp>();
+			ret.set(CompiledMlp.compile(oMlp, nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights));
+			if (ret.get() != ILfs.FALSE)
+			{
+				return (ret.get());
+			}
+			mlp = oMlp.get();
 		}
 
-		for (int index = 0; index < outacs.length(); index++)
-		{
-			outacsarr[index] = outacs.get(index);
-		}
+		double[] scratch = context.getMlpScratch(mlp.getScratchLength());
+		int hypClass = mlp.classify(featureVector, scratch);
+		System.arraycopy(scratch, mlp.getOutAcsOffset(), outacsarr, 0, Math.min(nOuts, outacsarr.length));
 
-		oNfiq.set(class_i.get() + 1);
-		oConf.set(maxact.get());
+		oNfiq.set(hypClass + 1);
+		oConf.set(mlp.getConfidence(scratch));
 
 		ret.set(ILfs.FALSE);
 		return ret.get();
 	}
-}
-
 
+	/* Converts scan density in pix/inch to pix/mm, assuming 500ppi when undefined */
+	public double getImagePPMM(final int imagePPI) {
+		if(imagePPI == ILfs.UNDEFINED)
+			return INfiq.DEFAULT_PPI / (double)IAn2k.MM_PER_INCH;
+		return imagePPI / (double)IAn2k.MM_PER_INCH;
+	}
+}
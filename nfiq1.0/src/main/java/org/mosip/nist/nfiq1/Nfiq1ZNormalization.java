@@ -32,6 +32,36 @@ public class Nfiq1ZNormalization implements INfiq1ZNormalization
 		}
 	}
 
+	/***********************************************************************
+	************************************************************************
+	#cat: ZNormalizeFeatureMatrix - Routine Z-Normalizes consecutive NFIQ
+	#cat:             feature vectors of a row-major matrix into another
+	#cat:             matrix, leaving the input untouched.
+
+	   Input:
+	      features         - feature vectors, one row of vectorLength each
+	      featuresOffset   - index of the first coef of the first vector
+	      nVectors         - number of vectors to normalize
+	      zNormmeansList - global meansList for each coef in the feature vector
+	      zNormStds  - global stddev for each coef in the feature vector
+	      vectorLength     - allocated length of each feature vector
+	   Output:
+	      oFeatures        - resulting normalized feature vectors
+	      oFeaturesOffset  - index of the first resulting coef
+	************************************************************************/
+	public void ZNormalizeFeatureMatrix(double[] oFeatures, final int oFeaturesOffset, double[] features, final int featuresOffset, 
+		final int nVectors, double[] zNormmeansList, double[] zNormStds, final int vectorLength)
+	{
+		int i, vectorIndex, src = featuresOffset, dst = oFeaturesOffset;
+		for (vectorIndex = 0; vectorIndex < nVectors; vectorIndex++)
+		{
+			for (i = 0; i < vectorLength; i++, src++, dst++)
+			{
+				oFeatures [dst] = (features [src] - zNormmeansList[i]) / zNormStds[i];
+			}
+		}
+	}
+
 	/***********************************************************************
 	************************************************************************
 	#cat: computeZNormStats - Routine takes a list of feature vectors
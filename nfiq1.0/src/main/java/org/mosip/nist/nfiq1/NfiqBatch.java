@@ -0,0 +1,189 @@
+package org.mosip.nist.nfiq1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.mosip.nist.nfiq1.common.INfiq.INfiqBatch;
+import org.mosip.nist.nfiq1.imagetools.SyntheticFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqBatch - Scores a batch of decoded images in parallel on a
+#cat:             ForkJoinPool.  Every worker thread reuses its own
+#cat:             NfiqContext through the shared NfiqEngine, and the
+#cat:             results are returned in the order of the input images.
+#cat:             The engine may split each image on the batch pool
+#cat:             itself: a worker that waits on it can run another
+#cat:             image's task, and the engine then lends that nested
+#cat:             image a context of its own.
+#cat:             Closing the batch shuts down the pool it created; a
+#cat:             pool passed in is left to its owner.
+************************************************************************/
+public class NfiqBatch implements INfiqBatch, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(NfiqBatch.class);
+	private final NfiqEngine engine;
+	private final ForkJoinPool pool;
+	private final boolean ownsPool;
+
+	public NfiqBatch() {
+		this(new NfiqEngine(), ForkJoinPool.commonPool(), false);
+	}
+
+	public NfiqBatch(int parallelism) {
+		this(new NfiqEngine(), new ForkJoinPool(parallelism), true);
+	}
+
+	/* engine.getPool() may be pool, or any other pool, or null */
+	public NfiqBatch(NfiqEngine engine, ForkJoinPool pool) {
+		this(engine, pool, false);
+	}
+
+	private NfiqBatch(NfiqEngine engine, ForkJoinPool pool, boolean ownsPool) {
+		super();
+		this.engine = engine;
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+	}
+
+	/* Shuts down the pool if this batch created it; running batches finish */
+	public void close() {
+		if (ownsPool)
+		{
+			pool.shutdown();
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Computes NFIQ of each image of the list.
+	   Input:
+	      images      - decoded grayscale images
+	   Return:
+	      results     - one NfiqResult per image, in input order
+	************************************************************************/
+	public List<NfiqResult> computeNfiq(List<NfiqImage> images) {
+		NfiqImage[] input = images.toArray(new NfiqImage[images.size()]);
+		NfiqResult[] output = new NfiqResult[input.length];
+		if (input.length > 0)
+		{
+			pool.invoke(new ScoreTask(input, output, 0, input.length));
+		}
+		return Arrays.asList(output);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Same as above, for a finite stream of images.
+	************************************************************************/
+	public List<NfiqResult> computeNfiq(Stream<NfiqImage> images) {
+		return computeNfiq(images.collect(Collectors.toList()));
+	}
+
+	public NfiqEngine getEngine() {
+		return engine;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/* Scores synthetic images serially, then as a batch whose engine */
+	/* splits each image on the batch pool, and exits 1 on a mismatch */
+	public static void main(String[] args) throws Exception {
+		int count = 64, parallelism = Runtime.getRuntime().availableProcessors();
+		long seed = 1L;
+		if (args != null)
+		{
+			for (String arg : args)
+			{
+				String[] keyValue = arg.split("=", 2);
+				if (keyValue.length != 2)
+				{
+					continue;
+				}
+				if (keyValue[0].equals("count"))
+					count = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("threads"))
+					parallelism = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("seed"))
+					seed = Long.parseLong(keyValue[1]);
+			}
+		}
+
+		Random random = new Random(seed);
+		List<NfiqImage> images = new ArrayList<NfiqImage>(count);
+		for (int index = 0; index < count; index++)
+		{
+			SyntheticFingerprint fingerprint = new SyntheticFingerprint(500, 500, 500, seed + index);
+			fingerprint.setPattern(random.nextInt(3));
+			fingerprint.setNoise(random.nextDouble());
+			fingerprint.setBlankArea(0.6d * random.nextDouble());
+			fingerprint.setDefects(random.nextDouble());
+			images.add(new NfiqImage(fingerprint.generate(), 8, 500));
+		}
+
+		NfiqEngine serialEngine = new NfiqEngine(false, null);
+		List<NfiqResult> expected = new ArrayList<NfiqResult>(count);
+		for (NfiqImage image : images)
+		{
+			expected.add(serialEngine.computeNfiq(image));
+		}
+
+		int mismatches = 0;
+		ForkJoinPool sharedPool = new ForkJoinPool(parallelism);
+		try (NfiqBatch batch = new NfiqBatch(new NfiqEngine(false, sharedPool), sharedPool))
+		{
+			List<NfiqResult> results = batch.computeNfiq(images);
+			for (int index = 0; index < count; index++)
+			{
+				NfiqResult want = expected.get(index), got = results.get(index);
+				if (want.getReturnCode() != got.getReturnCode() || want.getNfiq() != got.getNfiq()
+					|| Double.compare(want.getConfidence(), got.getConfidence()) != 0)
+				{
+					LOGGER.error(String.format("image %d : serial %s, batch %s", index, want, got));
+					mismatches++;
+				}
+			}
+		}
+		finally
+		{
+			sharedPool.shutdown();
+		}
+		LOGGER.info(String.format("%d images on %d threads, %d mismatches", count, parallelism, mismatches));
+		System.exit(mismatches == 0 ? 0 : 1);
+	}
+
+	/* Splits the index range in halves until a single image remains */
+	private class ScoreTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final NfiqImage[] input;
+		private final NfiqResult[] output;
+		private final int from, to;
+
+		ScoreTask(NfiqImage[] input, NfiqResult[] output, int from, int to) {
+			this.input = input;
+			this.output = output;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1)
+			{
+				output[from] = engine.computeNfiq(input[from]);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new ScoreTask(input, output, from, mid), new ScoreTask(input, output, mid, to));
+		}
+	}
+}
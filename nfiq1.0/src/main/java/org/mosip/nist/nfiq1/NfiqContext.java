@@ -0,0 +1,91 @@
+package org.mosip.nist.nfiq1;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.common.INfiq;
+import org.mosip.nist.nfiq1.mindtct.Maps;
+import org.mosip.nist.nfiq1.mindtct.Quality;
+import org.mosip.nist.nfiq1.mlp.CompiledMlp;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqContext - Per-call working state of an NFIQ computation.
+#cat:             Holds the image maps, quality map, detected minutiae
+#cat:             and the feature/activation vectors so that no two
+#cat:             concurrent computations share mutable state.
+#cat:             A context may be reused by the thread that owns it,
+#cat:             but must never be used by two threads, or by two
+#cat:             computations nested on one thread, at once.
+************************************************************************/
+public class NfiqContext {
+	private final Maps maps;
+	private final Quality quality;
+	private final AtomicReference<Minutiae> minutiae;
+	private final double[] featureVector;
+	private final double[] outAcs;
+	private double[] mlpScratch;
+	/* Set by NfiqEngine while a computation runs on the context */
+	private boolean inUse;
+
+	public NfiqContext() {
+		this(null);
+	}
+
+	/* Image maps and binary image are computed on the threads of pool, */
+	/* or serially when null                                            */
+	public NfiqContext(ForkJoinPool pool) {
+		super();
+		this.maps = Maps.newInstance();
+		this.maps.setPool(pool);
+		this.quality = Quality.newInstance();
+		this.minutiae = new AtomicReference<Minutiae>(new Minutiae());
+		this.featureVector = new double[INfiq.NFIQ_VCTRLEN];
+		this.outAcs = new double[INfiq.NFIQ_NUM_CLASSES];
+		this.mlpScratch = new double[CompiledMlp.getInstance().getScratchLength()];
+	}
+
+	/* Clears the results of the previous computation before reuse */
+	public void reset() {
+		this.minutiae.get().clear();
+		Arrays.fill(this.featureVector, 0.0d);
+		Arrays.fill(this.outAcs, 0.0d);
+	}
+
+	public Maps getMaps() {
+		return maps;
+	}
+
+	public Quality getQuality() {
+		return quality;
+	}
+
+	public AtomicReference<Minutiae> getMinutiae() {
+		return minutiae;
+	}
+
+	public double[] getFeatureVector() {
+		return featureVector;
+	}
+
+	public double[] getOutAcs() {
+		return outAcs;
+	}
+
+	boolean isInUse() {
+		return inUse;
+	}
+
+	void setInUse(boolean inUse) {
+		this.inUse = inUse;
+	}
+
+	/* MLP working buffer, grown when a larger model is used */
+	public double[] getMlpScratch(final int length) {
+		if (mlpScratch.length < length)
+			mlpScratch = new double[length];
+		return mlpScratch;
+	}
+}
@@ -0,0 +1,183 @@
+package org.mosip.nist.nfiq1;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.common.INfiq.INfiqEngine;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqEngine - Thread-safe NFIQ computation.  Unlike the singleton
+#cat:             backed maps used by earlier releases, every call runs
+#cat:             on its own NfiqContext, so a single engine may be
+#cat:             shared by many threads scoring images at the same time.
+#cat:             A thread may also re-enter the engine while scoring:
+#cat:             a ForkJoin worker waiting on the map pool may run
+#cat:             another image's task, which then gets a context of
+#cat:             its own.  Results are identical to
+#cat:             Nfiq1Helper.computeNfiq.
+************************************************************************/
+public class NfiqEngine extends Nfiq1Helper implements INfiqEngine {
+	private final boolean showLogs;
+	private final ForkJoinPool pool;
+	/* One reusable context per calling thread */
+	private final ThreadLocal<NfiqContext> contexts;
+	/* Contexts lent to computations nested on a thread whose own */
+	/* context is in use, returned when they end                   */
+	private final ConcurrentLinkedQueue<NfiqContext> spareContexts = new ConcurrentLinkedQueue<NfiqContext>();
+
+	public NfiqEngine() {
+		this(false);
+	}
+
+	/* Each image is scored serially on the calling thread */
+	public NfiqEngine(boolean showLogs) {
+		this(showLogs, null);
+	}
+
+	/* Each image is also split across the threads of pool, when not null. */
+	/* The pool may be the one the images are scored on, as by NfiqBatch: */
+	/* the threads that wait on it re-enter the engine safely.             */
+	public NfiqEngine(boolean showLogs, ForkJoinPool pool) {
+		super();
+		this.showLogs = showLogs;
+		this.pool = pool;
+		this.contexts = ThreadLocal.withInitial(() -> new NfiqContext(pool));
+	}
+
+	/* Threads each image is split across, or null */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/* The calling thread's context, or a spare one when it is in use */
+	private NfiqContext acquireContext() {
+		NfiqContext context = contexts.get();
+		if (context.isInUse())
+		{
+			context = spareContexts.poll();
+			if (context == null)
+				context = new NfiqContext(pool);
+		}
+		context.setInUse(true);
+		return context;
+	}
+
+	private void releaseContext(NfiqContext context) {
+		context.setInUse(false);
+		if (context != contexts.get())
+			spareContexts.offer(context);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Computes NFIQ of an image using default Z-Norm
+	#cat:             statistics and MLP weights, on the calling thread's
+	#cat:             own context.
+	   Input:
+	      imageData       - grayscale fingerprint image data
+	      imageWidth      - image pixel width
+	      imageHeight     - image pixel height
+	      imageDepth      - image pixel depth (should always be 8)
+	      imagePPI        - image scan density in pix/inch
+	                    If scan density is unknown (pass in -1),
+	                    then default density of 500ppi is used.
+	   Output:
+	      oNfiq       - resulting NFIQ value
+	      oConf       - max output class MLP activation
+	   Return Code:
+	      Zero        - successful completion
+	      EMPTY_IMG   - empty image detected (feature vector set to 0's)
+	      TOO_FEW_MINUTIAE - too few minutiae detected from fingerprint image
+	      Negative    - system error
+	************************************************************************/
+	public int computeNfiq(AtomicInteger oNfiq, AtomicReference<Double> oConf, int [] imageData,
+		final int imageWidth, final int imageHeight, final int imageDepth, final int imagePPI) {
+		NfiqContext context = acquireContext();
+		try
+		{
+			return computeNfiq(context, oNfiq, oConf, imageData,
+				imageWidth, imageHeight, imageDepth, imagePPI);
+		}
+		finally
+		{
+			releaseContext(context);
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Same as above, for an NfiqImage, returning the
+	#cat:             return code, NFIQ value and confidence together.
+	************************************************************************/
+	public NfiqResult computeNfiq(NfiqImage image) {
+		AtomicInteger oNfiq = new AtomicInteger(0);
+		AtomicReference<Double> oConf = new AtomicReference<Double>(0.0d);
+		int ret;
+		if (image.getByteImage() != null)
+			ret = computeNfiq(oNfiq, oConf, image.getByteImage(), 
+				image.getImageDepth(), image.getImagePPI());
+		else
+			ret = computeNfiq(oNfiq, oConf, image.getImageData(),
+				image.getImageWidth(), image.getImageHeight(), image.getImageDepth(), image.getImagePPI());
+		return new NfiqResult(ret, oNfiq.get(), oConf.get());
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Same as above, for an image of one byte per pixel
+	#cat:             on the calling thread's own context.
+	************************************************************************/
+	public int computeNfiq(AtomicInteger oNfiq, AtomicReference<Double> oConf, ByteImage image,
+		final int imageDepth, final int imagePPI) {
+		NfiqContext context = acquireContext();
+		try
+		{
+			return computeNfiq(context, oNfiq, oConf, image, imageDepth, imagePPI);
+		}
+		finally
+		{
+			releaseContext(context);
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Same as above, on a caller supplied context.
+	************************************************************************/
+	public int computeNfiq(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, ByteImage image,
+		final int imageDepth, final int imagePPI) {
+		setShowLogs (showLogs);
+		return computeNfiqFlex(context, oNfiq, oConf, image, imageDepth, imagePPI,
+				getNfiqGlobals().getDfltZnormMeans(),
+				getNfiqGlobals().getDfltZnormStds(),
+				getNfiqGlobals().getDfltNInps(),
+				getNfiqGlobals().getDfltNHids(),
+				getNfiqGlobals().getDfltNOuts(),
+				getNfiqGlobals().getDfltAcFuncHids(),
+				getNfiqGlobals().getDfltAcFuncOuts(),
+				getNfiqGlobals().getDfltWts());
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: computeNfiq - Same as above, on a caller supplied context.
+	************************************************************************/
+	public int computeNfiq(NfiqContext context, AtomicInteger oNfiq, AtomicReference<Double> oConf, int [] imageData,
+		final int imageWidth, final int imageHeight, final int imageDepth, final int imagePPI) {
+		setShowLogs (showLogs);
+		return computeNfiqFlex(context, oNfiq, oConf, imageData,
+				imageWidth, imageHeight, imageDepth, imagePPI,
+				getNfiqGlobals().getDfltZnormMeans(),
+				getNfiqGlobals().getDfltZnormStds(),
+				getNfiqGlobals().getDfltNInps(),
+				getNfiqGlobals().getDfltNHids(),
+				getNfiqGlobals().getDfltNOuts(),
+				getNfiqGlobals().getDfltAcFuncHids(),
+				getNfiqGlobals().getDfltAcFuncOuts(),
+				getNfiqGlobals().getDfltWts());
+	}
+}
@@ -0,0 +1,65 @@
+package org.mosip.nist.nfiq1;
+
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqImage - Decoded grayscale fingerprint image to be scored,
+#cat:             held either as one int or as one byte per pixel.
+#cat:             The pixel array is not copied and must not be modified
+#cat:             while a computation is running on it.
+************************************************************************/
+public class NfiqImage {
+	private final int[] imageData;
+	private final ByteImage byteImage;
+	private final int imageWidth;
+	private final int imageHeight;
+	private final int imageDepth;
+	private final int imagePPI;
+
+	public NfiqImage(int[] imageData, int imageWidth, int imageHeight, int imageDepth, int imagePPI) {
+		super();
+		this.imageData = imageData;
+		this.byteImage = null;
+		this.imageWidth = imageWidth;
+		this.imageHeight = imageHeight;
+		this.imageDepth = imageDepth;
+		this.imagePPI = imagePPI;
+	}
+
+	public NfiqImage(ByteImage byteImage, int imageDepth, int imagePPI) {
+		super();
+		this.imageData = null;
+		this.byteImage = byteImage;
+		this.imageWidth = byteImage.getWidth();
+		this.imageHeight = byteImage.getHeight();
+		this.imageDepth = imageDepth;
+		this.imagePPI = imagePPI;
+	}
+
+	/* Pixels of an int backed image, null when byte backed */
+	public int[] getImageData() {
+		return imageData;
+	}
+
+	/* Pixels of a byte backed image, null when int backed */
+	public ByteImage getByteImage() {
+		return byteImage;
+	}
+
+	public int getImageWidth() {
+		return imageWidth;
+	}
+
+	public int getImageHeight() {
+		return imageHeight;
+	}
+
+	public int getImageDepth() {
+		return imageDepth;
+	}
+
+	public int getImagePPI() {
+		return imagePPI;
+	}
+}
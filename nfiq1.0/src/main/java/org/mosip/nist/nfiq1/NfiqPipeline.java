@@ -0,0 +1,395 @@
+package org.mosip.nist.nfiq1;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+import org.mosip.nist.nfiq1.imagetools.DecodedImage;
+import org.mosip.nist.nfiq1.imagetools.ImageDecoder;
+import org.mosip.nist.nfiq1.mindtct.Detect;
+import org.mosip.nist.nfiq1.util.ImageUtil;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqPipeline - Scores a stream of images in overlapping stages:
+#cat:             decode, convert, maps, binarize, detect and classify.
+#cat:             Stages are joined by bounded queues and each stage has
+#cat:             its own number of threads, so JPEG2000/WSQ decoding,
+#cat:             DFT map generation and minutia detection of different
+#cat:             images run at the same time.  Every image carries its
+#cat:             own NfiqContext through the stages, and its results
+#cat:             are identical to Nfiq1Helper.computeNfiq.
+************************************************************************/
+public class NfiqPipeline implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(NfiqPipeline.class);	
+
+	private final NfiqEngine engine;
+	private final LfsParams lfsParams;
+	private final Stage decodeStage, convertStage, mapStage, binarizeStage, detectStage, classifyStage;
+	private final List<Thread> threads = new ArrayList<Thread>();
+	private volatile boolean closed;
+
+	/***********************************************************************
+	   Input:
+	      decodeThreads    - threads decoding ISO 19794-4 records
+	      convertThreads   - threads converting decoded rasters to pixels
+	      mapThreads       - threads padding images and generating maps
+	      binarizeThreads  - threads binarizing images
+	      detectThreads    - threads detecting/removing minutiae, counting
+	                         ridges and building quality maps
+	      classifyThreads  - threads computing feature vectors and MLP
+	      queueCapacity    - capacity of the queue in front of each stage
+	************************************************************************/
+	public NfiqPipeline(int decodeThreads, int convertThreads, int mapThreads, int binarizeThreads, 
+		int detectThreads, int classifyThreads, int queueCapacity) {
+		super();
+		this.engine = new NfiqEngine();
+		this.lfsParams = engine.getGlobals().getLfsParamsV2();
+
+		/* Built back to front, each stage hands its jobs to the next one */
+		this.classifyStage = new Stage("classify", classifyThreads, queueCapacity, null, this::classify);
+		this.detectStage = new Stage("detect", detectThreads, queueCapacity, classifyStage, this::detect);
+		this.binarizeStage = new Stage("binarize", binarizeThreads, queueCapacity, detectStage, this::binarize);
+		this.mapStage = new Stage("maps", mapThreads, queueCapacity, binarizeStage, this::genMaps);
+		this.convertStage = new Stage("convert", convertThreads, queueCapacity, mapStage, this::convert);
+		this.decodeStage = new Stage("decode", decodeThreads, queueCapacity, convertStage, this::decode);
+	}
+
+	/* Queues an ISO 19794-4 record; blocks while the decode queue is full */
+	public Future<NfiqResult> submit(byte[] isoData) throws InterruptedException {
+		Job job = new Job();
+		job.isoData = isoData;
+		return enqueue(decodeStage, job);
+	}
+
+	/* Queues an already decoded image, which enters at the maps stage */
+	public Future<NfiqResult> submit(NfiqImage image) throws InterruptedException {
+		Job job = new Job();
+		job.imageData = image.getImageData();
+		job.image = image.getByteImage();
+		job.imageWidth = image.getImageWidth();
+		job.imageHeight = image.getImageHeight();
+		job.imageDepth = image.getImageDepth();
+		job.imagePPI = image.getImagePPI();
+		return enqueue(mapStage, job);
+	}
+
+	private Future<NfiqResult> enqueue(Stage stage, Job job) throws InterruptedException {
+		if (closed)
+		{
+			job.cancel();
+			return job.result;
+		}
+		stage.queue.put(job);
+		/* A put racing close may land after close drained the queue */
+		if (closed)
+		{
+			stage.cancelQueued();
+		}
+		return job.result;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: process - Scores a batch of ISO 19794-4 records through the
+	#cat:             pipeline and waits for all of them.
+	   Input:
+	      isoRecords  - ISO 19794-4 finger image records
+	   Return:
+	      results     - one NfiqResult per record, in input order
+	************************************************************************/
+	public List<NfiqResult> process(List<byte[]> isoRecords) throws InterruptedException, ExecutionException {
+		List<Future<NfiqResult>> futures = new ArrayList<Future<NfiqResult>>(isoRecords.size());
+		for (byte[] isoData : isoRecords)
+		{
+			futures.add(submit(isoData));
+		}
+		List<NfiqResult> results = new ArrayList<NfiqResult>(futures.size());
+		for (Future<NfiqResult> future : futures)
+		{
+			results.add(future.get());
+		}
+		return results;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: close - Stops every stage thread, waiting for the jobs being
+	#cat:             worked on to leave their stage.  Jobs still queued,
+	#cat:             or submitted afterwards, complete exceptionally with
+	#cat:             a CancellationException.
+	************************************************************************/
+	public void close() {
+		closed = true;
+		for (Thread thread : threads)
+		{
+			thread.interrupt();
+		}
+		boolean interrupted = false;
+		for (Thread thread : threads)
+		{
+			while (thread != Thread.currentThread() && thread.isAlive())
+			{
+				try
+				{
+					thread.join();
+				}
+				catch (InterruptedException e)
+				{
+					interrupted = true;
+				}
+			}
+		}
+		for (Stage stage : new Stage[] {decodeStage, convertStage, mapStage, binarizeStage, detectStage, classifyStage})
+		{
+			stage.cancelQueued();
+		}
+		if (interrupted)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private boolean decode(Job job) {
+		/* A malformed record fails on its own, not the whole batch */
+		DecodedImage decoded = ImageDecoder.getInstance().decodeGrayscaleImage(job.isoData);
+		job.isoData = null;
+		if (decoded.getReturnCode() != ILfs.FALSE)
+		{
+			return job.fail(decoded.getReturnCode());
+		}
+		job.bufferedImage = decoded.getImage();
+		job.imageWidth = decoded.getWidth();
+		job.imageHeight = decoded.getHeight();
+		job.imageDepth = decoded.getDepth();
+		job.imagePPI = decoded.getPPI();
+		return true;
+	}
+
+	private boolean convert(Job job) throws Exception {
+		job.image = ImageUtil.convertToByteImage(job.bufferedImage);
+		job.bufferedImage = null;
+		return true;
+	}
+
+	private boolean genMaps(Job job) {
+		AtomicInteger ret = new AtomicInteger(0);
+		AtomicInteger paddedImageWidth = new AtomicInteger(0), paddedImageHeight = new AtomicInteger(0);
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+
+		job.context.reset();
+		/* If input image is not 8-bit grayscale ... */
+		if (job.imageDepth != ILfs.IMAGE_DEPTH)
+		{
+			return job.fail(ILfs.ERROR_CODE_02);
+		}
+		long startTime = metrics.start();
+		if (job.image != null)
+			job.paddedImageData = getDetect().lfsPadImageV2(ret, paddedImageWidth, paddedImageHeight, 
+				job.image, lfsParams);
+		else
+			job.paddedImageData = getDetect().lfsPadImageV2(ret, paddedImageWidth, paddedImageHeight, 
+				job.imageData, job.imageWidth, job.imageHeight, lfsParams);
+		metrics.stop(NfiqMetrics.Stage.PAD, startTime);
+		if (ret.get() != ILfs.FALSE)
+		{
+			return job.fail(ret.get());
+		}
+		job.paddedImageWidth = paddedImageWidth.get();
+		job.paddedImageHeight = paddedImageHeight.get();
+		startTime = metrics.start();
+		ret.set(getDetect().lfsGenImageMapsV2(job.context.getMaps(), job.paddedImageData, 
+			job.paddedImageWidth, job.paddedImageHeight, job.imageWidth, job.imageHeight, lfsParams));
+		metrics.stop(NfiqMetrics.Stage.MAPS, startTime);
+		if (ret.get() != ILfs.FALSE)
+		{
+			return job.fail(ret.get());
+		}
+		return true;
+	}
+
+	private boolean binarize(Job job) {
+		AtomicInteger ret = new AtomicInteger(0);
+		AtomicInteger binarizedImageWidth = new AtomicInteger(0), binarizedImageHeight = new AtomicInteger(0);
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+		long startTime = metrics.start();
+
+		job.binarizedImageData = getDetect().lfsBinarizeV2(ret, binarizedImageWidth, binarizedImageHeight, 
+			job.context.getMaps(), job.paddedImageData, job.paddedImageWidth, job.paddedImageHeight, 
+			job.imageWidth, job.imageHeight, lfsParams);
+		metrics.stop(NfiqMetrics.Stage.BINARIZE, startTime);
+		job.paddedImageData = null;
+		if (ret.get() != ILfs.FALSE)
+		{
+			return job.fail(ret.get());
+		}
+		return true;
+	}
+
+	private boolean detect(Job job) {
+		NfiqContext context = job.context;
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+		int ret;
+
+		long startTime = metrics.start();
+		ret = getDetect().lfsDetectV2(context.getMinutiae(), context.getMaps(), job.binarizedImageData, 
+			job.imageWidth, job.imageHeight, lfsParams);
+		metrics.stop(NfiqMetrics.Stage.DETECT, startTime);
+		if (ret == ILfs.FALSE)
+		{
+			startTime = metrics.start();
+			ret = getDetect().lfsRemoveFalseMinutiaV2(context.getMinutiae(), context.getMaps(), job.binarizedImageData, 
+				job.imageWidth, job.imageHeight, lfsParams);
+			metrics.stop(NfiqMetrics.Stage.REMOVE, startTime);
+		}
+		if (ret == ILfs.FALSE)
+		{
+			/* NFIQ never reads neighbour ridge counts */
+			startTime = metrics.start();
+			ret = getDetect().lfsRemoveRedundantMinutiaV2(context.getMinutiae(), context.getMaps(), 
+				job.imageWidth, job.imageHeight);
+			metrics.stop(NfiqMetrics.Stage.REMOVE_REDUNDANT, startTime);
+		}
+		job.binarizedImageData = null;
+		if (ret == ILfs.FALSE && job.image != null)
+		{
+			ret = engine.getGetMinutiae().getMinutiaeQuality(context.getMinutiae(), context.getMaps(), context.getQuality(), 
+				job.image, job.imageDepth, engine.getImagePPMM(job.imagePPI), lfsParams);
+		}
+		else if (ret == ILfs.FALSE)
+		{
+			ret = engine.getGetMinutiae().getMinutiaeQuality(context.getMinutiae(), context.getMaps(), context.getQuality(), 
+				job.imageData, job.imageWidth, job.imageHeight, job.imageDepth, engine.getImagePPMM(job.imagePPI), lfsParams);
+		}
+		if (ret != ILfs.FALSE)
+		{
+			return job.fail(ret);
+		}
+		job.imageData = null;
+		job.image = null;
+		return true;
+	}
+
+	private boolean classify(Job job) {
+		AtomicInteger nfiq = new AtomicInteger(0);
+		AtomicReference<Double> conf = new AtomicReference<Double>(0.0d);
+		Nfiq1Globals globals = engine.getNfiqGlobals();
+
+		int ret = engine.classifyNfiq(job.context, nfiq, conf, 
+			globals.getDfltZnormMeans(), globals.getDfltZnormStds(), 
+			globals.getDfltNInps(), globals.getDfltNHids(), globals.getDfltNOuts(), 
+			globals.getDfltAcFuncHids(), globals.getDfltAcFuncOuts(), globals.getDfltWts());
+		job.result.complete(new NfiqResult(ret, nfiq.get(), conf.get()));
+		return false;
+	}
+
+	private Detect getDetect() {
+		return Detect.getInstance();
+	}
+
+	/* State of one image as it travels through the stages */
+	private static class Job {
+		private final CompletableFuture<NfiqResult> result = new CompletableFuture<NfiqResult>();
+		private final NfiqContext context = new NfiqContext();
+		private byte[] isoData;
+		private BufferedImage bufferedImage;
+		/* Grayscale image, one byte per pixel unless submitted as ints */
+		private ByteImage image;
+		private int[] imageData;
+		/* Padded and binarized images queued between the maps, binarize */
+		/* and detect stages.  They stay ints, as the DFT, binarization  */
+		/* and detection code reads them, until those stages gain byte   */
+		/* overloads; narrowing them here would only add a copy per stage */
+		private int[] paddedImageData, binarizedImageData;
+		private int imageWidth, imageHeight, imageDepth, imagePPI;
+		private int paddedImageWidth, paddedImageHeight;
+
+		/* Completes the job with an error code, it goes no further */
+		private boolean fail(int returnCode) {
+			result.complete(new NfiqResult(returnCode, 0, 0.0d));
+			return false;
+		}
+
+		/* Completes the job as abandoned by a closed pipeline */
+		private void cancel() {
+			result.completeExceptionally(new CancellationException("NfiqPipeline closed"));
+		}
+	}
+
+	private interface StageTask {
+		/* Returns true to pass the job on to the next stage */
+		boolean run(Job job) throws Exception;
+	}
+
+	private class Stage {
+		private final BlockingQueue<Job> queue;
+
+		Stage(String name, int threadCount, int queueCapacity, Stage next, StageTask task) {
+			this.queue = new ArrayBlockingQueue<Job>(queueCapacity);
+			for (int index = 0; index < threadCount; index++)
+			{
+				Thread thread = new Thread(() -> work(next, task), "nfiq-" + name + "-" + index);
+				thread.setDaemon(true);
+				threads.add(thread);
+				thread.start();
+			}
+		}
+
+		private void work(Stage next, StageTask task) {
+			Nist.setShowLogs(false);
+			try
+			{
+				while (!Thread.currentThread().isInterrupted())
+				{
+					Job job = queue.take();
+					try
+					{
+						if (task.run(job))
+						{
+							next.queue.put(job);
+						}
+					}
+					catch (InterruptedException e)
+					{
+						job.cancel();
+						throw e;
+					}
+					catch (Throwable e)
+					{
+						/* Errors fail the job, not the stage: the thread */
+						/* stays to serve the jobs queued behind it.       */
+						LOGGER.error(String.format("Error Message %s", e.getMessage()), e);
+						job.result.completeExceptionally(e);
+					}
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/* Completes every job left in the queue as cancelled */
+		private void cancelQueued() {
+			Job job;
+			while ((job = queue.poll()) != null)
+			{
+				job.cancel();
+			}
+		}
+	}
+}
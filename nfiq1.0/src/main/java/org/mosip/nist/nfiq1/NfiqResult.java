@@ -0,0 +1,38 @@
+package org.mosip.nist.nfiq1;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqResult - Outcome of scoring one image.
+#cat:             returnCode follows computeNfiq: zero on success,
+#cat:             EMPTY_IMG / TOO_FEW_MINUTIAE with the corresponding
+#cat:             NFIQ value set, negative on system error.
+************************************************************************/
+public class NfiqResult {
+	private final int returnCode;
+	private final int nfiq;
+	private final double confidence;
+
+	public NfiqResult(int returnCode, int nfiq, double confidence) {
+		super();
+		this.returnCode = returnCode;
+		this.nfiq = nfiq;
+		this.confidence = confidence;
+	}
+
+	public int getReturnCode() {
+		return returnCode;
+	}
+
+	public int getNfiq() {
+		return nfiq;
+	}
+
+	public double getConfidence() {
+		return confidence;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("NFIQ=%d\tConf=%4.6f", nfiq, confidence);
+	}
+}
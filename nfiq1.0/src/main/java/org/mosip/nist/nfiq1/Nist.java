@@ -2,15 +2,18 @@ package org.mosip.nist.nfiq1;
 
 import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import org.mosip.nist.nfiq1.common.ILfs.BlockMap;
+
 public class Nist extends Object {
-	private static boolean bShowLogs = true;
+	/* Kept per thread so concurrent callers can choose their own logging. */
+	private static final ThreadLocal<Boolean> bShowLogs = ThreadLocal.withInitial(() -> Boolean.TRUE);
 	
 	public static boolean isShowLogs() {
-		return Nist.bShowLogs;
+		return Nist.bShowLogs.get();
 	}
 
 	public static void setShowLogs(boolean bShowLogs) {
-		Nist.bShowLogs = bShowLogs;
+		Nist.bShowLogs.set(bShowLogs);
 	}
 
 	public static int getPixelValueFromAtomicArray(AtomicIntegerArray data, int bx, int by, int iw, int ih)
@@ -18,6 +21,11 @@ public class Nist extends Object {
 		return data.get(0 + (by * iw) + bx);
 	}
 
+	public static int getPixelValueFromBlockMap(BlockMap data, int bx, int by, int iw, int ih)
+	{
+		return data.get(0 + (by * iw) + bx);
+	}
+
 	public static int getPixelValueFromByteArray(byte[] data, int bx, int by, int iw, int ih)
 	{
 		return data [0 + (by * iw) + bx];
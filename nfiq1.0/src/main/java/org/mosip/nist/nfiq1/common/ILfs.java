@@ -3,14 +3,19 @@ package org.mosip.nist.nfiq1.common;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 import org.mosip.nist.nfiq1.mindtct.Contour;
+import org.mosip.nist.nfiq1.mindtct.ImageStats;
 import org.mosip.nist.nfiq1.mindtct.Maps;
+import org.mosip.nist.nfiq1.mindtct.MinutiaGrid;
 import org.mosip.nist.nfiq1.mindtct.Quality;
 
 public interface ILfs {
@@ -66,6 +71,14 @@ public interface ILfs {
 	public static final int NIST_INTERNAL_XYT_REP = 0;
 	public static final int M1_XYT_REP = 1;
 
+	/*************************************************************************/
+	/*        DETECTION MODES OF lfsDetectMinutiaeV2                         */
+	/*************************************************************************/
+	/* Full MINDTCT template: neighbours, ridge counts and [0,255] binary image */
+	public static final int DETECT_MODE_MINDTCT = 0;
+	/* NFIQ scoring: only the minutiae, maps and reliabilities NFIQ reads */
+	public static final int DETECT_MODE_NFIQ = 1;
+
 	public static final double M_PI = Math.PI;//3.14159265358979323846; // pi
 
 	/*************************************************************************/
@@ -646,6 +659,123 @@ public interface ILfs {
 		}
 	}
 
+	/* Image map holding one value per block (or per pixel once   */
+	/* pixelized) in a plain array.  get/set/length follow the     */
+	/* AtomicIntegerArray the maps used to be stored in.           */
+	public interface BlockMap
+	{
+		public int get(int index);
+		public void set(int index, int value);
+		public int length();
+		public void fill(int value);
+	}
+
+	/* Block map of small signed values: directions (INVALID_DIR  */
+	/* up to NUM_DIRECTIONS-1) and quality levels (0..4).         */
+	public final class ByteBlockMap implements BlockMap
+	{
+		private final byte[] values;
+		private final int length;
+
+		public ByteBlockMap(int length) {
+			this(new byte[length], length);
+		}
+		/* Map over the first length values of the given array */
+		public ByteBlockMap(byte[] values, int length) {
+			super();
+			this.values = values;
+			this.length = length;
+		}
+		public int get(int index) {
+			return values[index];
+		}
+		public void set(int index, int value) {
+			values[index] = (byte)value;
+		}
+		public int length() {
+			return length;
+		}
+		public void fill(int value) {
+			Arrays.fill(values, 0, length, (byte)value);
+		}
+		public byte[] getValues() {
+			return values;
+		}
+	}
+
+	/* Block map of TRUE/FALSE flags packed 64 to a long. */
+	public final class BitBlockMap implements BlockMap
+	{
+		private final long[] words;
+		private final int length;
+
+		public BitBlockMap(int length) {
+			this(new long[(length + 63) >>> 6], length);
+		}
+		/* Map over the first length bits of the given words */
+		public BitBlockMap(long[] words, int length) {
+			super();
+			this.length = length;
+			this.words = words;
+		}
+		/* Returns TRUE (1) or FALSE (0) */
+		public int get(int index) {
+			return (int)(words[index >>> 6] >>> index) & 1;
+		}
+		/* Any non-zero value sets the flag */
+		public void set(int index, int value) {
+			if (value != FALSE)
+				words[index >>> 6] |= 1L << index;
+			else
+				words[index >>> 6] &= ~(1L << index);
+		}
+		public int length() {
+			return length;
+		}
+		public void fill(int value) {
+			Arrays.fill(words, 0, (length + 63) >>> 6, value != FALSE ? -1L : 0L);
+		}
+		public long[] getWords() {
+			return words;
+		}
+	}
+
+	/* Read-only pixel view of a block map: get(x, y) returns the */
+	/* value pixelizeMap would have stored for pixel (x, y),      */
+	/* without expanding the map to one value per pixel.  Pixels  */
+	/* of the overlapping "left-over" last column and row of      */
+	/* blocks belong to that last block, as it is written last.   */
+	public final class PixelBlockMap
+	{
+		private final BlockMap blockMap;
+		private final int mapWidth;
+		private final int mapHeight;
+		private final int lastBlockX;
+		private final int lastBlockY;
+		private final int blockSize;
+
+		public PixelBlockMap(BlockMap blockMap, final int mapWidth, final int mapHeight, 
+			final int imageWidth, final int imageHeight, final int blockSize) {
+			super();
+			this.blockMap = blockMap;
+			this.mapWidth = mapWidth;
+			this.mapHeight = mapHeight;
+			this.blockSize = blockSize;
+			/* Pixel origins of the last column and row of blocks */
+			this.lastBlockX = imageWidth - blockSize;
+			this.lastBlockY = imageHeight - blockSize;
+		}
+		/* Index in the block map of the block holding pixel (x, y) */
+		public int getBlockIndex(final int x, final int y) {
+			int bx = (x >= lastBlockX) ? (mapWidth - 1) : (x / blockSize);
+			int by = (y >= lastBlockY) ? (mapHeight - 1) : (y / blockSize);
+			return (by * mapWidth) + bx;
+		}
+		public int get(final int x, final int y) {
+			return blockMap.get(getBlockIndex(x, y));
+		}
+	}
+
 	public class Minutia
 	{
 		private int x;
@@ -727,9 +857,14 @@ public interface ILfs {
 		public AtomicIntegerArray getRidgeCounts() {
 			return ridgeCounts;
 		}
-		public void setRidgeCcounts(AtomicIntegerArray ridgeCounts) {
+		public void setRidgeCounts(AtomicIntegerArray ridgeCounts) {
 			this.ridgeCounts = ridgeCounts;
 		}
+		/** @deprecated misspelt, use {@link #setRidgeCounts(AtomicIntegerArray)} */
+		@Deprecated
+		public void setRidgeCcounts(AtomicIntegerArray ridgeCounts) {
+			setRidgeCounts(ridgeCounts);
+		}
 		public int getNumNbrs() {
 			return numNbrs;
 		}
@@ -748,46 +883,310 @@ public interface ILfs {
 	{
 		private int alloc;
 		private int num;
-		private List<Minutia> list;
+		/* One column per attribute, indexed by minutia.              */
+		private int[] x;
+		private int[] y;
+		private int[] ex;
+		private int[] ey;
+		private int[] direction;
+		private double[] reliability;
+		private int[] type;
+		private int[] appearing;
+		private int[] featureId;
+		/* Neighbours in compressed rows: the neighbours of minutia i */
+		/* are nbrs[nbrStart[i]] .. nbrs[nbrStart[i] + numNbrs[i] - 1] */
+		/* with their ridge counts at the same positions.            */
+		private int[] nbrStart;
+		private int[] numNbrs;
+		private int[] nbrs;
+		private int[] ridgeCounts;
+		private int nbrsUsed;
 		
 		public Minutiae() {
 			super();
+			allocate(0);
 		}
 
 		public Minutiae(int alloc, int num) {
 			super();
-			this.alloc = alloc;
+			allocate(alloc);
 			this.num = num;
-			this.list = new ArrayList<Minutia>(alloc);
+		}
+
+		/* Allocates empty columns for alloc minutiae, dropping any   */
+		/* previously stored minutiae.                                */
+		public void allocate(int alloc) {
+			this.alloc = alloc;
+			this.num = 0;
+			this.x = new int[alloc];
+			this.y = new int[alloc];
+			this.ex = new int[alloc];
+			this.ey = new int[alloc];
+			this.direction = new int[alloc];
+			this.reliability = new double[alloc];
+			this.type = new int[alloc];
+			this.appearing = new int[alloc];
+			this.featureId = new int[alloc];
+			this.nbrStart = new int[alloc];
+			this.numNbrs = new int[alloc];
+			this.nbrs = new int[0];
+			this.ridgeCounts = new int[0];
+			this.nbrsUsed = 0;
+		}
+
+		/* Grows the columns to hold at least alloc minutiae. */
+		public void ensureCapacity(int alloc) {
+			if (alloc <= this.alloc)
+				return;
+			this.alloc = alloc;
+			this.x = Arrays.copyOf(this.x, alloc);
+			this.y = Arrays.copyOf(this.y, alloc);
+			this.ex = Arrays.copyOf(this.ex, alloc);
+			this.ey = Arrays.copyOf(this.ey, alloc);
+			this.direction = Arrays.copyOf(this.direction, alloc);
+			this.reliability = Arrays.copyOf(this.reliability, alloc);
+			this.type = Arrays.copyOf(this.type, alloc);
+			this.appearing = Arrays.copyOf(this.appearing, alloc);
+			this.featureId = Arrays.copyOf(this.featureId, alloc);
+			this.nbrStart = Arrays.copyOf(this.nbrStart, alloc);
+			this.numNbrs = Arrays.copyOf(this.numNbrs, alloc);
+		}
+
+		/* Removes all minutiae, keeping the allocated columns. */
+		public void clear() {
+			this.num = 0;
+			this.nbrsUsed = 0;
+		}
+
+		/* Appends a minutia at the end of the list and returns its index. */
+		public int add(final int x, final int y, final int ex, final int ey, final int direction,
+			final double reliability, final int type, final int appearing, final int featureId) {
+			if (this.num >= this.alloc)
+				ensureCapacity(Math.max(this.alloc + MAX_MINUTIAE, 1));
+			int index = this.num++;
+			this.x[index] = x;
+			this.y[index] = y;
+			this.ex[index] = ex;
+			this.ey[index] = ey;
+			this.direction[index] = direction;
+			this.reliability[index] = reliability;
+			this.type[index] = type;
+			this.appearing[index] = appearing;
+			this.featureId[index] = featureId;
+			this.nbrStart[index] = 0;
+			this.numNbrs[index] = 0;
+			return index;
+		}
+
+		public int add(final Minutia minutia) {
+			int index = add(minutia.getX(), minutia.getY(), minutia.getEx(), minutia.getEy(),
+				minutia.getDirection(), minutia.getReliability(), minutia.getType(),
+				minutia.getAppearing(), minutia.getFeatureId());
+			int noOfNbrs = minutia.getNumNbrs();
+			if (noOfNbrs > 0)
+			{
+				int[] nbrList = new int[noOfNbrs];
+				int[] nbrRidgeCounts = new int[noOfNbrs];
+				for (int n = 0; n < noOfNbrs; n++)
+				{
+					nbrList[n] = minutia.getNbrs().get(n);
+					nbrRidgeCounts[n] = minutia.getRidgeCounts().get(n);
+				}
+				setNbrs(index, nbrList, nbrRidgeCounts, noOfNbrs);
+			}
+			return index;
+		}
+
+		/* Removes the minutia at index, sliding the rest of the list up. */
+		public void remove(final int index) {
+			int length = this.num - index - 1;
+			if (length > 0)
+			{
+				System.arraycopy(this.x, index + 1, this.x, index, length);
+				System.arraycopy(this.y, index + 1, this.y, index, length);
+				System.arraycopy(this.ex, index + 1, this.ex, index, length);
+				System.arraycopy(this.ey, index + 1, this.ey, index, length);
+				System.arraycopy(this.direction, index + 1, this.direction, index, length);
+				System.arraycopy(this.reliability, index + 1, this.reliability, index, length);
+				System.arraycopy(this.type, index + 1, this.type, index, length);
+				System.arraycopy(this.appearing, index + 1, this.appearing, index, length);
+				System.arraycopy(this.featureId, index + 1, this.featureId, index, length);
+				System.arraycopy(this.nbrStart, index + 1, this.nbrStart, index, length);
+				System.arraycopy(this.numNbrs, index + 1, this.numNbrs, index, length);
+			}
+			this.num--;
+		}
+
+		/* Rearranges the list so that minutia i becomes the one  */
+		/* previously stored at order[i].                         */
+		public void reorder(final int[] order) {
+			this.x = permute(this.x, order);
+			this.y = permute(this.y, order);
+			this.ex = permute(this.ex, order);
+			this.ey = permute(this.ey, order);
+			this.direction = permute(this.direction, order);
+			this.type = permute(this.type, order);
+			this.appearing = permute(this.appearing, order);
+			this.featureId = permute(this.featureId, order);
+			this.nbrStart = permute(this.nbrStart, order);
+			this.numNbrs = permute(this.numNbrs, order);
+			double[] reordered = new double[this.alloc];
+			for (int i = 0; i < this.num; i++)
+				reordered[i] = this.reliability[order[i]];
+			this.reliability = reordered;
+		}
+
+		private int[] permute(final int[] column, final int[] order) {
+			int[] reordered = new int[this.alloc];
+			for (int i = 0; i < this.num; i++)
+				reordered[i] = column[order[i]];
+			return reordered;
 		}
 
 		public int getAlloc() {
 			return alloc;
 		}
 	
-		public void setAlloc(int alloc) {
-			this.alloc = alloc;
-		}
-	
 		public int getNum() {
 			return num;
 		}
 	
-		public void setNum(int num) {
-			this.num = num;
+		public int getX(final int index) {
+			return x[index];
+		}
+		public void setX(final int index, final int x) {
+			this.x[index] = x;
+		}
+		public int getY(final int index) {
+			return y[index];
+		}
+		public void setY(final int index, final int y) {
+			this.y[index] = y;
+		}
+		public int getEx(final int index) {
+			return ex[index];
+		}
+		public void setEx(final int index, final int ex) {
+			this.ex[index] = ex;
+		}
+		public int getEy(final int index) {
+			return ey[index];
+		}
+		public void setEy(final int index, final int ey) {
+			this.ey[index] = ey;
+		}
+		public int getDirection(final int index) {
+			return direction[index];
+		}
+		public void setDirection(final int index, final int direction) {
+			this.direction[index] = direction;
+		}
+		public double getReliability(final int index) {
+			return reliability[index];
+		}
+		public void setReliability(final int index, final double reliability) {
+			this.reliability[index] = reliability;
+		}
+		public int getType(final int index) {
+			return type[index];
+		}
+		public int getAppearing(final int index) {
+			return appearing[index];
+		}
+		public int getFeatureId(final int index) {
+			return featureId[index];
+		}
+
+		public int getNumNbrs(final int index) {
+			return numNbrs[index];
+		}
+		/* Returns the list index of the n'th neighbour of minutia index */
+		public int getNbr(final int index, final int n) {
+			return nbrs[nbrStart[index] + n];
+		}
+		/* Returns the ridge count to the n'th neighbour of minutia index */
+		public int getRidgeCount(final int index, final int n) {
+			return ridgeCounts[nbrStart[index] + n];
+		}
+
+		/* Stores the neighbours of minutia index and their ridge counts. */
+		public void setNbrs(final int index, final int[] nbrList, final int[] nbrRidgeCounts, final int noOfNbrs) {
+			if (this.nbrsUsed + noOfNbrs > this.nbrs.length)
+			{
+				int length = Math.max(this.nbrsUsed + noOfNbrs, Math.max(this.alloc, 1) * MAX_NBRS);
+				this.nbrs = Arrays.copyOf(this.nbrs, length);
+				this.ridgeCounts = Arrays.copyOf(this.ridgeCounts, length);
+			}
+			System.arraycopy(nbrList, 0, this.nbrs, this.nbrsUsed, noOfNbrs);
+			System.arraycopy(nbrRidgeCounts, 0, this.ridgeCounts, this.nbrsUsed, noOfNbrs);
+			this.nbrStart[index] = this.nbrsUsed;
+			this.numNbrs[index] = noOfNbrs;
+			this.nbrsUsed += noOfNbrs;
+		}
+
+		/* Returns a copy of minutia index for callers working on single minutia. */
+		public Minutia getMinutia(final int index) {
+			Minutia minutia = new Minutia();
+			minutia.setX(x[index]);
+			minutia.setY(y[index]);
+			minutia.setEx(ex[index]);
+			minutia.setEy(ey[index]);
+			minutia.setDirection(direction[index]);
+			minutia.setReliability(reliability[index]);
+			minutia.setType(type[index]);
+			minutia.setAppearing(appearing[index]);
+			minutia.setFeatureId(featureId[index]);
+			minutia.setNumNbrs(numNbrs[index]);
+			if (numNbrs[index] > 0)
+			{
+				minutia.setNbrs(new AtomicIntegerArray(Arrays.copyOfRange(nbrs, nbrStart[index], nbrStart[index] + numNbrs[index])));
+				minutia.setRidgeCounts(new AtomicIntegerArray(Arrays.copyOfRange(ridgeCounts, nbrStart[index], nbrStart[index] + numNbrs[index])));
+			}
+			return minutia;
+		}
+
+		/* Returns copies of all minutiae in list order; changes to them */
+		/* are not seen by the list, see setList.                       */
+		public List<Minutia> toList() {
+			List<Minutia> list = new ArrayList<Minutia>(num);
+			for (int i = 0; i < num; i++)
+				list.add(getMinutia(i));
+			return list;
 		}
-	
+
+		/** @deprecated returns detached copies, use {@link #toList()} and {@link #setList(List)} */
+		@Deprecated
 		public List<Minutia> getList() {
-			return list;
+			return toList();
 		}
-	
+
+		/* Replaces the stored minutiae with the given ones, in list order. */
 		public void setList(List<Minutia> list) {
-			this.list = list;
+			clear();
+			if (list == null)
+				return;
+			ensureCapacity(list.size());
+			for (Minutia minutia : list)
+				add(minutia);
+		}
+
+		/** @deprecated columns grow as needed, use {@link #ensureCapacity(int)} */
+		@Deprecated
+		public void setAlloc(int alloc) {
+			ensureCapacity(alloc);
+		}
+
+		/** @deprecated the count follows add and remove; only shortens the list */
+		@Deprecated
+		public void setNum(int num) {
+			if (num < 0 || num > this.num)
+				throw new IllegalArgumentException("num " + num + " outside 0.." + this.num);
+			this.num = num;
 		}
 
 		@Override
 		public String toString() {
-			return "Minutiae [alloc=" + alloc + ", num=" + num + ", list=" + list + "]";
+			return "Minutiae [alloc=" + alloc + ", num=" + num + ", list=" + toList() + "]";
 		}			
 	}
 
@@ -1651,23 +2050,39 @@ public interface ILfs {
 	/* Binarization.java */
 	public interface IBinarization{
 		public int[] binarize(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, 
-			int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, AtomicIntegerArray mapDirectionArr, 
+			int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap mapDirectionArr, 
 			final int mappedImageWidth, final int mappedImageHeight, 
 			final RotGrids dirbingrids, final LfsParams lfsParms);
 		public int[] binarizeV2(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
-			final int paddedImageWidth, final int paddedImageHeight, AtomicIntegerArray directionMap, 
+			final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final RotGrids dirbingrids, final LfsParams lfsParms);
+		public int[] binarizeV2(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
+			final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap, 
+			final int mappedImageWidth, final int mappedImageHeight, final RotGrids dirbingrids, final LfsParams lfsParms, 
+			ForkJoinPool pool);
 		public int[] binarizeImage(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, 
 				int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
-				AtomicIntegerArray mapDirectionArr, final int mappedImageWidth, final int mappedImageHeight, 
+				ByteBlockMap mapDirectionArr, final int mappedImageWidth, final int mappedImageHeight, 
 				final int imapBlockSize, RotGrids dirbingrids, final int isoBinGridDim);
 		public int[] binarizeImageV2(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
-			final int paddedImageWidth, final int paddedImageHeight, AtomicIntegerArray directionMap,
+			final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap,
 			final int mappedImageWidth, final int mappedImageHeight, final int blockOffsetSize, final RotGrids dirbingrids);
 		public int dirbinarize(int[] paddedImageData, final int paddedImageIndex, 
 			final int imapDirection, final RotGrids dirbingrids);
+		public int[] binarizeImageV2(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
+			final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap,
+			final int mappedImageWidth, final int mappedImageHeight, final int blockOffsetSize, final RotGrids dirbingrids, 
+			ForkJoinPool pool);
+		public void binarizeRowsV2(int[] binarizedImageData, final int fromRow, final int toRow, final int binarizedWidth, 
+			int[] paddedImageData, final int paddedImageWidth, ByteBlockMap directionMap, final int mappedImageWidth, 
+			final int blocksize, final RotGrids dirbingrids);
+		public int getGridCenterRow(final RotGrids dirbingrids);
+		public int dirbinarize(int[] paddedImageData, final int paddedImageIndex, 
+			final int imapDirection, final RotGrids dirbingrids, final int cy);
 		public int isoBinarize(int[] paddedImageData, final int paddedImageIndex, 
 			final int paddedImageWidth, final int paddedImageHeight, final int isoBinGridDim);
+		public int isoBinarize(int[] paddedImageData, final int paddedImageIndex, 
+			final int paddedImageWidth, final int paddedImageHeight, final int isoBinGridDim, ImageStats imageStats);
 	}
 
 	/* Block.java */
@@ -1677,11 +2092,14 @@ public interface ILfs {
 			final int imageWidth, final int imageHeight, final int pad, final int blockOffsetSize);
 		public int lowContrastBlock(final int blockOffset, final int blockOffsetSize, 
 			int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, LfsParams lfsParams);
+		public int lowContrastBlock(final int blockOffset, final int blockOffsetSize, 
+			int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, LfsParams lfsParams, 
+			ImageStats imageStats);
 		public int findValidBlock(AtomicInteger nbrDir, AtomicInteger nbrX, AtomicInteger nbrY, 
-			AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap,
+			ByteBlockMap directionMap, BitBlockMap lowContrastMap,
 			final int startX, final int startY, final int mappedImageWidth, final int mappedImageHeight, 
 			final int xIncr, final int yIncr);
-		public void setMarginBlocks(AtomicIntegerArray map, final int mappedImageWidth, final int mappedImageHeight, 
+		public void setMarginBlocks(BlockMap map, final int mappedImageWidth, final int mappedImageHeight, 
 			final int marginValue);
 	}
 
@@ -1731,6 +2149,29 @@ public interface ILfs {
 		public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
 			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, int [] imageData, 
 			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
+			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, int [] imageData, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams, final int detectMode);
+		public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
+			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, ByteImage image, 
+			final LfsParams lfsParams, final int detectMode);
+		public int [] lfsPadImageV2(AtomicInteger ret, AtomicInteger oPaddedImageWidth, AtomicInteger oPaddedImageHeight, 
+			int [] imageData, final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int [] lfsPadImageV2(AtomicInteger ret, AtomicInteger oPaddedImageWidth, AtomicInteger oPaddedImageHeight, 
+			ByteImage image, final LfsParams lfsParams);
+		public int lfsGenImageMapsV2(Maps map, int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int [] lfsBinarizeV2(AtomicInteger ret, AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, 
+			Maps map, int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int lfsDetectV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int lfsRemoveFalseMinutiaV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int lfsCountRidgesV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
+		public int lfsRemoveRedundantMinutiaV2(AtomicReference<Minutiae> oMinutiae, Maps map, 
+			final int imageWidth, final int imageHeight);
 	}
 
 	/* Dft.java */
@@ -1749,6 +2190,18 @@ public interface ILfs {
 			AtomicReference<Double> pownorm, final AtomicReferenceArray<Double> power_vector, final int nDirs);
 		public int sortDftWaves(AtomicIntegerArray wis, final AtomicReferenceArray<Double> powMaxs, 
 				final AtomicReferenceArray<Double> powNorms, final int nStats);
+		/* Primitive kernel, powers[wave][direction] */
+		public int dftDirPowers(double[][] powers, int [] paddedImageData, final int blockOffset, 
+			final int paddedImageWidth, final int paddedImageHeight, DftWaves dftWaves,
+			RotGrids dftGrids);
+		public void sumRotBlockRows(int [] rowSums, int [] paddedImageData, final int paddedImageDataIndex, 
+			final int [] gridOffsets, final int blockOffsetSize);
+		public double computeDftPower(final int [] rowSums, final DftWave dftWave, final int waveLen);
+		public int getDftPowerStats(int[] wis, double[] powMaxs, int[] powmaxDirs, double[] powNorms,
+			double[][] powers, final int fw, final int tw, final int nDirs);
+		public void getMaxNorm(double[] powMaxs, int[] powmaxDirs, double[] powNorms, final int index, 
+			final double[] powerVector, final int nDirs);
+		public int sortDftWaves(int[] wis, final double[] powMaxs, final double[] powNorms, final int nStats);
 	}
 
 	/* Free.java */
@@ -1766,6 +2219,18 @@ public interface ILfs {
 			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
 			int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
 			final double imagePPI, final LfsParams lfsParams);
+		public int[] getMinutiae(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
+			int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
+			final double imagePPI, final LfsParams lfsParams, final int detectMode);
+		public int[] getMinutiae(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+			AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
+			ByteImage image, final int imageDepth, final double imagePPI, final LfsParams lfsParams, final int detectMode);
+		public int getMinutiaeQuality(AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+			int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
+			final double imagePPI, final LfsParams lfsParams);
+		public int getMinutiaeQuality(AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+			ByteImage image, final int imageDepth, final double imagePPI, final LfsParams lfsParams);
 	}
 
 	/* ImageUtil.java */
@@ -1776,6 +2241,8 @@ public interface ILfs {
 			int[] binarizedImageData, final int imageWidth, final int imageHeight);
 		public int [] padImage(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, 
 			int [] imageData, final int imageWidth, final int imageHeight, final int pad, final int padValue);
+		public int [] padImage(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, 
+			ByteImage image, final int pad, final int padValue);
 		public void fillHoles(int[] binarizedImageData, final int imageWidth, final int imageHeight);
 		public int freePath(final int x1, final int y1, final int x2, final int y2, 
 				int[] binarizedImageData, final int imageWidth, final int imageHeight, final LfsParams lfsParams);
@@ -1803,8 +2270,8 @@ public interface ILfs {
 	
 	/* IsEmpty.java */
 	public interface IIsEmpty {
-		public int isImageEmpty(AtomicIntegerArray qualityMap, final int mapWidth, final int mapHeight);
-		public int isQualityMapEmpty(AtomicIntegerArray qualityMap, final int mapWidth, final int mapHeight);
+		public int isImageEmpty(ByteBlockMap qualityMap, final int mapWidth, final int mapHeight);
+		public int isQualityMapEmpty(ByteBlockMap qualityMap, final int mapWidth, final int mapHeight);
 	}
 
 	/* Line.java */
@@ -1871,7 +2338,7 @@ public interface ILfs {
 			final int noOfPointsInContour, int[] binarizedImageData, final int imageWidth, final int imageHeight, final LfsParams lfsParams);
 		public int processLoopV2(AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray contourX, AtomicIntegerArray contourY, 
 			AtomicIntegerArray contour_ex, AtomicIntegerArray contour_ey,
-			final int noOfPointsInContour, int[] binarizedImageData, final int imageWidth, final int imageHeight, AtomicIntegerArray plow_flow_map, final LfsParams lfsParams);
+			final int noOfPointsInContour, int[] binarizedImageData, final int imageWidth, final int imageHeight, BitBlockMap plow_flow_map, final LfsParams lfsParams);
 		public void getLoopAspect(AtomicInteger omin_fr, AtomicInteger omin_to, AtomicReference<Double> omin_dist, 
 			AtomicInteger omax_fr, AtomicInteger omax_to, AtomicReference<Double> omax_dist, 
 			AtomicIntegerArray contourX, AtomicIntegerArray contourY, final int noOfPointsInContour);
@@ -1890,23 +2357,29 @@ public interface ILfs {
 		public int genImageMaps(int [] paddedImageData, 
 			final int paddedImageWidth, final int paddedImageHeight, DirToRad dir2Rad, DftWaves dftWaves,
 			RotGrids dftgrids, LfsParams lfsParams);
-		public int initialiseMaps(AtomicIntegerArray odmap, AtomicIntegerArray olcmap, 
-			AtomicIntegerArray olfmap, AtomicIntegerArray blkoffs, final int mappedImageWidth, final int mappedImageHeight, 
+		public int initialiseMaps(ByteBlockMap odmap, BitBlockMap olcmap, 
+			BitBlockMap olfmap, AtomicIntegerArray blkoffs, final int mappedImageWidth, final int mappedImageHeight, 
 			int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
 			final RotGrids dftGrids, final LfsParams lfsParams);
-		public int interpolateDirectionMap(AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap, 
+		public int initialiseMapBlocks(ByteBlockMap odmap, BitBlockMap olcmap, 
+			BitBlockMap olfmap, AtomicIntegerArray blkoffs, final int fromBlock, final int toBlock, final int mappedImageWidth, 
+			int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
+			final RotGrids dftGrids, final LfsParams lfsParams, ImageStats imageStats);
+		public int interpolateDirectionMap(ByteBlockMap directionMap, BitBlockMap lowContrastMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);
-		public int morphMapWithTF(AtomicIntegerArray tfmap, final LfsParams lfsParams);
-		public int pixelizeMap(AtomicIntegerArray ret, int imageWidth, int imageHeight, AtomicIntegerArray imap, 
+		public int morphMapWithTF(BlockMap tfmap, final LfsParams lfsParams);
+		public int pixelizeMapView(AtomicReference<PixelBlockMap> oMap, final int imageWidth, final int imageHeight, 
+			BlockMap inputBlockImageMap, final int mapWidth, final int mapHeight, final int blockSize);
+		public int pixelizeMap(BlockMap ret, int imageWidth, int imageHeight, BlockMap imap, 
 			final int mappedImageWidth, final int mappedImageHeight, final int blockOffsetSize);
-		public void smoothDirectionMap(AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap, 
+		public void smoothDirectionMap(ByteBlockMap directionMap, BitBlockMap lowContrastMap, 
 			final DirToRad dir2Rad, final LfsParams lfsParams);
-		public int generateHighCurveMap(AtomicIntegerArray ohcmap, AtomicIntegerArray directionMap, 
+		public int generateHighCurveMap(BitBlockMap ohcmap, ByteBlockMap directionMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);
-		public AtomicIntegerArray generateInputBlockImageMap(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
+		public ByteBlockMap generateInputBlockImageMap(AtomicInteger ret, AtomicInteger oImageWidth, AtomicInteger oImageHeight, int[] paddedImageData, 
 			final int paddedImageWidth, final int paddedImageHeight, final DirToRad dir2Rad, final DftWaves dftWaves, 
 			final RotGrids dftGrids, final LfsParams lfsParams);
-		public AtomicIntegerArray initialiseInputBlockImageMap(AtomicInteger ret, AtomicIntegerArray blkoffs, 
+		public ByteBlockMap initialiseInputBlockImageMap(AtomicInteger ret, AtomicIntegerArray blkoffs, 
 			final AtomicInteger mappedImageWidth, final AtomicInteger mappedImageHeight, int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight,
 			final DftWaves dftWaves, final RotGrids dftGrids, final LfsParams lfsParams);
 		public int primaryDirectionTest(AtomicReferenceArray<Double[]> powers, final AtomicIntegerArray wis, final AtomicReferenceArray<Double> powMaxs,
@@ -1915,28 +2388,32 @@ public interface ILfs {
 		public int secondaryForkTest(AtomicReferenceArray<Double[]> powers, final AtomicIntegerArray wis, 
 			final AtomicReferenceArray<Double> powMaxs, final AtomicIntegerArray powmaxDirs, 
 			final AtomicReferenceArray<Double> powNorms, final int nStats, final LfsParams lfsParams);
-		public void removeInconsistentDirs(AtomicIntegerArray imap, final DirToRad dir2Rad, final LfsParams lfsParams);
+		public int primaryDirectionTest(double[][] powers, final int[] wis, final double[] powMaxs,
+			final int[] powmaxDirs, final double[] powNorms, final int nStats, final LfsParams lfsParams);
+		public int secondaryForkTest(double[][] powers, final int[] wis, final double[] powMaxs,
+			final int[] powmaxDirs, final double[] powNorms, final int nStats, final LfsParams lfsParams);
+		public void removeInconsistentDirs(ByteBlockMap imap, final DirToRad dir2Rad, final LfsParams lfsParams);
 		public int testTopEdge(final int lbox, final int tbox, final int rbox, final int bbox, 
-			AtomicIntegerArray imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
+			ByteBlockMap imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
 		public int testRightEdge(final int lbox, final int tbox, final int rbox, final int bbox, 
-			AtomicIntegerArray imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
+			ByteBlockMap imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
 		public int testBottomEdge(final int lbox, final int tbox, final int rbox, final int bbox, 
-			AtomicIntegerArray imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
+			ByteBlockMap imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
 		public int testLeftEdge(final int lbox, final int tbox, final int rbox, final int bbox, 
-			AtomicIntegerArray imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
-		public int removeIMAPDirection(AtomicIntegerArray imap, final int mx, final int my, final int mappedImageWidth, 
+			ByteBlockMap imap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dir2Rad, LfsParams lfsParams);
+		public int removeIMAPDirection(ByteBlockMap imap, final int mx, final int my, final int mappedImageWidth, 
 			final int mappedImageHeight, final DirToRad dir2Rad, final LfsParams lfsParams);
 		public void average8NbrDir(AtomicInteger avrdir, AtomicReference<Double> dir_strength, 
-			AtomicInteger nvalid, AtomicIntegerArray imap, final int mx, final int my, 
+			AtomicInteger nvalid, ByteBlockMap imap, final int mx, final int my, 
 			final int mappedImageWidth, final int mappedImageHeight, final DirToRad dir2Rad);
-		public int numValid8Nbrs(AtomicIntegerArray imap, final int mx, final int my, final int mappedImageWidth, final int mappedImageHeight);
-		public void smoothInputBlockImageMap(AtomicIntegerArray imap, final DirToRad dir2Rad, final LfsParams lfsParams);		
-		public int genNMap(AtomicIntegerArray optr, AtomicIntegerArray imap, 
+		public int numValid8Nbrs(ByteBlockMap imap, final int mx, final int my, final int mappedImageWidth, final int mappedImageHeight);
+		public void smoothInputBlockImageMap(ByteBlockMap imap, final DirToRad dir2Rad, final LfsParams lfsParams);		
+		public int genNMap(ByteBlockMap optr, ByteBlockMap imap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);		
-		public int vorticity(AtomicIntegerArray imap, final int mx, final int my, 
+		public int vorticity(ByteBlockMap imap, final int mx, final int my, 
 			final int mappedImageWidth, final int mappedImageHeight, final int nDirs);
 		public void accumulateNbrVorticity(AtomicInteger vmeasure, final int dir1, final int dir2, final int nDirs);
-		public int curvature(AtomicIntegerArray imap, final int mx, final int my, 
+		public int curvature(ByteBlockMap imap, final int mx, final int my, 
 			final int mappedImageWidth, final int mappedImageHeight, final int nDirs);
 	}
 
@@ -1983,7 +2460,7 @@ public interface ILfs {
 			final int xEdgePixelLoc, final int yEdgePixelLoc);
 		public int chooseScanDirection(final int imapval, final int nDirs);
 		int scanForMinutiae(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray imap, AtomicIntegerArray mapDirectionArr, 
+			final int imageWidth, final int imageHeight, ByteBlockMap imap, ByteBlockMap mapDirectionArr, 
 			final int blk_x, final int blk_y, final int mappedImageWidth, final int mappedImageHeight, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, 
 			final int scan_dir, final LfsParams lfsParams);
@@ -1991,28 +2468,28 @@ public interface ILfs {
 			final int imageWidth, final int imageHeight, final int imapval, final int nmapval, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int scanForMinutiaeHorizontallyV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray pdirection_map, AtomicIntegerArray plow_flow_map, 
-			AtomicIntegerArray phigh_curve_map, final LfsParams lfsParams);
+			final int imageWidth, final int imageHeight, ByteBlockMap pdirection_map, BitBlockMap plow_flow_map, 
+			BitBlockMap phigh_curve_map, final LfsParams lfsParams);
 		public int scanForMinutiaeVertically(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
 			final int imageWidth, final int imageHeight, final int imapval, final int nmapval, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int rescanForMinutiaeHorizontally(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray imap, AtomicIntegerArray mapDirectionArr, 
+			final int imageWidth, final int imageHeight, ByteBlockMap imap, ByteBlockMap mapDirectionArr, 
 			final int blk_x, final int blk_y, final int mappedImageWidth, final int mappedImageHeight, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int scanForMinutiaeVerticallyV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray pdirection_map, AtomicIntegerArray plow_flow_map, 
-			AtomicIntegerArray phigh_curve_map, final LfsParams lfsParams);
+			final int imageWidth, final int imageHeight, ByteBlockMap pdirection_map, BitBlockMap plow_flow_map, 
+			BitBlockMap phigh_curve_map, final LfsParams lfsParams);
 		public int rescanForMinutiaeVertically(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray imap, AtomicIntegerArray mapDirectionArr, 
+			final int imageWidth, final int imageHeight, ByteBlockMap imap, ByteBlockMap mapDirectionArr, 
 			final int blk_x, final int blk_y, final int mappedImageWidth, final int mappedImageHeight, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int rescanPartialHorizontally(final int nbrDir, AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray imap, AtomicIntegerArray mapDirectionArr, 
+			final int imageWidth, final int imageHeight, ByteBlockMap imap, ByteBlockMap mapDirectionArr, 
 			final int blk_x, final int blk_y, final int mappedImageWidth, final int mappedImageHeight, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int rescanPartialVertically(final int nbrDir, AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray imap, AtomicIntegerArray mapDirectionArr, 
+			final int imageWidth, final int imageHeight, ByteBlockMap imap, ByteBlockMap mapDirectionArr, 
 			final int blk_x, final int blk_y, final int mappedImageWidth, final int mappedImageHeight, 
 			final int scan_x, final int scan_y, final int scan_w, final int scan_h, final LfsParams lfsParams);
 		public int getNbrBlockIndex(AtomicInteger oblk_i, final int nbrDir, final int blk_x, 
@@ -2028,15 +2505,15 @@ public interface ILfs {
 			final int imapval, final int nmapval, final LfsParams lfsParams);
 		public int processHorizontalScanMinutiaV2(AtomicReference<Minutiae> oMinutiae, final int cx, final int cy, 
 			final int x2, final int featureId, int[] binarizedImageData, final int imageWidth, final int imageHeight,
-			AtomicIntegerArray pdirection_map, AtomicIntegerArray plow_flow_map, 
-			AtomicIntegerArray phigh_curve_map, final LfsParams lfsParams);
+			ByteBlockMap pdirection_map, BitBlockMap plow_flow_map, 
+			BitBlockMap phigh_curve_map, final LfsParams lfsParams);
 		public int processVerticalScanMinutia(AtomicReference<Minutiae> oMinutiae, 
 			final int cx, final int cy, final int y2, final int featureId, int[] binarizedImageData, 
 			final int imageWidth, final int imageHeight, final int imapval, final int nmapval, final LfsParams lfsParams);
 		public int processVerticalScanMinutiaV2(AtomicReference<Minutiae> oMinutiae, 
 			final int cx, final int cy, final int y2, final int featureId, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray pdirection_map, 
-			AtomicIntegerArray plow_flow_map, AtomicIntegerArray phigh_curve_map, final LfsParams lfsParams);
+			final int imageWidth, final int imageHeight, ByteBlockMap pdirection_map, 
+			BitBlockMap plow_flow_map, BitBlockMap phigh_curve_map, final LfsParams lfsParams);
 		public int adjustHighCurvatureMinutia(AtomicInteger oidir, AtomicInteger ox_loc, AtomicInteger oy_loc, 
 			AtomicInteger ox_edge, AtomicInteger oy_edge, final int xPixelLoc, final int yPixelLoc, 
 			final int xEdgePixelLoc, final int yEdgePixelLoc, int[] binarizedImageData, final int imageWidth, final int imageHeight, 
@@ -2045,7 +2522,7 @@ public interface ILfs {
 			AtomicInteger ox_edge, AtomicInteger oy_edge, final int xPixelLoc, final int yPixelLoc, 
 			final int xEdgePixelLoc, final int yEdgePixelLoc, 
 			int[] binarizedImageData, final int imageWidth, final int imageHeight, 
-			AtomicIntegerArray plow_flow_map, AtomicReference<Minutiae> oMinutiae, final LfsParams lfsParams);
+			BitBlockMap plow_flow_map, AtomicReference<Minutiae> oMinutiae, final LfsParams lfsParams);
 		public int getLowCurvatureDirection(final int a, final int b, final int c,
 		    final int d);
 	}
@@ -2067,10 +2544,15 @@ public interface ILfs {
 		public int combinedMinutiaQuality(AtomicReference<Minutiae> oMinutiae, Maps map, 
 			final int blockOffsetSize, int [] imageData, 
 			final int imageWidth, final int imageHeight, final int imageDepth, final double imagePPI);
-		double grayscaleReliability(Minutia minutia, int [] imageData, 
+		public int combinedMinutiaQuality(AtomicReference<Minutiae> oMinutiae, Maps map, 
+			final int blockOffsetSize, ByteImage image, final int imageDepth, final double imagePPI);
+		double grayscaleReliability(final int minutiaX, final int minutiaY, int [] imageData, 
 			final int imageWidth, final int imageHeight, final int radiusPixel);
+		double grayscaleReliability(final int minutiaX, final int minutiaY, ByteImage image, final int radiusPixel);
+		public void getNeighborhoodStats(AtomicReference<Double> mean, AtomicReference<Double> stdev, 
+			final int minutiaX, final int minutiaY, int [] imageData, final int imageWidth, final int imageHeight, final int radiusPixel);
 		public void getNeighborhoodStats(AtomicReference<Double> mean, AtomicReference<Double> stdev, 
-			Minutia minutia, int [] imageData, final int imageWidth, final int imageHeight, final int radiusPixel);
+			final int minutiaX, final int minutiaY, ByteImage image, final int radiusPixel);
 		public int reliabilityFromQualityMap(Minutiae oMinutiae, Maps map, 
 			final int imageWidth, final int imageHeight, final int blockOffsetSize);
 	}
@@ -2090,33 +2572,33 @@ public interface ILfs {
 			int[] binarizedImageData, int imageWidth, int imageHeight, LfsParams lfsParams);
 		public int removeMalformations(AtomicReference<Minutiae> oMinutiae, 
 			int[] binarizedImageData, int imageWidth, int imageHeight, 
-			AtomicIntegerArray lowFlowMap, int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams);
-		public int removeNearInvblocksV2(AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray directionMap, 
+			BitBlockMap lowFlowMap, int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams);
+		public int removeNearInvblocksV2(AtomicReference<Minutiae> oMinutiae, ByteBlockMap directionMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);
-		public int removePointingInvblockV2(AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray directionMap, 
+		public int removePointingInvblockV2(AtomicReference<Minutiae> oMinutiae, ByteBlockMap directionMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);
 		public int removeOverlaps(AtomicReference<Minutiae> oMinutiae,
 		    int[] a, final int b, final int c, final LfsParams lfsParams);
 		public int removePoresV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, int imageWidth, int imageHeight, 
-			AtomicIntegerArray directionMap, AtomicIntegerArray lowFlowMap,
-			AtomicIntegerArray highCurveMap, int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams);
+			ByteBlockMap directionMap, BitBlockMap lowFlowMap,
+			BitBlockMap highCurveMap, int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams);
 		public int removeOrAdjustSideMinutiaeV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-			final int imageWidth, final int imageHeight, AtomicIntegerArray directionMap, 
+			final int imageWidth, final int imageHeight, ByteBlockMap directionMap, 
 			final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams);
 	}
 
 	/* Results.java */
 	public interface IResults{
 		public int writeTextResults(File file, final int m1flag, final int imageWidth, final int imageHeight,
-			final AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray oQualityMap, 
-			AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowContrastMap, 
-			AtomicIntegerArray oLowFlowMap, AtomicIntegerArray oHighCurveMap, final int mapWidth, final int mapHeight);
+			final AtomicReference<Minutiae> oMinutiae, ByteBlockMap oQualityMap, 
+			ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
+			BitBlockMap oLowFlowMap, BitBlockMap oHighCurveMap, final int mapWidth, final int mapHeight);
 		public int writeMinutiaeXYTQ(File file, final int repType, final AtomicReference<Minutiae> oMinutiae, 
 			final int imageWidth, final int imageHeight);
-		public void dumpMap(File file, AtomicIntegerArray oMap, final int mapWidth, final int mapHeight) throws IOException;
-		public int drawInputBlockImageMap (AtomicIntegerArray oInputBlockImageMap, final int mapWidth, final int mapHeight, 
+		public void dumpMap(File file, BlockMap oMap, final int mapWidth, final int mapHeight) throws IOException;
+		public int drawInputBlockImageMap (ByteBlockMap oInputBlockImageMap, final int mapWidth, final int mapHeight, 
 			int [] imageData, final int imageWidth, final int imageHeight, final RotGrids rotGrids, final int drawPixel);
-		public void drawInputBlockImageMap2(AtomicIntegerArray oInputBlockImageMap, final AtomicIntegerArray oBlockOffsets, 
+		public void drawInputBlockImageMap2(ByteBlockMap oInputBlockImageMap, final AtomicIntegerArray oBlockOffsets, 
 			final int mapWidth, final int mapHeight, int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight,
 			final double startAngle, final int nDirs, final int blocksize);
 		public void drawBlocks(final AtomicIntegerArray oBlockOffsets, final int mapWidth, final int mapHeight,
@@ -2125,10 +2607,10 @@ public interface ILfs {
 			final int imageWidth, final int imageHeight, final int drawPixel);
 		public void dumpLinkTable(File file, final int [] link_table, final int[] xAxis, final int[] yAxis,
 			final int nxAxis, final int nyAxis, final int tblDim, final AtomicReference<Minutiae> oMinutiae);
-		public int drawDirectionMap(StringBuilder fileName, AtomicIntegerArray oDirectionMap,
+		public int drawDirectionMap(StringBuilder fileName, ByteBlockMap oDirectionMap,
 			AtomicIntegerArray oBlockOffsets, final int mapWidth, final int mapHeight, final int blocksize,
 			int [] imageData, final int imageWidth, final int imageHeight, final int flag);
-		public int drawTFMap(StringBuilder fileName, AtomicIntegerArray oMap,
+		public int drawTFMap(StringBuilder fileName, BlockMap oMap,
 			AtomicIntegerArray oBlockOffsets, final int mapWidth, final int mapHeight, final int blocksize,
 			int [] imageData, final int imageWidth, final int imageHeight, final int flag);
 	}
@@ -2141,6 +2623,10 @@ public interface ILfs {
 			final int imageWidth, final int imageHeight, final LfsParams lfsParams);
 		public int findNeighbors(AtomicIntegerArray oNbrList, AtomicInteger oNoOfNbrs, final int maxNbrs, 
 			final int first, AtomicReference<Minutiae> oMinutiae);
+		public int countMinutiaRidges(final int first, AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
+			final int imageWidth, final int imageHeight, final LfsParams lfsParams, MinutiaGrid grid);
+		public int findNeighbors(AtomicIntegerArray oNbrList, AtomicInteger oNoOfNbrs, final int maxNbrs, 
+			final int first, AtomicReference<Minutiae> oMinutiae, MinutiaGrid grid);
 		public int updateNbrDists(AtomicIntegerArray nbrList, AtomicReferenceArray<Double> nbrSqrDists, 
 			AtomicInteger noOfNbrs, final int maxNbrs, final int first, final int second, 
 			AtomicReference<Minutiae> oMinutiae);
@@ -2179,6 +2665,12 @@ public interface ILfs {
 		public void bubbleSortDoubleArrayDecremental2(AtomicReferenceArray<Double> ranks, AtomicIntegerArray items, 
 			final int len);
 		public void bubbleSortIntArrayIncremental(AtomicIntegerArray ranks, final int len);
+		public int sortIndicesIntArrayIncremental(int[] order, int[] ranks, final int num);
+		public int sortIndicesDoubleArrayIncremental(int[] order, double[] ranks, final int num);
+		public int radixSortIndicesIntArrayIncremental(int[] order, int[] ranks, final int num);
+		public void sortIntArrayIncremental2(int[] ranks, int[] items, final int len);
+		public void sortDoubleArrayIncremental2(double[] ranks, int[] items, final int len);
+		public void sortDoubleArrayDecremental2(double[] ranks, int[] items, final int len);
 	}
 }
 
@@ -213,6 +213,9 @@ public interface IMlp {
 		public void acVSinusoid(AtomicReferenceArray<Double> p, int index);
 		public void acVSigmoid(AtomicReferenceArray<Double> p, int index);
 		public void acVLinear(AtomicReferenceArray<Double> p, int index);
+		public double acVSinusoid(double x);
+		public double acVSigmoid(double x);
+		public double acVLinear(double x);
 	}
 
 	/***********************************************************************/
@@ -229,4 +232,22 @@ public interface IMlp {
 			AtomicReferenceArray<Double> outAcs, AtomicInteger hypClass, 
 			AtomicReference<Double> confidence);
 	}
+
+	/***********************************************************************/
+	/* CompiledMlp.java : Immutable feedforward MLP */
+	public interface ICompiledMlp{
+		public int getNInps();
+		public int getNHids();
+		public int getNOuts();
+		public int getScratchLength();
+		public int getOutAcsOffset();
+		public int classify(double[] featureVector, double[] scratch);
+		public double getConfidence(double[] scratch);
+	}
+
+	/***********************************************************************/
+	/* BatchMlp.java : Classification of many feature vectors */
+	public interface IBatchMlp{
+		public int classify(double[] features, final int nVectors, int[] oNfiq, double[] oConf);
+	}
 }
\ No newline at end of file
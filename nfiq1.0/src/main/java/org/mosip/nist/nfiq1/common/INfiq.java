@@ -3,8 +3,13 @@ package org.mosip.nist.nfiq1.common;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
+import org.mosip.nist.nfiq1.NfiqContext;
+import org.mosip.nist.nfiq1.NfiqImage;
+import org.mosip.nist.nfiq1.NfiqResult;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 import org.mosip.nist.nfiq1.mindtct.Quality;
 
 public interface INfiq {
@@ -30,11 +35,46 @@ public interface INfiq {
 			double[] znorm_means, double[] znorm_stds, 
 			int nInps, int nHids, int nOuts, final int acfunc_hids, final int acfunc_outs,
 			double[] wts);
+		public int classifyNfiq(NfiqContext context, AtomicInteger onfiq, AtomicReference<Double> oconf, 
+			double[] znorm_means, double[] znorm_stds, 
+			int nInps, int nHids, int nOuts, final int acfunc_hids, final int acfunc_outs,
+			double[] wts);
+		public int computeNfiqFlex(NfiqContext context, AtomicInteger onfiq, AtomicReference<Double> oconf, int [] idata, 
+			final int imageWidth, final int imageHeight, final int imageDepth, final int imagePPI,
+			double[] znorm_means, double[] znorm_stds, 
+			int nInps, int nHids, int nOuts, final int acfunc_hids, final int acfunc_outs,
+			double[] wts);
+		public int computeNfiqFlex(NfiqContext context, AtomicInteger onfiq, AtomicReference<Double> oconf, ByteImage image, 
+			final int imageDepth, final int imagePPI,
+			double[] znorm_means, double[] znorm_stds, 
+			int nInps, int nHids, int nOuts, final int acfunc_hids, final int acfunc_outs,
+			double[] wts);
+	}	
+	/***********************************************************************/
+	/* NfiqEngine.java : Thread-safe NFIQ computation */
+	public interface INfiqEngine {
+		public int computeNfiq(AtomicInteger onfiq, AtomicReference<Double> oconf, int [] idata, 
+			final int iw, final int ih, final int id, final int ippi);
+		public NfiqResult computeNfiq(NfiqImage image);
+		public int computeNfiq(NfiqContext context, AtomicInteger onfiq, AtomicReference<Double> oconf, int [] idata, 
+			final int iw, final int ih, final int id, final int ippi);
+		public int computeNfiq(AtomicInteger onfiq, AtomicReference<Double> oconf, ByteImage image, 
+			final int id, final int ippi);
+		public int computeNfiq(NfiqContext context, AtomicInteger onfiq, AtomicReference<Double> oconf, ByteImage image, 
+			final int id, final int ippi);
+	}	
+	/***********************************************************************/
+	/* NfiqBatch.java : Parallel scoring of many images */
+	public interface INfiqBatch {
+		public List<NfiqResult> computeNfiq(List<NfiqImage> images);
+		public List<NfiqResult> computeNfiq(Stream<NfiqImage> images);
 	}	
 	/***********************************************************************/
 	/* IZNormalization.java : Routines supporting Z-Normalization */
 	public interface INfiq1ZNormalization {
 		public void ZNormalizeFeatureVector(double[] featvctr, double[] znorm_means, double[] znorm_stds, final int vctrlen);
+		public void ZNormalizeFeatureMatrix(double[] ofeats, final int ofeatsoff, double[] feats, final int featsoff, 
+			final int nfeatvctrs, double[] znorm_means, double[] znorm_stds, final int vctrlen);
 		public int computeZNormStats(List<List<Double>> omeans, List<List<Double>> ostddevs, 
 			List<List<Double>> feats, final int nfeatvctrs, final int nfeats);
 	}
@@ -0,0 +1,125 @@
+package org.mosip.nist.nfiq1.imagetools;
+
+/***********************************************************************
+************************************************************************
+#cat: ByteImage - Grayscale image holding one unsigned byte per pixel.
+#cat:             Takes a quarter of the memory of an int[] image of
+#cat:             the same size; pixel values are read back on the
+#cat:             range [0..256).  Pixel (x, y) is stored at
+#cat:             offset + (y * scanlineStride) + x of the pixel array,
+#cat:             so the backing array of a decoded raster can be used
+#cat:             as is.  The pixel array is not copied and must not be
+#cat:             modified while a computation is running on it.
+************************************************************************/
+public final class ByteImage {
+	private final byte[] pixels;
+	private final int width;
+	private final int height;
+	private final int offset;
+	private final int scanlineStride;
+
+	/* New image with every pixel set to 0 */
+	public ByteImage(final int width, final int height) {
+		this(new byte[width * height], width, height);
+	}
+
+	/* Image backed by the given pixels, stored row after row */
+	public ByteImage(byte[] pixels, final int width, final int height) {
+		this(pixels, width, height, 0, width);
+	}
+
+	/* Image backed by the given pixels, rows scanlineStride bytes apart */
+	public ByteImage(byte[] pixels, final int width, final int height, final int offset, final int scanlineStride) {
+		super();
+		if (width < 0 || height < 0 || offset < 0 || scanlineStride < width
+			|| (height > 0 && (long)offset + ((long)(height - 1) * scanlineStride) + width > pixels.length))
+		{
+			throw new IllegalArgumentException(String.format("%d pixels do not hold a %d x %d image at offset %d, stride %d",
+				pixels.length, width, height, offset, scanlineStride));
+		}
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+		this.offset = offset;
+		this.scanlineStride = scanlineStride;
+	}
+
+	/* Copy of an int[] image with pixel values on the range [0..256) */
+	public static ByteImage fromIntArray(int[] imageData, final int width, final int height) {
+		ByteImage image = new ByteImage(width, height);
+		for (int index = 0; index < width * height; index++)
+		{
+			image.pixels[index] = (byte)imageData[index];
+		}
+		return image;
+	}
+
+	/* Unsigned value of the pixel at a row-major index of the image */
+	public int get(final int index) {
+		return get(index % width, index / width);
+	}
+
+	public int get(final int x, final int y) {
+		return pixels[offset + (y * scanlineStride) + x] & 0xFF;
+	}
+
+	public void set(final int x, final int y, final int value) {
+		pixels[offset + (y * scanlineStride) + x] = (byte)value;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: getRow - Widens a run of pixels of a row into an int[] image.
+	   Input:
+	      y             - row of the pixels
+	      x             - column of the first pixel
+	      count         - number of pixels
+	      destOffset    - index in dest of the first pixel
+	   Output:
+	      dest          - unsigned pixel values
+	************************************************************************/
+	public void getRow(final int y, final int x, final int count, int[] dest, final int destOffset) {
+		int index = offset + (y * scanlineStride) + x;
+		for (int i = 0; i < count; i++)
+		{
+			dest[destOffset + i] = pixels[index + i] & 0xFF;
+		}
+	}
+
+	/* Copy of the image as one int per pixel */
+	public int[] toIntArray() {
+		int[] imageData = new int[width * height];
+		for (int y = 0; y < height; y++)
+		{
+			getRow(y, 0, width, imageData, y * width);
+		}
+		return imageData;
+	}
+
+	/* Backing array, see getOffset and getScanlineStride */
+	public byte[] getPixels() {
+		return pixels;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/* Index in the backing array of pixel (0, 0) */
+	public int getOffset() {
+		return offset;
+	}
+
+	/* Distance in the backing array between vertically adjacent pixels */
+	public int getScanlineStride() {
+		return scanlineStride;
+	}
+
+	public int length() {
+		return width * height;
+	}
+}
@@ -0,0 +1,75 @@
+package org.mosip.nist.nfiq1.imagetools;
+
+import java.awt.image.BufferedImage;
+
+/***********************************************************************
+************************************************************************
+#cat: DecodedImage - Outcome of decoding one ISO 19794-4 finger record.
+#cat:             returnCode follows decodeImage: zero on success,
+#cat:             negative on error, in which case image is null and the
+#cat:             attributes are those known when decoding stopped.
+************************************************************************/
+public final class DecodedImage {
+	private final int returnCode;
+	private final BufferedImage image;
+	private final int imageType;
+	private final int imageLength;
+	private final int width;
+	private final int height;
+	private final int depth;
+	private final int ppi;
+
+	public DecodedImage(int returnCode, BufferedImage image, int imageType, int imageLength, 
+		int width, int height, int depth, int ppi) {
+		super();
+		this.returnCode = returnCode;
+		this.image = image;
+		this.imageType = imageType;
+		this.imageLength = imageLength;
+		this.width = width;
+		this.height = height;
+		this.depth = depth;
+		this.ppi = ppi;
+	}
+
+	public int getReturnCode() {
+		return returnCode;
+	}
+
+	/* Decoded image, or null when returnCode is not zero */
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	/* One of ImageType.JP2_IMG, WSQ_IMG or UNKNOWN_IMG */
+	public int getImageType() {
+		return imageType;
+	}
+
+	/* Length (in bytes) of the compressed image data of the record */
+	public int getImageLength() {
+		return imageLength;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public int getPPI() {
+		return ppi;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Type=%d\tWidth=%d\tHeight=%d\tDepth=%d\tPPI=%d\tLength=%d", 
+			imageType, width, height, depth, ppi, imageLength);
+	}
+}
@@ -1,13 +1,20 @@
 package org.mosip.nist.nfiq1.imagetools;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.mosip.nist.nfiq1.util.NfiqMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +53,23 @@ public class ImageDecoder extends ImageTools {
 
 		/* Read in and decode image file. */
 		BufferedImage bufferedImage = readAndDecodeImage(returnCode, file, oImageType, oLength, oWidth, oHeight, oDepth, oPPI, ofileType);
+		return checkGrayscaleImage(returnCode, bufferedImage, file, oImageType, oDepth);
+	}
+
+	public BufferedImage decodeGrayscaleImage(AtomicInteger returnCode, byte[] isoData, 
+		AtomicInteger oImageType, AtomicInteger oLength, AtomicInteger oWidth, AtomicInteger oHeight, 
+		AtomicInteger oDepth, AtomicInteger oPPI, AtomicReference<String> ofileType) throws Exception {
+		
+		returnCode.set(-1);
+		oLength.set(0);
+
+		/* Decode in-memory ISO record. */
+		BufferedImage bufferedImage = decodeImage(returnCode, isoData, oImageType, oLength, oWidth, oHeight, oDepth, oPPI, ofileType);
+		return checkGrayscaleImage(returnCode, bufferedImage, "<memory>", oImageType, oDepth);
+	}
+
+	private BufferedImage checkGrayscaleImage(AtomicInteger returnCode, BufferedImage bufferedImage, String file, 
+		AtomicInteger oImageType, AtomicInteger oDepth) {
 		if (returnCode.get() != ILfs.FALSE)
 		{
 			return null;
@@ -76,20 +100,32 @@ public class ImageDecoder extends ImageTools {
 	public BufferedImage readAndDecodeImage(AtomicInteger returnCode, String iFile, AtomicInteger imageType, 
 			AtomicInteger oLength, AtomicInteger oWidth, AtomicInteger oHeight, AtomicInteger oDepth, 
 			AtomicInteger oPPI, AtomicReference<String> ofileType) throws Exception {
+		returnCode.set(-1);
+		/* Relative names are taken from the working directory */
+		Path filePath = Paths.get(new File (".").getCanonicalPath ()).resolve(iFile);
+		
+		if (Files.exists(filePath))
+		{
+			byte[] isoData = Files.readAllBytes(filePath);
+			return decodeImage(returnCode, isoData, imageType, oLength, oWidth, oHeight, oDepth, oPPI, ofileType);
+		}
+		return null;
+	}
+
+	public BufferedImage decodeImage(AtomicInteger returnCode, byte[] isoData, AtomicInteger imageType, 
+			AtomicInteger oLength, AtomicInteger oWidth, AtomicInteger oHeight, AtomicInteger oDepth, 
+			AtomicInteger oPPI, AtomicReference<String> ofileType) throws Exception {
 		BufferedImage image = null;
 		returnCode.set(-1);
 		ConvertRequestDto requestDto = new ConvertRequestDto();
 		requestDto.setModality("Finger");
 		requestDto.setVersion("ISO19794_4_2011");
-		String filePath = new File (".").getCanonicalPath ();
-		String fileName = filePath + File.separator + iFile;
-		File initialFile = new File(fileName);
 		
-		if (initialFile.exists())
+		if (isoData != null)
 		{
-			byte[] isoData = Files.readAllBytes(Paths.get(fileName));
-
 			requestDto.setInputBytes(isoData);
+			NfiqMetrics metrics = NfiqMetrics.getInstance();
+			long startTime = metrics.start();
 
 			FingerBDIR fingerBDIR  = FingerDecoder.getFingerBDIR(requestDto);
 			ImageData imageData = fingerBDIR.getRepresentation().getRepresentationBody().getImageData();
@@ -110,6 +146,7 @@ public class ImageDecoder extends ImageTools {
 
 			byte[] data = imageData.getImage();
 			image = CommonUtil.getBufferedImage(requestDto);
+			metrics.stop(Stage.DECODE, startTime);
 			
 			LOGGER.info("Image Details ");
 			LOGGER.info(String.format("[\nCompression Type=%s\n, Width=%2d\n, Height=%2d\n, Bit Depth=%2d\n, PPI=%2d\n, Length=%2d\n]",
@@ -125,4 +162,113 @@ public class ImageDecoder extends ImageTools {
 		}
 		return null;
 	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: decodeImage - Decodes an in-memory ISO 19794-4 finger record.
+	#cat:             A malformed record is reported through the return
+	#cat:             code of the result rather than thrown.
+	   Input:
+	      isoData      - ISO 19794-4 finger image record
+	   Return:
+	      DecodedImage - return code, image and its attributes
+	************************************************************************/
+	public DecodedImage decodeImage(byte[] isoData) {
+		return decode(isoData, false);
+	}
+
+	/* Decodes the remaining bytes of a buffer, e.g. a mapped file, */
+	/* leaving its position unchanged                               */
+	public DecodedImage decodeImage(ByteBuffer isoData) {
+		return decode(toByteArray(isoData), false);
+	}
+
+	/* Decodes the rest of a stream, which is left open */
+	public DecodedImage decodeImage(InputStream isoData) throws IOException {
+		return decode(readAllBytes(isoData), false);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: decodeGrayscaleImage - Decodes an in-memory ISO 19794-4 finger
+	#cat:             record, accepting only 8-bit grayscale WSQ or JP2
+	#cat:             images (-3 on UNKNOWN type, -4 on other depths).
+	   Input:
+	      isoData      - ISO 19794-4 finger image record
+	   Return:
+	      DecodedImage - return code, image and its attributes
+	************************************************************************/
+	public DecodedImage decodeGrayscaleImage(byte[] isoData) {
+		return decode(isoData, true);
+	}
+
+	/* Decodes the remaining bytes of a buffer, e.g. a mapped file, */
+	/* leaving its position unchanged                               */
+	public DecodedImage decodeGrayscaleImage(ByteBuffer isoData) {
+		return decode(toByteArray(isoData), true);
+	}
+
+	/* Decodes the rest of a stream, which is left open */
+	public DecodedImage decodeGrayscaleImage(InputStream isoData) throws IOException {
+		return decode(readAllBytes(isoData), true);
+	}
+
+	private DecodedImage decode(byte[] isoData, boolean grayscale) {
+		AtomicInteger returnCode = new AtomicInteger(-1);
+		AtomicInteger oImageType = new AtomicInteger(ImageType.UNKNOWN_IMG);
+		AtomicInteger oLength = new AtomicInteger(0);
+		AtomicInteger oWidth = new AtomicInteger(0);
+		AtomicInteger oHeight = new AtomicInteger(0);
+		AtomicInteger oDepth = new AtomicInteger(0);
+		AtomicInteger oPPI = new AtomicInteger(0);
+		AtomicReference<String> ofileType = new AtomicReference<String>();
+		BufferedImage image;
+
+		try
+		{
+			if (grayscale)
+				image = decodeGrayscaleImage(returnCode, isoData, oImageType, oLength, oWidth, oHeight, oDepth, oPPI, ofileType);
+			else
+				image = decodeImage(returnCode, isoData, oImageType, oLength, oWidth, oHeight, oDepth, oPPI, ofileType);
+		}
+		catch (Exception e)
+		{
+			LOGGER.error(String.format("Error Message %s", e.getMessage()));
+			returnCode.set(-1);
+			image = null;
+		}
+		if (returnCode.get() != ILfs.FALSE)
+		{
+			image = null;
+		}
+		return new DecodedImage(returnCode.get(), image, oImageType.get(), oLength.get(), 
+			oWidth.get(), oHeight.get(), oDepth.get(), oPPI.get());
+	}
+
+	/* Remaining bytes of a buffer, its backing array when that is exactly them */
+	private static byte[] toByteArray(ByteBuffer buffer) {
+		if (buffer == null)
+			return null;
+		if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 
+			&& buffer.remaining() == buffer.array().length)
+		{
+			return buffer.array();
+		}
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private static byte[] readAllBytes(InputStream in) throws IOException {
+		if (in == null)
+			return null;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(in.available(), 8192));
+		byte[] buffer = new byte[8192];
+		int count;
+		while ((count = in.read(buffer)) != -1)
+		{
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
 }
@@ -0,0 +1,687 @@
+package org.mosip.nist.nfiq1.imagetools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+import org.mosip.nist.nfiq1.common.ILfs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.mosip.biometrics.util.finger.FingerBDIR;
+import io.mosip.biometrics.util.finger.FingerCaptureDeviceTechnology;
+import io.mosip.biometrics.util.finger.FingerCaptureDeviceType;
+import io.mosip.biometrics.util.finger.FingerCaptureDeviceVendor;
+import io.mosip.biometrics.util.finger.FingerCertificationFlag;
+import io.mosip.biometrics.util.finger.FingerFormatIdentifier;
+import io.mosip.biometrics.util.finger.FingerImageBitDepth;
+import io.mosip.biometrics.util.finger.FingerImageCompressionType;
+import io.mosip.biometrics.util.finger.FingerImpressionType;
+import io.mosip.biometrics.util.finger.FingerPosition;
+import io.mosip.biometrics.util.finger.FingerQualityAlgorithmIdentifier;
+import io.mosip.biometrics.util.finger.FingerQualityAlgorithmVendorIdentifier;
+import io.mosip.biometrics.util.finger.FingerQualityBlock;
+import io.mosip.biometrics.util.finger.FingerScaleUnitType;
+import io.mosip.biometrics.util.finger.FingerVersionNumber;
+
+/***********************************************************************
+************************************************************************
+#cat: SyntheticFingerprint - Deterministic, seedable fingerprint-like
+#cat:             images for load and scaling tests, so that no real
+#cat:             biometric data is needed.  A Sherlock-Monro orientation
+#cat:             field (arch, loop or whorl) drives a few rounds of
+#cat:             oriented Gabor-like filtering of seeded noise, which
+#cat:             grows ridges with natural endings and bifurcations on
+#cat:             an elliptical pad.  Noise takes a clean print (NFIQ 1)
+#cat:             to a faint, grainy one (NFIQ 5); blank regions wipe
+#cat:             out parts of the pad; defects (pores, islands, lakes
+#cat:             and ridge breaks) stress RemoveMinutia and Loop.  The
+#cat:             same parameters always give the same pixels, on any
+#cat:             platform.
+
+   Usage:
+      java org.mosip.nist.nfiq1.imagetools.SyntheticFingerprint [out=dir]
+                 [count=N] [seed=S] [width=W] [height=H] [ppi=500|1000]
+                 [pattern=arch|loop|whorl] [noise=0..1] [blank=0..1]
+                 [defects=0..1] [vary=true]
+************************************************************************/
+public final class SyntheticFingerprint {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SyntheticFingerprint.class);
+
+	public static final int MIN_WIDTH = 300;
+	public static final int MIN_HEIGHT = 300;
+	public static final int MAX_WIDTH = 1600;
+	public static final int MAX_HEIGHT = 1500;
+
+	/* Ridge flow classes */
+	public static final int ARCH = 0;
+	public static final int LOOP = 1;
+	public static final int WHORL = 2;
+
+	/* Quantized ridge directions on [0..PI) of the filter kernels */
+	private static final int NUM_DIRECTIONS = 32;
+	/* Rounds of filtering of the seeded noise */
+	private static final int NUM_ITERATIONS = 6;
+	/* Ridge period (in pixels) at 500 ppi */
+	private static final double MIN_PERIOD = 8.5d;
+	private static final double MAX_PERIOD = 10.5d;
+	private static final int BACKGROUND = 255;
+
+	private final int width;
+	private final int height;
+	private final int ppi;
+	private final long seed;
+	private int pattern = LOOP;
+	private double noise = 0.0d;
+	private double blankArea = 0.0d;
+	private double defects = 0.0d;
+
+	/***********************************************************************
+	************************************************************************
+	#cat: SyntheticFingerprint - Clean loop of the given size and seed;
+	#cat:             use the setters for other patterns and degradations.
+	   Input:
+	      width         - width (in pixels), MIN_WIDTH to MAX_WIDTH
+	      height        - height (in pixels), MIN_HEIGHT to MAX_HEIGHT
+	      ppi           - scan resolution, 500 or 1000
+	      seed          - seed of every random choice
+	************************************************************************/
+	public SyntheticFingerprint(final int width, final int height, final int ppi, final long seed) {
+		super();
+		if (width < MIN_WIDTH || width > MAX_WIDTH || height < MIN_HEIGHT || height > MAX_HEIGHT)
+		{
+			throw new IllegalArgumentException(String.format("%d x %d is not within %d x %d and %d x %d",
+				width, height, MIN_WIDTH, MIN_HEIGHT, MAX_WIDTH, MAX_HEIGHT));
+		}
+		if (ppi != 500 && ppi != 1000)
+		{
+			throw new IllegalArgumentException(String.format("%d ppi is neither 500 nor 1000", ppi));
+		}
+		this.width = width;
+		this.height = height;
+		this.ppi = ppi;
+		this.seed = seed;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getPPI() {
+		return ppi;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int getPattern() {
+		return pattern;
+	}
+
+	/* ARCH, LOOP or WHORL */
+	public void setPattern(final int pattern) {
+		if (pattern != ARCH && pattern != LOOP && pattern != WHORL)
+		{
+			throw new IllegalArgumentException("Unknown pattern " + pattern);
+		}
+		this.pattern = pattern;
+	}
+
+	public double getNoise() {
+		return noise;
+	}
+
+	/* 0 (clean) to 1: pixel noise and loss of ridge contrast */
+	public void setNoise(final double noise) {
+		this.noise = checkFraction("noise", noise);
+	}
+
+	public double getBlankArea() {
+		return blankArea;
+	}
+
+	/* 0 to 1: fraction of the pad wiped out by smudges and dry patches */
+	public void setBlankArea(final double blankArea) {
+		this.blankArea = checkFraction("blank area", blankArea);
+	}
+
+	public double getDefects() {
+		return defects;
+	}
+
+	/* 0 to 1: density of pores, islands, lakes and ridge breaks */
+	public void setDefects(final double defects) {
+		this.defects = checkFraction("defects", defects);
+	}
+
+	private static double checkFraction(final String name, final double value) {
+		if (!(value >= 0.0d && value <= 1.0d))
+		{
+			throw new IllegalArgumentException(name + " " + value + " is not within [0..1]");
+		}
+		return value;
+	}
+
+	/* Image as one int per pixel, as taken by Nfiq1Helper.computeNfiq */
+	public int[] generateIntArray() {
+		return generate().toIntArray();
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: generate - Renders the 8-bit grayscale image: dark ridges on a
+	#cat:             lighter pad, on a white background.
+	   Return Code:
+	      the image, width x height pixels
+	************************************************************************/
+	public ByteImage generate() {
+		Random random = new Random(seed);
+		double scale = ppi / 500.0d;
+		double period = scale * (MIN_PERIOD + ((MAX_PERIOD - MIN_PERIOD) * random.nextDouble()));
+
+		/* Elliptical pad, slightly off center */
+		double centerX = width * (0.47d + (0.06d * random.nextDouble()));
+		double centerY = height * (0.47d + (0.06d * random.nextDouble()));
+		double radiusX = width * (0.36d + (0.06d * random.nextDouble()));
+		double radiusY = height * (0.40d + (0.06d * random.nextDouble()));
+
+		int margin = (int)Math.ceil(1.5d * period);
+		int stride = width + (2 * margin);
+		float[] field = new float[stride * (height + (2 * margin))];
+		float[] work = new float[field.length];
+		byte[] directions = new byte[width * height];
+		float[] padWeights = new float[width * height];
+
+		orientationField(random, directions, centerX, centerY, radiusX, radiusY);
+		int padPixels = padMask(padWeights, centerX, centerY, radiusX, radiusY, period);
+
+		/* Seeded noise on the pad, grown into ridges by repeated filtering */
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				double value = (2.0d * random.nextDouble()) - 1.0d;
+				if (padWeights[(y * width) + x] > 0.0f)
+				{
+					field[((y + margin) * stride) + x + margin] = (float)value;
+				}
+			}
+		}
+		int[][] alongOffsets = new int[NUM_DIRECTIONS][];
+		float[][] alongWeights = new float[NUM_DIRECTIONS][];
+		int[][] acrossOffsets = new int[NUM_DIRECTIONS][];
+		float[][] acrossWeights = new float[NUM_DIRECTIONS][];
+		initKernels(alongOffsets, alongWeights, acrossOffsets, acrossWeights, period, margin, stride);
+		for (int iteration = 0; iteration < NUM_ITERATIONS; iteration++)
+		{
+			filter(field, work, directions, padWeights, alongOffsets, alongWeights, margin, stride);
+			filter(work, field, directions, padWeights, acrossOffsets, acrossWeights, margin, stride);
+			saturate(field, padWeights, margin, stride);
+		}
+
+		addDefects(random, field, directions, padWeights, padPixels, period, margin, stride);
+		return render(random, field, padWeights, padPixels, period, centerX, centerY, radiusX, radiusY, margin, stride);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: orientationField - Quantized ridge direction of every pixel.
+	#cat:             Loops and whorls follow the zero-pole model of
+	#cat:             Sherlock and Monro, half the sum of the angles to the
+	#cat:             deltas less half the sum of those to the cores; arches
+	#cat:             follow the slope of a family of raised curves.  A
+	#cat:             seeded low-frequency swirl adds some variety.
+	************************************************************************/
+	private void orientationField(Random random, byte[] directions, final double centerX, final double centerY,
+		final double radiusX, final double radiusY) {
+		double[] coreXs, coreYs, deltaXs, deltaYs;
+		double coreX = centerX + (radiusX * 0.15d * (random.nextDouble() - 0.5d));
+		double coreY = centerY - (radiusY * (0.05d + (0.15d * random.nextDouble())));
+		double deltaDx = radiusX * (0.55d + (0.2d * random.nextDouble()));
+		double deltaY = centerY + (radiusY * (0.35d + (0.2d * random.nextDouble())));
+		double coreGap = radiusY * (0.12d + (0.08d * random.nextDouble()));
+		boolean rightLoop = random.nextBoolean();
+		double archHeight = 0.4d + (0.8d * random.nextDouble());
+		double swirl = 0.08d + (0.1d * random.nextDouble());
+		double swirlPhaseX = 2.0d * Math.PI * random.nextDouble();
+		double swirlPhaseY = 2.0d * Math.PI * random.nextDouble();
+
+		if (pattern == WHORL)
+		{
+			coreXs = new double[] {coreX, coreX};
+			coreYs = new double[] {coreY - (coreGap / 2.0d), coreY + (coreGap / 2.0d)};
+			deltaXs = new double[] {centerX - deltaDx, centerX + deltaDx};
+			deltaYs = new double[] {deltaY, deltaY};
+		}
+		else if (pattern == LOOP)
+		{
+			coreXs = new double[] {coreX};
+			coreYs = new double[] {coreY};
+			deltaXs = new double[] {rightLoop ? centerX - deltaDx : centerX + deltaDx};
+			deltaYs = new double[] {deltaY};
+		}
+		else
+		{
+			coreXs = coreYs = deltaXs = deltaYs = new double[0];
+		}
+
+		/* The swirl is separable: a sine across times a cosine down */
+		double[] swirlXs = new double[width], swirlYs = new double[height];
+		for (int x = 0; x < width; x++)
+			swirlXs[x] = swirl * StrictMath.sin((2.0d * Math.PI * x / width) + swirlPhaseX);
+		for (int y = 0; y < height; y++)
+			swirlYs[y] = StrictMath.cos((2.0d * Math.PI * y / height) + swirlPhaseY);
+
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				double angle = 0.0d;
+				if (pattern == ARCH)
+				{
+					/* Curves y = c - h * exp(-u^2), most raised mid-way down the pad */
+					double u = (x - centerX) / (0.5d * radiusX);
+					double t = Math.max(0.0d, Math.min(1.0d, (y - (centerY - radiusY)) / (2.0d * radiusY)));
+					double lift = archHeight * 0.25d * radiusY * (0.3d + (0.7d * StrictMath.sin(Math.PI * t)));
+					angle = StrictMath.atan((2.0d * u * lift * StrictMath.exp(-u * u)) / (0.5d * radiusX));
+				}
+				else
+				{
+					for (int index = 0; index < deltaXs.length; index++)
+						angle += 0.5d * StrictMath.atan2(y - deltaYs[index], x - deltaXs[index]);
+					for (int index = 0; index < coreXs.length; index++)
+						angle -= 0.5d * StrictMath.atan2(y - coreYs[index], x - coreXs[index]);
+				}
+				angle += swirlXs[x] * swirlYs[y];
+
+				/* Angles are taken with y pointing down, as are the kernels */
+				double direction = angle / Math.PI;
+				direction -= StrictMath.floor(direction);
+				directions[(y * width) + x] = (byte)(((int)StrictMath.round(direction * NUM_DIRECTIONS)) % NUM_DIRECTIONS);
+			}
+		}
+	}
+
+	/* Pad weight of every pixel, fading to 0 over the outer ridges; */
+	/* returns the number of pixels on the pad                        */
+	private int padMask(float[] padWeights, final double centerX, final double centerY,
+		final double radiusX, final double radiusY, final double period) {
+		int padPixels = 0;
+		double fade = (3.0d * period) / Math.min(radiusX, radiusY);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				double dx = (x - centerX) / radiusX, dy = (y - centerY) / radiusY;
+				double distance = Math.sqrt((dx * dx) + (dy * dy));
+				if (distance < 1.0d)
+				{
+					padWeights[(y * width) + x] = (float)Math.min(1.0d, (1.0d - distance) / fade);
+					padPixels++;
+				}
+			}
+		}
+		return padPixels;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: initKernels - Builds the two 1D halves of an oriented Gabor
+	#cat:             filter for each direction: a Gaussian along the ridge
+	#cat:             and a zero-mean, Gaussian windowed cosine of the ridge
+	#cat:             period across it.  Applied one after the other they
+	#cat:             cost 2 x (2 x margin + 1) taps per pixel instead of
+	#cat:             the square of it.
+	************************************************************************/
+	private static void initKernels(int[][] alongOffsets, float[][] alongWeights, int[][] acrossOffsets,
+		float[][] acrossWeights, final double period, final int margin, final int stride) {
+		int taps = (2 * margin) + 1;
+		double alongSigma = 0.6d * period, acrossSigma = 0.45d * period;
+		for (int dir = 0; dir < NUM_DIRECTIONS; dir++)
+		{
+			double theta = (Math.PI * dir) / NUM_DIRECTIONS;
+			double cos = StrictMath.cos(theta), sin = StrictMath.sin(theta);
+			alongOffsets[dir] = new int[taps];
+			alongWeights[dir] = new float[taps];
+			acrossOffsets[dir] = new int[taps];
+			acrossWeights[dir] = new float[taps];
+			double alongSum = 0.0d, acrossSum = 0.0d, acrossMean = 0.0d;
+			double[] along = new double[taps], across = new double[taps];
+			for (int tap = 0; tap < taps; tap++)
+			{
+				int t = tap - margin;
+				alongOffsets[dir][tap] = ((int)StrictMath.round(t * sin) * stride) + (int)StrictMath.round(t * cos);
+				acrossOffsets[dir][tap] = ((int)StrictMath.round(t * cos) * stride) - (int)StrictMath.round(t * sin);
+				along[tap] = StrictMath.exp(-(t * t) / (2.0d * alongSigma * alongSigma));
+				alongSum += along[tap];
+				across[tap] = StrictMath.exp(-(t * t) / (2.0d * acrossSigma * acrossSigma));
+				acrossSum += across[tap];
+				acrossMean += across[tap] * StrictMath.cos((2.0d * Math.PI * t) / period);
+			}
+			/* No response to flat regions */
+			acrossMean /= acrossSum;
+			for (int tap = 0; tap < taps; tap++)
+			{
+				int t = tap - margin;
+				alongWeights[dir][tap] = (float)(along[tap] / alongSum);
+				acrossWeights[dir][tap] = (float)(across[tap] * (StrictMath.cos((2.0d * Math.PI * t) / period) - acrossMean));
+			}
+		}
+	}
+
+	/* One oriented 1D convolution of the pad pixels of src into dest */
+	private void filter(float[] src, float[] dest, byte[] directions, float[] padWeights, int[][] offsets,
+		float[][] weights, final int margin, final int stride) {
+		for (int y = 0; y < height; y++)
+		{
+			int index = ((y + margin) * stride) + margin;
+			for (int x = 0; x < width; x++, index++)
+			{
+				if (padWeights[(y * width) + x] == 0.0f)
+				{
+					continue;
+				}
+				int dir = directions[(y * width) + x];
+				int[] tapOffsets = offsets[dir];
+				float[] tapWeights = weights[dir];
+				float sum = 0.0f;
+				for (int tap = 0; tap < tapOffsets.length; tap++)
+				{
+					sum += tapWeights[tap] * src[index + tapOffsets[tap]];
+				}
+				dest[index] = sum;
+			}
+		}
+	}
+
+	/* Rescales the pad to unit RMS and clips it to [-1..1], which */
+	/* sharpens the ridges a little more every round               */
+	private void saturate(float[] field, float[] padWeights, final int margin, final int stride) {
+		double sum = 0.0d;
+		int count = 0;
+		for (int y = 0; y < height; y++)
+		{
+			int index = ((y + margin) * stride) + margin;
+			for (int x = 0; x < width; x++, index++)
+			{
+				if (padWeights[(y * width) + x] > 0.0f)
+				{
+					sum += field[index] * field[index];
+					count++;
+				}
+			}
+		}
+		float gain = (count == 0 || sum == 0.0d) ? 0.0f : (float)(2.0d / Math.sqrt(sum / count));
+		for (int y = 0; y < height; y++)
+		{
+			int index = ((y + margin) * stride) + margin;
+			for (int x = 0; x < width; x++, index++)
+			{
+				field[index] = Math.max(-1.0f, Math.min(1.0f, field[index] * gain));
+			}
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: addDefects - Stamps pathological structures on the ridges: pores
+	#cat:             and lakes (light holes in ridges), islands (dark dots
+	#cat:             in valleys) and breaks (short gaps across ridges).
+	#cat:             Holes and islands become the small loops handled by
+	#cat:             Loop; breaks become the ending pairs, hooks and
+	#cat:             overlaps removed by RemoveMinutia.
+	************************************************************************/
+	private void addDefects(Random random, float[] field, byte[] directions, float[] padWeights, final int padPixels,
+		final double period, final int margin, final int stride) {
+		int count = (int)((defects * padPixels) / (2.0d * period * period));
+		for (int index = 0; index < count; index++)
+		{
+			int x = random.nextInt(width), y = random.nextInt(height);
+			int kind = random.nextInt(3);
+			double size = period * (0.12d + (0.12d * random.nextDouble()));
+			if (padWeights[(y * width) + x] == 0.0f)
+			{
+				continue;
+			}
+			float value = field[((y + margin) * stride) + x + margin];
+			if (kind == 0 && value > 0.0f)
+			{
+				/* Pore or lake in a ridge */
+				stampDisc(field, x, y, size, -1.0f, margin, stride);
+			}
+			else if (kind == 1 && value < 0.0f)
+			{
+				/* Island in a valley */
+				stampDisc(field, x, y, size, 1.0f, margin, stride);
+			}
+			else if (kind == 2)
+			{
+				/* Break across the ridges, half a period wide */
+				double theta = (Math.PI * directions[(y * width) + x]) / NUM_DIRECTIONS;
+				double cos = StrictMath.cos(theta), sin = StrictMath.sin(theta);
+				int length = (int)Math.round(period * (0.5d + random.nextDouble()));
+				for (int t = -length; t <= length; t++)
+				{
+					stampDisc(field, x + (int)Math.round(t * -sin), y + (int)Math.round(t * cos),
+						period / 4.0d, -1.0f, margin, stride);
+				}
+			}
+		}
+	}
+
+	private void stampDisc(float[] field, final int centerX, final int centerY, final double radius, final float value,
+		final int margin, final int stride) {
+		int reach = (int)Math.ceil(radius);
+		for (int y = Math.max(0, centerY - reach); y <= Math.min(height - 1, centerY + reach); y++)
+		{
+			for (int x = Math.max(0, centerX - reach); x <= Math.min(width - 1, centerX + reach); x++)
+			{
+				if (((x - centerX) * (x - centerX)) + ((y - centerY) * (y - centerY)) <= radius * radius)
+				{
+					field[((y + margin) * stride) + x + margin] = value;
+				}
+			}
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: render - Maps the ridge field to gray levels, wipes out the blank
+	#cat:             regions and adds the pixel noise.
+	************************************************************************/
+	private ByteImage render(Random random, float[] field, float[] padWeights, final int padPixels, final double period,
+		final double centerX, final double centerY, final double radiusX, final double radiusY,
+		final int margin, final int stride) {
+		ByteImage image = new ByteImage(width, height);
+		/* Fading ridges under growing noise take NFIQ from 1 to 5 */
+		double contrast = 60.0d * (1.0d - (0.9d * noise));
+		double sigma = 40.0d * noise;
+
+		/* Blank regions: smudges and dry patches of a few ridge periods */
+		double blankPixels = blankArea * padPixels;
+		int numBlanks = (blankArea == 0.0d) ? 0 : 1 + (int)(blankPixels / (Math.PI * 36.0d * period * period));
+		double[] blankXs = new double[numBlanks], blankYs = new double[numBlanks];
+		double[] blankRadii = new double[numBlanks], blankLevels = new double[numBlanks];
+		double blankRadius = Math.sqrt(blankPixels / (numBlanks * Math.PI));
+		for (int index = 0; index < numBlanks; index++)
+		{
+			double angle = 2.0d * Math.PI * random.nextDouble();
+			double distance = Math.sqrt(random.nextDouble());
+			blankXs[index] = centerX + (distance * radiusX * StrictMath.cos(angle));
+			blankYs[index] = centerY + (distance * radiusY * StrictMath.sin(angle));
+			blankRadii[index] = blankRadius * (0.8d + (0.4d * random.nextDouble()));
+			blankLevels[index] = random.nextBoolean() ? 60.0d + (40.0d * random.nextDouble())
+				: 200.0d + (40.0d * random.nextDouble());
+		}
+
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				double weight = padWeights[(y * width) + x];
+				double level = BACKGROUND;
+				if (weight > 0.0d)
+				{
+					double ridge = field[((y + margin) * stride) + x + margin];
+					level = 135.0d - (contrast * ridge);
+					for (int index = 0; index < numBlanks; index++)
+					{
+						double dx = x - blankXs[index], dy = y - blankYs[index];
+						double distance = Math.sqrt((dx * dx) + (dy * dy)) / blankRadii[index];
+						if (distance < 1.0d)
+						{
+							/* Soft edged, so the wiped out area blends into the ridges */
+							double cover = Math.min(1.0d, 4.0d * (1.0d - distance));
+							level += cover * (blankLevels[index] - level);
+						}
+					}
+					level = BACKGROUND + (weight * (level - BACKGROUND));
+				}
+				if (sigma > 0.0d)
+				{
+					level += sigma * random.nextGaussian();
+				}
+				image.set(x, y, (int)Math.max(0L, Math.min(255L, Math.round(level))));
+			}
+		}
+		return image;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: encodeIsoRecord - Generates the image and wraps it in an ISO/IEC
+	#cat:             19794-4:2011 record, as read by ImageDecoder.  Only
+	#cat:             lossless JPEG 2000 can be written, as no WSQ encoder
+	#cat:             is available.  The capture date is fixed so that the
+	#cat:             same parameters give the same record.
+	   Input:
+	      imageType     - compression of the record, ImageType.JP2_IMG
+	   Output:
+	      oIsoData      - ISO 19794-4 record
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - unsupported image type or system error
+	************************************************************************/
+	public int encodeIsoRecord(AtomicReference<byte[]> oIsoData, final int imageType) {
+		if (imageType != ImageType.JP2_IMG)
+		{
+			LOGGER.error(String.format("encodeIsoRecord : image type %d cannot be encoded", imageType));
+			return (-2);
+		}
+
+		ByteImage image = generate();
+		BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		byte[] raster = ((DataBufferByte)bufferedImage.getRaster().getDataBuffer()).getData();
+		System.arraycopy(image.getPixels(), 0, raster, 0, raster.length);
+
+		try
+		{
+			ByteArrayOutputStream jp2Data = new ByteArrayOutputStream();
+			if (!ImageIO.write(bufferedImage, "jpeg2000", jp2Data))
+			{
+				LOGGER.error("encodeIsoRecord : no JPEG 2000 writer is registered");
+				return (-3);
+			}
+
+			FingerQualityBlock[] qualityBlocks = new FingerQualityBlock[] {new FingerQualityBlock(80,
+				FingerQualityAlgorithmVendorIdentifier.NIST, FingerQualityAlgorithmIdentifier.NIST)};
+			FingerBDIR fingerBDIR = new FingerBDIR(FingerFormatIdentifier.FORMAT_FIR, FingerVersionNumber.VERSION_020,
+				FingerCertificationFlag.UNSPECIFIED, FingerCaptureDeviceTechnology.UNSPECIFIED,
+				FingerCaptureDeviceVendor.UNSPECIFIED, FingerCaptureDeviceType.UNSPECIFIED, new Date(0L), 1,
+				qualityBlocks, null, FingerPosition.UNKNOWN, 0, FingerScaleUnitType.PIXELS_PER_INCH, ppi, ppi, ppi, ppi,
+				FingerImageBitDepth.BPP_08, FingerImageCompressionType.JPEG_2000_LOSS_LESS, FingerImpressionType.UNKNOWN,
+				width, height, 1, jp2Data.toByteArray(), null, null, null);
+
+			ByteArrayOutputStream isoData = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(isoData);
+			fingerBDIR.writeObject(out);
+			out.flush();
+			oIsoData.set(isoData.toByteArray());
+		}
+		catch (Exception ex)
+		{
+			LOGGER.error("encodeIsoRecord : ", ex);
+			return (-4);
+		}
+		return (ILfs.FALSE);
+	}
+
+	public static void main(String[] args) throws Exception {
+		String outDir = ".";
+		int count = 1, width = 500, height = 500, ppi = 500, pattern = LOOP;
+		long seed = 1L;
+		double noise = 0.0d, blankArea = 0.0d, defects = 0.0d;
+		boolean vary = false;
+		if (args != null)
+		{
+			for (String arg : args)
+			{
+				String[] keyValue = arg.split("=", 2);
+				if (keyValue.length != 2)
+				{
+					continue;
+				}
+				if (keyValue[0].equals("out"))
+					outDir = keyValue[1];
+				else if (keyValue[0].equals("count"))
+					count = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("seed"))
+					seed = Long.parseLong(keyValue[1]);
+				else if (keyValue[0].equals("width"))
+					width = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("height"))
+					height = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("ppi"))
+					ppi = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("pattern"))
+					pattern = keyValue[1].equals("arch") ? ARCH : (keyValue[1].equals("whorl") ? WHORL : LOOP);
+				else if (keyValue[0].equals("noise"))
+					noise = Double.parseDouble(keyValue[1]);
+				else if (keyValue[0].equals("blank"))
+					blankArea = Double.parseDouble(keyValue[1]);
+				else if (keyValue[0].equals("defects"))
+					defects = Double.parseDouble(keyValue[1]);
+				else if (keyValue[0].equals("vary"))
+					vary = Boolean.parseBoolean(keyValue[1]);
+			}
+		}
+
+		/* With vary=true every record draws its own pattern and degradations */
+		Random random = new Random(seed);
+		Path dir = Paths.get(outDir);
+		Files.createDirectories(dir);
+		for (int index = 0; index < count; index++)
+		{
+			SyntheticFingerprint fingerprint = new SyntheticFingerprint(width, height, ppi, seed + index);
+			fingerprint.setPattern(vary ? random.nextInt(3) : pattern);
+			fingerprint.setNoise(vary ? random.nextDouble() : noise);
+			fingerprint.setBlankArea(vary ? 0.6d * random.nextDouble() : blankArea);
+			fingerprint.setDefects(vary ? random.nextDouble() : defects);
+
+			AtomicReference<byte[]> isoData = new AtomicReference<byte[]>();
+			int ret = fingerprint.encodeIsoRecord(isoData, ImageType.JP2_IMG);
+			if (ret != ILfs.FALSE)
+			{
+				System.exit(1);
+			}
+			Path file = dir.resolve(String.format("synthetic_%d.iso", seed + index));
+			Files.write(file, isoData.get());
+			LOGGER.info(String.format("%s : pattern=%d noise=%.2f blank=%.2f defects=%.2f", file,
+				fingerprint.getPattern(), fingerprint.getNoise(), fingerprint.getBlankArea(), fingerprint.getDefects()));
+		}
+	}
+}
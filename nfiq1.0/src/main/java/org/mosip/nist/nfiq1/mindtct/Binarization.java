@@ -1,10 +1,13 @@
 package org.mosip.nist.nfiq1.mindtct;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IBinarization;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.mosip.nist.nfiq1.common.ILfs.RotGrids;
@@ -13,6 +16,8 @@ import org.slf4j.LoggerFactory;
 
 public class Binarization extends MindTct implements IBinarization {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Binarization.class);	
+	/* Rows of the binary image binarized by one task */
+	public static final int BINARIZE_ROWS_PER_TASK = 32;
 
 	private static volatile Binarization instance;
     public static Binarization getInstance() {
@@ -63,7 +68,7 @@ public class Binarization extends MindTct implements IBinarization {
 	**************************************************************************/
 	public int[] binarize(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, 
 		int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
-		AtomicIntegerArray mapDirectionArr, final int mappedImageWidth, final int mappedImageHeight, 
+		ByteBlockMap mapDirectionArr, final int mappedImageWidth, final int mappedImageHeight, 
 		final RotGrids dirBinGrids, final LfsParams lfsParms) {
 		int[] binarizedImageData;
 		int i;
@@ -118,14 +123,26 @@ public class Binarization extends MindTct implements IBinarization {
 	      binarizedImageData 	- points to created (unpadded) binary image
 	**************************************************************************/
 	public int[] binarizeV2(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, int[] paddedImageData, 
-		final int paddedImageWidth, final int paddedImageHeight, AtomicIntegerArray directionMap, final int mappedImageWidth,
+		final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap, final int mappedImageWidth,
 		final int mappedImageHeight, final RotGrids dirBinGrids, final LfsParams lfsParms) {
+		return binarizeV2(ret, oBinarizedWidth, oBinarizedHeight, paddedImageData, paddedImageWidth, paddedImageHeight, 
+			directionMap, mappedImageWidth, mappedImageHeight, dirBinGrids, lfsParms, null);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: binarizeV2 - Same as above, binarizing bands of rows on the
+	#cat:              threads of pool when it is not null.
+	**************************************************************************/
+	public int[] binarizeV2(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, int[] paddedImageData, 
+		final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap directionMap, final int mappedImageWidth,
+		final int mappedImageHeight, final RotGrids dirBinGrids, final LfsParams lfsParms, ForkJoinPool pool) {
 		int[] binarizeImagedata;
 		AtomicInteger binarizedWidth = new AtomicInteger (0), binarizedHeight = new AtomicInteger(0);
 		// return code
 		/* 1. Binarize the padded input image using NMAP information. */
 		binarizeImagedata = binarizeImageV2(ret, binarizedWidth, binarizedHeight, paddedImageData, paddedImageWidth, paddedImageHeight, directionMap, mappedImageWidth, mappedImageHeight, 
-				lfsParms.getBlockSize(), dirBinGrids);
+				lfsParms.getBlockSize(), dirBinGrids, pool);
 		if (ret.get() != ILfs.FALSE)
 		{
 			return null;
@@ -171,7 +188,7 @@ public class Binarization extends MindTct implements IBinarization {
 	**************************************************************************/	
 	@SuppressWarnings("unused")
 	public int[] binarizeImage(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, 
-		int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, AtomicIntegerArray mapDirectionArr,
+		int[] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, ByteBlockMap mapDirectionArr,
 		final int mappedImageWidth, final int mappedImageHeight, final int imapBlockSize, RotGrids dirBinGrids, final int isoBinGridDim) {
 		int binarizedWidth, binarizedHeight, binarizedXPixel, binarizedYPixel, nMapValue;
 		int [] binarizedImageData;
@@ -181,7 +198,12 @@ public class Binarization extends MindTct implements IBinarization {
 		binarizedWidth = paddedImageWidth - (dirBinGrids.getPad() << 1);
 		binarizedHeight = paddedImageHeight - (dirBinGrids.getPad() << 1);
 
-		binarizedImageData = new int [binarizedWidth * binarizedHeight];
+		/* Neighborhood sums of isotropic binarization come from an */
+		/* integral image of the padded input.                      */
+		ImageStats imageStats = ImageStats.newIntegralImage(paddedImageData, paddedImageWidth, paddedImageHeight);
+
+		/* Every pixel is written, so a pooled image needs no clearing. */
+		binarizedImageData = ScratchArena.current().getInts(binarizedWidth * binarizedHeight);
 		if (binarizedImageData == null)
 		{
 			LOGGER.error(String.format("ERROR : binarizeImage : binarizedImageData : null\n"));
@@ -219,7 +241,8 @@ public class Binarization extends MindTct implements IBinarization {
 				{
 					/* Otherwise, the block's NMAP is either INVALID or */
 					/* HIGH-CURVATURE, so use isotropic binarization.    */
-					binarizedImageData[binarizedImageIndex] = isoBinarize(paddedImageData, paddedImageIndex, paddedImageWidth, paddedImageHeight, isoBinGridDim);
+					binarizedImageData[binarizedImageIndex] = isoBinarize(paddedImageData, paddedImageIndex, paddedImageWidth, paddedImageHeight, isoBinGridDim, 
+						imageStats);
 				}
 				/* Bump input and output pixel pointers. */
 				paddedImageIndex++;
@@ -261,58 +284,120 @@ public class Binarization extends MindTct implements IBinarization {
 	**************************************************************************/
 	public int[] binarizeImageV2(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, 
 		int[] paddedImageData,  final int paddedImageWidth, final int paddedImageHeight, 
-		AtomicIntegerArray directionMap, final int mappedImageWidth, final int mappedImageHeight, 
+		ByteBlockMap directionMap, final int mappedImageWidth, final int mappedImageHeight, 
 		final int blocksize, final RotGrids dirBinGrids) {
-		int binarizedWidth, binarizedHeight, binarizedXPixel, binarizedYPixel;
-		int mapValue;
+		return binarizeImageV2(ret, oBinarizedWidth, oBinarizedHeight, paddedImageData, paddedImageWidth, paddedImageHeight, 
+			directionMap, mappedImageWidth, mappedImageHeight, blocksize, dirBinGrids, null);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: binarizeImageV2 - Same as above, but when a pool is given, bands
+	#cat:              of rows of the binary image are binarized on its
+	#cat:              threads.  Every pixel only depends on the padded
+	#cat:              image and the Direction Map, so the result is the
+	#cat:              same as a serial run.
+	   Input:
+	      (as above)
+	      pool       				- threads for the row bands, or null to
+	                    			binarize serially
+	   Output:
+	      (as above)
+	   Return Code:
+	      binarizedImageData  	- points to binary image results
+	**************************************************************************/
+	public int[] binarizeImageV2(AtomicInteger ret, AtomicInteger oBinarizedWidth, AtomicInteger oBinarizedHeight, 
+		int[] paddedImageData,  final int paddedImageWidth, final int paddedImageHeight, 
+		ByteBlockMap directionMap, final int mappedImageWidth, final int mappedImageHeight, 
+		final int blocksize, final RotGrids dirBinGrids, ForkJoinPool pool) {
+		int binarizedWidth, binarizedHeight;
 		int[] binarizedImageData;
-		int binarizedImageIndex, paddedImageIndex, currentPaddedImageIndex;
 
 		/* Compute dimensions of "unpadded" binary image results. */
 		binarizedWidth = paddedImageWidth - (dirBinGrids.getPad() << 1);
 		binarizedHeight = paddedImageHeight - (dirBinGrids.getPad() << 1);
 
-		binarizedImageData = new int [binarizedWidth * binarizedHeight];
-		binarizedImageIndex = 0;
-		currentPaddedImageIndex = 0 + (dirBinGrids.getPad() * paddedImageWidth) + dirBinGrids.getPad();
-		for (int iy = 0; iy < binarizedHeight; iy++)
+		/* Every pixel is written, so a pooled image needs no clearing. */
+		binarizedImageData = ScratchArena.current().getInts(binarizedWidth * binarizedHeight);
+		if (pool == null || binarizedHeight <= BINARIZE_ROWS_PER_TASK)
 		{
-			/* Set pixel pointer to start of next row in grid. */
-			paddedImageIndex = currentPaddedImageIndex;
-			for (int ix = 0; ix < binarizedWidth; ix++)
+			binarizeRowsV2(binarizedImageData, 0, binarizedHeight, binarizedWidth, paddedImageData, paddedImageWidth, 
+				directionMap, mappedImageWidth, blocksize, dirBinGrids);
+		}
+		else
+		{
+			pool.invoke(new BinarizeRowsTask(binarizedImageData, 0, binarizedHeight, binarizedWidth, paddedImageData, paddedImageWidth, 
+				directionMap, mappedImageWidth, blocksize, dirBinGrids));
+		}
+
+		oBinarizedWidth.set(binarizedWidth);
+		oBinarizedHeight.set(binarizedHeight);
+		ret.set(ILfs.FALSE);
+
+		return binarizedImageData;
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: binarizeRowsV2 - Binarizes a band of rows of the (unpadded) binary
+	#cat:              image with binarizeImageV2's rules.  The Direction
+	#cat:              Map is read once per block in the row and the center
+	#cat:              row of the rotated grids is computed once per band.
+	   Input:
+	      fromRow     				- first row of the band
+	      toRow     				- row after the last row of the band
+	      binarizedWidth     		- width (in pixels) of the binary image
+	      paddedImageData       	- padded input grayscale image
+	      paddedImageWidth          - padded width (in pixels) of input image
+	      directionMap 				- 2-D vector of discrete ridge flow directions
+	      mappedImageWidth          - width (in blocks) of the map
+	      blocksize   				- dimension (in pixels) of each NMAP block
+	      dirBinGrids 				- set of rotated grid offsets used for directional
+	                    			binarization
+	   Output:
+	      binarizedImageData  	- rows fromRow to toRow - 1 of the binary image
+	**************************************************************************/
+	public void binarizeRowsV2(int[] binarizedImageData, final int fromRow, final int toRow, final int binarizedWidth, 
+		int[] paddedImageData, final int paddedImageWidth, ByteBlockMap directionMap, final int mappedImageWidth, 
+		final int blocksize, final RotGrids dirBinGrids) {
+		int binarizedYPixel, mapIndex, mapValue, toX;
+		int binarizedImageIndex, paddedImageIndex;
+		final int cy = getGridCenterRow(dirBinGrids);
+
+		for (int iy = fromRow; iy < toRow; iy++)
+		{
+			/* Set pixel pointers to start of row. */
+			binarizedImageIndex = iy * binarizedWidth;
+			paddedImageIndex = ((iy + dirBinGrids.getPad()) * paddedImageWidth) + dirBinGrids.getPad();
+			/* Compute which row of blocks the current pixel is in. */
+			binarizedYPixel = (int)(iy / blocksize);
+			mapIndex = binarizedYPixel * mappedImageWidth;
+			/* Foreach block along the row ... */
+			for (int ix = 0; ix < binarizedWidth; ix = toX, mapIndex++)
 			{
-				/* Compute which block the current pixel is in. */
-				binarizedXPixel = (int)(ix / blocksize);
-				binarizedYPixel = (int)(iy / blocksize);
+				toX = Math.min(ix + blocksize, binarizedWidth);
 				/* Get corresponding value in Direction Map. */
-				mapValue = directionMap.get((binarizedYPixel * mappedImageWidth) + binarizedXPixel);
+				mapValue = directionMap.get(mapIndex);
 
 				/* If current block has has INVALID direction ... */
 				if (mapValue == ILfs.INVALID_DIR)
 				{
-					/* Set binary pixel to white (255). */
-					binarizedImageData[binarizedImageIndex] = ILfs.WHITE_PIXEL;
-				 }
-				 /* Otherwise, if block has a valid direction ... */
-				 else //if(mapValue >= 0)
-				 {
-					 /* Use directional binarization based on block's direction. */
-					 binarizedImageData[binarizedImageIndex] = dirbinarize(paddedImageData, paddedImageIndex, mapValue, dirBinGrids);
-				 }
-
-				 /* Bump input and output pixel pointers. */
-				 paddedImageIndex++;
-				 binarizedImageIndex++;
-			  }
-			  /* Bump pointer to the next row in padded input image. */
-			  currentPaddedImageIndex += paddedImageWidth;
-		   }
-
-		   oBinarizedWidth.set(binarizedWidth);
-		   oBinarizedHeight.set(binarizedHeight);
-		   ret.set(ILfs.FALSE);
-		   
-		   return binarizedImageData;
+					/* Set binary pixels to white (255). */
+					Arrays.fill(binarizedImageData, binarizedImageIndex, binarizedImageIndex + (toX - ix), ILfs.WHITE_PIXEL);
+					binarizedImageIndex += toX - ix;
+					paddedImageIndex += toX - ix;
+				}
+				/* Otherwise, if block has a valid direction ... */
+				else
+				{
+					/* Use directional binarization based on block's direction. */
+					for (int px = ix; px < toX; px++)
+					{
+						binarizedImageData[binarizedImageIndex++] = dirbinarize(paddedImageData, paddedImageIndex++, mapValue, dirBinGrids, cy);
+					}
+				}
+			}
+		}
 	}
 
 	/*************************************************************************
@@ -333,31 +418,46 @@ public class Binarization extends MindTct implements IBinarization {
 	      WHITE_PIXEL - pixel intensity of WHITE
 	**************************************************************************/
 	public int dirbinarize(int[] paddedImageData, final int paddedImageIndex, final int imapDirection, final RotGrids dirBinGrids) {
-		int gx, gy, gi, cy;
-		int rsum, gsum, csum = 0;
-		int []grid ;
+		return dirbinarize(paddedImageData, paddedImageIndex, imapDirection, dirBinGrids, getGridCenterRow(dirBinGrids));
+	}
+
+	/* Calculates center (0-oriented) row in the rotated grids. */
+	public int getGridCenterRow(final RotGrids dirBinGrids) {
 		double dcy;
 
-		/* Assign nickname pointer. */
-		grid = dirBinGrids.getGrids()[imapDirection];
-		/* Calculate center (0-oriented) row in grid. */
 		dcy = (dirBinGrids.getGridHeight() - 1) / (double)2.0;
 		/* Need to truncate precision so that answers are consistent */
 		/* on different computer architectures when rounding doubles. */
 		dcy = getDefs().truncDoublePrecision(dcy, ILfs.TRUNC_SCALE);
-		cy = getDefs().sRound(dcy);
+		return getDefs().sRound(dcy);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: dirbinarize - Same as above, given the center row of the grids
+	#cat:               computed once by getGridCenterRow.
+	**************************************************************************/
+	public int dirbinarize(int[] paddedImageData, final int paddedImageIndex, final int imapDirection, 
+		final RotGrids dirBinGrids, final int cy) {
+		int gx, gy, gi;
+		int rsum, gsum, csum = 0;
+		int []grid ;
+		final int gridWidth = dirBinGrids.getGridWidth(), gridHeight = dirBinGrids.getGridHeight();
+
+		/* Assign nickname pointer. */
+		grid = dirBinGrids.getGrids()[imapDirection];
 		/* Initialize grid's pixel offset index to zero. */
 		gi = 0;
 		/* Initialize grid's pixel accumulator to zero */
 		gsum = 0;
 
 		/* Foreach row in grid ... */
-		for (gy = 0; gy < dirBinGrids.getGridHeight(); gy++)
+		for (gy = 0; gy < gridHeight; gy++)
 		{
 			/* Initialize row pixel sum to zero. */
 			rsum = 0;
 			/* Foreach column in grid ... */
-			for (gx = 0; gx < dirBinGrids.getGridWidth(); gx++)
+			for (gx = 0; gx < gridWidth; gx++)
 			{
 				/* Accumulate next pixel along rotated row in grid. */
 				rsum += paddedImageData [paddedImageIndex + grid[gi]];
@@ -375,7 +475,7 @@ public class Binarization extends MindTct implements IBinarization {
 
 		/* If the center row sum treated as an average is less than the */
 		/* total pixel sum in the rotated grid ...                      */
-		if ((csum * dirBinGrids.getGridHeight()) < gsum)
+		if ((csum * gridHeight) < gsum)
 		{
 			/* Set the binary pixel to BLACK. */
 			return (ILfs.BLACK_PIXEL);
@@ -457,6 +557,90 @@ public class Binarization extends MindTct implements IBinarization {
 			return (ILfs.WHITE_PIXEL);
 		}
 	}
-}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat: isoBinarize - As above, but takes the pixel sum of the neighborhood
+	#cat:               from the integral image of the padded image, in
+	#cat:               constant time whatever the neighborhood dimension.
+	   Input:
+	      (as above)
+	      imageStats 		- integral image of the padded image, or null
+	                          to sum the neighborhood pixel by pixel
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int isoBinarize(int[] paddedImageData, final int paddedImageIndex, final int paddedImageWidth, 
+			final int paddedImageHeight, final int isoBinGridDim, ImageStats imageStats) {
+		int currentPaddedImageIndex, radius;
+		long bsum;
+		double drad;
+
+		if (imageStats == null)
+		{
+			return isoBinarize(paddedImageData, paddedImageIndex, paddedImageWidth, paddedImageHeight, isoBinGridDim);
+		}
+
+		/* Compute radius from current pixel based on isoBinGridDim. */
+		drad = (isoBinGridDim - 1) / (double)2.0;
+		drad = getDefs().truncDoublePrecision(drad, ILfs.TRUNC_SCALE);
+		radius = getDefs().sRound(drad);
+		/* Origin of grid centered on the current pixel. */
+		currentPaddedImageIndex = (paddedImageIndex - (radius * paddedImageWidth) - radius);
+		bsum = imageStats.getSum(currentPaddedImageIndex % paddedImageWidth, currentPaddedImageIndex / paddedImageWidth, 
+			isoBinGridDim, isoBinGridDim);
 
+		/* Same test as above on the grid pixel sum. */
+		if (((long)paddedImageData[paddedImageIndex] * isoBinGridDim * isoBinGridDim) < bsum)
+		{
+			return (ILfs.BLACK_PIXEL);
+		}
+		else
+		{
+			return (ILfs.WHITE_PIXEL);
+		}
+	}
+
+	/* Splits a band of rows in halves until it is small enough to be */
+	/* binarized by binarizeRowsV2.                                   */
+	private class BinarizeRowsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int[] binarizedImageData;
+		private final int fromRow, toRow, binarizedWidth;
+		private final int[] paddedImageData;
+		private final int paddedImageWidth;
+		private final ByteBlockMap directionMap;
+		private final int mappedImageWidth, blocksize;
+		private final RotGrids dirBinGrids;
+
+		BinarizeRowsTask(int[] binarizedImageData, final int fromRow, final int toRow, final int binarizedWidth, 
+			int[] paddedImageData, final int paddedImageWidth, ByteBlockMap directionMap, final int mappedImageWidth, 
+			final int blocksize, final RotGrids dirBinGrids) {
+			this.binarizedImageData = binarizedImageData;
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+			this.binarizedWidth = binarizedWidth;
+			this.paddedImageData = paddedImageData;
+			this.paddedImageWidth = paddedImageWidth;
+			this.directionMap = directionMap;
+			this.mappedImageWidth = mappedImageWidth;
+			this.blocksize = blocksize;
+			this.dirBinGrids = dirBinGrids;
+		}
+
+		@Override
+		protected void compute() {
+			if (toRow - fromRow <= BINARIZE_ROWS_PER_TASK)
+			{
+				binarizeRowsV2(binarizedImageData, fromRow, toRow, binarizedWidth, paddedImageData, paddedImageWidth, 
+					directionMap, mappedImageWidth, blocksize, dirBinGrids);
+				return;
+			}
+			int midRow = fromRow + ((toRow - fromRow) >> 1);
+			invokeAll(new BinarizeRowsTask(binarizedImageData, fromRow, midRow, binarizedWidth, paddedImageData, paddedImageWidth, 
+					directionMap, mappedImageWidth, blocksize, dirBinGrids),
+				new BinarizeRowsTask(binarizedImageData, midRow, toRow, binarizedWidth, paddedImageData, paddedImageWidth, 
+					directionMap, mappedImageWidth, blocksize, dirBinGrids));
+		}
+	}
+}
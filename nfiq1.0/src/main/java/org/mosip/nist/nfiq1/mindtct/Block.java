@@ -6,6 +6,9 @@ import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.BlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IBlock;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.slf4j.Logger;
@@ -183,7 +186,36 @@ public class Block extends MindTct implements IBlock {
     **************************************************************************/
     public int lowContrastBlock(int blockOffset, int blockSize, 
 		int[] paddedImageData, int paddedImageWidth, int paddedImageHeight, LfsParams lfsparms) {
-		int[] pixTable = new int[ILfs.IMG_6BIT_PIX_LIMIT];
+		return lowContrastBlock(blockOffset, blockSize, paddedImageData, paddedImageWidth, paddedImageHeight, 
+			lfsparms, null);
+	}
+
+    /*************************************************************************
+    #cat: lowContrastBlock - As above.  When the block is made of whole
+    #cat:             blocks of the given image statistics, its histogram
+    #cat:             is read from them instead of counting its pixels.
+       Input:
+          (as above)
+          imageStats - block histograms of the padded image, or null
+       Return Code:
+          (as above)
+    **************************************************************************/
+    public int lowContrastBlock(int blockOffset, int blockSize, 
+		int[] paddedImageData, int paddedImageWidth, int paddedImageHeight, LfsParams lfsparms, 
+		ImageStats imageStats) {
+		/* The histogram is scratch of the thread's arena. */
+		ScratchArena arena = ScratchArena.current();
+		int[] pixTable = arena.getInts(ILfs.IMG_6BIT_PIX_LIMIT);
+		int ret = lowContrastBlock(blockOffset, blockSize, paddedImageData, paddedImageWidth, paddedImageHeight, 
+			lfsparms, imageStats, pixTable);
+		arena.release(pixTable);
+		return ret;
+	}
+
+	/* Body of lowContrastBlock, counting into a caller supplied histogram */
+	private int lowContrastBlock(int blockOffset, int blockSize, 
+		int[] paddedImageData, int paddedImageWidth, int paddedImageHeight, LfsParams lfsparms, 
+		ImageStats imageStats, int[] pixTable) {
 		int numOfPix;
 		int pi;
 		int currentPaddedImageIndex, paddedImageIndex;
@@ -192,22 +224,31 @@ public class Block extends MindTct implements IBlock {
 		int prctMin = 0, prctMax = 0, prctThresh, pixSum, found;
 
 		numOfPix = blockSize * blockSize;
-		Arrays.fill(pixTable, 0);
+		Arrays.fill(pixTable, 0, ILfs.IMG_6BIT_PIX_LIMIT, 0);
 
 		tdbl = (lfsparms.getPercentileMinMax() / 100.0) * (double)(numOfPix - 1);
 		tdbl = getDefs().truncDoublePrecision(tdbl, ILfs.TRUNC_SCALE);
 		prctThresh = getDefs().sRound(tdbl);
 
-		currentPaddedImageIndex = 0 + blockOffset;
-		for (int py = 0; py < blockSize; py++)
+		if (imageStats != null && imageStats.hasWindowHistogram(blockOffset % paddedImageWidth, 
+			blockOffset / paddedImageWidth, blockSize))
+		{
+			imageStats.getWindowHistogram(blockOffset % paddedImageWidth, blockOffset / paddedImageWidth, 
+				blockSize, pixTable);
+		}
+		else
 		{
-			paddedImageIndex = currentPaddedImageIndex;
-			for (int px = 0; px < blockSize; px++)
+			currentPaddedImageIndex = 0 + blockOffset;
+			for (int py = 0; py < blockSize; py++)
 			{
-				pixTable[paddedImageData [paddedImageIndex]]++;
-				paddedImageIndex++;
+				paddedImageIndex = currentPaddedImageIndex;
+				for (int px = 0; px < blockSize; px++)
+				{
+					pixTable[paddedImageData [paddedImageIndex]]++;
+					paddedImageIndex++;
+				}
+				currentPaddedImageIndex += paddedImageWidth;
 			}
-			currentPaddedImageIndex += paddedImageWidth;
 		}
 
 		pi = 0;
@@ -288,7 +329,7 @@ public class Block extends MindTct implements IBlock {
           NOT_FOUND - neighboring block with valid direction NOT found
     **************************************************************************/
     public int findValidBlock(AtomicInteger nbrDir, AtomicInteger nbrX, AtomicInteger nbrY,
-		AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap, 
+		ByteBlockMap directionMap, BitBlockMap lowContrastMap, 
 		int startX, int startY, int mappedImageWidth, int mappedImageHeight,
 		int xIncr, int yIncr) {
 		int xPixel, yPixel, dir;
@@ -337,7 +378,7 @@ public class Block extends MindTct implements IBlock {
        Output:
           oMap       - resulting map
     **************************************************************************/
-    public void setMarginBlocks(AtomicIntegerArray oMap, int mappedImageWidth, int mappedImageHeight, int marginValue) {
+    public void setMarginBlocks(BlockMap oMap, int mappedImageWidth, int mappedImageHeight, int marginValue) {
 		int mapIndex1;
 		int mapIndex2;
 
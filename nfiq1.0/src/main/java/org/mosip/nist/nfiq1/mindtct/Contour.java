@@ -38,17 +38,25 @@ public class Contour extends MindTct implements IContour {
     private Contour()
     {
     	super();
+    	this.pooled = false;
     }
     
 	private AtomicIntegerArray contourX, contourY, contourEx, contourEy;
 	private int noOfContour;
+	/* Taken from the ScratchArena of a thread, freeContour gives it back */
+	private final boolean pooled;
 	private Contour(int noOfContour) {
+		this(noOfContour, false);
+	}
+
+	Contour(int noOfContour, boolean pooled) {
 		super();
 		this.contourX = new AtomicIntegerArray (noOfContour);
 		this.contourY = new AtomicIntegerArray (noOfContour);
 		this.contourEx = new AtomicIntegerArray (noOfContour);
 		this.contourEy = new AtomicIntegerArray (noOfContour);
 		this.noOfContour = noOfContour;
+		this.pooled = pooled;
 	}
 
 	public Defs getDefs() {
@@ -92,10 +100,12 @@ public class Contour extends MindTct implements IContour {
 	      ocontourY  - allocated y-coord list for feature's contour points
 	      ocontourEx - allocated x-coord list for feature's edge points
 	      ocontourEy - allocated y-coord list for feature's edge points
+	      Within a scope of the thread's ScratchArena the lists are pooled
+	      and may be longer than noOfContour, holding stale points.
 	**************************************************************************/
 	public Contour allocateContour(AtomicInteger ret, final int noOfContour) {
 		ret.set(ILfs.FALSE);
-		return new Contour(noOfContour);
+		return ScratchArena.current().getContour(noOfContour);
 	}
 
 	/*************************************************************************
@@ -117,7 +127,12 @@ public class Contour extends MindTct implements IContour {
 	      contourEy - y-coord list for feature's edge points
 	**************************************************************************/
 	public void freeContour(Contour contour) {
-		if (contour != null)
+		/* Pooled lists go back to the arena as they are. */
+		if (contour != null && contour.pooled)
+		{
+			ScratchArena.current().release(contour);
+		}
+		else if (contour != null)
 		{
 			getFree().free(contour.getContourX());
 			getFree().free(contour.getContourY());
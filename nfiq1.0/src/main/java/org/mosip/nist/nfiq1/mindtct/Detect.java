@@ -2,15 +2,14 @@ package org.mosip.nist.nfiq1.mindtct;
 
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.mosip.nist.nfiq1.common.ILfs;
-import org.mosip.nist.nfiq1.common.ILfs.DftWaves;
-import org.mosip.nist.nfiq1.common.ILfs.DirToRad;
 import org.mosip.nist.nfiq1.common.ILfs.IDetect;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
-import org.mosip.nist.nfiq1.common.ILfs.RotGrids;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.mosip.nist.nfiq1.util.NfiqMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,98 +85,251 @@ public class Detect extends MindTct implements IDetect {
 	public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
 		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, int [] imageData, 
 		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		return lfsDetectMinutiaeV2(ret, oMinutiae, map, oBinarizedImageWidth, oBinarizedImageHeight, 
+			imageData, imageWidth, imageHeight, lfsParams, ILfs.DETECT_MODE_MINDTCT);
+	}
+
+	/*************************************************************************
+	#cat: lfsDetectMinutiaeV2 - As above, for a given detection mode.  In
+	#cat:          DETECT_MODE_NFIQ the minutiae are only sorted and
+	#cat:          de-duplicated after false minutia removal: neighbours
+	#cat:          and ridge counts are not computed and the binary image
+	#cat:          is left as {1 = black, 0 = white}.  The minutiae, image
+	#cat:          maps and so the NFIQ value are the same in both modes.
+	   Input:
+	      (as above)
+	      detectMode    - DETECT_MODE_MINDTCT or DETECT_MODE_NFIQ
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
+		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, int [] imageData, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams, final int detectMode) {
 
 		int [] paddedImagedata = null;
-		int [] binarizedImageData = null;
 		AtomicInteger paddedImageWidth = new AtomicInteger(0), paddedImageHeight = new AtomicInteger(0);
-		AtomicInteger binarizedImageWidth = new AtomicInteger(0), binarizedImageHeight = new AtomicInteger(0);
-		DirToRad dirToRad = null;
-		DftWaves dftWaves = null;
-		RotGrids dftGrids = null;
-		RotGrids dirBinGrids = null;
-	   	//int mw, mh;
-	   	int maxPad;
-	   	AtomicReference<Minutiae> minutiae = null;
-	   	AtomicReferenceArray<Double> dftCoefs = null;
-	    long totalStartTime = System.currentTimeMillis();
+	    NfiqMetrics metrics = NfiqMetrics.getInstance();
+	    long startTime = metrics.start();
 	   	
 	   	/******************/
 	    /* INITIALIZATION */
 	    /******************/
-	   	
-	   	/* Determine the maximum amount of image padding required to support */
-	    /* LFS processes.                                                    */
-	   	maxPad = getInit().getMaxPaddingV2(lfsParams.getWindowSize(), lfsParams.getWindowOffset(), 
-	   			lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight());
+	    paddedImagedata = lfsPadImageV2(ret, paddedImageWidth, paddedImageHeight, 
+	    	imageData, imageWidth, imageHeight, lfsParams);
+	    metrics.stop(Stage.PAD, startTime);
+	    if (ret.get() != ILfs.FALSE)
+	    {
+	   		return null;
+	    }
+
+	    return lfsDetectPaddedMinutiaeV2(ret, oMinutiae, map, oBinarizedImageWidth, oBinarizedImageHeight, 
+	    	paddedImagedata, paddedImageWidth.get(), paddedImageHeight.get(), imageWidth, imageHeight, 
+	    	lfsParams, detectMode);
+	}
+
+	/*************************************************************************
+	#cat: lfsDetectMinutiaeV2 - As above, for an image of one byte per
+	#cat:          pixel.  The image is read only while padding it, so
+	#cat:          no int copy of the 8-bit image is ever made.
+	   Input:
+	      image         - input 8-bit grayscale fingerprint image
+	      (remaining arguments as above)
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int [] lfsDetectMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
+		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, ByteImage image, 
+		final LfsParams lfsParams, final int detectMode) {
+
+		int [] paddedImagedata = null;
+		AtomicInteger paddedImageWidth = new AtomicInteger(0), paddedImageHeight = new AtomicInteger(0);
+	    NfiqMetrics metrics = NfiqMetrics.getInstance();
+	    long startTime = metrics.start();
+
+	    paddedImagedata = lfsPadImageV2(ret, paddedImageWidth, paddedImageHeight, image, lfsParams);
+	    metrics.stop(Stage.PAD, startTime);
+	    if (ret.get() != ILfs.FALSE)
+	    {
+	   		return null;
+	    }
 
-	   	/* Initialize lookup table for converting integer directions */
-	   	/* to angles in radians.                                     */
-	   	dirToRad = new DirToRad (lfsParams.getNumDirections());
-	   	ret.set(getInit().initDirToRad(dirToRad));
-	   	if (ret.get() != ILfs.FALSE)
+	    return lfsDetectPaddedMinutiaeV2(ret, oMinutiae, map, oBinarizedImageWidth, oBinarizedImageHeight, 
+	    	paddedImagedata, paddedImageWidth.get(), paddedImageHeight.get(), image.getWidth(), image.getHeight(), 
+	    	lfsParams, detectMode);
+	}
+
+	/* Stages of lfsDetectMinutiaeV2 following the padding of the image, */
+	/* each reported to the installed NfiqMetrics                         */
+	private int [] lfsDetectPaddedMinutiaeV2(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps map, 
+		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, int [] paddedImagedata, 
+		final int paddedImageWidth, final int paddedImageHeight, final int imageWidth, final int imageHeight, 
+		final LfsParams lfsParams, final int detectMode) {
+
+		int [] binarizedImageData = null;
+		AtomicInteger binarizedImageWidth = new AtomicInteger(0), binarizedImageHeight = new AtomicInteger(0);
+	   	AtomicReference<Minutiae> minutiae = null;
+	   	NfiqMetrics metrics = NfiqMetrics.getInstance();
+
+	    long startTime = metrics.start();
+	
+	    if (isShowLogs())
+	    	LOGGER.info("\nINITIALIZATION AND PADDING DONE\n");
+
+	    /******************/
+	    /*      MAPS      */
+	    /******************/
+	    ret.set(lfsGenImageMapsV2(map, paddedImagedata, paddedImageWidth, paddedImageHeight, 
+	    	imageWidth, imageHeight, lfsParams));
+	    metrics.stop(Stage.MAPS, startTime);
+	    if (ret.get() != ILfs.FALSE)
+	    {
+	    	paddedImagedata = null;
+	   		return binarizedImageData;
+	    }
+
+	    if (isShowLogs())	    
+	    	LOGGER.info("\nMAPS DONE\n");
+	    
+	    /******************/
+	    /* BINARIZARION   */
+	    /******************/
+	    if (isShowLogs())
+	    	LOGGER.info("BINARIZATION STARTED");
+	    startTime = metrics.start();
+
+	    binarizedImageData = lfsBinarizeV2(ret, binarizedImageWidth, binarizedImageHeight, map, 
+	    	paddedImagedata, paddedImageWidth, paddedImageHeight, imageWidth, imageHeight, lfsParams);
+	    metrics.stop(Stage.BINARIZE, startTime);
+	    paddedImagedata = null;
+	    if (ret.get() != ILfs.FALSE)
+	    {
+	   		return binarizedImageData;
+	    }
+
+	    if (isShowLogs())
+	    	LOGGER.info("BINARIZATION DONE\n");
+
+	    /******************/
+	    /*   DETECTION    */
+	    /******************/
+	    if (isShowLogs())
+	    	LOGGER.info("MINUTIA DETECTION STARTED\n");
+	    startTime = metrics.start();
+	    
+	    /* Reuse the caller's minutiae store when one is supplied. */
+	    minutiae = new AtomicReference<Minutiae>(oMinutiae.get() != null ? oMinutiae.get() : new Minutiae());
+	    ret.set(lfsDetectV2(minutiae, map, binarizedImageData, imageWidth, imageHeight, lfsParams));
+	    metrics.stop(Stage.DETECT, startTime);
+	    if (ret.get() != ILfs.FALSE)
 	    {
-	   		/* Free memory allocated to this point. */
 	   		binarizedImageData = null;
 	   		return binarizedImageData;
 	    }
 
-	   	/* Initialize wave form lookup tables for DFT analyses. */
-	    /* used for direction binarization.                             */
-	   	dftCoefs = new AtomicReferenceArray<Double>(getGlobals().getDftCoefs().length);
-		for (int index = 0; index < dftCoefs.length(); index++)
-			dftCoefs.set(index, getGlobals().getDftCoefs()[index]);
-		
-	   	dftWaves = new DftWaves (lfsParams.getNumDftWaves(), lfsParams.getWindowSize());
-		ret.set(getInit().initDftWaves(dftWaves, dftCoefs));				
+
+	    /******************/
+	    /*   REMOVE FALSE MINUTIA */
+	    /******************/
+	    startTime = metrics.start();
+	    ret.set(lfsRemoveFalseMinutiaV2(minutiae, map, binarizedImageData, imageWidth, imageHeight, lfsParams));
+	    metrics.stop(Stage.REMOVE, startTime);
 	    if (ret.get() != ILfs.FALSE)
 	    {
-	    	/* Free memory allocated to this point. */
-	    	getFree().freeDirToRad(dirToRad);
 	   		binarizedImageData = null;
 	   		return binarizedImageData;
 	    }
 
-		/* Initialize lookup table for pixel offsets to rotated grids */
-	    /* used for DFT analyses.                                     */
-	    dftGrids = new RotGrids (lfsParams.getStartDirAngle(), lfsParams.getNumDirections(), lfsParams.getWindowSize(), lfsParams.getWindowSize(), ILfs.RELATIVE_TO_ORIGIN); 
-		ret.set(getInit().initRotGrids(dftGrids, imageWidth, imageHeight, maxPad));
+	    if (isShowLogs())
+	    	LOGGER.info("\nMINUTIA DETECTION DONE\n");
+
+	    /******************/
+	    /*  RIDGE COUNTS  */
+	    /******************/
+	    startTime = metrics.start();
+	    if (detectMode == ILfs.DETECT_MODE_NFIQ)
+	    {
+	    	ret.set(lfsRemoveRedundantMinutiaV2(minutiae, map, imageWidth, imageHeight));
+	    	metrics.stop(Stage.REMOVE_REDUNDANT, startTime);
+	    }
+	    else
+	    {
+	    	ret.set(lfsCountRidgesV2(minutiae, map, binarizedImageData, imageWidth, imageHeight, lfsParams));
+	    	metrics.stop(Stage.RIDGE_COUNT, startTime);
+	    }
 	    if (ret.get() != ILfs.FALSE)
 	    {
-	    	/* Free memory allocated to this point. */
-	    	getFree().freeDirToRad(dirToRad);
-	    	getFree().freeDftWaves(dftWaves);
 	   		binarizedImageData = null;
 	   		return binarizedImageData;
 	    }
+
+	    if (isShowLogs())
+	    	LOGGER.info("\nNEIGHBOR RIDGE COUNT DONE\n");
+
+	    /******************/
+	    /*    WRAP-UP     */
+	    /******************/
+	    oBinarizedImageWidth.set(binarizedImageWidth.get());
+	    oBinarizedImageHeight.set(binarizedImageHeight.get());
+	    oMinutiae.set(minutiae.get());
+	    ret.set(ILfs.FALSE);
 	    
+	    return binarizedImageData;
+	}
+
+	/*************************************************************************
+	#cat: lfsPadImageV2 - First stage of lfsDetectMinutiaeV2.  Pads the
+	#cat:          grayscale image by the maximum amount required by the
+	#cat:          LFS processes and scales it to 6 bits [0..63].
+	   Input:
+	      imageData     - input 8-bit grayscale fingerprint image data
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      ret		- Zero      - successful completion
+	      			- Negative  - system error
+	      oPaddedImageWidth  - width (in pixels) of the padded image
+	      oPaddedImageHeight - height (in pixels) of the padded image
+	   Return Code:
+	      paddedImageData    - padded 6-bit image
+	**************************************************************************/
+	public int [] lfsPadImageV2(AtomicInteger ret, AtomicInteger oPaddedImageWidth, AtomicInteger oPaddedImageHeight, 
+		int [] imageData, final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int [] paddedImagedata = null;
+	   	int maxPad;
+
+	   	/* Determine the maximum amount of image padding required to support */
+	    /* LFS processes.                                                    */
+	   	maxPad = getInit().getMaxPaddingV2(lfsParams.getWindowSize(), lfsParams.getWindowOffset(), 
+	   			lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight());
+
 	    /* Pad input image based on max padding. */
 	    if (maxPad > ILfs.FALSE)//0
 	    { 
 	    	// May not need to pad at all
-	    	paddedImagedata = getImageUtil().padImage(ret, paddedImageWidth, paddedImageHeight, 
+	    	paddedImagedata = getImageUtil().padImage(ret, oPaddedImageWidth, oPaddedImageHeight, 
     			imageData, imageWidth, imageHeight, maxPad, lfsParams.getPadValue());
 	    	if (ret.get() != ILfs.FALSE)
 	    	{
-	    		/* Free memory allocated to this point. */
-	    		getFree().freeDirToRad(dirToRad);
-	    		getFree().freeDftWaves(dftWaves);
-	    		getFree().freeRotGrids(dftGrids);
-		   		binarizedImageData = null;
-		   		return binarizedImageData;
+		   		return null;
 	    	}
     	}
 	    else
 	    {
 	    	/* If padding is unnecessary, then copy the input image. */
-	    	paddedImagedata = new int [imageWidth * imageHeight];
+	    	paddedImagedata = ScratchArena.current().getInts(imageWidth * imageHeight);
 	    	
-	    	for (int index = 0; index < imageData.length; index++)
+	    	for (int index = 0; index < imageWidth * imageHeight; index++)
 	    	{
 	    		paddedImagedata[index] = imageData[index];
 	    	}
 	
-	    	paddedImageWidth.set(imageWidth);
-	    	paddedImageHeight.set(imageHeight);
+	    	oPaddedImageWidth.set(imageWidth);
+	    	oPaddedImageHeight.set(imageHeight);
 	    }
 
 	    /* Scale input image to 6 bits [0..63] */
@@ -186,230 +338,319 @@ public class Detect extends MindTct implements IDetect {
 	    /* could not get this work upon first attempt. Also, if not   */
 	    /* careful, I think accumulated power magnitudes may overflow */
 	    /* doubles.                                                   */
-	    getImageUtil().bits8To6(paddedImagedata, paddedImageWidth.get(), paddedImageHeight.get());
+	    getImageUtil().bits8To6(paddedImagedata, oPaddedImageWidth.get(), oPaddedImageHeight.get());
 
-	    long mapStartTime = System.currentTimeMillis();
-	
-	    if (isShowLogs())
-	    	LOGGER.info("\nINITIALIZATION AND PADDING DONE\n");
+	    ret.set(ILfs.FALSE);
+	    return paddedImagedata;
+	}
 
-	    /******************/
-	    /*      MAPS      */
-	    /******************/
-	    /* Generate block maps from the input image. */
-	    ret.set(map.genImageMaps(paddedImagedata, paddedImageWidth.get(), paddedImageHeight.get(), 
-    		dirToRad, dftWaves, dftGrids, lfsParams));
+	/*************************************************************************
+	#cat: lfsPadImageV2 - As above, for an image of one byte per pixel.
+	#cat:          Pixels are widened to ints as they are copied into the
+	#cat:          padded image.
+	   Input:
+	      image         - input 8-bit grayscale fingerprint image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int [] lfsPadImageV2(AtomicInteger ret, AtomicInteger oPaddedImageWidth, AtomicInteger oPaddedImageHeight, 
+		ByteImage image, final LfsParams lfsParams) {
+		int [] paddedImagedata = null;
+	   	int maxPad;
+
+	   	maxPad = getInit().getMaxPaddingV2(lfsParams.getWindowSize(), lfsParams.getWindowOffset(), 
+	   			lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight());
+
+	    /* Pad input image based on max padding, which may be none. */
+	    paddedImagedata = getImageUtil().padImage(ret, oPaddedImageWidth, oPaddedImageHeight, 
+	    	image, Math.max(maxPad, 0), lfsParams.getPadValue());
 	    if (ret.get() != ILfs.FALSE)
 	    {
-	    	/* Free memory allocated to this point. */
-	    	getFree().freeDirToRad(dirToRad);
-	    	getFree().freeDftWaves(dftWaves);
-	    	getFree().freeRotGrids(dftGrids);
-	    	paddedImagedata = null;
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	    	return null;
 	    }
-	    /* Deallocate working memories. */
-	    getFree().freeDirToRad(dirToRad);
-	    getFree().freeDftWaves(dftWaves);
-	    getFree().freeRotGrids(dftGrids);
 
-	    if (isShowLogs())	    
-	    	LOGGER.info("\nMAPS DONE\n");
-	    long mapEndTime = System.currentTimeMillis();
-	    
-	    /******************/
-	    /* BINARIZARION   */
-	    /******************/
-	    if (isShowLogs())
-	    	LOGGER.info("BINARIZATION STARTED");
-	    long binStartTime = System.currentTimeMillis();
-	    
-	    /* Initialize lookup table for pixel offsets to rotated grids */
-	    /* used for directional binarization.                         */
-	    dirBinGrids = new RotGrids (lfsParams.getStartDirAngle(), lfsParams.getNumDirections(), 
-	    		lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight(), ILfs.RELATIVE_TO_CENTER); 
-	    ret.set(getInit().initRotGrids(dirBinGrids, imageWidth, imageHeight, maxPad));
+	    /* Scale input image to 6 bits [0..63] */
+	    getImageUtil().bits8To6(paddedImagedata, oPaddedImageWidth.get(), oPaddedImageHeight.get());
+
+	    ret.set(ILfs.FALSE);
+	    return paddedImagedata;
+	}
+
+	/*************************************************************************
+	#cat: lfsGenImageMapsV2 - Second stage of lfsDetectMinutiaeV2.  Builds
+	#cat:          the DFT lookup tables and generates the direction, low
+	#cat:          contrast, low flow and high curve maps of the padded image.
+	   Input:
+	      paddedImageData   - padded 6-bit image from lfsPadImageV2
+	      paddedImageWidth  - width (in pixels) of the padded image
+	      paddedImageHeight - height (in pixels) of the padded image
+	      imageWidth    - width (in pixels) of the original image
+	      imageHeight   - height (in pixels) of the original image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      map           - resulting image maps
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int lfsGenImageMapsV2(Maps map, int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int ret;
+		AtomicReference<LfsTables> tables = new AtomicReference<LfsTables>();
+
+		/* Lookup tables are shared by all images of the same width, so */
+		/* they are neither rebuilt nor freed here.                     */
+		ret = LfsTables.getLfsTables(tables, imageWidth, imageHeight, lfsParams);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+	    /* Generate block maps from the input image. */
+	    return map.genImageMaps(paddedImageData, paddedImageWidth, paddedImageHeight, 
+    		tables.get().getDirToRad(), tables.get().getDftWaves(), tables.get().getDftGrids(), lfsParams);
+	}
+
+	/*************************************************************************
+	#cat: lfsBinarizeV2 - Third stage of lfsDetectMinutiaeV2.  Binarizes
+	#cat:          the padded image using the direction map.
+	   Input:
+	      map           - image maps from lfsGenImageMapsV2
+	      paddedImageData   - padded 6-bit image from lfsPadImageV2
+	      paddedImageWidth  - width (in pixels) of the padded image
+	      paddedImageHeight - height (in pixels) of the padded image
+	      imageWidth    - width (in pixels) of the original image
+	      imageHeight   - height (in pixels) of the original image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      ret		- Zero      - successful completion
+	      			- Negative  - system error
+	      oBinarizedImageWidth  - width (in pixels) of the binary image
+	      oBinarizedImageHeight - height (in pixels) of the binary image
+	   Return Code:
+	      binarizedImageData    - resulting binarized image
+	                  {0 = black pixel (ridge) and 255 = white pixel (valley)}
+	**************************************************************************/
+	public int [] lfsBinarizeV2(AtomicInteger ret, AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, 
+		Maps map, int [] paddedImageData, final int paddedImageWidth, final int paddedImageHeight, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int [] binarizedImageData = null;
+		AtomicReference<LfsTables> tables = new AtomicReference<LfsTables>();
+
+	    /* Rotated grids used for directional binarization. */
+	    ret.set(LfsTables.getLfsTables(tables, imageWidth, imageHeight, lfsParams));
 		if (ret.get() != ILfs.FALSE)
 	    {
 	    	/* Free memory allocated to this point. */
-			paddedImagedata = null;
-	    	getFree().freeDirToRad(dirToRad);
-	    	getFree().freeDftWaves(dftWaves);
-		 	map.setDirectionMap(null);
-		 	map.setLowContrastMap(null);
-		 	map.setLowFlowMap(null);
-		 	map.setHighCurveMap(null);
-	   		binarizedImageData = null;
+		 	freeMaps(map);
 	   		return binarizedImageData;
 	    }
 
 	    /* Binarize input image based on NMAP information. */
 		binarizedImageData = 
-			getBinarization().binarizeV2(ret, binarizedImageWidth, binarizedImageHeight, 
-			paddedImagedata, paddedImageWidth.get(), paddedImageHeight.get(), 
+			getBinarization().binarizeV2(ret, oBinarizedImageWidth, oBinarizedImageHeight, 
+			paddedImageData, paddedImageWidth, paddedImageHeight, 
 			map.getDirectionMap(), map.getMappedImageWidth().get(), map.getMappedImageHeight().get(), 
-			dirBinGrids, lfsParams);
+			tables.get().getDirBinGrids(), lfsParams, map.getPool());
 	    if (ret.get() != ILfs.FALSE)
 	    {
 	    	/* Free memory allocated to this point. */
-	    	paddedImagedata = null;
-	    	map.setDirectionMap(null);
-	    	map.setLowContrastMap(null);
-	    	map.setLowFlowMap(null);
-	    	map.setHighCurveMap(null);
-	    	getFree().freeRotGrids(dirBinGrids);
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	    	freeMaps(map);
+	   		return null;
    		}
-	
-	    /* Deallocate working memory. */
-	    getFree().freeRotGrids(dirBinGrids);
 
 	    /* Check dimension of binary image.  If they are different from */
 	    /* the input image, then ERROR.                                 */
-	    if ((imageWidth != binarizedImageWidth.get()) || 
-    		(imageHeight != binarizedImageHeight.get()))
+	    if ((imageWidth != oBinarizedImageWidth.get()) || 
+    		(imageHeight != oBinarizedImageHeight.get()))
 	    {
 	    	/* Free memory allocated to this point. */
-	    	paddedImagedata = null;
-	    	map.setDirectionMap(null);
-	    	map.setLowContrastMap(null);
-	    	map.setLowFlowMap(null);
-	    	map.setHighCurveMap(null);
-	    	binarizedImageData = null;
+	    	freeMaps(map);
 	    	LOGGER.error("ERROR : lfsDetectMinutiaeV2 :");
-	    	LOGGER.error(String.format("binary image has bad dimensions : binarizedImageWidth = %d, binarizedImageHeight = %d\n" +  binarizedImageWidth, binarizedImageHeight));
+	    	LOGGER.error(String.format("binary image has bad dimensions : binarizedImageWidth = %d, binarizedImageHeight = %d\n", oBinarizedImageWidth.get(), oBinarizedImageHeight.get()));
 	    	ret.set(ILfs.ERROR_CODE_581);
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	   		return null;
 	    }
 
-	    if (isShowLogs())
-	    	LOGGER.info("BINARIZATION DONE\n");
-	    long binEndTime = System.currentTimeMillis();
+	    return binarizedImageData;
+	}
+
+	/*************************************************************************
+	#cat: lfsDetectV2 - Fourth stage of lfsDetectMinutiaeV2.  Converts the
+	#cat:          binarized image to [0,1] and detects the minutiae in it.
+	   Input:
+	      map           - image maps from lfsGenImageMapsV2
+	      binarizedImageData - binarized image from lfsBinarizeV2
+	                  (converted in place to {1 = black, 0 = white})
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      oMinutiae     - resulting list of minutiae
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int lfsDetectV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int ret;
 
-	    /******************/
-	    /*   DETECTION    */
-	    /******************/
-	    if (isShowLogs())
-	    	LOGGER.info("MINUTIA DETECTION STARTED\n");
-	    long minStartTime = System.currentTimeMillis();
-	    
 	    /* Convert 8-bit grayscale binary image [0,255] to */
 	    /* 8-bit binary image [0,1].                       */
 	    getImageUtil().grayToBinary(1, 1, 0, binarizedImageData, imageWidth, imageHeight);
 
 	    /* Allocate initial list of minutia pointers. */
-	    minutiae = new AtomicReference<Minutiae>();	  
-	    minutiae.set(new Minutiae());
-	    ret.set(getMinutiaHelper().allocMinutiae(minutiae, ILfs.MAX_MINUTIAE));
-	    if (ret.get() != ILfs.FALSE)
+	    ret = getMinutiaHelper().allocMinutiae(oMinutiae, ILfs.MAX_MINUTIAE);
+	    if (ret != ILfs.FALSE)
 	    {
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	   		return ret;
 	    }
 
 	    /* Detect the minutiae in the binarized image. */
-	    ret.set(getMinutiaHelper().detectMinutiaeV2(minutiae, binarizedImageData, imageWidth, imageHeight, 
-	    		map, lfsParams));
-	    if (ret.get() != ILfs.FALSE)
+	    ret = getMinutiaHelper().detectMinutiaeV2(oMinutiae, binarizedImageData, imageWidth, imageHeight, 
+	    		map, lfsParams);
+	    if (ret != ILfs.FALSE)
 	    {
 	    	/* Free memory allocated to this point. */
-	    	paddedImagedata = null;
-	    	map.setDirectionMap(null);
-	    	map.setLowContrastMap(null);
-	    	map.setLowFlowMap(null);
-	    	map.setHighCurveMap(null);
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	    	freeMaps(map);
 	    }
-	    
-	    long minEndTime = System.currentTimeMillis();
+	    return ret;
+	}
 
-	    /******************/
-	    /*   REMOVE FALSE MINUTIA */
-	    /******************/
-	    long rmStartTime = System.currentTimeMillis();
-	    ret.set(getRemoveMinutia().removeFalseMinutiaV2(minutiae, binarizedImageData, imageWidth, 
-	    		imageHeight, map, map.getMappedImageWidth().get(), map.getMappedImageHeight().get(), lfsParams));
-	    if (ret.get() != ILfs.FALSE)
+	/*************************************************************************
+	#cat: lfsRemoveFalseMinutiaV2 - Fifth stage of lfsDetectMinutiaeV2.
+	#cat:          Removes false minutiae from the detected list.
+	   Input:
+	      oMinutiae     - minutiae from lfsDetectV2
+	      map           - image maps from lfsGenImageMapsV2
+	      binarizedImageData - binary image {1 = black, 0 = white}
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      oMinutiae     - list with false minutiae removed
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int lfsRemoveFalseMinutiaV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int ret;
+
+	    /* Contours traced here are scratch of the thread's arena. */
+	    ScratchArena arena = ScratchArena.current();
+	    int mark = arena.openScope();
+	    try
+	    {
+	    	ret = getRemoveMinutia().removeFalseMinutiaV2(oMinutiae, binarizedImageData, imageWidth, 
+	    		imageHeight, map, map.getMappedImageWidth().get(), map.getMappedImageHeight().get(), lfsParams);
+	    }
+	    finally
+	    {
+	    	arena.closeScope(mark);
+	    }
+	    if (ret != ILfs.FALSE)
 	    {
 	    	/* Free memory allocated to this point. */
-	    	paddedImagedata = null;
-	    	map.setDirectionMap(null);
-	    	map.setLowContrastMap(null);
-	    	map.setLowFlowMap(null);
-	    	map.setHighCurveMap(null);
-	    	getMinutiaHelper().freeMinutiae(minutiae);
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	    	freeMaps(map);
+	    	getMinutiaHelper().freeMinutiae(oMinutiae);
 	    }
+	    return ret;
+	}
 
-	    if (isShowLogs())
-	    	LOGGER.info("\nMINUTIA DETECTION DONE\n");
-	    long rmEndTime = System.currentTimeMillis();
+	/*************************************************************************
+	#cat: lfsCountRidgesV2 - Last stage of lfsDetectMinutiaeV2.  Counts
+	#cat:          the ridges between neighbouring minutiae and converts
+	#cat:          the binary image back to [0,255].
+	   Input:
+	      oMinutiae     - minutiae from lfsRemoveFalseMinutiaV2
+	      map           - image maps from lfsGenImageMapsV2
+	      binarizedImageData - binary image {1 = black, 0 = white}
+	                  (converted in place to {0 = black, 255 = white})
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      oMinutiae     - minutiae with neighbour ridge counts
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int lfsCountRidgesV2(AtomicReference<Minutiae> oMinutiae, Maps map, int [] binarizedImageData, 
+		final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		int ret;
 
-	    /******************/
-	    /*  RIDGE COUNTS  */
-	    /******************/
-	    long ridgeStartTime = System.currentTimeMillis();
-	    ret.set(getRidges().countMinutiaeRidges(minutiae, 
-    		binarizedImageData, imageWidth, imageHeight, lfsParams));
-	    if (ret.get() != ILfs.FALSE)
+	    /* Contours traced here are scratch of the thread's arena. */
+	    ScratchArena arena = ScratchArena.current();
+	    int mark = arena.openScope();
+	    try
+	    {
+	    	ret = getRidges().countMinutiaeRidges(oMinutiae, 
+	    		binarizedImageData, imageWidth, imageHeight, lfsParams);
+	    }
+	    finally
+	    {
+	    	arena.closeScope(mark);
+	    }
+	    if (ret != ILfs.FALSE)
 	    {
 	    	/* Free memory allocated to this point. */
-	    	paddedImagedata = null;
-	    	map.setDirectionMap(null);
-	    	map.setLowContrastMap(null);
-	    	map.setLowFlowMap(null);
-	    	map.setHighCurveMap(null);
-	    	getMinutiaHelper().freeMinutiae(minutiae);
-	   		binarizedImageData = null;
-	   		return binarizedImageData;
+	    	freeMaps(map);
+	    	getMinutiaHelper().freeMinutiae(oMinutiae);
+	    	return ret;
 	    }
 
-	    //LOGGER.info(minutiae.toString());
-
-	    if (isShowLogs())
-	    	LOGGER.info("\nNEIGHBOR RIDGE COUNT DONE\n");
-	    long ridgeEndTime = System.currentTimeMillis();
-
-	    /******************/
-	    /*    WRAP-UP     */
-	    /******************/
-
 	    /* Convert 8-bit binary image [0,1] to 8-bit */
 	    /* grayscale binary image [0,255].           */
 	    getImageUtil().grayToBinary(1, ILfs.WHITE_PIXEL, ILfs.BLACK_PIXEL, 
     		binarizedImageData, imageWidth, imageHeight);
+	    return ILfs.FALSE;
+	}
 
-	    oBinarizedImageWidth.set(binarizedImageWidth.get());
-	    oBinarizedImageHeight.set(binarizedImageHeight.get());
-	    oMinutiae.set(minutiae.get());
-	    long totalEndTime = System.currentTimeMillis();
+	/*************************************************************************
+	#cat: lfsRemoveRedundantMinutiaV2 - Last stage of lfsDetectMinutiaeV2
+	#cat:          in DETECT_MODE_NFIQ.  Sorts the minutiae and removes
+	#cat:          duplicate points exactly as lfsCountRidgesV2 does, but
+	#cat:          counts no ridges and leaves the binary image untouched.
+	   Input:
+	      oMinutiae     - minutiae from lfsRemoveFalseMinutiaV2
+	      map           - image maps from lfsGenImageMapsV2
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	   Output:
+	      oMinutiae     - sorted minutiae without duplicates
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int lfsRemoveRedundantMinutiaV2(AtomicReference<Minutiae> oMinutiae, Maps map, 
+		final int imageWidth, final int imageHeight) {
+		int ret;
 
-	    /******************/
-	    /* PRINT TIMINGS  */
-	    /******************/
-	    /* These Timings will print when TIMER is defined. */
-	    /* print MAP generation timing statistics */
-	    System.out.println(String.format("TIMER: MAPS time   = %f (secs)\n", (float)(mapEndTime - mapStartTime)));
-	    /* print binarization timing statistics */
-	    System.out.println(String.format("TIMER: Binarization time   = %f (secs)\n", (float)(binEndTime - binStartTime)));
-	    /* print minutia detection timing statistics */
-	    System.out.println(String.format("TIMER: Minutia Detection time   = %f (secs)\n", (float)(minEndTime - minStartTime)));
-	    /* print minutia removal timing statistics */
-	    System.out.println(String.format("TIMER: Minutia Removal time   = %f (secs)\n", (float)(rmEndTime - rmStartTime)));
-	    /* print neighbor ridge count timing statistics */
-	    System.out.println(String.format("TIMER: Neighbor Ridge Counting time   = %f (secs)\n", (float)(ridgeEndTime - ridgeStartTime)));
-	    /* print total timing statistics */
-	    System.out.println(String.format("TIMER: Total time   = %f (secs)\n", (float)(totalEndTime - totalStartTime)));
-	    ret.set(ILfs.FALSE);
-	    
-	    return binarizedImageData;
+	    /* Sort minutia points on x then y (column-oriented). */
+	    ret = getMinutiaHelper().sortMinutiaeLeftToRightAndThenTopToBottom(oMinutiae, imageWidth, imageHeight);
+	    if (ret == ILfs.FALSE)
+	    {
+	    	/* Remove any duplicate minutia points from the list. */
+	    	ret = getMinutiaHelper().removeRedundantMinutiae(oMinutiae);
+	    }
+	    if (ret != ILfs.FALSE)
+	    {
+	    	/* Free memory allocated to this point. */
+	    	freeMaps(map);
+	    	getMinutiaHelper().freeMinutiae(oMinutiae);
+	    	return ret;
+	    }
+	    return ILfs.FALSE;
 	}
-	
-}
-
 
+	private void freeMaps(Maps map) {
+	 	map.setDirectionMap(null);
+	 	map.setLowContrastMap(null);
+	 	map.setLowFlowMap(null);
+	 	map.setHighCurveMap(null);
+	}
+}
@@ -109,20 +109,58 @@ public class Dft extends MindTct implements IDft {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	@SuppressWarnings("unused")
 	public int dftDirPowers(AtomicReferenceArray<Double[]> powers, int[] paddedImagedata, final int blockOffset, 
+		final int paddedImageWidth, final int paddedImageHeight, DftWaves dftWaves, RotGrids dftGrids) {
+		double[][] dirPowers = new double[dftWaves.getNWaves()][dftGrids.getNoOfGrids()];
+		int ret;
+
+		ret = dftDirPowers(dirPowers, paddedImagedata, blockOffset, paddedImageWidth, paddedImageHeight, 
+			dftWaves, dftGrids);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+		/* Box the powers into the caller's vectors. */
+		for (int waveIndex = 0; waveIndex < dftWaves.getNWaves(); waveIndex++)
+		{
+			Double[] arrpowers = powers.get(waveIndex);
+			for (int dirIndex = 0; dirIndex < dftGrids.getNoOfGrids(); dirIndex++)
+			{
+				arrpowers[dirIndex] = dirPowers[waveIndex][dirIndex];
+			}
+			powers.set(waveIndex, arrpowers);
+		}
+		return (ILfs.FALSE);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: dftDirPowers - As above, on primitive arrays.  The rotated grids
+	#cat:         are read in place and the row sums are scratch of the
+	#cat:         thread's ScratchArena, so nothing is allocated per block.
+	   Input:
+	      (as above)
+	   Output:
+	      powers    - powers[wave][direction] for each of the N Waves and
+	                  M Directions
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	@SuppressWarnings("unused")
+	public int dftDirPowers(double[][] powers, int[] paddedImagedata, final int blockOffset, 
 		final int paddedImageWidth, final int paddedImageHeight, DftWaves dftWaves, RotGrids dftGrids) {
 		int [] rowSums;
-		int paddedImageDataIndex;
+		ScratchArena arena = ScratchArena.current();
 
-		/* Allocate line sum vector, and initialize to zeros */
+		/* Allocate line sum vector */
 		/* This routine requires square block (grid), so ERROR otherwise. */
 		if (dftGrids.getGridWidth() != dftGrids.getGridHeight())
 		{
 			LOGGER.error("ERROR : dftDirPowers : DFT grids must be square\n");
 			return (-90);
 		}
-		rowSums = new int [dftGrids.getGridWidth()];
+		rowSums = arena.getInts(dftGrids.getGridWidth());
 		if (rowSums == null)
 		{
 			LOGGER.error("ERROR : dftDirPowers : rowSums : Null \n");
@@ -133,24 +171,17 @@ public class Dft extends MindTct implements IDft {
 		for (int dirIndex = 0; dirIndex < dftGrids.getNoOfGrids(); dirIndex++)
 		{
 			/* Compute vector of line sums from rotated grid */
-			paddedImageDataIndex = (int)(0 + blockOffset);
-			sumRotBlockRows(rowSums, paddedImagedata, paddedImageDataIndex, new AtomicIntegerArray (dftGrids.getGrids() [dirIndex]), dftGrids.getGridWidth());
+			sumRotBlockRows(rowSums, paddedImagedata, blockOffset, dftGrids.getGrids() [dirIndex], dftGrids.getGridWidth());
 
 			/* Foreach DFT wave ... */
 			for (int waveIndex = 0; waveIndex < dftWaves.getNWaves(); waveIndex++)
 			{
-				Double[] arrpowers = powers.get(waveIndex);
-				AtomicReference<Double> refpowers = new AtomicReference<Double> (arrpowers[dirIndex]);
-				
-				computeDftPower(refpowers, rowSums, dftWaves.getWaves() [waveIndex], dftWaves.getWaveLen());
-				
-				arrpowers[dirIndex] = refpowers.get();
-				powers.set(waveIndex, arrpowers);
+				powers[waveIndex][dirIndex] = computeDftPower(rowSums, dftWaves.getWaves() [waveIndex], dftWaves.getWaveLen());
 			}
 		}
 
-		/* Deallocate working memory. */
-		getFree().free(rowSums);
+		/* Return working memory to the thread's arena. */
+		arena.release(rowSums);
 
 		return (ILfs.FALSE);
 	}
@@ -195,6 +226,24 @@ public class Dft extends MindTct implements IDft {
 		}
 	}
 
+	/* As above, with the grid offsets read in place */
+	public void sumRotBlockRows(int [] rowSums, int[] paddedImagedata, final int paddedImageDataIndex, 
+		final int[] gridOffsets, final int blockOffsetSize) {
+		int gi = 0, rowSum;
+
+		/* For each row in block ... */
+		for (int iy = 0; iy < blockOffsetSize; iy++)
+		{
+			rowSum = 0;
+			/* Accumulate pixel values along the rotated row. */
+			for (int ix = 0; ix < blockOffsetSize; ix++, gi++)
+			{
+				rowSum += paddedImagedata [paddedImageDataIndex + gridOffsets[gi]];
+			}
+			rowSums [iy] = rowSum;
+		}
+	}
+
 	/*************************************************************************
 	**************************************************************************
 	#cat: computeDftPower - Computes the DFT power by applying a specific wave form
@@ -213,6 +262,11 @@ public class Dft extends MindTct implements IDft {
 	**************************************************************************/
 	public void computeDftPower(AtomicReference<Double> oPower, final int [] rowSums, 
 			final DftWave dftWave, final int waveLen) {
+		oPower.set(computeDftPower(rowSums, dftWave, waveLen));
+	}
+
+	/* As above, returning the power */
+	public double computeDftPower(final int [] rowSums, final DftWave dftWave, final int waveLen) {
 		/* Initialize accumulators */
 		double cospart = 0.0d, sinpart = 0.0d;
 
@@ -226,7 +280,7 @@ public class Dft extends MindTct implements IDft {
 		}
 
 		/* Power is the sum of the squared cos and sin components */
-		oPower.set((cospart * cospart) + (sinpart * sinpart));
+		return (cospart * cospart) + (sinpart * sinpart);
 	}
 
 	/*************************************************************************
@@ -268,32 +322,48 @@ public class Dft extends MindTct implements IDft {
 	public int getDftPowerStats(AtomicIntegerArray wis, AtomicReferenceArray<Double> powMaxs, 
 			AtomicIntegerArray powmaxDirs, AtomicReferenceArray<Double> powNorms,
 			AtomicReferenceArray<Double[]> powers, final int fw, final int tw, final int nDirs) {
+		int nStats = tw - fw;
+		int[] wisArr = new int[nStats], powmaxDirsArr = new int[nStats];
+		double[] powMaxsArr = new double[nStats], powNormsArr = new double[nStats];
 		int ret;
 
-		for (int waveIndex = fw, index = 0; waveIndex < tw; waveIndex++, index++)
+		ret = getDftPowerStats(wisArr, powMaxsArr, powmaxDirsArr, powNormsArr, toPowers(powers), fw, tw, nDirs);
+		if (ret != ILfs.FALSE)
 		{
-			AtomicReference<Double> refpowmaxs = new AtomicReference<Double> (powMaxs.get(index));
-			AtomicInteger refpowmax_dirs = new AtomicInteger (powmaxDirs.get(index));
-			AtomicReference<Double> refpownorms = new AtomicReference<Double> (powNorms.get(index));
-			AtomicReferenceArray<Double> refpowers = new AtomicReferenceArray<Double> (powers.get(waveIndex));
-			
-			getMaxNorm(refpowmaxs, refpowmax_dirs, refpownorms, refpowers, nDirs);
-			
-			powMaxs.set(index, refpowmaxs.get());
-			powmaxDirs.set(index, refpowmax_dirs.get()); 
-			powNorms.set(index, refpownorms.get());
+			return ret;
 		}
 
-		/* Get sorted order of applied DFT waves based on normalized power */
-		ret = sortDftWaves(wis, powMaxs, powNorms, tw - fw);		
-		if (ret != ILfs.FALSE)
+		for (int index = 0; index < nStats; index++)
 		{
-			return ret;
+			wis.set(index, wisArr[index]);
+			powMaxs.set(index, powMaxsArr[index]);
+			powmaxDirs.set(index, powmaxDirsArr[index]);
+			powNorms.set(index, powNormsArr[index]);
 		}
-		ret = ILfs.FALSE;
-		return ret;
+		return (ILfs.FALSE);
 	}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat: getDftPowerStats - As above, on primitive arrays.
+	   Input:
+	      powers   - powers[wave][direction] from dftDirPowers
+	      (remaining arguments as above)
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int getDftPowerStats(int[] wis, double[] powMaxs, int[] powmaxDirs, double[] powNorms,
+			double[][] powers, final int fw, final int tw, final int nDirs) {
+		for (int waveIndex = fw, index = 0; waveIndex < tw; waveIndex++, index++)
+		{
+			getMaxNorm(powMaxs, powmaxDirs, powNorms, index, powers[waveIndex], nDirs);
+		}
+
+		/* Get sorted order of applied DFT waves based on normalized power */
+		return sortDftWaves(wis, powMaxs, powNorms, tw - fw);
+	}
 
 	/*************************************************************************
 	**************************************************************************
@@ -317,37 +387,62 @@ public class Dft extends MindTct implements IDft {
 	**************************************************************************/
 	public void getMaxNorm(AtomicReference<Double> powmax, AtomicInteger powmaxDir, 
 			AtomicReference<Double> pownorm, final AtomicReferenceArray<Double> oPowerVector, final int nDirs) {
+		double[] powMaxs = new double[1], powNorms = new double[1];
+		int[] powmaxDirs = new int[1];
+
+		getMaxNorm(powMaxs, powmaxDirs, powNorms, 0, toDoubles(oPowerVector, nDirs), nDirs);
+		powmax.set(powMaxs[0]);
+		powmaxDir.set(powmaxDirs[0]);
+		pownorm.set(powNorms[0]);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: getMaxNorm - As above, on primitive arrays, storing the statistics
+	#cat:                of the power vector at a given index of the
+	#cat:                statistics arrays.
+	   Input:
+	      index      - index of the statistics to be set
+	      powerVector - the DFT power values of a specific wave form
+	      nDirs      - the number of directions to which the wave form was applied
+	   Output:
+	      powMaxs    - maximum power value set at index
+	      powmaxDirs - direction of the maximum power set at index
+	      powNorms   - normalized maximum power set at index
+	**************************************************************************/
+	public void getMaxNorm(double[] powMaxs, int[] powmaxDirs, double[] powNorms, final int index, 
+			final double[] powerVector, final int nDirs) {
 		int nDir;
 		double maxValue, powSum;
 		int maxIndex;
 		double powMean;
 
 		/* Find max power value and store corresponding direction */
-		maxValue = oPowerVector.get(0);
+		maxValue = powerVector[0];
 		maxIndex = 0;
 
 		/* Sum the total power in a block at a given direction */
-		powSum = oPowerVector.get(0);
+		powSum = powerVector[0];
 
 		/* For each direction ... */
 		for (nDir = 1; nDir < nDirs; nDir++)
 		{
-			powSum += oPowerVector.get(nDir);
-			if (oPowerVector.get(nDir) > maxValue)
+			powSum += powerVector[nDir];
+			if (powerVector[nDir] > maxValue)
 			{
-				maxValue = oPowerVector.get(nDir);
+				maxValue = powerVector[nDir];
 				maxIndex = nDir;
 			}
 		}
 
-		powmax.set(maxValue);
-		powmaxDir.set(maxIndex);
+		powMaxs[index] = maxValue;
+		powmaxDirs[index] = maxIndex;
 
 		/* Powmean is used as denominator for pownorm, so setting  */
 		/* a non-zero minimum avoids possible division by zero.    */
 		powMean = Math.max(powSum, ILfs.MIN_POWER_SUM) / (double)nDirs;
 
-		pownorm.set(powmax.get() / powMean);
+		powNorms[index] = maxValue / powMean;
 	}
 
 	/*************************************************************************
@@ -368,33 +463,78 @@ public class Dft extends MindTct implements IDft {
 	      ret		- Zero     - successful completion
 	      			- Negative - system error
 	**************************************************************************/
-	@SuppressWarnings("unused")
 	public int sortDftWaves(AtomicIntegerArray wis, final AtomicReferenceArray<Double> powMaxs, 
 		final AtomicReferenceArray<Double> powNorms, final int nStats) {
-		int i, ret;
-		AtomicReferenceArray<Double> powNorms2 = new AtomicReferenceArray<Double> (nStats);
-		/* Allocate normalized power^2 array */
-		if (powNorms2 == null)
+		int[] wisArr = new int[nStats];
+		int ret;
+
+		ret = sortDftWaves(wisArr, toDoubles(powMaxs, nStats), toDoubles(powNorms, nStats), nStats);
+		if (ret != ILfs.FALSE)
 		{
-			LOGGER.error("ERROR : sort_dft_waves : powNorms2 : NULL\n");
-			ret = ILfs.ERROR_CODE_100;
 			return ret;
 		}
+		for (int i = 0; i < nStats; i++)
+		{
+			wis.set(i, wisArr[i]);
+		}
+		return (ILfs.FALSE);
+	}
+
+	/* As above, on primitive arrays */
+	public int sortDftWaves(int[] wis, final double[] powMaxs, final double[] powNorms, final int nStats) {
+		ScratchArena arena = ScratchArena.current();
+		/* Normalized power^2 array */
+		double[] powNorms2 = arena.getDoubles(nStats);
 
-		for (i = 0; i < nStats; i++)
+		for (int i = 0; i < nStats; i++)
 		{
 			/* Wis will hold the sorted statistic indices when all is done. */
-			wis.set(i, i);
+			wis[i] = i;
 			/* This is normalized squared max power. */
-			powNorms2.set(i, powMaxs.get(i) * powNorms.get(i));
+			powNorms2[i] = powMaxs[i] * powNorms[i];
 		}
 
-		/* Sort the statistic indices on the normalized squared power. */
-		getSort().bubbleSortDoubleArrayDecremental2(powNorms2, wis, nStats);
+		/* Sort the statistic indices on the normalized squared power, */
+		/* in the same stable order as the bubble sort.                 */
+		getSort().sortDoubleArrayDecremental2(powNorms2, wis, nStats);
 
-		/* Deallocate the working memory. */
-		getFree().free(powNorms2);
-		ret = ILfs.FALSE;
-		return ret;
+		/* Return the working memory to the thread's arena. */
+		arena.release(powNorms2);
+		return (ILfs.FALSE);
+	}
+
+	/* Unboxed copy of power vectors, powers[wave][direction] */
+	static double[][] toPowers(final AtomicReferenceArray<Double[]> powers) {
+		double[][] copy = new double[powers.length()][];
+		for (int waveIndex = 0; waveIndex < copy.length; waveIndex++)
+		{
+			Double[] vector = powers.get(waveIndex);
+			copy[waveIndex] = new double[vector.length];
+			for (int dirIndex = 0; dirIndex < vector.length; dirIndex++)
+			{
+				copy[waveIndex][dirIndex] = vector[dirIndex];
+			}
+		}
+		return copy;
+	}
+
+	/* Unboxed copy of the first length values */
+	static double[] toDoubles(final AtomicReferenceArray<Double> values, final int length) {
+		double[] copy = new double[length];
+		for (int i = 0; i < length; i++)
+		{
+			copy[i] = values.get(i);
+		}
+		return copy;
+	}
+
+	/* Copy of the first length values */
+	static int[] toInts(final AtomicIntegerArray values, final int length) {
+		int[] copy = new int[length];
+		for (int i = 0; i < length; i++)
+		{
+			copy[i] = values.get(i);
+		}
+		return copy;
 	}
 }
\ No newline at end of file
@@ -7,6 +7,9 @@ import org.mosip.nist.nfiq1.common.ILfs;
 import org.mosip.nist.nfiq1.common.ILfs.IGetMinutiae;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.mosip.nist.nfiq1.util.NfiqMetrics.Stage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -64,6 +67,29 @@ public class GetMinutiae extends MindTct implements IGetMinutiae {
 		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
 		int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
 		final double imagePPI, final LfsParams lfsParams) {
+		return getMinutiae(ret, oMinutiae, imageMap, qualityMap, oBinarizedImageWidth, oBinarizedImageHeight, 
+			oBinarizedImageDepth, imageData, imageWidth, imageHeight, imageDepth, imagePPI, lfsParams, 
+			ILfs.DETECT_MODE_MINDTCT);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat:   getMinutiae - As above, for a given detection mode of
+	#cat:                lfsDetectMinutiaeV2.  DETECT_MODE_NFIQ skips the
+	#cat:                neighbour ridge counts and returns the binarized
+	#cat:                image as {1 = black, 0 = white}.
+	   Input:
+	      (as above)
+	      detectMode    	- DETECT_MODE_MINDTCT or DETECT_MODE_NFIQ
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int[] getMinutiae(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
+		int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
+		final double imagePPI, final LfsParams lfsParams, final int detectMode) {
 
 		int[] binarizedImageData = null; 
 		/* If input image is not 8-bit grayscale ... */
@@ -77,40 +103,153 @@ public class GetMinutiae extends MindTct implements IGetMinutiae {
 
 		/* Detect minutiae in grayscale fingerpeint image. */
 		binarizedImageData = getDetect().lfsDetectMinutiaeV2(ret, oMinutiae, imageMap, 
-			oBinarizedImageWidth, oBinarizedImageHeight, imageData, imageWidth, imageHeight, lfsParams);
+			oBinarizedImageWidth, oBinarizedImageHeight, imageData, imageWidth, imageHeight, lfsParams, detectMode);
 		if (ret.get() != ILfs.FALSE)
 		{
 			binarizedImageData = null;
 			return binarizedImageData;
 		}
 
-		/* Build integrated quality map. */
-		ret.set(qualityMap.generateQualityMap(imageMap));
+		/* Build quality map and assign minutiae reliability. */
+		ret.set(getMinutiaeQuality(oMinutiae, imageMap, qualityMap, 
+			imageData, imageWidth, imageHeight, imageDepth, imagePPI, lfsParams));
 		if (ret.get() != ILfs.FALSE)
 		{
-			getMinutiaHelper().freeMinutiae(oMinutiae);
 			binarizedImageData = null;
 			return binarizedImageData;
 		}
 
+		/* Set output pointers. */
+		oBinarizedImageDepth.set(imageDepth);
 
-		/* Assign reliability from quality map. */
-		ret.set(qualityMap.combinedMinutiaQuality(oMinutiae, imageMap, 
-			lfsParams.getBlockSize(), imageData, imageWidth, imageHeight, imageDepth, imagePPI));
-		if (ret.get() != ILfs.FALSE)
+		/* Return normally. */
+		ret.set(ILfs.FALSE);
+		return binarizedImageData;
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat:   getMinutiae - As above, for an image of one byte per pixel.
+	#cat:                The grayscale image is read in place when padding
+	#cat:                it and when assigning minutiae reliability.
+	   Input:
+	      image    			- grayscale fingerprint image
+	      (remaining arguments as above)
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int[] getMinutiae(AtomicInteger ret, AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+		AtomicInteger oBinarizedImageWidth, AtomicInteger oBinarizedImageHeight, AtomicInteger oBinarizedImageDepth, 
+		ByteImage image, final int imageDepth, final double imagePPI, final LfsParams lfsParams, final int detectMode) {
+
+		int[] binarizedImageData = null; 
+		/* If input image is not 8-bit grayscale ... */
+		if (imageDepth != ILfs.IMAGE_DEPTH)
 		{
-			getMinutiaHelper().freeMinutiae(oMinutiae);
-			binarizedImageData = null;
+			LOGGER.error(String.format("ERROR : get_minutiae : input image pixel "));
+			LOGGER.error(String.format("depth = %d != 8.\n", imageDepth));
+			ret.set(ILfs.ERROR_CODE_02);
 			return binarizedImageData;
 		}
 
-		/* Set output pointers. */
-		oBinarizedImageDepth.set(imageDepth);
+		/* Detect minutiae in grayscale fingerpeint image. */
+		binarizedImageData = getDetect().lfsDetectMinutiaeV2(ret, oMinutiae, imageMap, 
+			oBinarizedImageWidth, oBinarizedImageHeight, image, lfsParams, detectMode);
+		if (ret.get() != ILfs.FALSE)
+		{
+			return null;
+		}
 
-		/* Return normally. */
+		/* Build quality map and assign minutiae reliability. */
+		ret.set(getMinutiaeQuality(oMinutiae, imageMap, qualityMap, image, imageDepth, imagePPI, lfsParams));
+		if (ret.get() != ILfs.FALSE)
+		{
+			return null;
+		}
+
+		oBinarizedImageDepth.set(imageDepth);
 		ret.set(ILfs.FALSE);
 		return binarizedImageData;
 	}
-}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat:   getMinutiaeQuality - Final stage of getMinutiae.  Builds the
+	#cat:                integrated quality map from the image maps and
+	#cat:                assigns a reliability to every detected minutia.
+	   Input:
+	      oMinutiae    		- minutiae detected by lfsDetectMinutiaeV2
+	      imageMap     		- image maps of the grayscale image
+	      imageData    		- grayscale fingerprint image data
+	      imageWidth       	- width (in pixels) of the grayscale image
+	      imageHeight       - height (in pixels) of the grayscale image
+	      imageDepth       	- pixel depth (in bits) of the grayscale image
+	      imagePPI     		- the scan resolution (in pixels/mm) of the grayscale image
+	      lfsParams 		- parameters and thresholds for controlling LFS
+	   Output:
+	      qualityMap        - resulting quality map
+	      oMinutiae         - minutiae with reliability assigned
+	   Return Code:
+	      Zero     - successful completion
+	      Negative - system error
+	**************************************************************************/
+	public int getMinutiaeQuality(AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+		int [] imageData, final int imageWidth, final int imageHeight, final int imageDepth, 
+		final double imagePPI, final LfsParams lfsParams) {
+		int ret;
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+		long startTime = metrics.start();
+
+		/* Build integrated quality map. */
+		ret = qualityMap.generateQualityMap(imageMap);
+		if (ret == ILfs.FALSE)
+		{
+			/* Assign reliability from quality map. */
+			ret = qualityMap.combinedMinutiaQuality(oMinutiae, imageMap, 
+				lfsParams.getBlockSize(), imageData, imageWidth, imageHeight, imageDepth, imagePPI);
+		}
+		metrics.stop(Stage.QUALITY, startTime);
+		if (ret != ILfs.FALSE)
+		{
+			getMinutiaHelper().freeMinutiae(oMinutiae);
+			return ret;
+		}
+		return ILfs.FALSE;
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat:   getMinutiaeQuality - As above, for an image of one byte per pixel.
+	   Input:
+	      image    			- grayscale fingerprint image
+	      (remaining arguments as above)
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int getMinutiaeQuality(AtomicReference<Minutiae> oMinutiae, Maps imageMap, Quality qualityMap, 
+		ByteImage image, final int imageDepth, final double imagePPI, final LfsParams lfsParams) {
+		int ret;
+		NfiqMetrics metrics = NfiqMetrics.getInstance();
+		long startTime = metrics.start();
 
+		/* Build integrated quality map. */
+		ret = qualityMap.generateQualityMap(imageMap);
+		if (ret == ILfs.FALSE)
+		{
+			/* Assign reliability from quality map. */
+			ret = qualityMap.combinedMinutiaQuality(oMinutiae, imageMap, 
+				lfsParams.getBlockSize(), image, imageDepth, imagePPI);
+		}
+		metrics.stop(Stage.QUALITY, startTime);
+		if (ret != ILfs.FALSE)
+		{
+			getMinutiaHelper().freeMinutiae(oMinutiae);
+			return ret;
+		}
+		return ILfs.FALSE;
+	}
+}
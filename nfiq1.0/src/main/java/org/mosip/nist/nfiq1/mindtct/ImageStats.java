@@ -0,0 +1,189 @@
+package org.mosip.nist.nfiq1.mindtct;
+
+import java.util.Arrays;
+
+/***********************************************************************
+************************************************************************
+#cat: ImageStats - Pixel statistics of a padded image, computed once so
+#cat:             that window queries no longer revisit every pixel.
+#cat:             An integral image answers the pixel sum of any rectangle
+#cat:             in O(1).  Cumulative histograms over a lattice of
+#cat:             square blocks, each built from its neighbours, answer
+#cat:             the histogram of any lattice aligned window in O(bins).
+#cat:             The statistics are read-only once built and may be
+#cat:             shared by threads working on the same image.
+************************************************************************/
+public final class ImageStats {
+	private final int imageWidth;
+	private final int imageHeight;
+	/* (imageWidth + 1) x (imageHeight + 1) sums of the pixels above and */
+	/* left of each point, or null                                      */
+	private final long[] sums;
+	/* Lattice of the block histograms */
+	private final int originX;
+	private final int originY;
+	private final int step;
+	private final int nCols;
+	private final int nRows;
+	private final int nBins;
+	/* (nRows + 1) x (nCols + 1) histograms of the lattice blocks above */
+	/* and left of each lattice point, nBins counts each, or null        */
+	private final int[] cumHists;
+
+	private ImageStats(final int imageWidth, final int imageHeight, long[] sums, final int originX, final int originY,
+		final int step, final int nCols, final int nRows, final int nBins, int[] cumHists) {
+		super();
+		this.imageWidth = imageWidth;
+		this.imageHeight = imageHeight;
+		this.sums = sums;
+		this.originX = originX;
+		this.originY = originY;
+		this.step = step;
+		this.nCols = nCols;
+		this.nRows = nRows;
+		this.nBins = nBins;
+		this.cumHists = cumHists;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: newIntegralImage - Builds the integral image of an image.
+	   Input:
+	      imageData     - image data
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	   Return Code:
+	      statistics answering getSum
+	************************************************************************/
+	public static ImageStats newIntegralImage(int[] imageData, final int imageWidth, final int imageHeight) {
+		int x, y, imageIndex = 0, sumIndex;
+		long rowSum;
+		long[] sums = new long[(imageWidth + 1) * (imageHeight + 1)];
+
+		for (y = 0; y < imageHeight; y++)
+		{
+			rowSum = 0;
+			sumIndex = ((y + 1) * (imageWidth + 1)) + 1;
+			for (x = 0; x < imageWidth; x++, sumIndex++)
+			{
+				rowSum += imageData[imageIndex++];
+				sums[sumIndex] = sums[sumIndex - (imageWidth + 1)] + rowSum;
+			}
+		}
+		return new ImageStats(imageWidth, imageHeight, sums, 0, 0, 0, 0, 0, 0, null);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: newBlockHistograms - Builds cumulative histograms over a lattice
+	#cat:             of square blocks covering an image from a given
+	#cat:             origin.  Each cumulative histogram is that of its
+	#cat:             block plus those of its upper and left neighbours,
+	#cat:             less that of its upper-left neighbour.
+	   Input:
+	      imageData     - image data, each pixel in [0..nBins)
+	      imageWidth    - width (in pixels) of the image
+	      imageHeight   - height (in pixels) of the image
+	      originX       - x-coord of the origin of the lattice
+	      originY       - y-coord of the origin of the lattice
+	      step          - dimension (in pixels) of a lattice block
+	      nBins         - number of histogram bins
+	   Return Code:
+	      statistics answering getWindowHistogram
+	************************************************************************/
+	public static ImageStats newBlockHistograms(int[] imageData, final int imageWidth, final int imageHeight,
+		final int originX, final int originY, final int step, final int nBins) {
+		int nCols = Math.max(0, (imageWidth - originX) / step);
+		int nRows = Math.max(0, (imageHeight - originY) / step);
+		int stride = (nCols + 1) * nBins;
+		int[] cumHists = new int[(nRows + 1) * stride];
+		int[] blockHist = new int[nBins];
+		int row, col, bin, x, y, imageIndex, here, up, left, upLeft;
+
+		for (row = 0; row < nRows; row++)
+		{
+			for (col = 0; col < nCols; col++)
+			{
+				/* Histogram of the block itself ... */
+				Arrays.fill(blockHist, 0);
+				imageIndex = ((originY + (row * step)) * imageWidth) + originX + (col * step);
+				for (y = 0; y < step; y++, imageIndex += imageWidth)
+				{
+					for (x = 0; x < step; x++)
+					{
+						blockHist[imageData[imageIndex + x]]++;
+					}
+				}
+
+				/* ... plus the cumulative histograms of its neighbours. */
+				here = ((row + 1) * stride) + ((col + 1) * nBins);
+				up = here - stride;
+				left = here - nBins;
+				upLeft = up - nBins;
+				for (bin = 0; bin < nBins; bin++)
+				{
+					cumHists[here + bin] = blockHist[bin] + cumHists[up + bin] + cumHists[left + bin] - cumHists[upLeft + bin];
+				}
+			}
+		}
+		return new ImageStats(imageWidth, imageHeight, null, originX, originY, step, nCols, nRows, nBins, cumHists);
+	}
+
+	public int getImageWidth() {
+		return imageWidth;
+	}
+
+	public int getImageHeight() {
+		return imageHeight;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: getSum - Returns the sum of the pixels of a rectangle, which must
+	#cat:             lie within the image.
+	   Input:
+	      x, y          - pixel coords of the origin of the rectangle
+	      width         - width (in pixels) of the rectangle
+	      height        - height (in pixels) of the rectangle
+	************************************************************************/
+	public long getSum(final int x, final int y, final int width, final int height) {
+		int top = (y * (imageWidth + 1)) + x;
+		int bottom = ((y + height) * (imageWidth + 1)) + x;
+		return sums[bottom + width] - sums[bottom] - sums[top + width] + sums[top];
+	}
+
+	/* Tells whether a square window is made of whole lattice blocks */
+	public boolean hasWindowHistogram(final int x, final int y, final int windowSize) {
+		if (cumHists == null || x < originX || y < originY || windowSize % step != 0)
+			return false;
+		if ((x - originX) % step != 0 || (y - originY) % step != 0)
+			return false;
+		return (((x - originX) + windowSize) / step <= nCols && ((y - originY) + windowSize) / step <= nRows);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: getWindowHistogram - Returns the histogram of a square window
+	#cat:             for which hasWindowHistogram holds.
+	   Input:
+	      x, y          - pixel coords of the origin of the window
+	      windowSize    - dimension (in pixels) of the window
+	   Output:
+	      oHistogram    - pixel count of each of the nBins values
+	************************************************************************/
+	public void getWindowHistogram(final int x, final int y, final int windowSize, int[] oHistogram) {
+		int stride = (nCols + 1) * nBins;
+		int fromCol = (x - originX) / step, toCol = fromCol + (windowSize / step);
+		int fromRow = (y - originY) / step, toRow = fromRow + (windowSize / step);
+		int topLeft = (fromRow * stride) + (fromCol * nBins);
+		int topRight = (fromRow * stride) + (toCol * nBins);
+		int bottomLeft = (toRow * stride) + (fromCol * nBins);
+		int bottomRight = (toRow * stride) + (toCol * nBins);
+
+		for (int bin = 0; bin < nBins; bin++)
+		{
+			oHistogram[bin] = cumHists[bottomRight + bin] - cumHists[bottomLeft + bin]
+				- cumHists[topRight + bin] + cumHists[topLeft + bin];
+		}
+	}
+}
@@ -7,6 +7,7 @@ import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
 import org.mosip.nist.nfiq1.common.ILfs.IImageUtil;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -173,8 +174,8 @@ public class ImageUtil extends MindTct implements IImageUtil {
 		paddedImageHeight = imageHeight + pad2;
 		paddedImageSize = paddedImageWidth * paddedImageHeight;
 
-		/* Allocate padded image */
-		paddedImagedata = new int [paddedImageSize];
+		/* Allocate padded image, pooled within a ScratchArena scope */
+		paddedImagedata = ScratchArena.current().getInts(paddedImageSize);
 
 		/* Initialize values to a constant PAD value */
 		//for (i = 0; i < paddedImageSize; i++)
@@ -198,6 +199,49 @@ public class ImageUtil extends MindTct implements IImageUtil {
 		return paddedImagedata;
 	}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat: padImage - As above, for an image of one byte per pixel.  The
+	#cat:                   unsigned pixel values are widened into the
+	#cat:                   int padded image.
+	   Input:
+	      image     - input 8-bit grayscale image
+	      pad       - size of padding (in pixels) to be added
+	      padValue - intensity of the padded area
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int[] padImage(AtomicInteger ret, AtomicInteger ow, AtomicInteger oh, 
+		ByteImage image, final int pad, final int padValue) {
+		int[] paddedImagedata;
+		int paddedImageWidth, paddedImageHeight, pptrIndex;
+
+		paddedImageWidth = image.getWidth() + (pad << 1);
+		paddedImageHeight = image.getHeight() + (pad << 1);
+		paddedImagedata = ScratchArena.current().getInts(paddedImageWidth * paddedImageHeight);
+
+		/* Only the pad area takes the constant PAD value. */
+		if (pad > 0)
+		{
+			Arrays.fill(paddedImagedata, 0, paddedImageWidth * paddedImageHeight, padValue);
+		}
+
+		/* Copy input image into padded image one scanline at a time */
+		pptrIndex = (pad * paddedImageWidth) + pad;
+		for (int y = 0; y < image.getHeight(); y++)
+		{
+			image.getRow(y, 0, image.getWidth(), paddedImagedata, pptrIndex);
+			pptrIndex += paddedImageWidth;
+		}
+
+		ow.set(paddedImageWidth);
+		oh.set(paddedImageHeight);
+		ret.set(ILfs.FALSE);
+		return paddedImagedata;
+	}
+
 	/*************************************************************************
 	**************************************************************************
 	#cat: fillHoles - Takes an input image and analyzes triplets of horizontal
@@ -1,8 +1,8 @@
 package org.mosip.nist.nfiq1.mindtct;
 
-import java.util.concurrent.atomic.AtomicIntegerArray;
 
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IIsEmpty;
 
 public class IsEmpty extends MindTct implements IIsEmpty {
@@ -34,7 +34,7 @@ public class IsEmpty extends MindTct implements IIsEmpty {
 	      True        - image determined empty
 	      False       - image determined NOT empty
 	************************************************************************/
-	public int isImageEmpty(AtomicIntegerArray qualityMap, final int mapWidth, final int mapHeight) {
+	public int isImageEmpty(ByteBlockMap qualityMap, final int mapWidth, final int mapHeight) {
 		/* This routine is designed to be expanded as more statistical */
 		/* tests are developed. */
 
@@ -59,7 +59,7 @@ public class IsEmpty extends MindTct implements IIsEmpty {
 	      True        - quality map is empty
 	      False       - quality map is NOT empty
 	************************************************************************/
-	public int isQualityMapEmpty(AtomicIntegerArray qualityMap, final int mapWidth, final int mapHeight) {
+	public int isQualityMapEmpty(ByteBlockMap qualityMap, final int mapWidth, final int mapHeight) {
 		int i, mapLen;
 		int qptrIndex;
 		qptrIndex = 0;
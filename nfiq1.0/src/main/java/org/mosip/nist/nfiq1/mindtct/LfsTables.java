@@ -0,0 +1,230 @@
+package org.mosip.nist.nfiq1.mindtct;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.DftWaves;
+import org.mosip.nist.nfiq1.common.ILfs.DirToRad;
+import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
+import org.mosip.nist.nfiq1.common.ILfs.RotGrids;
+
+/***********************************************************************
+************************************************************************
+#cat: LfsTables - Lookup tables used by lfsDetectMinutiaeV2: the
+#cat:             direction to radian table, the DFT wave forms and
+#cat:             the rotated grids of the DFT analysis and of the
+#cat:             directional binarization.  The tables only depend on
+#cat:             the LFS parameters, the image width and the padding,
+#cat:             so they are built once per such set and shared by all
+#cat:             threads.  Shared tables must never be modified or
+#cat:             passed to Free.
+************************************************************************/
+public final class LfsTables {
+	/* Distinct parameter sets kept before the cache is emptied */
+	public static final int MAX_CACHED_TABLES = 64;
+	private static final ConcurrentHashMap<Key, LfsTables> CACHE = new ConcurrentHashMap<Key, LfsTables>();
+
+	private final DirToRad dirToRad;
+	private final DftWaves dftWaves;
+	private final RotGrids dftGrids;
+	private final RotGrids dirBinGrids;
+
+	private LfsTables(DirToRad dirToRad, DftWaves dftWaves, RotGrids dftGrids, RotGrids dirBinGrids) {
+		super();
+		this.dirToRad = dirToRad;
+		this.dftWaves = dftWaves;
+		this.dftGrids = dftGrids;
+		this.dirBinGrids = dirBinGrids;
+	}
+
+	public static Init getInit() {
+		return Init.getInstance();
+	}
+	public static Globals getGlobals() {
+		return Globals.getInstance();
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: getLfsTables - Returns the lookup tables for an image, building
+	#cat:          and caching them on first use of the parameter set.
+	   Input:
+	      imageWidth    - width (in pixels) of the unpadded image
+	      imageHeight   - height (in pixels) of the unpadded image
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      oTables       - the shared lookup tables
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public static int getLfsTables(AtomicReference<LfsTables> oTables, final int imageWidth, final int imageHeight,
+		final LfsParams lfsParams) {
+		int maxPad = getInit().getMaxPaddingV2(lfsParams.getWindowSize(), lfsParams.getWindowOffset(),
+				lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight());
+		Key key = new Key(lfsParams, imageWidth, maxPad);
+
+		LfsTables tables = CACHE.get(key);
+		if (tables == null)
+		{
+			AtomicReference<LfsTables> newTables = new AtomicReference<LfsTables>();
+			int ret = buildLfsTables(newTables, imageWidth, imageHeight, maxPad, lfsParams);
+			if (ret != ILfs.FALSE)
+			{
+				return ret;
+			}
+			/* Image widths of a deployment are few, but never grow unbounded. */
+			if (CACHE.size() >= MAX_CACHED_TABLES)
+			{
+				CACHE.clear();
+			}
+			tables = CACHE.putIfAbsent(key, newTables.get());
+			if (tables == null)
+			{
+				tables = newTables.get();
+			}
+		}
+
+		oTables.set(tables);
+		return (ILfs.FALSE);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: buildLfsTables - Builds a new, unshared set of lookup tables.
+	   Input:
+	      imageWidth    - width (in pixels) of the unpadded image
+	      imageHeight   - height (in pixels) of the unpadded image
+	      maxPad        - padding of the image on each side
+	      lfsParams     - parameters and thresholds for controlling LFS
+	   Output:
+	      oTables       - the lookup tables
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public static int buildLfsTables(AtomicReference<LfsTables> oTables, final int imageWidth, final int imageHeight,
+		final int maxPad, final LfsParams lfsParams) {
+		int ret;
+		DirToRad dirToRad;
+		DftWaves dftWaves;
+		RotGrids dftGrids, dirBinGrids;
+		AtomicReferenceArray<Double> dftCoefs;
+
+		/* Initialize lookup table for converting integer directions */
+		/* to angles in radians.                                     */
+		dirToRad = new DirToRad (lfsParams.getNumDirections());
+		ret = getInit().initDirToRad(dirToRad);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+		/* Initialize wave form lookup tables for DFT analyses. */
+		dftCoefs = new AtomicReferenceArray<Double>(getGlobals().getDftCoefs().length);
+		for (int index = 0; index < dftCoefs.length(); index++)
+			dftCoefs.set(index, getGlobals().getDftCoefs()[index]);
+
+		dftWaves = new DftWaves (lfsParams.getNumDftWaves(), lfsParams.getWindowSize());
+		ret = getInit().initDftWaves(dftWaves, dftCoefs);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+		/* Initialize lookup table for pixel offsets to rotated grids */
+		/* used for DFT analyses.                                     */
+		dftGrids = new RotGrids (lfsParams.getStartDirAngle(), lfsParams.getNumDirections(),
+				lfsParams.getWindowSize(), lfsParams.getWindowSize(), ILfs.RELATIVE_TO_ORIGIN);
+		ret = getInit().initRotGrids(dftGrids, imageWidth, imageHeight, maxPad);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+		/* Initialize lookup table for pixel offsets to rotated grids */
+		/* used for directional binarization.                         */
+		dirBinGrids = new RotGrids (lfsParams.getStartDirAngle(), lfsParams.getNumDirections(),
+				lfsParams.getDirbinGridWidth(), lfsParams.getDirbinGridHeight(), ILfs.RELATIVE_TO_CENTER);
+		ret = getInit().initRotGrids(dirBinGrids, imageWidth, imageHeight, maxPad);
+		if (ret != ILfs.FALSE)
+		{
+			return ret;
+		}
+
+		oTables.set(new LfsTables(dirToRad, dftWaves, dftGrids, dirBinGrids));
+		return (ILfs.FALSE);
+	}
+
+	/* Empties the cache, e.g. after the DFT coefficients were changed */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	public DirToRad getDirToRad() {
+		return dirToRad;
+	}
+
+	public DftWaves getDftWaves() {
+		return dftWaves;
+	}
+
+	public RotGrids getDftGrids() {
+		return dftGrids;
+	}
+
+	public RotGrids getDirBinGrids() {
+		return dirBinGrids;
+	}
+
+	/* Every parameter the tables are computed from */
+	private static final class Key {
+		private final int numDirections;
+		private final double startDirAngle;
+		private final int numDftWaves;
+		private final int windowSize;
+		private final int dirbinGridWidth;
+		private final int dirbinGridHeight;
+		private final int imageWidth;
+		private final int maxPad;
+
+		Key(final LfsParams lfsParams, final int imageWidth, final int maxPad) {
+			this.numDirections = lfsParams.getNumDirections();
+			this.startDirAngle = lfsParams.getStartDirAngle();
+			this.numDftWaves = lfsParams.getNumDftWaves();
+			this.windowSize = lfsParams.getWindowSize();
+			this.dirbinGridWidth = lfsParams.getDirbinGridWidth();
+			this.dirbinGridHeight = lfsParams.getDirbinGridHeight();
+			this.imageWidth = imageWidth;
+			this.maxPad = maxPad;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (this == object)
+				return true;
+			if (!(object instanceof Key))
+				return false;
+			Key key = (Key)object;
+			return (numDirections == key.numDirections && Double.compare(startDirAngle, key.startDirAngle) == 0
+				&& numDftWaves == key.numDftWaves && windowSize == key.windowSize
+				&& dirbinGridWidth == key.dirbinGridWidth && dirbinGridHeight == key.dirbinGridHeight
+				&& imageWidth == key.imageWidth && maxPad == key.maxPad);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = numDirections;
+			hash = 31 * hash + Double.hashCode(startDirAngle);
+			hash = 31 * hash + numDftWaves;
+			hash = 31 * hash + windowSize;
+			hash = 31 * hash + dirbinGridWidth;
+			hash = 31 * hash + dirbinGridHeight;
+			hash = 31 * hash + imageWidth;
+			hash = 31 * hash + maxPad;
+			return hash;
+		}
+	}
+}
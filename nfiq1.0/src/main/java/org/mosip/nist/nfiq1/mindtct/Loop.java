@@ -1,10 +1,12 @@
 package org.mosip.nist.nfiq1.mindtct;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.ILoop;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.mosip.nist.nfiq1.common.ILfs.Minutia;
@@ -15,6 +17,9 @@ import org.slf4j.LoggerFactory;
 
 public class Loop extends MindTct implements ILoop {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Loop.class);	
+	/* Seed pixel indices of floodFill4, reused by each thread */
+	private static final int FLOOD_STACK_SIZE = 1024;
+	private static final ThreadLocal<FloodStack> FLOOD_STACKS = ThreadLocal.withInitial(() -> new FloodStack());
 	private static volatile Loop instance;
     public static Loop getInstance() {
         if (instance == null) {
@@ -78,7 +83,7 @@ public class Loop extends MindTct implements ILoop {
 		int[] binarizedImageData, final int imageWidth, final int imageHeight) {
 		int i;
 		int ret;
-		Minutia minutia;
+		Minutiae minutiae = oMinutiae.get();
 
 		/* Allocate a list of onloop flags (one for each minutia in list). */
 		//Allocate from calling function
@@ -87,13 +92,11 @@ public class Loop extends MindTct implements ILoop {
 		/* Foreach minutia remaining in list ... */
 		while (i < oMinutiae.get().getNum())
 		{
-			/* Assign a temporary pointer. */
-			minutia = oMinutiae.get().getList().get(i);
 			/* If current minutia is a bifurcation ... */
-			if (minutia.getType() == ILfs.BIFURCATION)
+			if (minutiae.getType(i) == ILfs.BIFURCATION)
 			{
 				/* Check to see if it is on a loop of specified length. */
-				ret = onLoop(minutia, loopLen, binarizedImageData, imageWidth, imageHeight);
+				ret = onLoop(minutiae.getMinutia(i), loopLen, binarizedImageData, imageWidth, imageHeight);
 				/* If minutia is on a loop... */
 				if (ret == ILfs.LOOP_FOUND)
 				{
@@ -681,7 +684,7 @@ public class Loop extends MindTct implements ILoop {
 		AtomicIntegerArray oContourX, AtomicIntegerArray oContourY, 
 		AtomicIntegerArray oContourEx, AtomicIntegerArray oContourEy,
 		final int noOfContour, int[] binarizedImageData, final int imageWidth, final int imageHeight, 
-		AtomicIntegerArray oLowFlowMap, final LfsParams lfsParams) {
+		BitBlockMap oLowFlowMap, final LfsParams lfsParams) {
 		int halfway;
 		int idir, type, appearing;
 		AtomicReference<Double> oMinDistance = new AtomicReference<Double>(0.0), 
@@ -1122,7 +1125,7 @@ public class Loop extends MindTct implements ILoop {
 	/*************************************************************************
 	**************************************************************************
 	#cat: floodLoop - Fills a given contour (determined to form a complete loop)
-	#cat:            with a specified pixel value using a recursive flood-fill
+	#cat:            with a specified pixel value using a flood-fill
 	#cat:            technique.
 	#cat:            NOTE, this fill approach will NOT always work with the
 	#cat:            contours generated in this application because they
@@ -1169,7 +1172,7 @@ public class Loop extends MindTct implements ILoop {
 		/* as their seed pixel will have already been flipped.      */
 		for (int i = 0; i < noOfContour; i++)
 		{
-			/* Start the recursive flooding. */
+			/* Start the flooding. */
 			floodFill4(fillPixel, oContourX.get(i), oContourY.get(i), 
 				binarizedImageData, imageWidth, imageHeight);
   		}
@@ -1177,9 +1180,13 @@ public class Loop extends MindTct implements ILoop {
 
 	/*************************************************************************
 	**************************************************************************
-	#cat: floodFill4 - Recursively floods a region of an 8-bit pixel image with a
-	#cat:               specified pixel value given a starting (seed) point.  The
-	#cat:               recursion is based neighbors being 4-connected.
+	#cat: floodFill4 - Floods a region of an 8-bit pixel image with a
+	#cat:               specified pixel value given a starting (seed) point.
+	#cat:               The region is the 4-connected set of pixels not
+	#cat:               already equal to the fill value.  Each seed fills a
+	#cat:               whole horizontal span, and one seed per adjacent span
+	#cat:               above and below is kept on an explicit stack, so
+	#cat:               large regions need no call stack depth.
 	   Input:
 	      fillPixel - 8-bit pixel value to be filled with (on range [0..255]
 	      xIndex        - starting x-pixel coord
@@ -1192,51 +1199,79 @@ public class Loop extends MindTct implements ILoop {
 	**************************************************************************/
 	public void floodFill4(final int fillPixel, final int xIndex, final int yIndex,
 		int[] binarizedImageData, final int imageWidth, final int imageHeight) {
-		int binarizedImageDataIndex;
-		int yNorthPixel, ySouthPixel, xEastPixel, xWestPixel;
+		int rowIndex, fromX, toX, seed;
 
-		/* Get address of current pixel. */
-		binarizedImageDataIndex = (0 + (yIndex * imageWidth) + xIndex);
-		/* If pixel needs to be filled ... */
-		if (binarizedImageData[binarizedImageDataIndex] != fillPixel)
-		{
-			/* Fill the current pixel. */
-			binarizedImageData[binarizedImageDataIndex] = fillPixel;
-
-			/* Recursively invoke flood on the pixel's 4 neighbors.   */
-			/* Test to make sure neighbors are within image boudaries */
-			/* before invoking each flood.                            */
-			yNorthPixel = yIndex - 1;
-			ySouthPixel = yIndex + 1;
-			xWestPixel = xIndex - 1;
-			xEastPixel = xIndex + 1;
-
-			/* Invoke North */
-			if (yNorthPixel >= 0)
-			{
-				floodFill4(fillPixel, xIndex, yNorthPixel, binarizedImageData, imageWidth, imageHeight);
-			}
+		/* If seed pixel is already filled, there is nothing to be done. */
+		if (binarizedImageData[(yIndex * imageWidth) + xIndex] == fillPixel)
+			return;
 
-			/* Invoke East */
-			if (xEastPixel < imageWidth)
-			{
-				floodFill4(fillPixel, xEastPixel, yIndex, binarizedImageData, imageWidth, imageHeight);
-			}
+		FloodStack stack = FLOOD_STACKS.get();
+		stack.size = 0;
+		stack.push((yIndex * imageWidth) + xIndex);
+
+		while (stack.size > 0)
+		{
+			seed = stack.pop();
+			/* Seed may have been filled since it was pushed. */
+			if (binarizedImageData[seed] == fillPixel)
+				continue;
+
+			int y = seed / imageWidth;
+			rowIndex = y * imageWidth;
+
+			/* Extend span West and East of the seed on its row. */
+			fromX = seed - rowIndex;
+			while (fromX > 0 && binarizedImageData[rowIndex + fromX - 1] != fillPixel)
+				fromX--;
+			toX = seed - rowIndex;
+			while (toX < imageWidth - 1 && binarizedImageData[rowIndex + toX + 1] != fillPixel)
+				toX++;
+
+			/* Fill the span. */
+			Arrays.fill(binarizedImageData, rowIndex + fromX, rowIndex + toX + 1, fillPixel);
+
+			/* Push one seed per unfilled run on the rows North and South */
+			/* of the span, within image boundaries.                      */
+			if (y > 0)
+				pushSpanSeeds(stack, fillPixel, fromX, toX, rowIndex - imageWidth, binarizedImageData);
+			if (y < imageHeight - 1)
+				pushSpanSeeds(stack, fillPixel, fromX, toX, rowIndex + imageWidth, binarizedImageData);
+		}
+	}
 
-			/* Invoke South */
-			if (ySouthPixel < imageHeight)
+	/* Pushes the first pixel of each unfilled run in [fromX, toX] of a row */
+	private void pushSpanSeeds(FloodStack stack, final int fillPixel, final int fromX, final int toX,
+		final int rowIndex, int[] binarizedImageData) {
+		boolean inRun = false;
+		for (int x = fromX; x <= toX; x++)
+		{
+			if (binarizedImageData[rowIndex + x] != fillPixel)
 			{
-				floodFill4(fillPixel, xIndex, ySouthPixel, binarizedImageData, imageWidth, imageHeight);
+				if (!inRun)
+				{
+					stack.push(rowIndex + x);
+					inRun = true;
+				}
 			}
-
-			/* Invoke West */
-			if (xWestPixel >= 0)
+			else
 			{
-				floodFill4(fillPixel, xWestPixel, yIndex, binarizedImageData, imageWidth, imageHeight);
+				inRun = false;
 			}
 		}
-		/* Otherwise, there is nothing to be done. */
 	}
-}
 
+	private static final class FloodStack {
+		private int[] seeds = new int[FLOOD_STACK_SIZE];
+		private int size;
 
+		void push(final int seed) {
+			if (size == seeds.length)
+				seeds = Arrays.copyOf(seeds, size * 2);
+			seeds[size++] = seed;
+		}
+
+		int pop() {
+			return seeds[--size];
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package org.mosip.nist.nfiq1.mindtct;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
@@ -7,16 +9,23 @@ import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.BlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.DftWaves;
 import org.mosip.nist.nfiq1.common.ILfs.DirToRad;
 import org.mosip.nist.nfiq1.common.ILfs.IMaps;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
+import org.mosip.nist.nfiq1.common.ILfs.PixelBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.RotGrids;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Maps extends MindTct implements IMaps {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Maps.class);	
+	/* Blocks of the initial maps computed by one task, a multiple of the */
+	/* 64 flags held by each BitBlockMap word so tasks never share a word. */
+	public static final int MAP_BLOCKS_PER_TASK = 128;
 	private static volatile Maps instance;
     public static Maps getInstance() {
         if (instance == null) {
@@ -40,8 +49,8 @@ public class Maps extends MindTct implements IMaps {
         return instance;
     }    
 
-    public static Maps getInstance(AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap, AtomicIntegerArray lowFlowMap,
-			AtomicIntegerArray highCurveMap) {
+    public static Maps getInstance(ByteBlockMap directionMap, BitBlockMap lowContrastMap, BitBlockMap lowFlowMap,
+			BitBlockMap highCurveMap) {
         if (instance == null) {
             synchronized (Maps.class) {
                 if (instance == null) {
@@ -52,6 +61,11 @@ public class Maps extends MindTct implements IMaps {
         return instance;
     }    
 
+    /* Returns a private instance for callers that must not share the image maps */
+    public static Maps newInstance() {
+        return new Maps();
+    }    
+
 	public Defs getDefs() {
 		return Defs.getInstance();
 	}	
@@ -74,10 +88,13 @@ public class Maps extends MindTct implements IMaps {
 		return Morph.getInstance();
 	}
 
-	private AtomicIntegerArray directionMap, lowContrastMap, lowFlowMap, highCurveMap;
+	private ByteBlockMap directionMap;
+	private BitBlockMap lowContrastMap, lowFlowMap, highCurveMap;
 	//mappedImageWidth        - number of blocks horizontally in the padded input image
 	//mappedImageHeight        - number of blocks vertically in the padded input image
 	private AtomicInteger mappedImageWidth, mappedImageHeight;
+	/* Threads for the initial maps and binarization, or null to run serially */
+	private ForkJoinPool pool;
 		
 	private Maps() {
 		super();
@@ -92,14 +109,14 @@ public class Maps extends MindTct implements IMaps {
 		
 		/* Compute total number of blocks in map */
 		int mapSize = mappedImageWidth * mappedImageHeight;
-		directionMap = new AtomicIntegerArray(mapSize);
-		lowContrastMap = new AtomicIntegerArray(mapSize);
-		lowFlowMap = new AtomicIntegerArray(mapSize);
-		highCurveMap = new AtomicIntegerArray(mapSize);
+		directionMap = new ByteBlockMap(mapSize);
+		lowContrastMap = new BitBlockMap(mapSize);
+		lowFlowMap = new BitBlockMap(mapSize);
+		highCurveMap = new BitBlockMap(mapSize);
 	}
 
-	private Maps(AtomicIntegerArray directionMap, AtomicIntegerArray lowContrastMap, AtomicIntegerArray lowFlowMap,
-			AtomicIntegerArray highCurveMap) {
+	private Maps(ByteBlockMap directionMap, BitBlockMap lowContrastMap, BitBlockMap lowFlowMap,
+			BitBlockMap highCurveMap) {
 		super();
 		this.directionMap = directionMap;
 		this.lowContrastMap = lowContrastMap;
@@ -169,22 +186,15 @@ public class Maps extends MindTct implements IMaps {
 		setMappedImageHeight (new AtomicInteger (mappedImageHeight.get()));
 
 		/* Allocate Direction Map memory */
-		setDirectionMap (new AtomicIntegerArray (mapSize));
+		setDirectionMap (new ByteBlockMap (mapSize));
 		/* Initialize the Direction Map to INVALID (-1). */
-		for (int dmIndex = 0; dmIndex < getDirectionMap().length(); dmIndex++)
-			getDirectionMap().set(dmIndex, ILfs.INVALID_DIR);
+		getDirectionMap().fill(ILfs.INVALID_DIR);
 		
-		 /* Allocate Low Contrast Map memory */
-		setLowContrastMap (new AtomicIntegerArray (mapSize));
-		/* Initialize the Low Contrast Map to FALSE (0). */
-		for (int lcmIndex = 0; lcmIndex < getLowContrastMap().length(); lcmIndex++)
-			getLowContrastMap().set(lcmIndex, 0);
+		 /* Allocate Low Contrast Map memory, initialized to FALSE (0). */
+		setLowContrastMap (new BitBlockMap (mapSize));
 
-		 /* Allocate Low Ridge Flow Map memory */
-		setLowFlowMap (new AtomicIntegerArray (mapSize));
-		 /* Initialize the Low Flow Map to FALSE (0). */
-		for (int lfmIndex = 0; lfmIndex < getLowFlowMap().length(); lfmIndex++)
-			getLowFlowMap().set(lfmIndex, 0);
+		 /* Allocate Low Ridge Flow Map memory, initialized to FALSE (0). */
+		setLowFlowMap (new BitBlockMap (mapSize));
 
 		/* 2. Generate initial Direction Map and Low Contrast Map and Low Ridge Flow Map */
 		ret.set(initialiseMaps(getDirectionMap(), getLowContrastMap(), getLowFlowMap(), blockOffsets, 
@@ -228,10 +238,8 @@ public class Maps extends MindTct implements IMaps {
 		getBlock().setMarginBlocks(getDirectionMap(), getMappedImageWidth().get(), getMappedImageHeight().get(), ILfs.INVALID_DIR);
 
 		/* Allocate High Curvature Map. */
-		setHighCurveMap (new AtomicIntegerArray (mapSize));
-		/* Initialize High Curvature Map to FALSE (0). */
-		for (int hcmIndex = 0; hcmIndex < getHighCurveMap().length(); hcmIndex++)
-			getHighCurveMap().set(hcmIndex, 0);
+		/* Allocate High Curvature Map, initialized to FALSE (0). */
+		setHighCurveMap (new BitBlockMap (mapSize));
 
 		/* 9. Generate High Curvature Map from interpolated Direction Map. */
 		ret.set(generateHighCurveMap(getHighCurveMap(), getDirectionMap(), getMappedImageWidth().get(), getMappedImageHeight().get(), lfsParams));
@@ -282,20 +290,12 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int initialiseMaps(AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowContrastMap, 
-		AtomicIntegerArray oLowFlowMap, AtomicIntegerArray blockOffsets, final int mappedImageWidth, final int mappedImageHeight, 
+	public int initialiseMaps(ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
+		BitBlockMap oLowFlowMap, AtomicIntegerArray blockOffsets, final int mappedImageWidth, final int mappedImageHeight, 
 		int [] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
 		final RotGrids dftGrids, final LfsParams lfsParams) {
 		
-		int bi, bSize, blockDir;
-		AtomicIntegerArray wis;
-		AtomicIntegerArray powmaxDirs;
-		AtomicReferenceArray<Double[]> powers;
-		AtomicReferenceArray<Double> powmaxs;
-		AtomicReferenceArray<Double> pownorms;
-		int nStats;
-		AtomicInteger ret = new AtomicInteger(0); // return code
-		int dftOffset, xminLimit, xmaxLimit, yminLimit, ymaxLimit, winX, winY, lowContrastOffset;
+		int bSize;
 		   
 		if (isShowLogs())
 			LOGGER.info("INITIAL MAP\n");
@@ -315,24 +315,106 @@ public class Maps extends MindTct implements IMaps {
 		for(int i = 0; i < oLowFlowMap.length(); i++)
 			oLowFlowMap.set(i, ILfs.FALSE);
 
-		/* Allocate DFT directional power vectors */
-		powers = getInit().allocDirPowers(ret, dftWaves.getNWaves(), dftGrids.getNoOfGrids());
-		if(ret.get() != ILfs.FALSE){
-			/* Free memory allocated to this point. */
-			oDirectionMap = null;
-			oLowContrastMap = null;
-			oLowFlowMap = null;
-		    return (ret.get());
+		/* Blocks are independent of each other, so with a pool they are */
+		/* split across its threads.  Block logs are only kept in order  */
+		/* when run on a single thread.                                  */
+		/* Low contrast windows start on the block lattice from the */
+		/* unpadded image origin, so their pixel histograms can be   */
+		/* read from cumulative block histograms.                    */
+		ImageStats imageStats = ImageStats.newBlockHistograms(paddedImagedata, paddedImageWidth, paddedImageHeight, 
+			dftGrids.getPad(), dftGrids.getPad(), lfsParams.getBlockSize(), ILfs.IMG_6BIT_PIX_LIMIT);
+
+		if (getPool() == null || isShowLogs() || bSize <= MAP_BLOCKS_PER_TASK)
+		{
+			return initialiseMapBlocks(oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, 0, bSize, 
+				mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+				imageStats);
+		}
+
+		/* Pool threads do not inherit the caller's log setting, so the */
+		/* tasks carry it to them.                                       */
+		AtomicInteger ret = new AtomicInteger(ILfs.FALSE);
+		getPool().invoke(new MapBlocksTask(ret, isShowLogs(), oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, 0, bSize, 
+			mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+			imageStats));
+		return ret.get();
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: initialiseMapBlocks - Computes the initial Direction, Low Contrast
+	#cat:             and Low Flow Map values of a range of blocks, as
+	#cat:             described in initialiseMaps.  The DFT working memory
+	#cat:             is scratch of the calling thread's ScratchArena,
+	#cat:             reused from block to block, so ranges whose Low
+	#cat:             Contrast and Low Flow Map bits do not share a map
+	#cat:             word may be run on different threads at the same
+	#cat:             time.
+	   Input:
+	      blockOffsets   - offsets to the pixel origin of each block in the padded image
+	      fromBlock      - index of the first block of the range
+	      toBlock        - index after the last block of the range
+	      mappedImageWidth        - number of blocks horizontally in the padded input image
+	      paddedImagedata     - padded input image data (8 bits [0..256) grayscale)
+	      paddedImageWidth        - width (in pixels) of the padded input image
+	      paddedImageHeight        - height (in pixels) of the padded input image
+	      dftWaves  - structure containing the DFT wave forms
+	      dftGrids  - structure containing the rotated pixel grid offsets
+	      lfsParams  - parameters and thresholds for controlling LFS
+	      imageStats - block histograms of the padded image, or null
+	   Output:
+	      oDirectionMap     - Direction Map with the range of blocks set
+	      oLowContrastMap    - Low Contrast Map with the range of blocks set
+	      oLowFlowMap    - Low Flow Map with the range of blocks set
+	   Return Code:
+	      Zero     - successful completion
+	      Negative - system error
+	**************************************************************************/
+	public int initialiseMapBlocks(ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
+		BitBlockMap oLowFlowMap, AtomicIntegerArray blockOffsets, final int fromBlock, final int toBlock, final int mappedImageWidth, 
+		int [] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
+		final RotGrids dftGrids, final LfsParams lfsParams, ImageStats imageStats) {
+		ScratchArena arena = ScratchArena.current();
+		int mark = arena.openScope();
+		try
+		{
+			return initialiseMapBlockRange(oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, fromBlock, toBlock, 
+				mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+				imageStats);
 		}
+		finally
+		{
+			arena.closeScope(mark);
+		}
+	}
+
+	private int initialiseMapBlockRange(ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
+		BitBlockMap oLowFlowMap, AtomicIntegerArray blockOffsets, final int fromBlock, final int toBlock, final int mappedImageWidth, 
+		int [] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
+		final RotGrids dftGrids, final LfsParams lfsParams, ImageStats imageStats) {
+		
+		int bi, blockDir;
+		int[] wis;
+		int[] powmaxDirs;
+		double[][] powers;
+		double[] powmaxs;
+		double[] pownorms;
+		int nStats;
+		AtomicInteger ret = new AtomicInteger(0); // return code
+		int dftOffset, xminLimit, xmaxLimit, yminLimit, ymaxLimit, winX, winY, lowContrastOffset;
+
+		/* Allocate DFT directional power vectors, reused by every */
+		/* block of the range.                                      */
+		powers = new double[dftWaves.getNWaves()][dftGrids.getNoOfGrids()];
 		
 		/* Allocate DFT power statistic arrays */
 		/* Compute length of statistics arrays.  Statistics not needed   */
 		/* for the first DFT wave, so the length is number of waves - 1. */
 		nStats = dftWaves.getNWaves() - 1;
-		wis = new AtomicIntegerArray(nStats);
-		powmaxs = new AtomicReferenceArray<Double>(nStats);
-		powmaxDirs = new AtomicIntegerArray(nStats);
-		pownorms = new AtomicReferenceArray<Double>(nStats);
+		wis = new int[nStats];
+		powmaxs = new double[nStats];
+		powmaxDirs = new int[nStats];
+		pownorms = new double[nStats];
 		
 		/* Compute special window origin limits for determining low contrast.  */
 		/* These pixel limits avoid analyzing the padded borders of the image. */
@@ -341,8 +423,8 @@ public class Maps extends MindTct implements IMaps {
 		xmaxLimit = paddedImageWidth - dftGrids.getPad() - lfsParams.getWindowSize()- 1;
 		ymaxLimit = paddedImageHeight - dftGrids.getPad() - lfsParams.getWindowSize()- 1;
 
-		/* Foreach block in image ... */
-		for (bi = 0; bi < bSize; bi++)
+		/* Foreach block in range ... */
+		for (bi = fromBlock; bi < toBlock; bi++)
 		{
 			/* Adjust block offset from pointing to block origin to pointing */
 			/* to surrounding window origin.                                 */
@@ -365,18 +447,14 @@ public class Maps extends MindTct implements IMaps {
 
 			/* If block is low contrast ... */
 			ret.set(getBlock().lowContrastBlock(lowContrastOffset, lfsParams.getWindowSize(), 
-				paddedImagedata, paddedImageWidth, paddedImageHeight, lfsParams));
+				paddedImagedata, paddedImageWidth, paddedImageHeight, lfsParams, imageStats));
 			if (ret.get() != ILfs.FALSE)
 			{
 				/* If system error ... */
 				if (ret.get() < ILfs.FALSE)
 				{
-					oDirectionMap = null;
-					oLowContrastMap = null;
-					oLowFlowMap = null;
 					wis = null;
 					powmaxs = null;
-					getFree().freeDirPowers(powers, dftWaves.getNWaves());
 					powmaxDirs = null;
 					pownorms = null;
 					return (ret.get());
@@ -399,12 +477,8 @@ public class Maps extends MindTct implements IMaps {
 				if (ret.get() != ILfs.FALSE)
 				{
 					/* Free memory allocated to this point. */
-					oDirectionMap = null;
-					oLowContrastMap = null;
-					oLowFlowMap = null;
 					wis = null;
 					powmaxs = null;
-					getFree().freeDirPowers(powers, dftWaves.getNWaves());
 					powmaxDirs = null;
 					pownorms = null;
 					return (ret.get());
@@ -418,10 +492,6 @@ public class Maps extends MindTct implements IMaps {
 				if (ret.get() != ILfs.FALSE)
 				{
 					/* Free memory allocated to this point. */
-					oDirectionMap = null;
-					oLowContrastMap = null;
-					oLowFlowMap = null;
-					getFree().freeDirPowers(powers, dftWaves.getNWaves());
 					wis = null;
 					powmaxs = null;
 					powmaxDirs = null;
@@ -436,9 +506,9 @@ public class Maps extends MindTct implements IMaps {
 					for(_w = 0; _w < nStats; _w++){
 						/* Add 1 to wis[w] to create index to original dft_coefs[] */
 					LOGGER.info(String.format( "         wis[%d] %d %12.3f %2d %9.3f %12.3f\n",
-					_w, wis.get(_w)+1, 
-					      powmaxs.get(wis.get(_w)), powmaxDirs.get(wis.get(_w)), pownorms.get(wis.get(_w)),
-					      powers.get(0)[powmaxDirs.get(wis.get(_w))]));
+					_w, wis[_w]+1, 
+					      powmaxs[wis[_w]], powmaxDirs[wis[_w]], pownorms[wis[_w]],
+					      powers[0][powmaxDirs[wis[_w]]]));
 					}
 				}
 				
@@ -467,7 +537,7 @@ public class Maps extends MindTct implements IMaps {
 		} // bi
 
 		/* Deallocate working memory */
-		getFree().freeDirPowers(powers, dftWaves.getNWaves());
+		powers = null;
 		wis = null;
 		powmaxs = null;
 		powmaxDirs = null;
@@ -500,7 +570,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int interpolateDirectionMap(AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowContrastMap, 
+	public int interpolateDirectionMap(ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		int newDir;
 		AtomicInteger northDir = new AtomicInteger(0), eastDir = new AtomicInteger(0), 
@@ -509,7 +579,7 @@ public class Maps extends MindTct implements IMaps {
 		int northFound, eastFound, southFound, westFound, totalFound;
 		int northDelta = 0, eastDelta = 0, southDelta = 0, westDelta = 0, totalDelta;
 		AtomicInteger nbrX = new AtomicInteger(0), nbrY = new AtomicInteger(0);
-		AtomicIntegerArray oMap;
+		ByteBlockMap oMap;
 		int dptrIndex = 0, cptrIndex = 0, mptrIndex = 0;
 		double avrDir;
 
@@ -517,7 +587,7 @@ public class Maps extends MindTct implements IMaps {
 			LOGGER.info("INTERPOLATE DIRECTION MAP STARTED\n");
 
 		/* Allocate output (interpolated) Direction Map. */
-		oMap = new AtomicIntegerArray(mappedImageWidth * mappedImageHeight);
+		oMap = new ByteBlockMap(mappedImageWidth * mappedImageHeight);
 		
 		/* Set pointers to the first block in the maps. */
 		dptrIndex = 0;
@@ -694,7 +764,7 @@ public class Maps extends MindTct implements IMaps {
 	   Output:
 	      tfMap    - resulting morphed map
 	**************************************************************************/
-	public int morphMapWithTF(AtomicIntegerArray tfMap, final LfsParams lfsParams) {
+	public int morphMapWithTF(BlockMap tfMap, final LfsParams lfsParams) {
 		int [] cimage, mimage;
 		int cptrIndex, mptrIndex;
 		int i;
@@ -730,6 +800,43 @@ public class Maps extends MindTct implements IMaps {
 		return(ILfs.FALSE);
 	}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat: pixelizeMapView - Takes a block image map and returns a view of it
+	#cat:            by pixel address.  Lookups give the same values as the
+	#cat:            map from pixelizeMap, but no pixel map is allocated.
+	   Input:
+	      imageWidth        	- the width (in pixels) of the corresponding image
+	      imageHeight        	- the height (in pixels) of the corresponding image
+	      inputBlockImageMap    - input block image map
+	      mapWidth      - the width (in blocks) of the map
+	      mapHeight    	- the height (in blocks) of the map
+	      blockSize 			- the dimension (in pixels) of each block
+	   Output:
+	      oMap      		- the pixel view of the block map
+	   Return Code:
+	      Zero     - successful completion
+	      Negative - system error
+	**************************************************************************/
+	public int pixelizeMapView(AtomicReference<PixelBlockMap> oMap, final int imageWidth, final int imageHeight, 
+		BlockMap inputBlockImageMap, final int mapWidth, final int mapHeight, final int blockSize) {
+		/* Same checks as blockOffsets and pixelizeMap. */
+		if ((imageWidth < blockSize) || (imageHeight < blockSize))
+		{
+			LOGGER.error(String.format("ERROR : block_offsets : image must be at least %d by %d in size\n", blockSize, blockSize));
+			return ILfs.ERROR_CODE_80;
+		}
+		if (((int)Math.ceil(imageWidth / (double)blockSize) != mapWidth) || 
+			((int)Math.ceil(imageHeight / (double)blockSize) != mapHeight))
+		{
+			LOGGER.error ("ERROR : pixelizeMapView : block dimensions do not match\n");
+			return ILfs.ERROR_CODE_591;
+		}
+
+		oMap.set(new PixelBlockMap(inputBlockImageMap, mapWidth, mapHeight, imageWidth, imageHeight, blockSize));
+		return ILfs.FALSE;
+	}
+
 	/*************************************************************************
 	**************************************************************************
 	#cat: pixelizeMap - Takes a block image map and assigns each pixel in the
@@ -749,7 +856,7 @@ public class Maps extends MindTct implements IMaps {
 	      ret 		- Zero     - successful completion
 	      			- Negative - system error
 	**************************************************************************/
-	public int pixelizeMap(AtomicIntegerArray oMap, int imageWidth, int imageHeight, AtomicIntegerArray inputBlockImageMap, 
+	public int pixelizeMap(BlockMap oMap, int imageWidth, int imageHeight, BlockMap inputBlockImageMap, 
 		final int mapWidth, final int mapHeight, final int blockSize) {
 		AtomicInteger ret = new AtomicInteger(0);
 		AtomicIntegerArray blockOffsets = null;
@@ -813,7 +920,7 @@ public class Maps extends MindTct implements IMaps {
 	   Output:
 	      oDirectionMap      - vector of smoothed input values
 	**************************************************************************/
-	public void smoothDirectionMap(AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowContrastMap, 
+	public void smoothDirectionMap(ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
 		final DirToRad dirToRad, final LfsParams lfsParams) {
 		AtomicInteger oAverageDir = new AtomicInteger (0), oValid = new AtomicInteger (0);
 		AtomicReference<Double> oDirectionStrength = new AtomicReference<Double> ();
@@ -906,7 +1013,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int generateHighCurveMap(AtomicIntegerArray oHighCurvatureMap, AtomicIntegerArray oDirectionMap, 
+	public int generateHighCurveMap(BitBlockMap oHighCurvatureMap, ByteBlockMap oDirectionMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		AtomicInteger nvalid = new AtomicInteger (0);
 		int curvatureMeasure = 0, vorticityMeasure = 0;
@@ -986,10 +1093,10 @@ public class Maps extends MindTct implements IMaps {
 	   Return Code:
 	      optr      - points to the created IMAP
 	**************************************************************************/
-	public AtomicIntegerArray generateInputBlockImageMap(AtomicInteger ret, AtomicInteger oMappedImageWidth, AtomicInteger oMappedImageHeight, 
+	public ByteBlockMap generateInputBlockImageMap(AtomicInteger ret, AtomicInteger oMappedImageWidth, AtomicInteger oMappedImageHeight, 
 			int[] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight, final DirToRad dirToRad, final DftWaves dftWaves, 
 			final RotGrids dftGrids, final LfsParams lfsParams) {
-		AtomicIntegerArray oInputBlockImageMap = null;
+		ByteBlockMap oInputBlockImageMap = null;
 		AtomicInteger mappedImageWidth = new AtomicInteger (0), mappedImageHeight = new AtomicInteger (0);
 		int imageWidth, imageHeight;
 		AtomicIntegerArray blockOffsets;
@@ -1067,11 +1174,11 @@ public class Maps extends MindTct implements IMaps {
 	      inputBlockImageMap      - points to the newly created IMAP
 	**************************************************************************/
 	@SuppressWarnings("unused")
-	public AtomicIntegerArray initialiseInputBlockImageMap(AtomicInteger ret, AtomicIntegerArray blockOffsets, 
+	public ByteBlockMap initialiseInputBlockImageMap(AtomicInteger ret, AtomicIntegerArray blockOffsets, 
 			final AtomicInteger mappedImageWidth, final AtomicInteger mappedImageHeight, 
 			int[] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight,
 			final DftWaves dftWaves, final RotGrids dftGrids, final LfsParams lfsParams) {
-		AtomicIntegerArray inputBlockImageMap = null;
+		ByteBlockMap inputBlockImageMap = null;
 		int bSize, blockDir;
 		AtomicIntegerArray wis, powmaxDirs;
 		AtomicReferenceArray<Double[]> powers;
@@ -1082,7 +1189,7 @@ public class Maps extends MindTct implements IMaps {
 			LOGGER.info("INITIAL MAP\n");
 		/* Compute total number of blocks in IMAP */
 		bSize = mappedImageWidth.get() * mappedImageHeight.get();		
-		inputBlockImageMap = new AtomicIntegerArray(bSize);
+		inputBlockImageMap = new ByteBlockMap(bSize);
 		if (inputBlockImageMap == null)
 		{
 			LOGGER.error ("ERROR : initialiseInputBlockImageMap : imap : NULL\n");
@@ -1229,6 +1336,22 @@ public class Maps extends MindTct implements IMaps {
 	public int primaryDirectionTest(AtomicReferenceArray<Double[]> powers, final AtomicIntegerArray wis, 
 		final AtomicReferenceArray<Double> powmaxs, final AtomicIntegerArray powmaxDirs, 
 		final AtomicReferenceArray<Double> pownorms, final int nStats, final LfsParams lfsParams) {
+		return primaryDirectionTest(Dft.toPowers(powers), Dft.toInts(wis, nStats), Dft.toDoubles(powmaxs, nStats), 
+			Dft.toInts(powmaxDirs, nStats), Dft.toDoubles(pownorms, nStats), nStats, lfsParams);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: primaryDirectionTest - As above, on the primitive arrays of
+	#cat:                    Dft.getDftPowerStats.
+	   Input:
+	      powers      - powers[wave][direction] from Dft.dftDirPowers
+	      (remaining arguments as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int primaryDirectionTest(double[][] powers, final int[] wis, final double[] powmaxs, final int[] powmaxDirs, 
+		final double[] pownorms, final int nStats, final LfsParams lfsParams) {
 		if (isShowLogs())
 			LOGGER.info("      Primary\n");
 
@@ -1236,26 +1359,26 @@ public class Maps extends MindTct implements IMaps {
 		for (int statIndex = 0; statIndex < nStats; statIndex++)
 		{
 			/* 1. Test magnitude of current max power (Ex. Thresh==100000)   */
-			if ((powmaxs.get(wis.get(statIndex)) > lfsParams.getPowmaxMin()) && 
+			if ((powmaxs[wis[statIndex]] > lfsParams.getPowmaxMin()) && 
 				 /* 2. Test magnitude of normalized max power (Ex. Thresh==3.8)   */
-				(pownorms.get (wis.get(statIndex)) > lfsParams.getPownormMin()) && 
+				(pownorms[wis[statIndex]] > lfsParams.getPownormMin()) && 
 				/* 3. Test magnitude of power of lowest DFT frequency at current */
 		         /* max power direction and make sure it is not too big.          */
 		         /* (Ex. Thresh==50000000)                                        */
-				(powers.get(0)[powmaxDirs.get(wis.get(statIndex))] <= lfsParams.getPowmaxMax()))
+				(powers[0][powmaxDirs[wis[statIndex]]] <= lfsParams.getPowmaxMax()))
 			{
 				 /* Add 1 to wis[w] to create index to original dft_coefs[] */
 				if (isShowLogs())
 				{
-					LOGGER.info(String.format(  "         Selected Wave = %d\n", wis.get(statIndex)+1));
-					LOGGER.info(String.format(  "         1. Power Magnitude (%12.3f > %12.3f)\n", powmaxs.get(wis.get(statIndex)), lfsParams.getPowmaxMin()));
-					LOGGER.info(String.format( "         2. Norm Power Magnitude (%9.3f > %9.3f)\n", pownorms.get(wis.get(statIndex)), lfsParams.getPownormMin()));
-					LOGGER.info(String.format( "         3. Low Freq Wave Magnitude (%12.3f <= %12.3f)\n", powers.get(0)[powmaxDirs.get(wis.get(statIndex))], lfsParams.getPowmaxMax()));
+					LOGGER.info(String.format(  "         Selected Wave = %d\n", wis[statIndex]+1));
+					LOGGER.info(String.format(  "         1. Power Magnitude (%12.3f > %12.3f)\n", powmaxs[wis[statIndex]], lfsParams.getPowmaxMin()));
+					LOGGER.info(String.format( "         2. Norm Power Magnitude (%9.3f > %9.3f)\n", pownorms[wis[statIndex]], lfsParams.getPownormMin()));
+					LOGGER.info(String.format( "         3. Low Freq Wave Magnitude (%12.3f <= %12.3f)\n", powers[0][powmaxDirs[wis[statIndex]]], lfsParams.getPowmaxMax()));
 					LOGGER.info(String.format( "         PASSED\n"));
-					LOGGER.info(String.format(  "         Selected Direction = %d\n", powmaxDirs.get(wis.get(statIndex))));
+					LOGGER.info(String.format(  "         Selected Direction = %d\n", powmaxDirs[wis[statIndex]]));
 				}
 				/* If ALL 3 criteria met, return current max power direction. */
-				return (powmaxDirs.get(wis.get(statIndex)));
+				return (powmaxDirs[wis[statIndex]]);
 			}
 		}
 		
@@ -1295,6 +1418,22 @@ public class Maps extends MindTct implements IMaps {
 	public int secondaryForkTest(AtomicReferenceArray<Double[]> powers, final AtomicIntegerArray wis, 
 		final AtomicReferenceArray<Double> powmaxs, final AtomicIntegerArray powmaxDirs, 
 		final AtomicReferenceArray<Double> pownorms, final int nStats, final LfsParams lfsParams) {
+		return secondaryForkTest(Dft.toPowers(powers), Dft.toInts(wis, nStats), Dft.toDoubles(powmaxs, nStats), 
+			Dft.toInts(powmaxDirs, nStats), Dft.toDoubles(pownorms, nStats), nStats, lfsParams);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: secondaryForkTest - As above, on the primitive arrays of
+	#cat:                    Dft.getDftPowerStats.
+	   Input:
+	      powers      - powers[wave][direction] from Dft.dftDirPowers
+	      (remaining arguments as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int secondaryForkTest(double[][] powers, final int[] wis, final double[] powmaxs, final int[] powmaxDirs, 
+		final double[] pownorms, final int nStats, final LfsParams lfsParams) {
 		int leftDir, rightDir;
 		double forkPownormMin, forkPowThresh;
 
@@ -1306,39 +1445,39 @@ public class Maps extends MindTct implements IMaps {
 		forkPownormMin = lfsParams.getForkPctPownorm() * lfsParams.getPownormMin();
 		
 		/* 1. Test magnitude of largest max power (Ex. Thresh==100000)   */
-		if ((powmaxs.get(wis.get(0)) > lfsParams.getPowmaxMin()) && 
+		if ((powmaxs[wis[0]] > lfsParams.getPowmaxMin()) && 
 				/* 2. Test magnitude of corresponding normalized power           */
 			      /*    (Ex. Thresh==2.85)                                         */
-			(pownorms.get (wis.get(0)) >= forkPownormMin) && 
+			(pownorms[wis[0]] >= forkPownormMin) && 
 			/* 3. Test magnitude of power of lowest DFT frequency at largest */
 		      /* max power direction and make sure it is not too big.          */
 		      /* (Ex. Thresh==50000000)                                        */
-			(powers.get(0)[powmaxDirs.get(wis.get(0))] <= lfsParams.getPowmaxMax()))
+			(powers[0][powmaxDirs[wis[0]]] <= lfsParams.getPowmaxMax()))
 		{
 			/* First part passed ... */
 		      firstpart = 1;
 		      if (isShowLogs())
 		      {
-		    	  LOGGER.info(String.format( "         Selected Wave = %d\n", wis.get(0)+1));
-		    	  LOGGER.info(String.format( "         1. Power Magnitude (%12.3f > %12.3f)\n", powmaxs.get(wis.get(0)), lfsParams.getPowmaxMin()));
-		    	  LOGGER.info(String.format( "         2. Norm Power Magnitude (%9.3f >= %9.3f)\n", pownorms.get(wis.get(0)), forkPownormMin));
-		    	  LOGGER.info(String.format( "         3. Low Freq Wave Magnitude (%12.3f <= %12.3f)\n", powers.get(0)[powmaxDirs.get(wis.get(0))], lfsParams.getPowmaxMax()));
+		    	  LOGGER.info(String.format( "         Selected Wave = %d\n", wis[0]+1));
+		    	  LOGGER.info(String.format( "         1. Power Magnitude (%12.3f > %12.3f)\n", powmaxs[wis[0]], lfsParams.getPowmaxMin()));
+		    	  LOGGER.info(String.format( "         2. Norm Power Magnitude (%9.3f >= %9.3f)\n", pownorms[wis[0]], forkPownormMin));
+		    	  LOGGER.info(String.format( "         3. Low Freq Wave Magnitude (%12.3f <= %12.3f)\n", powers[0][powmaxDirs[wis[0]]], lfsParams.getPowmaxMax()));
 		      }
 			
 			/* Add FORK_INTERVALs to current direction modulo NDIRS */
-			rightDir = (powmaxDirs.get(wis.get(0)) + lfsParams.getForkInterval()) % lfsParams.getNumDirections();
+			rightDir = (powmaxDirs[wis[0]] + lfsParams.getForkInterval()) % lfsParams.getNumDirections();
 
 			/* Subtract FORK_INTERVALs from direction modulo NDIRS  */
 			/* For example, FORK_INTERVAL==2 & NDIRS==16, then      */
 			/*            ldir = (dir - (16-2)) % 16                */
 			/* which keeps result in proper modulo range.           */
-			leftDir = (powmaxDirs.get(wis.get(0)) + lfsParams.getNumDirections() - lfsParams.getForkInterval()) % lfsParams.getNumDirections();
+			leftDir = (powmaxDirs[wis[0]] + lfsParams.getNumDirections() - lfsParams.getForkInterval()) % lfsParams.getNumDirections();
 
 			//LOGGER.info(String.format(("         Left = %d, Current = %d, Right = %d\n" + ldir + "----" + powmax_dirs.get(wis.get(0)) + "----" +  rdir)));
 
 			/* Set forked angle threshold to be a % of the max directional */
 			/* power. (Ex. thresh==0.7*powmax)                             */
-			forkPowThresh = powmaxs.get(wis.get(0)) * lfsParams.getForkPctPowmax();
+			forkPowThresh = powmaxs[wis[0]] * lfsParams.getForkPctPowmax();
 
 			/* Look up and test the computed power for the left and right    */
 			/* fork directions.s                                             */
@@ -1349,21 +1488,21 @@ public class Maps extends MindTct implements IMaps {
 			/* powers vector.                                                */
 			/* LFS permits one and only one of the fork angles to exceed     */
 			/* the relative power threshold.                                 */
-			if (((powers.get(wis.get(0) + 1)[leftDir] <= forkPowThresh) || 
-				(powers.get(wis.get(0) + 1)[rightDir] <= forkPowThresh)) && 
-				((powers.get(wis.get(0) + 1)[leftDir] > forkPowThresh) || 
-				(powers.get(wis.get(0) + 1)[rightDir] > forkPowThresh)))
+			if (((powers[wis[0] + 1][leftDir] <= forkPowThresh) || 
+				(powers[wis[0] + 1][rightDir] <= forkPowThresh)) && 
+				((powers[wis[0] + 1][leftDir] > forkPowThresh) || 
+				(powers[wis[0] + 1][rightDir] > forkPowThresh)))
 			{
 				if (isShowLogs())
 				{
-					LOGGER.info(String.format("         4. Left Power Magnitude (%12.3f > %12.3f)\n", powers.get(wis.get(0)+1)[leftDir], forkPowThresh));
-					LOGGER.info(String.format("         5. Right Power Magnitude (%12.3f > %12.3f)\n", powers.get(wis.get(0)+1)[rightDir], forkPowThresh));
+					LOGGER.info(String.format("         4. Left Power Magnitude (%12.3f > %12.3f)\n", powers[wis[0]+1][leftDir], forkPowThresh));
+					LOGGER.info(String.format("         5. Right Power Magnitude (%12.3f > %12.3f)\n", powers[wis[0]+1][rightDir], forkPowThresh));
 					LOGGER.info(String.format("         PASSED\n"));
-					LOGGER.info(String.format("         Selected Direction = %d\n", powmaxDirs.get(wis.get(0))));
+					LOGGER.info(String.format("         Selected Direction = %d\n", powmaxDirs[wis[0]]));
 				}
 				/* If ALL the above criteria hold, then return the direction */
 				/* of the largest max power.                                 */
-				return powmaxDirs.get(wis.get(0));
+				return powmaxDirs[wis[0]];
 			}
 		}
 
@@ -1388,7 +1527,7 @@ public class Maps extends MindTct implements IMaps {
 	   Output:
 	      imap      - vector of pruned input values
 	**************************************************************************/
-	public void removeInconsistentDirs(AtomicIntegerArray oInputBlockImageMap, final DirToRad dirToRad, final LfsParams lfsParams) {
+	public void removeInconsistentDirs(ByteBlockMap oInputBlockImageMap, final DirToRad dirToRad, final LfsParams lfsParams) {
 		int mappedImageXIndex, mappedImageYIndex;
 		int nInputBlockImageMapIndex;
 		int nRemoved = -1, leftBoxIndex, rightBoxIndex, topBoxIndex, bottomBoxIndex;
@@ -1494,7 +1633,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - direction should NOT be remove from IMAP
 	**************************************************************************/
 	public int testTopEdge(final int leftBoxIndex, final int topBoxIndex, final int rightBoxIndex, final int bottomBoxIndex, 
-		AtomicIntegerArray oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
+		ByteBlockMap oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
 		int bx, by, sx, ex;
 		int inputBlockImageMapIndex, inputBlockImageMapCurrentIndex, inputBlockImageMapEdgeIndex;
 		int nRemoved;
@@ -1553,7 +1692,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - direction should NOT be remove from IMAP
 	**************************************************************************/
 	public int testRightEdge(final int leftBoxIndex, final int topBoxIndex, final int rightBoxIndex, final int bottomBoxIndex, 
-		AtomicIntegerArray oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
+		ByteBlockMap oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
 		int bx, by, sy, ey;
 		int inputBlockImageMapIndex, inputBlockImageMapCurrentIndex, inputBlockImageMapEdgeIndex;
 		int nRemoved;
@@ -1611,7 +1750,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - direction should NOT be remove from IMAP
 	**************************************************************************/
 	public int testBottomEdge(final int leftBoxIndex, final int topBoxIndex, final int rightBoxIndex, final int bottomBoxIndex, 
-		AtomicIntegerArray oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
+		ByteBlockMap oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, DirToRad dirToRad, LfsParams lfsParams) {
 		int bx, by, sx, ex;
 		int inputBlockImageMapIndex;
 		int inputBlockImageMapCurrentIndex;
@@ -1671,7 +1810,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - direction should NOT be remove from IMAP
 	**************************************************************************/
 	public int testLeftEdge(final int leftBoxIndex, final int topBoxIndex, final int rightBoxIndex, final int bottomBoxIndex, 
-		AtomicIntegerArray oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, 
+		ByteBlockMap oInputBlockImageMap, final int mappedImageWidth, final int mappedImageHeight, 
 		DirToRad dirToRad, LfsParams lfsParams) {
 		int bx, by, sy, ey;
 		int inputBlockImageMapIndex;
@@ -1728,7 +1867,7 @@ public class Maps extends MindTct implements IMaps {
 	      Positive - direction should be removed from IMAP
 	      Zero     - direction should NOT be remove from IMAP
 	**************************************************************************/
-	public int removeIMAPDirection(AtomicIntegerArray oInputBlockImageMap, 
+	public int removeIMAPDirection(ByteBlockMap oInputBlockImageMap, 
 		final int mappedImageXIndex, final int mappedImageYIndex, final int mappedImageWidth, 
 		final int mappedImageHeight, final DirToRad dirToRad, final LfsParams lfsParams) {
 		AtomicInteger oAverageDirection = new AtomicInteger (), oValid = new AtomicInteger ();
@@ -1802,7 +1941,7 @@ public class Maps extends MindTct implements IMaps {
 	                  average
 	**************************************************************************/
 	public void average8NbrDir(AtomicInteger oAverageDir, AtomicReference<Double> oDirStrength, 
-		AtomicInteger oValid, AtomicIntegerArray oInputBlockImageMap, final int mapXIndex, final int mapYIndex, 
+		AtomicInteger oValid, ByteBlockMap oInputBlockImageMap, final int mapXIndex, final int mapYIndex, 
 		final int mappedImageWidth, final int mappedImageHeight, final DirToRad dirToRad) {
 		int inputBlockImageMapIndex;
 		int eastIndex, westIndex, northIndex, southIndex;
@@ -2022,7 +2161,7 @@ public class Maps extends MindTct implements IMaps {
 	   Return Code:
 	      Non-negative - the number of valid IMAP neighbors
 	**************************************************************************/
-	public int numValid8Nbrs(AtomicIntegerArray oInputBlockImageMap, final int mapXIndex, final int mapYIndex, 
+	public int numValid8Nbrs(ByteBlockMap oInputBlockImageMap, final int mapXIndex, final int mapYIndex, 
 		final int mappedImageWidth, final int mappedImageHeight) {
 		int eastIndex, westIndex, northIndex, southIndex, nValid;
 
@@ -2108,7 +2247,7 @@ public class Maps extends MindTct implements IMaps {
 	   Output:
 	      oInputBlockImageMap      - vector of smoothed input values
 	**************************************************************************/
-	public void smoothInputBlockImageMap(AtomicIntegerArray oInputBlockImageMap, final DirToRad dirToRad, final LfsParams lfsParams) {
+	public void smoothInputBlockImageMap(ByteBlockMap oInputBlockImageMap, final DirToRad dirToRad, final LfsParams lfsParams) {
 		int inputBlockImageMapIndex = 0, inputBlockImageMapIndexValue;
 		final int mappedImageWidth = getMappedImageWidth().get(), mappedImageHeight = getMappedImageHeight().get(); 
 		AtomicInteger averageDir = new AtomicInteger (0), oValid = new AtomicInteger (0);
@@ -2181,7 +2320,7 @@ public class Maps extends MindTct implements IMaps {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int genNMap(AtomicIntegerArray oNMap, AtomicIntegerArray oInputBlockImageMap, 
+	public int genNMap(ByteBlockMap oNMap, ByteBlockMap oInputBlockImageMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		int nmapIndex, inputBlockImageMapIndex;
 		int nValid, curvatureMeasure, vorticityMeasure;
@@ -2275,7 +2414,7 @@ public class Maps extends MindTct implements IMaps {
 	   Return Code:
 	      Non-negative - the measured vorticity among the neighbors
 	**************************************************************************/
-	public int vorticity(AtomicIntegerArray oInputBlockImageMap, 
+	public int vorticity(ByteBlockMap oInputBlockImageMap, 
 		final int mappedImageXIndex, final int mappedImageYIndex, 
 		final int mappedImageWidth, final int mappedImageHeight, final int nDirs) {
 		int eastIndex, westIndex, northIndex, southIndex;
@@ -2471,7 +2610,7 @@ public class Maps extends MindTct implements IMaps {
 	      Non-negative - maximum change in direction found (curvature)
 	      Negative     - No valid neighbor found to measure change in direction
 	**************************************************************************/
-	public int curvature(AtomicIntegerArray oInputBlockImageMap, final int mappedImageXIndex, final int mappedImageYIndex, 
+	public int curvature(ByteBlockMap oInputBlockImageMap, final int mappedImageXIndex, final int mappedImageYIndex, 
 		final int mappedImageWidth, final int mappedImageHeight, final int nDirs) {
 		int nInputBlockImageMapIndexValue;
 		int eastIndex, westIndex, northIndex, southIndex; 
@@ -2641,35 +2780,35 @@ public class Maps extends MindTct implements IMaps {
 		return (nCurvatureMeasure);
 	}
 
-	public AtomicIntegerArray getDirectionMap() {
+	public ByteBlockMap getDirectionMap() {
 		return directionMap;
 	}
 
-	public void setDirectionMap(AtomicIntegerArray directionMap) {
+	public void setDirectionMap(ByteBlockMap directionMap) {
 		this.directionMap = directionMap;
 	}
 
-	public AtomicIntegerArray getLowContrastMap() {
+	public BitBlockMap getLowContrastMap() {
 		return lowContrastMap;
 	}
 
-	public void setLowContrastMap(AtomicIntegerArray lowContrastMap) {
+	public void setLowContrastMap(BitBlockMap lowContrastMap) {
 		this.lowContrastMap = lowContrastMap;
 	}
 
-	public AtomicIntegerArray getLowFlowMap() {
+	public BitBlockMap getLowFlowMap() {
 		return lowFlowMap;
 	}
 
-	public void setLowFlowMap(AtomicIntegerArray lowFlowMap) {
+	public void setLowFlowMap(BitBlockMap lowFlowMap) {
 		this.lowFlowMap = lowFlowMap;
 	}
 
-	public AtomicIntegerArray getHighCurveMap() {
+	public BitBlockMap getHighCurveMap() {
 		return highCurveMap;
 	}
 
-	public void setHighCurveMap(AtomicIntegerArray highCurveMap) {
+	public void setHighCurveMap(BitBlockMap highCurveMap) {
 		this.highCurveMap = highCurveMap;
 	}
 
@@ -2688,6 +2827,84 @@ public class Maps extends MindTct implements IMaps {
 	public void setMappedImageHeight(AtomicInteger mappedImageHeight) {
 		this.mappedImageHeight = mappedImageHeight;
 	}
-}
 
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
 
+	/* Splits a range of blocks at word boundaries of the BitBlockMaps */
+	/* until it is small enough to be computed by initialiseMapBlocks. */
+	private class MapBlocksTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final AtomicInteger ret;
+		private final boolean showLogs;
+		private final ByteBlockMap oDirectionMap;
+		private final BitBlockMap oLowContrastMap, oLowFlowMap;
+		private final AtomicIntegerArray blockOffsets;
+		private final int fromBlock, toBlock, mappedImageWidth;
+		private final int [] paddedImagedata;
+		private final int paddedImageWidth, paddedImageHeight;
+		private final DftWaves dftWaves;
+		private final RotGrids dftGrids;
+		private final LfsParams lfsParams;
+		private final ImageStats imageStats;
+
+		MapBlocksTask(AtomicInteger ret, final boolean showLogs, ByteBlockMap oDirectionMap, BitBlockMap oLowContrastMap, 
+			BitBlockMap oLowFlowMap, AtomicIntegerArray blockOffsets, final int fromBlock, final int toBlock, final int mappedImageWidth, 
+			int [] paddedImagedata, final int paddedImageWidth, final int paddedImageHeight, final DftWaves dftWaves, 
+			final RotGrids dftGrids, final LfsParams lfsParams, ImageStats imageStats) {
+			this.ret = ret;
+			this.showLogs = showLogs;
+			this.oDirectionMap = oDirectionMap;
+			this.oLowContrastMap = oLowContrastMap;
+			this.oLowFlowMap = oLowFlowMap;
+			this.blockOffsets = blockOffsets;
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+			this.mappedImageWidth = mappedImageWidth;
+			this.paddedImagedata = paddedImagedata;
+			this.paddedImageWidth = paddedImageWidth;
+			this.paddedImageHeight = paddedImageHeight;
+			this.dftWaves = dftWaves;
+			this.dftGrids = dftGrids;
+			this.lfsParams = lfsParams;
+			this.imageStats = imageStats;
+		}
+
+		@Override
+		protected void compute() {
+			if (toBlock - fromBlock <= MAP_BLOCKS_PER_TASK)
+			{
+				boolean threadShowLogs = isShowLogs();
+				int code;
+				setShowLogs(showLogs);
+				try
+				{
+					code = initialiseMapBlocks(oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, fromBlock, toBlock, 
+						mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+						imageStats);
+				}
+				finally
+				{
+					setShowLogs(threadShowLogs);
+				}
+				/* Keep the first system error reported */
+				if (code != ILfs.FALSE)
+					ret.compareAndSet(ILfs.FALSE, code);
+				return;
+			}
+			/* Half of the range, rounded down to whole BitBlockMap words */
+			int midBlock = fromBlock + (((toBlock - fromBlock) >> 1) & ~(Long.SIZE - 1));
+			invokeAll(new MapBlocksTask(ret, showLogs, oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, fromBlock, midBlock, 
+					mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+					imageStats),
+				new MapBlocksTask(ret, showLogs, oDirectionMap, oLowContrastMap, oLowFlowMap, blockOffsets, midBlock, toBlock, 
+					mappedImageWidth, paddedImagedata, paddedImageWidth, paddedImageHeight, dftWaves, dftGrids, lfsParams, 
+					imageStats));
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package org.mosip.nist.nfiq1.mindtct;
+
+import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+
+/***********************************************************************
+************************************************************************
+#cat: MinutiaGrid - Uniform grid over the minutia coordinates of a list,
+#cat:             one cell per image block, each cell holding the indices
+#cat:             of its minutiae in increasing order.  Answers "all
+#cat:             minutiae within a radius" and "nearest neighbors after
+#cat:             a minutia in the list" by visiting only the cells that
+#cat:             can hold a qualifying point.  The grid is a snapshot: it
+#cat:             must be rebuilt when minutiae are moved, added or
+#cat:             removed.
+************************************************************************/
+public final class MinutiaGrid {
+	private final int cellSize;
+	private final int nCols;
+	private final int nRows;
+	/* Minutia indices of cell c are cellMinutiae[cellStarts[c]..cellStarts[c+1]) */
+	private final int[] cellStarts;
+	private final int[] cellMinutiae;
+	private final int[] xs;
+	private final int[] ys;
+
+	/***********************************************************************
+	************************************************************************
+	#cat: MinutiaGrid - Buckets the minutiae of a list by cell.
+	   Input:
+	      minutiae      - list of minutiae
+	      imageWidth    - width (in pixels) of image
+	      imageHeight   - height (in pixels) of image
+	      cellSize      - width and height (in pixels) of a cell
+	************************************************************************/
+	public MinutiaGrid(Minutiae minutiae, final int imageWidth, final int imageHeight, final int cellSize) {
+		super();
+		int i, cell, num = minutiae.getNum();
+
+		this.cellSize = cellSize;
+		this.nCols = Math.max(1, (imageWidth + cellSize - 1) / cellSize);
+		this.nRows = Math.max(1, (imageHeight + cellSize - 1) / cellSize);
+		this.cellStarts = new int[nCols * nRows + 1];
+		this.cellMinutiae = new int[num];
+		this.xs = new int[num];
+		this.ys = new int[num];
+
+		/* Count the minutiae of each cell ... */
+		for (i = 0; i < num; i++)
+		{
+			xs[i] = minutiae.getX(i);
+			ys[i] = minutiae.getY(i);
+			cellStarts[cellOf(xs[i], ys[i]) + 1]++;
+		}
+		for (cell = 0; cell < nCols * nRows; cell++)
+		{
+			cellStarts[cell + 1] += cellStarts[cell];
+		}
+
+		/* ... then store them in list order. */
+		int[] next = new int[nCols * nRows];
+		System.arraycopy(cellStarts, 0, next, 0, next.length);
+		for (i = 0; i < num; i++)
+		{
+			cellMinutiae[next[cellOf(xs[i], ys[i])]++] = i;
+		}
+	}
+
+	public int getNum() {
+		return xs.length;
+	}
+
+	private int colOf(final int x) {
+		return Math.min(nCols - 1, Math.max(0, x / cellSize));
+	}
+
+	private int rowOf(final int y) {
+		return Math.min(nRows - 1, Math.max(0, y / cellSize));
+	}
+
+	private int cellOf(final int x, final int y) {
+		return (rowOf(y) * nCols) + colOf(x);
+	}
+
+	private static double squaredDistance(final int x1, final int y1, final int x2, final int y2) {
+		double dx = (double)(x1 - x2);
+		double dy = (double)(y1 - y2);
+		return (dx * dx) + (dy * dy);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: findWithinRadius - Finds the minutiae after a given list index
+	#cat:             that lie within a radius of a point.
+	   Input:
+	      x, y          - coordinates of the point
+	      radius        - maximum distance (in pixels), inclusive
+	      fromIndex     - only minutiae with a larger list index are found
+	   Output:
+	      oIndices      - indices of the minutiae found, in increasing order;
+	                      must hold getNum() entries
+	   Return Code:
+	      number of minutiae found
+	************************************************************************/
+	public int findWithinRadius(final int x, final int y, final double radius, final int fromIndex, int[] oIndices) {
+		int n = 0, i, j, t, row, col, index;
+		double radius2 = radius * radius;
+		int reach = (int)Math.ceil(radius);
+		int fromCol = colOf(x - reach), toCol = colOf(x + reach);
+		int fromRow = rowOf(y - reach), toRow = rowOf(y + reach);
+
+		for (row = fromRow; row <= toRow; row++)
+		{
+			for (col = fromCol; col <= toCol; col++)
+			{
+				int cell = (row * nCols) + col;
+				for (i = cellStarts[cell]; i < cellStarts[cell + 1]; i++)
+				{
+					index = cellMinutiae[i];
+					if (index > fromIndex && squaredDistance(x, y, xs[index], ys[index]) <= radius2)
+					{
+						/* Keep the result in increasing index order. */
+						for (j = n; j > 0 && oIndices[j - 1] > index; j--)
+						{
+							oIndices[j] = oIndices[j - 1];
+						}
+						oIndices[j] = index;
+						n++;
+					}
+				}
+			}
+		}
+		return n;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: findNearestNeighbors - Finds up to a maximum number of minutiae
+	#cat:             after a primary minutia in the list that are closest
+	#cat:             to it, ordered on increasing squared distance and then
+	#cat:             on list index.  When the list is sorted on x and then
+	#cat:             y, this is exactly the neighbor list the column sweep
+	#cat:             of Ridges.findNeighbors produces, as only cells on or
+	#cat:             right of the primary column are searched.
+	   Input:
+	      maxNbrs       - maximum number of neighbors to be returned
+	      first         - index of the primary minutia
+	   Output:
+	      oNbrList      - indices of the closest neighbors
+	      oNbrSqrDists  - squared distances of the closest neighbors
+	   Return Code:
+	      number of neighbors found
+	************************************************************************/
+	public int findNearestNeighbors(int[] oNbrList, double[] oNbrSqrDists, final int maxNbrs, final int first) {
+		int noOfNbrs = 0, ring, row, col, i, pos, index, last;
+		int x = xs[first], y = ys[first];
+		int firstCol = colOf(x), firstRow = rowOf(y);
+		double dist2;
+
+		for (ring = 0; ; ring++)
+		{
+			/* Any point in this ring of cells is at least this far in x or y. */
+			double minDist = (ring == 0) ? 0.0d : (double)((ring - 1) * cellSize + 1);
+			if (noOfNbrs == maxNbrs && minDist * minDist > oNbrSqrDists[maxNbrs - 1])
+				break;
+			if (firstCol + ring >= nCols && firstRow - ring < 0 && firstRow + ring >= nRows)
+				break;
+
+			for (row = Math.max(0, firstRow - ring); row <= Math.min(nRows - 1, firstRow + ring); row++)
+			{
+				for (col = firstCol; col <= Math.min(nCols - 1, firstCol + ring); col++)
+				{
+					/* Only the cells on the border of the ring are new. */
+					if (col - firstCol != ring && Math.abs(row - firstRow) != ring)
+						continue;
+
+					int cell = (row * nCols) + col;
+					for (i = cellStarts[cell]; i < cellStarts[cell + 1]; i++)
+					{
+						index = cellMinutiae[i];
+						if (index <= first)
+							continue;
+
+						dist2 = squaredDistance(x, y, xs[index], ys[index]);
+						last = noOfNbrs - 1;
+						if (noOfNbrs == maxNbrs && !isCloser(dist2, index, oNbrSqrDists[last], oNbrList[last]))
+							continue;
+
+						/* Insert in (distance, index) order, bumping the last */
+						/* neighbor off when the lists are full.               */
+						pos = (noOfNbrs < maxNbrs) ? noOfNbrs++ : last;
+						for (; pos > 0 && isCloser(dist2, index, oNbrSqrDists[pos - 1], oNbrList[pos - 1]); pos--)
+						{
+							oNbrSqrDists[pos] = oNbrSqrDists[pos - 1];
+							oNbrList[pos] = oNbrList[pos - 1];
+						}
+						oNbrSqrDists[pos] = dist2;
+						oNbrList[pos] = index;
+					}
+				}
+			}
+		}
+		return noOfNbrs;
+	}
+
+	private static boolean isCloser(final double dist2, final int index, final double otherDist2, final int otherIndex) {
+		return (dist2 < otherDist2 || (dist2 == otherDist2 && index < otherIndex));
+	}
+}
@@ -3,13 +3,13 @@ package org.mosip.nist.nfiq1.mindtct;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IMinutia;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
 import org.mosip.nist.nfiq1.common.ILfs.Minutia;
@@ -74,11 +74,15 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int allocMinutiae(AtomicReference<Minutiae> oMinutiae, final int maxMinutiae)
 	{
-		List<Minutia> list = new ArrayList<Minutia>(maxMinutiae);
-		
-		oMinutiae.get().setList(list);
-		oMinutiae.get().setAlloc(maxMinutiae);
-		oMinutiae.get().setNum(0);
+		/* Reuse the columns of a previous image when they are large enough. */
+		if (oMinutiae.get().getAlloc() >= maxMinutiae)
+		{
+			oMinutiae.get().clear();
+		}
+		else
+		{
+			oMinutiae.get().allocate(maxMinutiae);
+		}
 
 		return (ILfs.FALSE);
 	}
@@ -99,8 +103,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int reallocMinutiae(AtomicReference<Minutiae> oMinutiae, final int incrMinutiae)
 	{
-		oMinutiae.get().setAlloc (oMinutiae.get().getAlloc() + incrMinutiae);
-		((ArrayList<?>)oMinutiae.get().getList()).ensureCapacity(oMinutiae.get().getList().size() +  incrMinutiae);
+		oMinutiae.get().ensureCapacity(oMinutiae.get().getAlloc() + incrMinutiae);
 	   
 		return (ILfs.FALSE);
 	}
@@ -130,11 +133,28 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int detectMinutiaeV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
 		final int mappedImageWidth, final int mappedImageHeight, Maps map, LfsParams lfsParams) {
-		AtomicInteger ret = new AtomicInteger (0);
 		int mapSize = mappedImageWidth * mappedImageHeight;
-		AtomicIntegerArray pDirectionMap = new AtomicIntegerArray(mapSize);
-		AtomicIntegerArray oLowFlowMap = new AtomicIntegerArray(mapSize);
-		AtomicIntegerArray pHighCurveMap = new AtomicIntegerArray(mapSize);
+		/* The pixelized maps are scratch of the thread's arena, each */
+		/* value being set by pixelizeMap.                            */
+		ScratchArena arena = ScratchArena.current();
+		int mark = arena.openScope();
+		try
+		{
+			return detectMinutiaeV2(oMinutiae, binarizedImageData, mappedImageWidth, mappedImageHeight, map, lfsParams, 
+				new ByteBlockMap(arena.getBytes(mapSize), mapSize), 
+				new BitBlockMap(arena.getLongs((mapSize + 63) >>> 6), mapSize), 
+				new BitBlockMap(arena.getLongs((mapSize + 63) >>> 6), mapSize));
+		}
+		finally
+		{
+			arena.closeScope(mark);
+		}
+	}
+
+	private int detectMinutiaeV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
+		final int mappedImageWidth, final int mappedImageHeight, Maps map, LfsParams lfsParams, 
+		ByteBlockMap pDirectionMap, BitBlockMap oLowFlowMap, BitBlockMap pHighCurveMap) {
+		AtomicInteger ret = new AtomicInteger (0);
 
 		/* Pixelize the maps by assigning block values to individual pixels. */
 		ret.set(map.pixelizeMap(pDirectionMap, mappedImageWidth, mappedImageHeight, map.getDirectionMap(), 
@@ -227,21 +247,21 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			{
 				/* If x distance between new minutia and current list minutia */
 				/* are sufficiently close...                                 */
-				distanceX = Math.abs(oMinutiae.get().getList().get(minutiaIndex).getX() - minutia.getX());
+				distanceX = Math.abs(oMinutiae.get().getX(minutiaIndex) - minutia.getX());
 				if (distanceX < lfsParams.getMaxMinutiaDelta())
 				{
 					/* If y distance between new minutia and current list minutia */
 					/* are sufficiently close...                                 */
-					distanceY = Math.abs(oMinutiae.get().getList().get(minutiaIndex).getY() - minutia.getY());
+					distanceY = Math.abs(oMinutiae.get().getY(minutiaIndex) - minutia.getY());
 					if (distanceY < lfsParams.getMaxMinutiaDelta())
 					{
 						/* If new minutia and current list minutia are same type... */
-						if (oMinutiae.get().getList().get(minutiaIndex).getType() == minutia.getType())
+						if (oMinutiae.get().getType(minutiaIndex) == minutia.getType())
 						{
 							/* Test to see if minutiae have similar directions. */
 							/* Take minimum of computed inner and outer        */
 							/* direction differences.                          */
-							deltaDir = Math.abs(oMinutiae.get().getList().get(minutiaIndex).getDirection() - minutia.getDirection());
+							deltaDir = Math.abs(oMinutiae.get().getDirection(minutiaIndex) - minutia.getDirection());
 							deltaDir = Math.min(deltaDir, fullNDirs - deltaDir);
 							/* If directional difference is <= 45 degrees... */
 							if (deltaDir <= qtrNDirs)
@@ -259,10 +279,10 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 								/* clockwise.                                      */
 								/* If new minutia point found on contour...        */
 								if (getContour().searchContour(minutia.getX(), minutia.getY(), 
-									lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getList().get(minutiaIndex).getX(), 
-									oMinutiae.get().getList().get(minutiaIndex).getY(), 
-									oMinutiae.get().getList().get(minutiaIndex).getEx(), 
-									oMinutiae.get().getList().get(minutiaIndex).getEy(), 
+									lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getX(minutiaIndex), 
+									oMinutiae.get().getY(minutiaIndex), 
+									oMinutiae.get().getEx(minutiaIndex), 
+									oMinutiae.get().getEy(minutiaIndex), 
 									ILfs.SCAN_CLOCKWISE, binarizedImageData, imageWidth, imageHeight) == ILfs.FOUND)
 								{
 									/* Consider the new minutia to be the same as the */
@@ -274,10 +294,10 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 								/* clockwise along contour.                       */
 								/* If new minutia point found on contour...       */
 								if (getContour().searchContour(minutia.getX(), minutia.getY(), 
-									lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getList().get(minutiaIndex).getX(), 
-									oMinutiae.get().getList().get(minutiaIndex).getY(), 
-									oMinutiae.get().getList().get(minutiaIndex).getEx(), 
-									oMinutiae.get().getList().get(minutiaIndex).getEy(), 
+									lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getX(minutiaIndex), 
+									oMinutiae.get().getY(minutiaIndex), 
+									oMinutiae.get().getEx(minutiaIndex), 
+									oMinutiae.get().getEy(minutiaIndex), 
 									ILfs.SCAN_COUNTER_CLOCKWISE, binarizedImageData, imageWidth, imageHeight)  == ILfs.FOUND)
 								{
 									/* Consider the new minutia to be the same as the */
@@ -298,8 +318,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 		} // Otherwise, minutiae list is empty.
 
 		/* Otherwise, assume new minutia is not in the list, so add it. */
-		oMinutiae.get().getList().add(oMinutiae.get().getNum(), minutia);
-		oMinutiae.get().setNum(oMinutiae.get().getNum() + 1);
+		oMinutiae.get().add(minutia);
 
 		/* New minutia was successfully added to the list. */
 		/* Return normally. */
@@ -361,21 +380,21 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			{
 				/* If x distance between new minutia and current list minutia */
 				/* are sufficiently close...                                 */
-				dx = Math.abs(oMinutiae.get().getList().get(i).getX() - minutia.getX());
+				dx = Math.abs(oMinutiae.get().getX(i) - minutia.getX());
 				if (dx < lfsParams.getMaxMinutiaDelta())
 				{
 					/* If y distance between new minutia and current list minutia */
 					/* are sufficiently close...                                 */
-					dy = Math.abs(oMinutiae.get().getList().get(i).getY() - minutia.getY());
+					dy = Math.abs(oMinutiae.get().getY(i) - minutia.getY());
 					if (dy < lfsParams.getMaxMinutiaDelta())
 					{
 						/* If new minutia and current list minutia are same type... */
-						if (oMinutiae.get().getList().get(i).getType() == minutia.getType())
+						if (oMinutiae.get().getType(i) == minutia.getType())
 						{
 							/* Test to see if minutiae have similar directions. */
 							/* Take minimum of computed inner and outer        */
 							/* direction differences.                          */
-							deltaDir = Math.abs(oMinutiae.get().getList().get(i).getDirection() - minutia.getDirection());
+							deltaDir = Math.abs(oMinutiae.get().getDirection(i) - minutia.getDirection());
 							deltaDir = Math.min(deltaDir, fullNDirs - deltaDir);
 							/* If directional difference is <= 45 degrees... */
 							if (deltaDir <= qtrNDirs)
@@ -393,8 +412,8 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 								/* Start by searching "max_minutia_delta" steps    */
 								/* clockwise.                                      */
 								/* If new minutia point found on contour...        */
-								if (getContour().searchContour(minutia.getX(), minutia.getY(), lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getList().get(i).getX(), oMinutiae.get().getList().get(i).getY(), oMinutiae.get().getList().get(i).getEx(), oMinutiae.get().getList().get(i).getEy(), ILfs.SCAN_CLOCKWISE, binarizedImageData, imageWidth, imageHeight) == ILfs.FOUND || 
-									getContour().searchContour(minutia.getX(), minutia.getY(), lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getList().get(i).getX(), oMinutiae.get().getList().get(i).getY(), oMinutiae.get().getList().get(i).getEx(), oMinutiae.get().getList().get(i).getEy(), ILfs.SCAN_COUNTER_CLOCKWISE, binarizedImageData, imageWidth, imageHeight)  == ILfs.FOUND)
+								if (getContour().searchContour(minutia.getX(), minutia.getY(), lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getX(i), oMinutiae.get().getY(i), oMinutiae.get().getEx(i), oMinutiae.get().getEy(i), ILfs.SCAN_CLOCKWISE, binarizedImageData, imageWidth, imageHeight) == ILfs.FOUND || 
+									getContour().searchContour(minutia.getX(), minutia.getY(), lfsParams.getMaxMinutiaDelta(), oMinutiae.get().getX(i), oMinutiae.get().getY(i), oMinutiae.get().getEx(i), oMinutiae.get().getEy(i), ILfs.SCAN_COUNTER_CLOCKWISE, binarizedImageData, imageWidth, imageHeight)  == ILfs.FOUND)
 								{
 									/* If new minutia has VALID block direction ... */
 									if (directionMapValue >= ILfs.FALSE)
@@ -448,9 +467,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 		/* Otherwise, assume new minutia is not in the list, or those that */
 		/* were close neighbors were selectively removed, so add it.       */
 		
-		oMinutiae.get().getList().add(oMinutiae.get().getNum(), minutia);
-		//minutiae.get().getList().set(minutiae.get().getNum(), minutia);
-		oMinutiae.get().setNum(oMinutiae.get().getNum() + 1);
+		oMinutiae.get().add(minutia);
 
 		/* New minutia was successfully added to the list. */
 		/* Return normally. */
@@ -473,49 +490,28 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int sortMinutiaeTopToBottomAndThenLeftToRight(AtomicReference<Minutiae> oMinutiae, 
 		final int imageWidth, final int imageHeight) {
-		AtomicIntegerArray ranks, order;
+		int[] ranks, order;
 		int i;
 		int ret;
-		List<Minutia> newlist;
 
-		ranks = new AtomicIntegerArray(oMinutiae.get().getNum());
-		order = new AtomicIntegerArray(oMinutiae.get().getNum());
+		ranks = new int[oMinutiae.get().getNum()];
+		order = new int[oMinutiae.get().getNum()];
 
 		/* Compute 1-D image pixel offsets form 2-D minutia coordinate points. */
 		for (i = 0; i < oMinutiae.get().getNum(); i++)
 		{
-			ranks.set(i, (oMinutiae.get().getList().get(i).getY() * imageWidth) + oMinutiae.get().getList().get(i).getX());
+			ranks[i] = (oMinutiae.get().getY(i) * imageWidth) + oMinutiae.get().getX(i);
 		}
 
 		/* Get sorted order of minutiae. */
-		if ((ret = getSort().sortIndicesIntArrayIncremental(order, ranks, oMinutiae.get().getNum())) 
+		if ((ret = getSort().radixSortIndicesIntArrayIncremental(order, ranks, oMinutiae.get().getNum())) 
 			!= ILfs.FALSE)
 		{
-			getFree().free(ranks);
 			return (ret);
 		}
 
-		/* Allocate new MINUTIA list to hold sorted minutiae. */
-		newlist = new ArrayList<Minutia>(oMinutiae.get().getNum());
-		
-		/* Put minutia into sorted order in new list. */
-		for (i = 0; i < oMinutiae.get().getNum(); i++)
-		{
-			//newlist.set(i, minutiae.get().getList().get(order.get(i)));
-			newlist.add(oMinutiae.get().getList().get(order.get(i)));
-		}
-		/* Deallocate non-sorted list of minutia pointers. */
-		oMinutiae.get().getList().clear();
-		/* Assign new sorted list of minutia to minutiae list. */
-		for (int index = 0;index < newlist.size(); index++)
-		{
-			oMinutiae.get().getList().add(index, newlist.get(index));
-		}
-		
-		/* Free the working memories supporting the sort. */
-		getFree().free(order);
-		getFree().free(ranks);
-		getFree().free(newlist);
+		/* Put minutiae into sorted order. */
+		oMinutiae.get().reorder(order);
 
 		/* Return normally. */
 		return (ILfs.FALSE);
@@ -536,47 +532,27 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative - system error
 	**************************************************************************/
 	public int sortMinutiaeLeftToRightAndThenTopToBottom(AtomicReference<Minutiae> oMinutiae, final int imageWidth, final int imageHeight) {
-		AtomicIntegerArray ranks, order;
+		int[] ranks, order;
 		int i;
 		int ret;
-		List<Minutia> newlist;
 
-		ranks = new AtomicIntegerArray(oMinutiae.get().getNum());
-		order = new AtomicIntegerArray(oMinutiae.get().getNum());
+		ranks = new int[oMinutiae.get().getNum()];
+		order = new int[oMinutiae.get().getNum()];
 
 		/* Compute 1-D image pixel offsets form 2-D minutia coordinate points. */
 		for (i = 0; i < oMinutiae.get().getNum(); i++)
 		{
-			ranks.set(i, (oMinutiae.get().getList().get(i).getX() * imageWidth) + oMinutiae.get().getList().get(i).getY());
+			ranks[i] = (oMinutiae.get().getX(i) * imageWidth) + oMinutiae.get().getY(i);
 		}
 
 		/* Get sorted order of minutiae. */
-		if ((ret = getSort().sortIndicesIntArrayIncremental(order, ranks, oMinutiae.get().getNum())) != ILfs.FALSE)
+		if ((ret = getSort().radixSortIndicesIntArrayIncremental(order, ranks, oMinutiae.get().getNum())) != ILfs.FALSE)
 		{
-			getFree().free(ranks);
 			return (ret);
 		}
 
-		/* Allocate new MINUTIA list to hold sorted minutiae. */
-		newlist = new ArrayList<Minutia>(oMinutiae.get().getNum());
-		
-		/* Put minutia into sorted order in new list. */
-		for (i = 0; i < oMinutiae.get().getNum(); i++)
-		{
-			//newlist.set(i, minutiae.get().getList().get(order.get(i)));
-			newlist.add(oMinutiae.get().getList().get(order.get(i)));
-		}
-		/* Deallocate non-sorted list of minutia pointers. */
-		oMinutiae.get().getList().clear();
-		/* Assign new sorted list of minutia to minutiae list. */
-		for (int index = 0;index < newlist.size(); index++)
-		{
-			oMinutiae.get().getList().add(index, newlist.get(index));
-		}
-		
-		/* Free the working memories supporting the sort. */
-		getFree().free(order);
-		getFree().free(ranks);
+		/* Put minutiae into sorted order. */
+		oMinutiae.get().reorder(order);
 
 		/* Return normally. */
 		return (ILfs.FALSE);
@@ -599,18 +575,16 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	public int removeRedundantMinutiae(AtomicReference<Minutiae> oMinutiae) {
 		int i;
 		int ret;
-		Minutia firstMinutia, secondMinutia;
+		Minutiae minutiae = oMinutiae.get();
 
 		/* Work backward from the end of the list of minutiae.  This way */
 		/* we can selectively remove minutia from the list and not cause */
 		/* problems with keeping track of current indices.               */
 		for (i = oMinutiae.get().getNum() - 1; i > 0; i--)
 		{
-			firstMinutia = oMinutiae.get().getList().get(i);
-			secondMinutia = oMinutiae.get().getList().get(i - 1);
 			/* If minutia pair has identical coordinates ... */
-			if ((firstMinutia.getX() == secondMinutia.getX()) && 
-				(firstMinutia.getY() == secondMinutia.getY()))
+			if ((minutiae.getX(i) == minutiae.getX(i - 1)) && 
+				(minutiae.getY(i) == minutiae.getY(i - 1)))
 			{
 				/* Remove the 2nd minutia from the minutiae list. */
 				if ((ret = removeMinutia(i - 1, oMinutiae)) != ILfs.FALSE)
@@ -643,8 +617,8 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			{
 				/* Precision of reliablity added one decimal position */
 				/* on 09-13-04 */
-				myWriter.write(String.format( "%4d : %4d, %4d : %2d : %6.3f :", i, oMinutiae.get().getList().get(i).getX(), oMinutiae.get().getList().get(i).getY(), oMinutiae.get().getList().get(i).getDirection(), oMinutiae.get().getList().get(i).getReliability()));
-				if (oMinutiae.get().getList().get(i).getType() == ILfs.RIDGE_ENDING)
+				myWriter.write(String.format( "%4d : %4d, %4d : %2d : %6.3f :", i, oMinutiae.get().getX(i), oMinutiae.get().getY(i), oMinutiae.get().getDirection(i), oMinutiae.get().getReliability(i)));
+				if (oMinutiae.get().getType(i) == ILfs.RIDGE_ENDING)
 				{
 					myWriter.write(String.format( "RIG : "));
 				}
@@ -653,7 +627,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 					myWriter.write(String.format( "BIF : "));
 				}
 
-				if (oMinutiae.get().getList().get(i).getAppearing() == ILfs.APPEARING)
+				if (oMinutiae.get().getAppearing(i) == ILfs.APPEARING)
 				{
 					myWriter.write(String.format( "APP : "));
 				}
@@ -662,13 +636,13 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 					myWriter.write(String.format( "DIS : "));
 				}
 
-				myWriter.write(String.format("%2d ", oMinutiae.get().getList().get(i).getFeatureId()));
+				myWriter.write(String.format("%2d ", oMinutiae.get().getFeatureId(i)));
 
-				for (j = 0; j < oMinutiae.get().getList().get(i).getNumNbrs(); j++)
+				for (j = 0; j < oMinutiae.get().getNumNbrs(i); j++)
 				{
-					myWriter.write(String.format(": %4d,%4d; %2d ", oMinutiae.get().getList().get(oMinutiae.get().getList().get(i).getNbrs().get(j)).getX(), 
-							oMinutiae.get().getList().get(oMinutiae.get().getList().get(i).getNbrs().get(j)).getY(), 
-							oMinutiae.get().getList().get(oMinutiae.get().getList().get(i).getRidgeCounts().get(j))));
+					myWriter.write(String.format(": %4d,%4d; %2d ", oMinutiae.get().getX(oMinutiae.get().getNbr(i, j)), 
+							oMinutiae.get().getY(oMinutiae.get().getNbr(i, j)), 
+							oMinutiae.get().getRidgeCount(i, j)));
 				}
 
 				myWriter.write(String.format("\n"));
@@ -704,7 +678,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			for (i = 0; i < oMinutiae.get().getNum(); i++)
 			{
 				/* Write the minutia's coordinate point to the file pointer. */
-				myWriter.write(String.format("%4d %4d\n", oMinutiae.get().getList().get(i).getX(), oMinutiae.get().getList().get(i).getY()));
+				myWriter.write(String.format("%4d %4d\n", oMinutiae.get().getX(i), oMinutiae.get().getY(i)));
 			}
 
 		    myWriter.close();
@@ -737,7 +711,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			count = 0;
 			/* Foreach minutia in list... */
 			for(i = 0; i < oMinutiae.get().getNum(); i++){
-				if(oMinutiae.get().getList().get(i).getReliability() == reliability)
+				if(oMinutiae.get().getReliability(i) == reliability)
 			    	count++;
 			}
 			   
@@ -749,10 +723,10 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 			/* Foreach minutia in list... */
 			for (i = 0; i < oMinutiae.get().getNum(); i++)
 			{
-				if(oMinutiae.get().getList().get(i).getReliability() == reliability)
+				if(oMinutiae.get().getReliability(i) == reliability)
 				{
 					/* Write the minutia's coordinate point to the file pointer. */
-					myWriter.write(String.format("%4d %4d\n", oMinutiae.get().getList().get(i).getX(), oMinutiae.get().getList().get(i).getY()));
+					myWriter.write(String.format("%4d %4d\n", oMinutiae.get().getX(i), oMinutiae.get().getY(i)));
 				}
 			}
 
@@ -796,7 +770,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 		minutia.setAppearing(appearing);
 		minutia.setFeatureId(featureId);
 		minutia.setNbrs(null);
-		minutia.setRidgeCcounts(null);
+		minutia.setRidgeCounts(null);
 		minutia.setNumNbrs(0);
 
 		/* Return normally. */
@@ -818,8 +792,6 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int removeMinutia(final int index, AtomicReference<Minutiae> oMinutiae) {
-		int fromIndex, toIndex;
-
 		/* Make sure the requested index is within range. */
 		if ((index < 0) && (index >= oMinutiae.get().getNum()))
 		{
@@ -828,17 +800,9 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 		}
 
 		/* Slide the remaining list of ominutiae up over top of the */
-		/* position of the minutia being removed.                 */
-		for (toIndex = index, fromIndex = index + 1; fromIndex < oMinutiae.get().getNum(); toIndex++, fromIndex++)
-		{
-			oMinutiae.get().getList().set(toIndex, oMinutiae.get().getList().get(fromIndex));
-		}
-
-		/* Deallocate the minutia structure to be removed the last one. */		
-		oMinutiae.get().getList().remove(oMinutiae.get().getList().size() - 1);
-		
-		/* Decrement the number of ominutiae remaining in the list. */
-		oMinutiae.get().setNum(oMinutiae.get().getNum() - 1);
+		/* position of the minutia being removed and decrement the */
+		/* number of ominutiae remaining in the list.              */
+		oMinutiae.get().remove(index);
 
 		/* Return normally. */
 		return (ILfs.FALSE);
@@ -1142,7 +1106,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int scanForMinutiae(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oNMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap oInputBlockImageMap, ByteBlockMap oNMap, 
 		final int blockX, final int blockY, final int mapWidth, final int mapHeight, 
 		final int scanX, final int scanY, final int scanWidth, final int scanHeight, 
 		final int scanDir, final LfsParams lfsParams) {
@@ -1369,7 +1333,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int scanForMinutiaeHorizontallyV2(AtomicReference<Minutiae> oMinutiae, 
 		int[] binarizedImageData, final int imageWidth, final int imageHeight, 
-		AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowFlowMap, AtomicIntegerArray oHighCurveMap, 
+		ByteBlockMap oDirectionMap, BitBlockMap oLowFlowMap, BitBlockMap oHighCurveMap, 
 		final LfsParams lfsParams) {
 		int sx, sy, ex, ey;
 		AtomicInteger cx = new AtomicInteger(0), cy = new AtomicInteger(0);
@@ -1662,7 +1626,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int rescanForMinutiaeHorizontally(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oNMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap oInputBlockImageMap, ByteBlockMap oNMap, 
 		final int blockX, final int blockY, final int mapWidth, final int mapHeight, 
 		final int scanX, final int scanY, final int scanWidth, final int scanHeight, final LfsParams lfsParams) {
 		int blockIndex, ret;
@@ -1747,8 +1711,8 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int scanForMinutiaeVerticallyV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowFlowMap, 
-		AtomicIntegerArray oHighCurveMap, final LfsParams lfsParams) {
+		final int imageWidth, final int imageHeight, ByteBlockMap oDirectionMap, BitBlockMap oLowFlowMap, 
+		BitBlockMap oHighCurveMap, final LfsParams lfsParams) {
 		int sx, sy, ex, ey;
 		AtomicInteger cx = new AtomicInteger(0), cy = new AtomicInteger(0);
 		AtomicInteger p1ptrIndex = new AtomicInteger(0), p2ptrIndex = new AtomicInteger(0);
@@ -1887,7 +1851,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int rescanForMinutiaeVertically(AtomicReference<Minutiae> minutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oNMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap oInputBlockImageMap, ByteBlockMap oNMap, 
 		final int blockX, final int blockY, final int mapWidth, final int mapHeight, 
 		final int scanX, final int scanY, final int scanWidth, final int scanHeight, final LfsParams lfsParams) {
 		int blockIndex, ret;
@@ -1979,7 +1943,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int rescanPartialHorizontally(final int nbrDir, AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oNMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap oInputBlockImageMap, ByteBlockMap oNMap, 
 		final int blockX, final int blockY, final int mapWidth, final int mapHeight, 
 		final int scanX, final int scanY, final int scanWidth, final int scanHeight, final LfsParams lfsParams) {
 		AtomicInteger oBlockIndex = new AtomicInteger(0);
@@ -2076,7 +2040,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	      Negative  - system error
 	**************************************************************************/
 	public int rescanPartialVertically(final int nbrDir, AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oNMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap oInputBlockImageMap, ByteBlockMap oNMap, 
 		final int blockX, final int blockY, final int mapWidth, final int mapHeight, 
 		final int scanX, final int scanY, final int scanWidth, final int scanHeight, final LfsParams lfsParams) {
 		AtomicInteger oBlockIndex = new AtomicInteger(0);
@@ -2631,8 +2595,8 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int processHorizontalScanMinutiaV2(AtomicReference<Minutiae> oMinutiae, final int cx, final int cy, 
 		final int x2, final int featureId, int[] binarizedImageData, final int imageWidth, final int imageHeight,
-		AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowFlowMap, 
-		AtomicIntegerArray oHighCurveMap, final LfsParams lfsParams) {
+		ByteBlockMap oDirectionMap, BitBlockMap oLowFlowMap, 
+		BitBlockMap oHighCurveMap, final LfsParams lfsParams) {
 		Minutia minutia = new Minutia();
 		AtomicInteger xLoc = new AtomicInteger(0), yLoc = new AtomicInteger(0), 
 			xEdge = new AtomicInteger(0), yEdge = new AtomicInteger(0);
@@ -2865,8 +2829,8 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	**************************************************************************/
 	public int processVerticalScanMinutiaV2(AtomicReference<Minutiae> oMinutiae, 
 		final int cx, final int cy, final int y2, final int featureId, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray oDirectionMap, 
-		AtomicIntegerArray oLowFlowMap, AtomicIntegerArray oHighCurveMap, final LfsParams lfsParams) {
+		final int imageWidth, final int imageHeight, ByteBlockMap oDirectionMap, 
+		BitBlockMap oLowFlowMap, BitBlockMap oHighCurveMap, final LfsParams lfsParams) {
 		Minutia minutia = new Minutia();
 		AtomicInteger xLoc = new AtomicInteger(0), yLoc = new AtomicInteger(0),
 			xEdge = new AtomicInteger(0), yEdge = new AtomicInteger(0), iDir = new AtomicInteger(0);
@@ -3213,7 +3177,7 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	public int adjustHighCurvatureMinutiaV2(AtomicInteger oIDir, AtomicInteger oXLoc, AtomicInteger oYLoc, 
 		AtomicInteger oXEdge, AtomicInteger oYEdge, final int xLoc, final int yLoc, 
 		final int xEdge, final int yEdge, int[] binarizedImageData, final int imageWidth, final int imageHeight, 
-		AtomicIntegerArray oLowFlowMap, AtomicReference<Minutiae> oMinutiae, final LfsParams lfsParams) {
+		BitBlockMap oLowFlowMap, AtomicReference<Minutiae> oMinutiae, final LfsParams lfsParams) {
 		Contour contour = null;
 		AtomicInteger ret = new AtomicInteger(0);
 		AtomicInteger oNoOfContour = new AtomicInteger(0);
@@ -3546,18 +3510,10 @@ public class MinutiaHelper extends MindTct implements IMinutia {
 	*************************************************************************/
 	public void freeMinutiae(AtomicReference<Minutiae> oMinutiae)
 	{
-		int i;
-
 		if (oMinutiae != null)
 		{
-			/* Deallocate ominutiae structures in the list. */
-			for(i = 0; i < oMinutiae.get().getNum(); i++)
-			{
-				freeMinutia(oMinutiae.get().getList().get(i));
-			}
-
-			/* Deallocate list of minutia pointers. */
-			oMinutiae.get().setList(null);
+			/* Empty the list; its columns are reused by the next image. */
+			oMinutiae.get().clear();
 		}
 
 		/* Deallocate the list structure. */
@@ -1,19 +1,24 @@
 package org.mosip.nist.nfiq1.mindtct;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IQuality;
-import org.mosip.nist.nfiq1.common.ILfs.Minutia;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
+import org.mosip.nist.nfiq1.common.ILfs.PixelBlockMap;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Quality extends MindTct implements IQuality {
 	private static final Logger LOGGER = LoggerFactory.getLogger(Quality.class);	
+	/* Per-thread 8-bit pixel histogram of getNeighborhoodStats, */
+	/* left zeroed after each use.                               */
+	private static final ThreadLocal<int[]> HISTOGRAMS = ThreadLocal.withInitial(() -> new int[256]);
 	private static volatile Quality instance;
     public static Quality getInstance() {
         if (instance == null) {
@@ -36,6 +41,11 @@ public class Quality extends MindTct implements IQuality {
         return instance;
     }    
 
+    /* Returns a private instance for callers that must not share the quality map */
+    public static Quality newInstance() {
+        return new Quality();
+    }    
+
     private Quality()
     {
     	super();
@@ -48,7 +58,7 @@ public class Quality extends MindTct implements IQuality {
 		return Free.getInstance();
 	}
 
-	private AtomicIntegerArray qualityMap;
+	private ByteBlockMap qualityMap;
 	//mappedImageWidth        - number of blocks horizontally in the padded input image
 	//mh        - number of blocks vertically in the padded input image
 	private int mappedImageWidth, mappedImageHeight;
@@ -58,7 +68,7 @@ public class Quality extends MindTct implements IQuality {
 		/* Compute total number of blocks in map */
 		this.mappedImageWidth = mappedImageWidth;
 		this.mappedImageHeight = mappedImageHeight;
-		this.qualityMap = new AtomicIntegerArray(this.mappedImageWidth * this.mappedImageHeight);
+		this.qualityMap = new ByteBlockMap(this.mappedImageWidth * this.mappedImageHeight);
 	}
 	
 	/***********************************************************************
@@ -98,11 +108,14 @@ public class Quality extends MindTct implements IQuality {
 		int arrayPos, arrayPos2;
 		int qualityOffset;
 
-		if (getQualityMap() == null)
+		/* (Re)allocate when the block dimensions differ from the previous image */
+		if (getQualityMap() == null || 
+			getMappedImageWidth() != map.getMappedImageWidth().get() ||
+			getMappedImageHeight() != map.getMappedImageHeight().get())
 		{
 			setMappedImageWidth (map.getMappedImageWidth().get());
 			setMappedImageHeight (map.getMappedImageHeight().get());
-			setQualityMap(new AtomicIntegerArray(this.mappedImageWidth * this.mappedImageHeight));
+			setQualityMap(new ByteBlockMap(this.mappedImageWidth * this.mappedImageHeight));
 		}
 		/* Foreach row of blocks in maps ... */
 		for (int thisY = 0; thisY < getMappedImageHeight(); thisY++)
@@ -214,8 +227,35 @@ public class Quality extends MindTct implements IQuality {
 	public int combinedMinutiaQuality(AtomicReference<Minutiae> oMinutiae, Maps map, 
 		final int blocksize, int [] imageData, 
 		final int imageWidth, final int imageHeight, final int imageDepth, final double imagePPI) {
+		return combinedMinutiaQuality(oMinutiae, map, blocksize, imageData, null, 
+			imageWidth, imageHeight, imageDepth, imagePPI);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: combinedMinutiaQuality - As above, for an image of one byte per
+	#cat:              pixel.
+	   Input:
+	      image       - 8-bit grayscale fingerprint image
+	      (remaining arguments as above)
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	************************************************************************/
+	public int combinedMinutiaQuality(AtomicReference<Minutiae> oMinutiae, Maps map, 
+		final int blocksize, ByteImage image, final int imageDepth, final double imagePPI) {
+		return combinedMinutiaQuality(oMinutiae, map, blocksize, null, image, 
+			image.getWidth(), image.getHeight(), imageDepth, imagePPI);
+	}
+
+	/* Either imageData or image holds the grayscale image, the other is null */
+	private int combinedMinutiaQuality(AtomicReference<Minutiae> oMinutiae, Maps map, 
+		final int blocksize, int [] imageData, ByteImage image, 
+		final int imageWidth, final int imageHeight, final int imageDepth, final double imagePPI) {
 		AtomicInteger ret = new AtomicInteger(0);
-		int minutiaPixelIndex = 0, radiusPixel;
+		AtomicReference<PixelBlockMap> pqualityMap = new AtomicReference<PixelBlockMap>();
+		int radiusPixel;
 		int qualityMapValue;
 		double grayscaleReliability, reliability;
 
@@ -231,10 +271,8 @@ public class Quality extends MindTct implements IQuality {
 		/* Compute pixel radius of neighborhood based on image's scan resolution. */
 		radiusPixel = getDefs().sRound(ILfs.RADIUS_MM * imagePPI);
 
-		/* Expand block map values to pixel map. */
-		int mapSize = imageWidth * imageHeight;
-		AtomicIntegerArray pqualityMap = new AtomicIntegerArray(mapSize);		
-		ret.set(map.pixelizeMap(pqualityMap, imageWidth, imageHeight, 
+		/* Look block map values up by pixel. */
+		ret.set(map.pixelizeMapView(pqualityMap, imageWidth, imageHeight, 
 			this.getQualityMap(), this.getMappedImageWidth(), this.getMappedImageHeight(), blocksize));
 		if (ret.get() != ILfs.FALSE)
 		{
@@ -248,15 +286,17 @@ public class Quality extends MindTct implements IQuality {
 			/* Assign minutia pointer. */
 
 			/* Compute reliability from stdev and mean of pixel neighborhood. */
-			grayscaleReliability = 
-				grayscaleReliability(oMinutiae.get().getList().get(minutiaIndex), 
-					imageData, imageWidth, imageHeight, radiusPixel);
-
-			/* Lookup quality map value. */
-			/* Compute minutia pixel index. */
-			minutiaPixelIndex = (oMinutiae.get().getList().get(minutiaIndex).getY() * imageWidth) + oMinutiae.get().getList().get(minutiaIndex).getX();
-			/* Switch on pixel's quality value ... */
-			qualityMapValue = pqualityMap.get(minutiaPixelIndex);
+			if (image != null)
+				grayscaleReliability = 
+					grayscaleReliability(oMinutiae.get().getX(minutiaIndex), oMinutiae.get().getY(minutiaIndex), 
+						image, radiusPixel);
+			else
+				grayscaleReliability = 
+					grayscaleReliability(oMinutiae.get().getX(minutiaIndex), oMinutiae.get().getY(minutiaIndex), 
+						imageData, imageWidth, imageHeight, radiusPixel);
+
+			/* Lookup quality map value of minutia pixel. */
+			qualityMapValue = pqualityMap.get().get(oMinutiae.get().getX(minutiaIndex), oMinutiae.get().getY(minutiaIndex));
 
 			/* Combine grayscale reliability and quality map value. */
 			switch (qualityMapValue)
@@ -286,15 +326,12 @@ public class Quality extends MindTct implements IQuality {
 					LOGGER.error("ERROR : combined_miutia_quality : ");
 					LOGGER.error("unexpected quality map value %d " + qualityMapValue);
 					LOGGER.error("not in range [0..4]\n");
-					getFree().free(pqualityMap);
 					return (-3);
 			}
 
-			oMinutiae.get().getList().get(minutiaIndex).setReliability(reliability);
+			oMinutiae.get().setReliability(minutiaIndex, reliability);
 		}
 
-		/* NEW 05-08-2002 */
-		getFree().free(pqualityMap);
 		/* Return normally. */
 		return (ILfs.FALSE);
 	}
@@ -310,7 +347,8 @@ public class Quality extends MindTct implements IQuality {
 	   stdev of >= 64 & a mean of 127,  returns 1.0 (well defined
 	   light & dark areas in equal proportions).
 	   Input:
-	      minutia    - structure containing detected minutia
+	      minutiaX   - x-pixel coordinate of detected minutia
+	      minutiaY   - y-pixel coordinate of detected minutia
 	      imageData      - 8-bit grayscale fingerprint image
 	      imageWidth         - width (in pixels) of the image
 	      imageHeight         - height (in pixels) of the image
@@ -318,24 +356,44 @@ public class Quality extends MindTct implements IQuality {
 	   Return Value:
 	      reliability - computed reliability measure
 	************************************************************************/
-	public double grayscaleReliability(Minutia minutia, int [] imageData, 
+	public double grayscaleReliability(final int minutiaX, final int minutiaY, int [] imageData, 
 		final int imageWidth, final int imageHeight, final int radiusPixel) {
 		AtomicReference<Double> mean = new AtomicReference<Double>(0.0), stdev = new AtomicReference<Double>(0.0);
 		double reliability;
 
-		getNeighborhoodStats(mean, stdev, minutia, imageData, imageWidth, imageHeight, radiusPixel);
+		getNeighborhoodStats(mean, stdev, minutiaX, minutiaY, imageData, imageWidth, imageHeight, radiusPixel);
 		reliability = Math.min((stdev.get() > ILfs.IDEALSTDEV ? 1.0 : stdev.get() / (double)ILfs.IDEALSTDEV), (1.0 - (Math.abs(mean.get() - ILfs.IDEALMEAN) / (double)ILfs.IDEALMEAN)));
 
 		return (reliability);
 	}
 
+	/***********************************************************************
+	************************************************************************
+	#cat: grayscaleReliability - As above, for an image of one byte per
+	#cat:              pixel.
+	   Input:
+	      minutiaX   - x-pixel coordinate of detected minutia
+	      minutiaY   - y-pixel coordinate of detected minutia
+	      image      - 8-bit grayscale fingerprint image
+	      radiusPixel - pixel radius of surrounding neighborhood
+	   Return Value:
+	      reliability - computed reliability measure
+	************************************************************************/
+	public double grayscaleReliability(final int minutiaX, final int minutiaY, ByteImage image, final int radiusPixel) {
+		AtomicReference<Double> mean = new AtomicReference<Double>(0.0), stdev = new AtomicReference<Double>(0.0);
+
+		getNeighborhoodStats(mean, stdev, minutiaX, minutiaY, image, radiusPixel);
+		return Math.min((stdev.get() > ILfs.IDEALSTDEV ? 1.0 : stdev.get() / (double)ILfs.IDEALSTDEV), (1.0 - (Math.abs(mean.get() - ILfs.IDEALMEAN) / (double)ILfs.IDEALMEAN)));
+	}
+
 	/***********************************************************************
 	************************************************************************
 	#cat: getNeighborhoodStats - Given a minutia point, computes the mean
 	#cat:              and stdev of the 8-bit grayscale pixels values in a
 	#cat:              surrounding neighborhood with specified radius.
 	   Input:
-	      minutia    - structure containing detected minutia
+	      minutiaX   - x-pixel coordinate of detected minutia
+	      minutiaY   - y-pixel coordinate of detected minutia
 	      imageData      - 8-bit grayscale fingerprint image
 	      imageWidth         - width (in pixels) of the image
 	      imageHeight         - height (in pixels) of the image
@@ -345,18 +403,15 @@ public class Quality extends MindTct implements IQuality {
 	      oStDev      - standard deviation of neighboring pixels
 	************************************************************************/
 	public void getNeighborhoodStats(AtomicReference<Double> oMean, AtomicReference<Double> oStDev, 
-		Minutia minutia, int [] imageData, final int imageWidth, final int imageHeight, final int radiusPixel) {
-		int i, x, y, rows, cols;
-		int n = 0, sumX = 0, sumXX = 0;
+		final int minutiaX, final int minutiaY, int [] imageData, final int imageWidth, final int imageHeight, final int radiusPixel) {
+		int x, y, rows, cols;
 
-		int[] histogram = new int[256];
-		 /* Zero out histogram. */
-		for (int index = 0; index < histogram.length; index++)
-			histogram[index] = 0;
+		/* Histogram is zero from its previous use. */
+		int[] histogram = HISTOGRAMS.get();
 		
 		/* Set minutia's coordinate variables. */
-		x = minutia.getX();
-		y = minutia.getY();
+		x = minutiaX;
+		y = minutiaY;
 
 		/* If minutiae point is within sampleboxsize distance of image border, */
 		/* a value of 0 reliability is returned. */
@@ -368,17 +423,88 @@ public class Quality extends MindTct implements IQuality {
 			return;
 		}
 
-		/* Foreach row in neighborhood ... */
-		for (rows = y - radiusPixel; rows <= y + radiusPixel; rows++)
+		try
 		{
-			/* Foreach column in neighborhood ... */
-			for (cols = x - radiusPixel; cols <= x + radiusPixel; cols++)
+			/* Foreach row in neighborhood ... */
+			for (rows = y - radiusPixel; rows <= y + radiusPixel; rows++)
 			{
-				/* Bump neighbor's pixel value bin in histogram. */
-				int histValue = imageData[(rows * imageWidth) + cols];
-				histogram[histValue] = histogram[histValue] + 1;
+				/* Foreach column in neighborhood ... */
+				for (cols = x - radiusPixel; cols <= x + radiusPixel; cols++)
+				{
+					/* Bump neighbor's pixel value bin in histogram. */
+					int histValue = imageData[(rows * imageWidth) + cols];
+					histogram[histValue] = histogram[histValue] + 1;
+				}
 			}
 		}
+		catch (RuntimeException e)
+		{
+			/* A pixel outside [0..256) must not leave counts behind */
+			/* for the next minutia scored on this thread.           */
+			Arrays.fill(histogram, 0);
+			throw e;
+		}
+
+		histogramStats(oMean, oStDev, histogram);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: getNeighborhoodStats - As above, for an image of one byte per
+	#cat:              pixel.
+	   Input:
+	      minutiaX   - x-pixel coordinate of detected minutia
+	      minutiaY   - y-pixel coordinate of detected minutia
+	      image      - 8-bit grayscale fingerprint image
+	      radiusPixel - pixel radius of surrounding neighborhood
+	   Output:
+	      oMean       - mean of neighboring pixels
+	      oStDev      - standard deviation of neighboring pixels
+	************************************************************************/
+	public void getNeighborhoodStats(AtomicReference<Double> oMean, AtomicReference<Double> oStDev, 
+		final int minutiaX, final int minutiaY, ByteImage image, final int radiusPixel) {
+		int x = minutiaX, y = minutiaY, rows, cols, rowIndex;
+		byte[] pixels = image.getPixels();
+		int imageWidth = image.getWidth();
+		int stride = image.getScanlineStride();
+
+		/* Histogram is zero from its previous use. */
+		int[] histogram = HISTOGRAMS.get();
+
+		/* Minutiae within sampleboxsize distance of image border get 0. */
+		if ((x < radiusPixel) || (x > imageWidth - radiusPixel - 1) || 
+			(y < radiusPixel) || (y > image.getHeight() - radiusPixel - 1))
+		{
+			oMean.set(0.0);
+			oStDev.set(0.0);
+			return;
+		}
+
+		try
+		{
+			for (rows = y - radiusPixel; rows <= y + radiusPixel; rows++)
+			{
+				rowIndex = image.getOffset() + (rows * stride);
+				for (cols = x - radiusPixel; cols <= x + radiusPixel; cols++)
+				{
+					histogram[pixels[rowIndex + cols] & 0xFF]++;
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			/* Left zeroed, as above */
+			Arrays.fill(histogram, 0);
+			throw e;
+		}
+
+		histogramStats(oMean, oStDev, histogram);
+	}
+
+	/* Mean and stdev of a neighborhood histogram, which is zeroed out */
+	private void histogramStats(AtomicReference<Double> oMean, AtomicReference<Double> oStDev, int[] histogram) {
+		int i;
+		int n = 0, sumX = 0, sumXX = 0;
 
 		/* Foreach grayscale pixel bin ... */
 		for (i = 0; i < 256; i++)
@@ -391,6 +517,8 @@ public class Quality extends MindTct implements IQuality {
 				sumXX += (i * i * histogram[i]);
 				/* Accumulate N samples */
 				n += histogram[i];
+				/* Zero out bin for next use. */
+				histogram[i] = 0;
 			}
 		}
 
@@ -420,12 +548,11 @@ public class Quality extends MindTct implements IQuality {
 	public int reliabilityFromQualityMap(Minutiae minutiae, Maps map, 
 		final int imageWidth, final int imageHeight, final int blocksize){
 		AtomicInteger ret = new AtomicInteger (0);
-		int index;
+		AtomicReference<PixelBlockMap> pqualityMap = new AtomicReference<PixelBlockMap>();
+		int qualityMapValue;
 
-		/* Expand block map values to pixel map. */
-		int mapSize = imageWidth * imageHeight;
-		AtomicIntegerArray pqualityMap = new AtomicIntegerArray(mapSize);			
-		ret.set(map.pixelizeMap(pqualityMap, imageWidth, imageHeight, 
+		/* Look block map values up by pixel. */
+		ret.set(map.pixelizeMapView(pqualityMap, imageWidth, imageHeight, 
 				this.getQualityMap(), this.getMappedImageWidth(), this.getMappedImageHeight(), blocksize));
 		if (ret.get() != ILfs.FALSE)
 		{
@@ -435,48 +562,44 @@ public class Quality extends MindTct implements IQuality {
 		/* Foreach minutiae detected ... */
 		for (int minutiaIndex = 0; minutiaIndex < minutiae.getNum(); minutiaIndex++)
 		{
-			/* Assign minutia pointer. */
-			/* Compute minutia pixel index. */
-			index = (minutiae.getList().get(minutiaIndex).getY() * imageWidth) + minutiae.getList().get(minutiaIndex).getX();
+			/* Lookup quality map value of minutia pixel. */
+			qualityMapValue = pqualityMap.get().get(minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex));
 			/* Switch on pixel's quality value ... */
-			switch (pqualityMap.get(index))
+			switch (qualityMapValue)
 			{
 				case 0:
-					minutiae.getList().get(minutiaIndex).setReliability(0.0);
+					minutiae.setReliability(minutiaIndex, 0.0);
 					break;
 				case 1:
-					minutiae.getList().get(minutiaIndex).setReliability(0.25);
+					minutiae.setReliability(minutiaIndex, 0.25);
 					break;
 				case 2:
-					minutiae.getList().get(minutiaIndex).setReliability(0.50);
+					minutiae.setReliability(minutiaIndex, 0.50);
 					break;
 				case 3:
-					minutiae.getList().get(minutiaIndex).setReliability(0.75);
+					minutiae.setReliability(minutiaIndex, 0.75);
 					break;
 				case 4:
-					minutiae.getList().get(minutiaIndex).setReliability(0.99);
+					minutiae.setReliability(minutiaIndex, 0.99);
 					break;
 				/* Error if quality value not in range [0..4]. */
 				default:
-					minutiae.getList().get(minutiaIndex).setReliability(0.0);
+					minutiae.setReliability(minutiaIndex, 0.0);
 					LOGGER.error("ERROR : reliability_fr_quality_map :");
-					LOGGER.error("unexpected quality value %d " + pqualityMap.get(index));
+					LOGGER.error("unexpected quality value %d " + qualityMapValue);
 					LOGGER.error("not in range [0..4]\n");
 					return (-2);
 			}
 		}
 
-		/* Deallocate pixelized quality map. */
-		getFree().free(pqualityMap);
-
 		/* Return normally. */
 		return (ILfs.FALSE);
 	}
 	
-	public AtomicIntegerArray getQualityMap() {
+	public ByteBlockMap getQualityMap() {
 		return qualityMap;
 	}
-	public void setQualityMap(AtomicIntegerArray qualityMap) {
+	public void setQualityMap(ByteBlockMap qualityMap) {
 		this.qualityMap = qualityMap;
 	}	
 
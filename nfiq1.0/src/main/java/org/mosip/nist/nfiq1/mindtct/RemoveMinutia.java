@@ -10,9 +10,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IRemoveMinutia;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
-import org.mosip.nist.nfiq1.common.ILfs.Minutia;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -187,7 +188,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		final int imageWidth, final int imageHeight, LfsParams lfsParams) {
 		int minutiaIndex;
 		int ret;
-		Minutia minutia;
+		Minutiae minutiae = oMinutiae.get();
 
 		if (isShowLogs())
 			LOGGER.info(String.format("\nREMOVING HOLES:\n"));
@@ -196,19 +197,17 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		/* Foreach minutia remaining in list ... */
 		while (minutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Assign a temporary pointer. */
-			minutia = oMinutiae.get().getList().get(minutiaIndex);
 			/* If current minutia is a bifurcation ... */
-			if (minutia.getType() == ILfs.BIFURCATION)
+			if (minutiae.getType(minutiaIndex) == ILfs.BIFURCATION)
 			{
 				/* Check to see if it is on a loop of specified length (ex. 15). */
-				ret = getLoop().onLoop(minutia, lfsParams.getSmallLoopLen(), 
+				ret = getLoop().onLoop(minutiae.getMinutia(minutiaIndex), lfsParams.getSmallLoopLen(), 
 					binarizedImageData, imageWidth, imageHeight);
 				/* If minutia is on a loop ... or loop test IGNORED */
 				if ((ret == ILfs.LOOP_FOUND) || (ret == ILfs.IGNORE))
 				{
 					if (isShowLogs())
-						LOGGER.info(String.format("%d,%d RM\n", minutia.getX(), minutia.getY()));
+						LOGGER.info(String.format("%d,%d RM\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 					/* Then remove the minutia from list. */
 					if ((ret = getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae)) != ILfs.FALSE)
@@ -266,7 +265,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		List<Boolean> toRemoveIndexes;
 		int minutiaIndex, minutiaFIndex, minutiaSIndex, ret;
 		int deltaY, fullNDirs, qtrNDirs, deltaDir, minDeltaDir;
-		Minutia minutia1, minutia2;
+		Minutiae minutiae = oMinutiae.get();
 		double dDistance;
 
 		if (isShowLogs())
@@ -303,17 +302,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				if (isShowLogs())
 					LOGGER.info(String.format("\n"));
 
-				/* Set first minutia to temporary pointer. */
-				minutia1 = oMinutiae.get().getList().get(minutiaFIndex);
 				/* Foreach secondary (second) minutia to right of first minutia ... */
 				minutiaSIndex = minutiaFIndex + 1;
 				while (minutiaSIndex < oMinutiae.get().getNum())
 				{
-					/* Set second minutia to temporary pointer. */
-					minutia2 = oMinutiae.get().getList().get(minutiaSIndex);
-
 					if (isShowLogs())
-						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", minutiaFIndex, minutia1.getX(), minutia1.getY(), minutia1.getType(), minutiaSIndex, minutia2.getX(), minutia2.getY(), minutia2.getType()));
+						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", minutiaFIndex, minutiae.getX(minutiaFIndex), minutiae.getY(minutiaFIndex), minutiae.getType(minutiaFIndex), minutiaSIndex, minutiae.getX(minutiaSIndex), minutiae.getY(minutiaSIndex), minutiae.getType(minutiaSIndex)));
 
 					/* The binary image is potentially being edited during each */
 					/* iteration of the secondary minutia loop, therefore       */
@@ -322,7 +316,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 					/* If the first minutia's pixel has been previously changed... */
 					//if (*(binarizedImageData.argValue + (minutia1.y * imageWidth) + minutia1.x) != minutia1.type)
-					if (binarizedImageData[(minutia1.getY() * imageWidth) + minutia1.getX()] != minutia1.getType())
+					if (binarizedImageData[(minutiae.getY(minutiaFIndex) * imageWidth) + minutiae.getX(minutiaFIndex)] != minutiae.getType(minutiaFIndex))
 					{
 						if (isShowLogs())
 							LOGGER.info(String.format("\n"));
@@ -332,7 +326,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 					/* If the second minutia's pixel has been previously changed... */
 					//if (*(binarizedImageData.argValue + (minutia2.y * imageWidth) + minutia2.x) != minutia2.type)
-					if (binarizedImageData [(minutia2.getY() * imageWidth) + minutia2.getX()] != minutia2.getType())
+					if (binarizedImageData [(minutiae.getY(minutiaSIndex) * imageWidth) + minutiae.getX(minutiaSIndex)] != minutiae.getType(minutiaSIndex))
 					{
 						/* Set to remove second minutia. */
 						toRemoveIndexes.set(minutiaSIndex, true);
@@ -342,7 +336,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					if (!toRemoveIndexes.get(minutiaSIndex))
 					{
 						/* Compute delta y between 1st & 2nd minutiae and test. */
-						deltaY = minutia2.getY() - minutia1.getY();
+						deltaY = minutiae.getY(minutiaSIndex) - minutiae.getY(minutiaFIndex);
 						/* If delta y small enough (ex. < 8 pixels) ... */
 						if (deltaY <= lfsParams.getMaxRmTestDist())
 						{
@@ -350,8 +344,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								LOGGER.info(String.format("1DY "));
 
 							/* Compute Euclidean distance between 1st & 2nd mintuae. */
-							dDistance = getLfsUtil().distance(minutia1.getX(), minutia1.getY(), 
-								minutia2.getX(), minutia2.getY());
+							dDistance = getLfsUtil().distance(minutiae.getX(minutiaFIndex), minutiae.getY(minutiaFIndex), 
+								minutiae.getX(minutiaSIndex), minutiae.getY(minutiaSIndex));
 							/* If distance is NOT too large (ex. < 8 pixels) ... */
 							if (dDistance <= lfsParams.getMaxRmTestDist())
 							{
@@ -360,8 +354,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 								/* Compute "inner" difference between directions on */
 								/* a full circle and test.                          */
-								if ((deltaDir = getLfsUtil().closestDirDistance(minutia1.getDirection(), 
-									minutia2.getDirection(), fullNDirs)) == ILfs.INVALID_DIR)
+								if ((deltaDir = getLfsUtil().closestDirDistance(minutiae.getDirection(minutiaFIndex), 
+									minutiae.getDirection(minutiaSIndex), fullNDirs)) == ILfs.INVALID_DIR)
 								{
 									getFree().free(toRemoveIndexes);
 									LOGGER.info(String.format("ERROR : removeHooks : INVALID direction\n"));
@@ -376,12 +370,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										LOGGER.info(String.format("3DD "));
 
 									/* If 1st & 2nd minutiae are NOT same type ... */
-									if (minutia1.getType() != minutia2.getType())
+									if (minutiae.getType(minutiaFIndex) != minutiae.getType(minutiaSIndex))
 									{
 										/* Check to see if pair on a hook with contour */
 										/* of specified length (ex. 15 pixels) ...     */
 
-										ret = getLoop().onHook(minutia1, minutia2, lfsParams.getMaxHookLen(), 
+										ret = getLoop().onHook(minutiae.getMinutia(minutiaFIndex), minutiae.getMinutia(minutiaSIndex), lfsParams.getMaxHookLen(), 
 											binarizedImageData, imageWidth, imageHeight);
 										/* If hook detected between pair ... */
 										if (ret == ILfs.HOOK_FOUND)
@@ -517,7 +511,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		int ret;
 		int deltaY, fullNDirs, qtrNDirs, deltaDir, minDeltaDir;
 		AtomicInteger oNoOfLoop = new AtomicInteger(0);
-		Minutia firstMinutia, secondMinutia;
+		Minutiae minutiae = oMinutiae.get();
 		double dDistance;
 
 		if (isShowLogs())
@@ -550,17 +544,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				if (isShowLogs())
 					LOGGER.info(String.format("\n"));
 
-				/* Set first minutia to temporary pointer. */
-				firstMinutia = oMinutiae.get().getList().get(firstMinutiaIndex);
 				/* Foreach secondary (second) minutia to right of first minutia ... */
 				secondMinutiaIndex = firstMinutiaIndex + 1;
 				while (secondMinutiaIndex < oMinutiae.get().getNum())
 				{
-					/* Set second minutia to temporary pointer. */
-					secondMinutia = oMinutiae.get().getList().get(secondMinutiaIndex);
-
 					if (isShowLogs())
-						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, firstMinutia.getX(), firstMinutia.getY(), firstMinutia.getType(), secondMinutiaIndex, secondMinutia.getX(), secondMinutia.getY(), secondMinutia.getType()));
+						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getType(firstMinutiaIndex), secondMinutiaIndex, minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), minutiae.getType(secondMinutiaIndex)));
 
 					/* The binary image is potentially being edited during each */
 					/* iteration of the secondary minutia loop, therefore       */
@@ -568,7 +557,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					/* these events by using the next 2 tests.                  */
 
 					/* If the first minutia's pixel has been previously changed... */
-					if (binarizedImageData[(firstMinutia.getY() * imageWidth) + firstMinutia.getX()] != firstMinutia.getType())
+					if (binarizedImageData[(minutiae.getY(firstMinutiaIndex) * imageWidth) + minutiae.getX(firstMinutiaIndex)] != minutiae.getType(firstMinutiaIndex))
 					{
 						if (isShowLogs())
 							LOGGER.info(String.format("\n"));
@@ -577,7 +566,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					}
 
 					/* If the second minutia's pixel has been previously changed... */
-					if (binarizedImageData[(secondMinutia.getY() * imageWidth) + secondMinutia.getX()] != secondMinutia.getType())
+					if (binarizedImageData[(minutiae.getY(secondMinutiaIndex) * imageWidth) + minutiae.getX(secondMinutiaIndex)] != minutiae.getType(secondMinutiaIndex))
 					{
 						/* Set to remove second minutia. */
 						toRemoveIndexes.set(secondMinutiaIndex, true);
@@ -587,7 +576,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					if (!toRemoveIndexes.get(secondMinutiaIndex))
 					{
 						/* Compute delta y between 1st & 2nd minutiae and test. */
-						deltaY = secondMinutia.getY() - firstMinutia.getY();
+						deltaY = minutiae.getY(secondMinutiaIndex) - minutiae.getY(firstMinutiaIndex);
 						/* If delta y small enough (ex. < 8 pixels) ... */
 						if (deltaY <= lfsParams.getMaxRmTestDist())
 						{
@@ -595,8 +584,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								LOGGER.info(String.format("1DY "));
 
 							/* Compute Euclidean distance between 1st & 2nd mintuae. */
-							dDistance = this.getLfsUtil().distance(firstMinutia.getX(), firstMinutia.getY(), 
-								secondMinutia.getX(), secondMinutia.getY());
+							dDistance = this.getLfsUtil().distance(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), 
+								minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex));
 							/* If distance is NOT too large (ex. < 8 pixels) ... */
 							if (dDistance <= lfsParams.getMaxRmTestDist())
 							{
@@ -605,8 +594,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 								/* Compute "inner" difference between directions on */
 								/* a full circle and test.                          */
-								if ((deltaDir = this.getLfsUtil().closestDirDistance(firstMinutia.getDirection(), 
-									secondMinutia.getDirection(), fullNDirs)) == ILfs.INVALID_DIR)
+								if ((deltaDir = this.getLfsUtil().closestDirDistance(minutiae.getDirection(firstMinutiaIndex), 
+									minutiae.getDirection(secondMinutiaIndex), fullNDirs)) == ILfs.INVALID_DIR)
 								{
 									getFree().free(toRemoveIndexes);
 									LOGGER.error(String.format("ERROR : removeHooksIslandsLakesOverlaps : INVALID direction\n"));
@@ -621,11 +610,11 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										LOGGER.info(String.format("3DD "));
 
 									/* If 1st & 2nd minutiae are NOT same type ... */
-									if (firstMinutia.getType() != secondMinutia.getType())
+									if (minutiae.getType(firstMinutiaIndex) != minutiae.getType(secondMinutiaIndex))
 									{
 										/* Check to see if pair on a hook with contour */
 										/* of specified length (ex. 15 pixels) ...     */
-										ret = this.getLoop().onHook(firstMinutia, secondMinutia, 
+										ret = this.getLoop().onHook(minutiae.getMinutia(firstMinutiaIndex), minutiae.getMinutia(secondMinutiaIndex), 
 											lfsParams.getMaxHookLen(), binarizedImageData, imageWidth, imageHeight);
 										/* If hook detected between pair ... */
 										if (ret == ILfs.HOOK_FOUND)
@@ -672,7 +661,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										/* half length (ex. 15 pixels) ...             */
 										AtomicInteger returnCode = new AtomicInteger(0);
 										Contour contour = getLoop().onIslandLake(returnCode, oNoOfLoop, 
-											firstMinutia, secondMinutia, lfsParams.getMaxHalfLoop(), 
+											minutiae.getMinutia(firstMinutiaIndex), minutiae.getMinutia(secondMinutiaIndex), lfsParams.getMaxHalfLoop(), 
 											binarizedImageData, imageWidth, imageHeight);
 										ret = returnCode.get();
 										/* If pair is on island/lake ... */
@@ -719,8 +708,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										else
 										{
 											/* If free path exists between pair ... */
-											if (getImageUtil().freePath(firstMinutia.getX(), firstMinutia.getY(), 
-												secondMinutia.getX(), secondMinutia.getY(), 
+											if (getImageUtil().freePath(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), 
+												minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), 
 												binarizedImageData, imageWidth, imageHeight, lfsParams) != ILfs.FALSE)
 											{
 												if (isShowLogs())
@@ -728,7 +717,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 												/* Then assume overlap, so ...             */
 												/* Join first and second minutiae in image. */
-												if ((ret = this.getMinutiaHelper().joinMinutia(firstMinutia, secondMinutia, 
+												if ((ret = this.getMinutiaHelper().joinMinutia(minutiae.getMinutia(firstMinutiaIndex), minutiae.getMinutia(secondMinutiaIndex), 
 													binarizedImageData, imageWidth, imageHeight, 
 													ILfs.NO_BOUNDARY, ILfs.JOIN_LINE_RADIUS)) != ILfs.FALSE)
 												{
@@ -839,8 +828,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		int deltaY, fullNDirs, qtrNDirs, deltaDir, minDeltaDir;
 		Contour contour;
 		AtomicInteger nloop = new AtomicInteger(0);
-		AtomicReference<Minutia> oFirstMinutia = new AtomicReference<Minutia>(), 
-			oSecondMinutia = new AtomicReference<Minutia>();
+		Minutiae minutiae = oMinutiae.get();
 		double dist;
 		int distThresh;
 		int halfLoop;
@@ -876,21 +864,15 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 			/* If current first minutia not previously set to be removed. */
 			if (toRemoveIndexes[firstMinutiaIndex] != ILfs.TRUE)
 			{
-				/* Set first minutia to temporary pointer. */
-				oFirstMinutia.set(oMinutiae.get().getList().get(firstMinutiaIndex));
-
 				/* Foreach secondary minutia to right of first minutia ... */
 				secondMinutiaIndex = firstMinutiaIndex + 1;
 				while (secondMinutiaIndex < oMinutiae.get().getNum())
 				{
-					/* Set second minutia to temporary pointer. */
-					oSecondMinutia.set(oMinutiae.get().getList().get(secondMinutiaIndex));
-
 					/* If the secondary minutia is desired type ... */
-					if (oSecondMinutia.get().getType() == oFirstMinutia.get().getType())
+					if (minutiae.getType(secondMinutiaIndex) == minutiae.getType(firstMinutiaIndex))
 					{
 						if (isShowLogs())
-							LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oFirstMinutia.get().getType(), secondMinutiaIndex, oSecondMinutia.get().getX(), oSecondMinutia.get().getY(), oSecondMinutia.get().getType()));
+							LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getType(firstMinutiaIndex), secondMinutiaIndex, minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), minutiae.getType(secondMinutiaIndex)));
 
 						/* The binary image is potentially being edited during   */
 						/* each iteration of the secondary minutia loop,         */
@@ -899,7 +881,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 						/* If the first minutia's pixel has been previously */
 						/* changed...                                       */
-						if (binarizedImageData [(oFirstMinutia.get().getY() * imageWidth) + oFirstMinutia.get().getX()] != oFirstMinutia.get().getType())
+						if (binarizedImageData [(minutiae.getY(firstMinutiaIndex) * imageWidth) + minutiae.getX(firstMinutiaIndex)] != minutiae.getType(firstMinutiaIndex))
 						{
 							if (isShowLogs())
 								LOGGER.info("\n");
@@ -910,7 +892,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 						/* If the second minutia's pixel has been previously */
 						/* changed...                                        */
-						if (binarizedImageData [(oSecondMinutia.get().getY() * imageWidth) + oSecondMinutia.get().getX()] != oSecondMinutia.get().getType())
+						if (binarizedImageData [(minutiae.getY(secondMinutiaIndex) * imageWidth) + minutiae.getX(secondMinutiaIndex)] != minutiae.getType(secondMinutiaIndex))
 						{
 							/* Set to remove second minutia. */
 							toRemoveIndexes[secondMinutiaIndex] = ILfs.TRUE;
@@ -920,7 +902,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						if (toRemoveIndexes[secondMinutiaIndex] == ILfs.FALSE)
 						{
 							/* Compute delta y between 1st & 2nd minutiae and test. */
-							deltaY = oSecondMinutia.get().getY() - oFirstMinutia.get().getY();
+							deltaY = minutiae.getY(secondMinutiaIndex) - minutiae.getY(firstMinutiaIndex);
 							/* If delta y small enough (ex. <16 pixels)... */
 							if (deltaY <= distThresh)
 							{
@@ -929,7 +911,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 								/* Compute Euclidean distance between 1st & 2nd */
 								/* mintuae.                                     */
-								dist = getLfsUtil().distance(oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oSecondMinutia.get().getX(), oSecondMinutia.get().getY());
+								dist = getLfsUtil().distance(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex));
 
 								/* If distance is NOT too large (ex. <16 pixels)... */
 								if (dist <= distThresh)
@@ -940,8 +922,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 									/* Compute "inner" difference between directions */
 									/* on a full circle and test.                    */
 									if ((deltaDir = 
-											getLfsUtil().closestDirDistance(oFirstMinutia.get().getDirection(), 
-											oSecondMinutia.get().getDirection(), fullNDirs)) 
+											getLfsUtil().closestDirDistance(minutiae.getDirection(firstMinutiaIndex), 
+											minutiae.getDirection(secondMinutiaIndex), fullNDirs)) 
 										== ILfs.INVALID_DIR)
 									{
 										toRemoveIndexes = null;
@@ -963,7 +945,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 										/* Check to see if pair on a loop of specified */
 										/* half length (ex. 30 pixels) ...             */
-										contour = getLoop().onIslandLake(ret, nloop, oFirstMinutia.get(), oSecondMinutia.get(),
+										contour = getLoop().onIslandLake(ret, nloop, minutiae.getMinutia(firstMinutiaIndex), minutiae.getMinutia(secondMinutiaIndex),
 											halfLoop, binarizedImageData, imageWidth, imageHeight);
 										 
 										/* If pair is on island/lake ... */
@@ -1102,11 +1084,11 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 	      Negative - system error
 	**************************************************************************/
 	public int removeMalformations(AtomicReference<Minutiae> oMinutiae, 
-		int[] binarizedImageData, int imageWidth, int imageHeight, AtomicIntegerArray oLowFlowMap, 
+		int[] binarizedImageData, int imageWidth, int imageHeight, BitBlockMap oLowFlowMap, 
 		int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams) {
 		int minutiaIndex, j;
 		AtomicInteger ret = new AtomicInteger(0);
-		AtomicReference<Minutia> oMinutia = new AtomicReference<Minutia>();
+		Minutiae minutiae = oMinutiae.get();
 		Contour contour = null;
 		AtomicInteger oNoOfContour = new AtomicInteger(0);
 		
@@ -1127,11 +1109,10 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 		for (minutiaIndex = oMinutiae.get().getNum()- 1; minutiaIndex >= 0; minutiaIndex--)
 		{
-			oMinutia.set(oMinutiae.get().getList().get(minutiaIndex));
 			
 			contour = getContour().traceContour(ret, oNoOfContour, lfsParams.getMalformationSteps2(), 
-				oMinutia.get().getX(), oMinutia.get().getY(), oMinutia.get().getX(), 
-				oMinutia.get().getY(), oMinutia.get().getEx(), oMinutia.get().getEy(), 
+				minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex), minutiae.getX(minutiaIndex), 
+				minutiae.getY(minutiaIndex), minutiae.getEx(minutiaIndex), minutiae.getEy(minutiaIndex), 
 				ILfs.SCAN_COUNTER_CLOCKWISE, binarizedImageData, imageWidth, imageHeight);
 			/* If system error occurred during trace ... */
 			if (ret.get() < ILfs.FALSE)
@@ -1154,7 +1135,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				}
 
 				if (isShowLogs())
-					LOGGER.info(String.format("%d,%d RMA\n", oMinutia.get().getX(), oMinutia.get().getY()));
+					LOGGER.info(String.format("%d,%d RMA\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 				/* Then remove the minutia. */
 				ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -1179,8 +1160,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				getContour().freeContour(contour);
 
 				contour = getContour().traceContour(ret, oNoOfContour, lfsParams.getMalformationSteps2(), 
-					oMinutia.get().getX(), oMinutia.get().getY(), oMinutia.get().getX(), 
-					oMinutia.get().getY(), oMinutia.get().getEx(), oMinutia.get().getEy(), 
+					minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex), minutiae.getX(minutiaIndex), 
+					minutiae.getY(minutiaIndex), minutiae.getEx(minutiaIndex), minutiae.getEy(minutiaIndex), 
 					ILfs.SCAN_CLOCKWISE, binarizedImageData, imageWidth, imageHeight);
 				/* If system error occurred during trace ... */
 				if (ret.get() < ILfs.FALSE)
@@ -1202,7 +1183,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					}
 
 					if (isShowLogs())
-						LOGGER.info(String.format("%d,%d RMB\n", oMinutia.get().getX(), oMinutia.get().getY()));
+						LOGGER.info(String.format("%d,%d RMB\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 					/* Then remove the minutia. */
 					ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -1231,8 +1212,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					bDist = getLfsUtil().distance(bx1, by1, bx2, by2);
 
 					/* Compute block coords from minutia's pixel location. */
-					blockX = oMinutia.get().getX() / lfsParams.getBlockSize();
-					blockY = oMinutia.get().getY() / lfsParams.getBlockSize();
+					blockX = minutiae.getX(minutiaIndex) / lfsParams.getBlockSize();
+					blockY = minutiae.getY(minutiaIndex) / lfsParams.getBlockSize();
 
 					removed = ILfs.FALSE;
 
@@ -1241,7 +1222,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					{
 						/* Remove the malformation minutia. */
 						if (isShowLogs())
-							LOGGER.info(String.format("%d,%d RMMAL1\n", oMinutia.get().getX(), oMinutia.get().getY()));
+							LOGGER.info(String.format("%d,%d RMMAL1\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 						ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
 						if (ret.get() != ILfs.FALSE)
@@ -1264,7 +1245,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 							{
 								/* Remove the malformation minutia. */
 								if (isShowLogs())
-									LOGGER.info(String.format("%d,%d RMMAL2\n", oMinutia.get().getX(), oMinutia.get().getY()));
+									LOGGER.info(String.format("%d,%d RMMAL2\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 								ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
 								if (ret.get() != ILfs.FALSE)
@@ -1291,7 +1272,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						for (j = 0; j < num.get(); j++)
 						{
 							/* If B path contains pixel opposite minutia type ... */
-							if (binarizedImageData [(yList[j] * imageWidth) + xList[j]] != oMinutia.get().getType())
+							if (binarizedImageData [(yList[j] * imageWidth) + xList[j]] != minutiae.getType(minutiaIndex))
 							{
 								/* Compute ratio of A & B path lengths. */
 								ratio = bDist / aDist;
@@ -1304,7 +1285,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 									/* Remove the malformation minutia. */
 									/* Then remove the minutia. */
 									if (isShowLogs())
-										LOGGER.info(String.format("%d,%d RMMAL3\n", oMinutia.get().getX(), oMinutia.get().getY()));
+										LOGGER.info(String.format("%d,%d RMMAL3\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 									ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
 									if (ret.get() != ILfs.FALSE)
@@ -1347,14 +1328,14 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int removeNearInvblocksV2(AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray directionMap, 
+	public int removeNearInvblocksV2(AtomicReference<Minutiae> oMinutiae, ByteBlockMap directionMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		int minutiaIndex, ret;
 		int ni, nbx, nby, nvalid;
 		int ix, iy, sbi, ebi;
 		int bx, by, px, py;
 		boolean removed;
-		Minutia minutia;
+		Minutiae minutiae = oMinutiae.get();
 		int lowMargin, highMargin;
 
 		/* The next 2 lookup tables are indexed by 'ix' and 'iy'. */
@@ -1438,12 +1419,9 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		/* Foreach minutia remaining in the list ... */
 		while (minutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Assign temporary minutia pointer. */
-			minutia = oMinutiae.get().getList().get(minutiaIndex);
-
 			/* Compute block coords from minutia's pixel location. */
-			bx = minutia.getX() / lfsParams.getBlockSize();
-			by = minutia.getY() / lfsParams.getBlockSize();
+			bx = minutiae.getX(minutiaIndex) / lfsParams.getBlockSize();
+			by = minutiae.getY(minutiaIndex) / lfsParams.getBlockSize();
 
 			/* Compute pixel offset into the image block corresponding to the */
 			/* minutia's pixel location.                                      */
@@ -1453,8 +1431,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 			/* even multiple of 'blocksize' and we are processing minutia     */
 			/* located in the right-most column (or bottom-most row) of       */
 			/* blocks.  I don't think this will pose a problem in practice.   */
-			px = minutia.getX() % lfsParams.getBlockSize();
-			py = minutia.getY() % lfsParams.getBlockSize();
+			px = minutiae.getX(minutiaIndex) % lfsParams.getBlockSize();
+			py = minutiae.getY(minutiaIndex) % lfsParams.getBlockSize();
 
 			/* Determine if x pixel offset into the block is in the margins. */
 			/* If x pixel offset is in left margin ... */
@@ -1516,7 +1494,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						(nby < 0) || (nby >= mappedImageHeight))
 					{
 						if (isShowLogs())
-							LOGGER.info(String.format("%d,%d RM1\n", minutia.getX(), minutia.getY()));
+							LOGGER.info(String.format("%d,%d RM1\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 						/* Then the minutia is in a margin adjacent to the edge of */
 						/* the image.                                              */
@@ -1549,7 +1527,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						if (nvalid < lfsParams.getRmValidNbrMin())
 						{
 							if (isShowLogs())
-								LOGGER.info(String.format("%d,%d RM2\n", minutia.getX(), minutia.getY()));
+								LOGGER.info(String.format("%d,%d RM2\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 							/* Then remove the current minutia from the list. */
 							if ((ret = getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae)) != ILfs.FALSE)
@@ -1603,12 +1581,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 	      Zero     - successful completion
 	      Negative - system error
 	**************************************************************************/
-	public int removePointingInvblockV2(AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray directionMap, 
+	public int removePointingInvblockV2(AtomicReference<Minutiae> oMinutiae, ByteBlockMap directionMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		int minutiaIndex, ret;
 		int deltaX, deltaY, dMapValue;
 		int nx, ny, bx, by;
-		Minutia minutia;
+		Minutiae minutiae = oMinutiae.get();
 		double piFactor, theta;
 		double dx, dy;
 
@@ -1622,10 +1600,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		/* Foreach minutia remaining in list ... */
 		while (minutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Set temporary minutia pointer. */
-			minutia = oMinutiae.get().getList().get(minutiaIndex);
 			/* Convert minutia's direction to radians. */
-			theta = minutia.getDirection() * piFactor;
+			theta = minutiae.getDirection(minutiaIndex) * piFactor;
 			/* Compute translation offsets (ex. 6 pixels). */
 			dx = Math.sin(theta) * (double)lfsParams.getTransDirPixel();
 			dy = Math.cos(theta) * (double)lfsParams.getTransDirPixel();
@@ -1636,8 +1612,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 			deltaX = getDefs().sRound(dx);
 			deltaY = getDefs().sRound(dy);
 			/* Translate the minutia's coords. */
-			nx = minutia.getX() - deltaX;
-			ny = minutia.getY() + deltaY;
+			nx = minutiae.getX(minutiaIndex) - deltaX;
+			ny = minutiae.getY(minutiaIndex) + deltaY;
 			/* Convert pixel coords to NMAP block coords. */
 			bx = (int)(nx / lfsParams.getBlockSize());
 			by = (int)(ny / lfsParams.getBlockSize());
@@ -1650,12 +1626,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 			by = Math.min(mappedImageHeight - 1, by);
 
 			/* Get corresponding block's ridge flow direction. */
-			dMapValue = getPixelValueFromAtomicArray(directionMap, bx, by, mappedImageWidth, mappedImageHeight);
+			dMapValue = getPixelValueFromBlockMap(directionMap, bx, by, mappedImageWidth, mappedImageHeight);
 			/* If the NMAP value of translated minutia point is INVALID ... */
 			if (dMapValue == ILfs.INVALID_DIR)
 			{
 				if (isShowLogs())
-					LOGGER.info(String.format("%d,%d RM\n", minutia.getX(), minutia.getY()));
+					LOGGER.info(String.format("%d,%d RM\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 				/* Remove the minutia from the minutiae list. */
 				if ((ret = getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae)) 
@@ -1701,8 +1677,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		int minutiaIndex, firstMinutiaIndex, secondMinutiaIndex;
 		AtomicInteger ret = new AtomicInteger(0);
 		int deltaY, fullNDirs, qtrNDirs, deltaDir, minDeltaDir;
-		AtomicReference<Minutia> oFirstMinutia = new AtomicReference<Minutia>(), 
-			oSecondMinutia = new AtomicReference<Minutia>();
+		Minutiae minutiae = oMinutiae.get();
 		double dDistance;
 		int joinDir, opp1Dir, halfNDirs;
 
@@ -1738,17 +1713,12 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				if (isShowLogs())
 					LOGGER.info("\n");
 
-				/* Set first minutia to temporary pointer. */
-				oFirstMinutia.set(oMinutiae.get().getList().get(firstMinutiaIndex));
 				/* Foreach secondary (second) minutia to right of first minutia ... */
 				secondMinutiaIndex = firstMinutiaIndex + 1;
 				while (secondMinutiaIndex < oMinutiae.get().getNum())
 				{
-					/* Set second minutia to temporary pointer. */
-					oSecondMinutia.set(oMinutiae.get().getList().get(secondMinutiaIndex));
-
 					if (isShowLogs())
-						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oFirstMinutia.get().getType(), secondMinutiaIndex, oSecondMinutia.get().getX(), oSecondMinutia.get().getY(), oSecondMinutia.get().getType()));
+						LOGGER.info(String.format("1:%d(%d,%d)%d 2:%d(%d,%d)%d ", firstMinutiaIndex, minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getType(firstMinutiaIndex), secondMinutiaIndex, minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), minutiae.getType(secondMinutiaIndex)));
 
 					/* The binary image is potentially being edited during each */
 					/* iteration of the secondary minutia loop, therefore       */
@@ -1757,7 +1727,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 					/* If the first minutia's pixel has been previously changed... */
 					//if (*(binarizedImageData + (minutia1.y * imageWidth) + minutia1.x) != minutia1.type)
-					if (binarizedImageData [(oFirstMinutia.get().getY() * imageWidth) + oFirstMinutia.get().getX()] != oFirstMinutia.get().getType())
+					if (binarizedImageData [(minutiae.getY(firstMinutiaIndex) * imageWidth) + minutiae.getX(firstMinutiaIndex)] != minutiae.getType(firstMinutiaIndex))
 					{
 						if (isShowLogs())
 							LOGGER.info("\n");
@@ -1767,8 +1737,8 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 					/* If the second minutia's pixel has been previously changed... */
 					//if (*(binarizedImageData + (minutia2.y * imageWidth) + minutia2.x) != minutia2.type)
-					if (binarizedImageData [(oSecondMinutia.get().getY() * imageWidth) + oSecondMinutia.get().getX()] != 
-						oSecondMinutia.get().getType())
+					if (binarizedImageData [(minutiae.getY(secondMinutiaIndex) * imageWidth) + minutiae.getX(secondMinutiaIndex)] != 
+						minutiae.getType(secondMinutiaIndex))
 					{
 						/* Set to remove second minutia. */
 						toRemoveIndexes[secondMinutiaIndex] = ILfs.TRUE;
@@ -1778,7 +1748,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					if (toRemoveIndexes[secondMinutiaIndex] != ILfs.TRUE)
 					{
 						/* Compute delta y between 1st & 2nd minutiae and test. */
-						deltaY = oSecondMinutia.get().getY() - oFirstMinutia.get().getY();
+						deltaY = minutiae.getY(secondMinutiaIndex) - minutiae.getY(firstMinutiaIndex);
 						/* If delta y small enough (ex. < 8 pixels) ... */
 						if (deltaY <= lfsParams.getMaxOverlapDist())
 						{
@@ -1786,7 +1756,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								LOGGER.info("1DY ");
 
 							/* Compute Euclidean distance between 1st & 2nd mintuae. */
-							dDistance = getLfsUtil().distance(oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oSecondMinutia.get().getX(), oSecondMinutia.get().getY());
+							dDistance = getLfsUtil().distance(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex));
 							/* If distance is NOT too large (ex. < 8 pixels) ... */
 							if (dDistance <= lfsParams.getMaxOverlapDist())
 							{
@@ -1795,7 +1765,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 
 								/* Compute "inner" difference between directions on */
 								/* a full circle and test.                          */
-								if ((deltaDir = getLfsUtil().closestDirDistance(oFirstMinutia.get().getDirection(), oSecondMinutia.get().getDirection(), fullNDirs)) == ILfs.INVALID_DIR)
+								if ((deltaDir = getLfsUtil().closestDirDistance(minutiae.getDirection(firstMinutiaIndex), minutiae.getDirection(secondMinutiaIndex), fullNDirs)) == ILfs.INVALID_DIR)
 								{
 									toRemoveIndexes = null;
 									LOGGER.error("ERROR : removeOverlaps : INVALID direction\n");
@@ -1810,7 +1780,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										LOGGER.info("3DD ");
 
 									/* If 1st & 2nd minutiae are same type ... */
-									if (oFirstMinutia.get().getType() == oSecondMinutia.get().getType())
+									if (minutiae.getType(firstMinutiaIndex) == minutiae.getType(secondMinutiaIndex))
 									{
 										/* Test to see if both are on opposite sides */
 										/* of an overlap.                            */
@@ -1818,10 +1788,10 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										/* Compute direction of "joining" vector.      */
 										/* First, compute direction of line from first */
 										/* to second minutia points.                   */
-										joinDir = getLfsUtil().lineToDirection(oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oSecondMinutia.get().getX(), oSecondMinutia.get().getY(), lfsParams.getNumDirections());
+										joinDir = getLfsUtil().lineToDirection(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), lfsParams.getNumDirections());
 
 										/* Comptue opposite direction of first minutia. */
-										opp1Dir = (oFirstMinutia.get().getDirection() + lfsParams.getNumDirections()) % fullNDirs;
+										opp1Dir = (minutiae.getDirection(firstMinutiaIndex) + lfsParams.getNumDirections()) % fullNDirs;
 										/* Take "inner" distance on full circle between */
 										/* the first minutia's opposite direction and   */
 										/* the joining direction.                       */
@@ -1835,7 +1805,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										/*    the 2 points are sufficiently close AND */
 										/*    a free path exists between pair ...     */
 										if (((joinDir <= halfNDirs) || (dDistance <= lfsParams.getMaxOverlapJoinDist())) 
-												&& getImageUtil().freePath(oFirstMinutia.get().getX(), oFirstMinutia.get().getY(), oSecondMinutia.get().getX(), oSecondMinutia.get().getY(), binarizedImageData, imageWidth, imageHeight, lfsParams) == ILfs.TRUE)
+												&& getImageUtil().freePath(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex), binarizedImageData, imageWidth, imageHeight, lfsParams) == ILfs.TRUE)
 										{
 											if (isShowLogs())
 												LOGGER.info("4OV RM\n");
@@ -1947,7 +1917,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 	**************************************************************************/
 	public int removePoresV2(AtomicReference<Minutiae> oMinutiae, 
 		int[] binarizedImageData, int imageWidth, int imageHeight, 
-		AtomicIntegerArray oDirectionMap, AtomicIntegerArray oLowFlowMap, AtomicIntegerArray oHighCurveMap, 
+		ByteBlockMap oDirectionMap, BitBlockMap oLowFlowMap, BitBlockMap oHighCurveMap, 
 		int mappedImageWidth, int mappedImageHeight, LfsParams lfsParams) {
 		int minutiaIndex;
 		AtomicInteger ret = new AtomicInteger(0);
@@ -1959,7 +1929,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		AtomicInteger qx = new AtomicInteger(0), qy = new AtomicInteger(0), 
 			qex = new AtomicInteger(0), qey = new AtomicInteger(0);
 		int ax, ay, cx, cy;
-		AtomicReference<Minutia> minutia = new AtomicReference<Minutia>();
+		Minutiae minutiae = oMinutiae.get();
 		double piFactor, theta, sinTheta, cosTheta;
 		double ab2, cd2, ratio;
 		Contour contour = null;
@@ -2007,15 +1977,13 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		/* Foreach minutia remaining in the list ... */
 		while (minutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Set temporary minutia pointer. */
-			minutia.set(oMinutiae.get().getList().get(minutiaIndex));
 			
 			/* Initialize remove flag to FALSE. */
 			removed = ILfs.FALSE;
 		      
 			/* Compute block coords from minutia point. */
-			blockX = minutia.get().getX() / lfsParams.getBlockSize();
-			blockY = minutia.get().getY() / lfsParams.getBlockSize();
+			blockX = minutiae.getX(minutiaIndex) / lfsParams.getBlockSize();
+			blockY = minutiae.getY(minutiaIndex) / lfsParams.getBlockSize();
 
 			/* If minutia in LOW RIDGE FLOW or HIGH CURVATURE block */
 			/* with a valid direction ...                           */
@@ -2024,14 +1992,14 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				(oDirectionMap.get((blockY * mappedImageWidth) + blockX) >= ILfs.FALSE))
 			{
 				/* Compute radian angle from minutia direction. */
-				theta = (double)minutia.get().getDirection() * piFactor;
+				theta = (double)minutiae.getDirection(minutiaIndex) * piFactor;
 				/* Compute sine and cosine factors of this angle. */
 				sinTheta = Math.sin(theta);
 				cosTheta = Math.cos(theta);
 				/* Translate the minutia point (ex. 3 pixels) in opposite */
 				/* direction minutia is pointing.  Call this point 'R'.   */
-				drx = (double)minutia.get().getX() - (sinTheta * (double)lfsParams.getPoresTransR());
-				dry = (double)minutia.get().getY() + (cosTheta * (double)lfsParams.getPoresTransR());
+				drx = (double)minutiae.getX(minutiaIndex) - (sinTheta * (double)lfsParams.getPoresTransR());
+				dry = (double)minutiae.getY(minutiaIndex) + (cosTheta * (double)lfsParams.getPoresTransR());
 
 				/* Need to truncate precision so that answers are consistent */
 				/* on different computer architectures when rounding doubles. */
@@ -2041,14 +2009,14 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				ry = getDefs().sRound(dry);
 
 				/* If 'R' is opposite color from minutia type ... */
-				if (binarizedImageData[(ry * imageWidth) + rx] != minutia.get().getType())
+				if (binarizedImageData[(ry * imageWidth) + rx] != minutiae.getType(minutiaIndex))
 				{
 					/* Search a specified number of steps (ex. 12) from 'R' in a */
 					/* perpendicular direction from the minutia direction until  */
 					/* the first white pixel is found.  If a white pixel is      */
 					/* found within the specified number of steps, then call     */
 					/* this point 'P' (storing the point's edge pixel as well).  */
-					if (getImageUtil().searchInDirection(px, py, pex, pey, minutia.get().getType(), 
+					if (getImageUtil().searchInDirection(px, py, pex, pey, minutiae.getType(minutiaIndex), 
 						rx, ry, -cosTheta, -sinTheta, lfsParams.getPoresPerpSteps(), 
 						binarizedImageData, imageWidth, imageHeight) != ILfs.FALSE)
 					{
@@ -2077,7 +2045,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 							}
 
 							if (isShowLogs())
-								LOGGER.info(String.format("%d,%d RMB\n", minutia.get().getX(), minutia.get().getY()));
+								LOGGER.info(String.format("%d,%d RMB\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 							/* Then remove the minutia. */
 							ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2125,7 +2093,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								}
 
 								if (isShowLogs())
-									LOGGER.info(String.format("%d,%d RMD\n", minutia.get().getX(), minutia.get().getY()));
+									LOGGER.info(String.format("%d,%d RMD\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 								/* Then remove the minutia. */
 								ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2152,7 +2120,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								/* white pixel is found within the specified number */
 								/* of steps, then call this point 'Q' (storing the  */
 								/* point's edge pixel as well).                     */
-								if (getImageUtil().searchInDirection(qx, qy, qex, qey, minutia.get().getType(), 
+								if (getImageUtil().searchInDirection(qx, qy, qex, qey, minutiae.getType(minutiaIndex), 
 									rx, ry, cosTheta, sinTheta, lfsParams.getPoresPerpSteps(), 
 									binarizedImageData, imageWidth, imageHeight) != ILfs.FALSE)
 								{
@@ -2184,7 +2152,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 										}
 
 										if (isShowLogs())
-											LOGGER.info(String.format("%d,%d RMA\n", minutia.get().getX(), minutia.get().getY()));
+											LOGGER.info(String.format("%d,%d RMA\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 										/* Then remove the minutia. */
 										ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2235,7 +2203,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 											}
 
 											if (isShowLogs())
-												LOGGER.info(String.format("%d,%d RMC\n", minutia.get().getX(), minutia.get().getY()));
+												LOGGER.info(String.format("%d,%d RMC\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 											/* Then remove the minutia. */
 											ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2275,7 +2243,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 												{
 													if (isShowLogs())
 													{
-														LOGGER.info(String.format("%d,%d", minutia.get().getX(), minutia.get().getY()));
+														LOGGER.info(String.format("%d,%d", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 														LOGGER.info(String.format("R=%d,%d P=%d,%d B=%d,%d D=%d,%d Q=%d,%d A=%d,%d C=%d,%d ", rx, ry, px.get(), py.get(), bx, by, dx, dy, qx.get(), qy.get(), ax, ay, cx, cy));
 														LOGGER.info(String.format("RMRATIO %f\n", ratio));
 													}
@@ -2299,7 +2267,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 								else
 								{
 									if (isShowLogs())
-										LOGGER.info(String.format("%d,%d RMQ\n", minutia.get().getX(), minutia.get().getY()));
+										LOGGER.info(String.format("%d,%d RMQ\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 									/* Then remove the minutia. */
 									ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2318,7 +2286,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					else
 					{
 						if (isShowLogs())
-							LOGGER.info(String.format("%d,%d RMP\n", minutia.get().getX(), minutia.get().getY()));
+							LOGGER.info(String.format("%d,%d RMP\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 						/* Then remove the minutia. */
 						ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2371,11 +2339,11 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 	      Negative - system error
 	**************************************************************************/
 	public int removeOrAdjustSideMinutiaeV2(AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, 
-		final int imageWidth, final int imageHeight, AtomicIntegerArray directionMap, 
+		final int imageWidth, final int imageHeight, ByteBlockMap directionMap, 
 		final int mappedImageWidth, final int mappedImageHeight, final LfsParams lfsParams) {
 		int minutiaIndex;
 		AtomicInteger ret = new AtomicInteger(0);
-		Minutia minutia;
+		Minutiae minutiae = oMinutiae.get();
 		double piFactor, theta, sinTheta, cosTheta;
 		Contour contour = null;
 		AtomicInteger oNoOfContour = new AtomicInteger(0);
@@ -2400,12 +2368,9 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 		/* Foreach minutia remaining in list ... */
 		while (minutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Assign a temporary pointer. */
-			minutia = oMinutiae.get().getList().get(minutiaIndex);
-
 			/* Extract a contour centered on the minutia point (ex. 7 pixels */
 			/* in both directions).                                          */
-			contour = getContour().getCenteredContour(ret, oNoOfContour, lfsParams.getSideHalfContour(), minutia.getX(), minutia.getY(), minutia.getEx(), minutia.getEy(), binarizedImageData, imageWidth, imageHeight);
+			contour = getContour().getCenteredContour(ret, oNoOfContour, lfsParams.getSideHalfContour(), minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex), minutiae.getEx(minutiaIndex), minutiae.getEy(minutiaIndex), binarizedImageData, imageWidth, imageHeight);
 
 			/* If system error occurred ... */
 			if (ret.get() < 0)
@@ -2421,7 +2386,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 			if ((ret.get() == ILfs.LOOP_FOUND) || (ret.get() == ILfs.IGNORE) || (ret.get() == ILfs.INCOMPLETE))
 			{
 				if (isShowLogs())
-					LOGGER.info(String.format("%d,%d RM1\n", minutia.getX(), minutia.getY()));
+					LOGGER.info(String.format("%d,%d RM1\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 				/* Remove minutia from list. */
 				ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2460,7 +2425,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				/*         ry = x*sin(T) - y*cos(T)                  */
 
 				/* Convert minutia's direction to radians. */
-				theta = (double)minutia.getDirection() * piFactor;
+				theta = (double)minutiae.getDirection(minutiaIndex) * piFactor;
 				/* Compute sine and cosine values at theta for rotation. */
 				sinTheta = Math.sin(theta);
 				cosTheta = Math.cos(theta);
@@ -2514,18 +2479,18 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 				if ((minmaxNum.get() == 1) && (minmaxType.get(0) == -1))
 				{
 					if (isShowLogs())
-						LOGGER.info(String.format("%d,%d ", minutia.getX(), minutia.getY()));
+						LOGGER.info(String.format("%d,%d ", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 					/* Reset loation of minutia point to contour point at minima. */
-					minutia.setX(contour.getContourX().get(minmaxIndex.get(0)));
-					minutia.setY(contour.getContourY().get(minmaxIndex.get(0)));
-					minutia.setEx(contour.getContourEx().get(minmaxIndex.get(0)));
-					minutia.setEy(contour.getContourEy().get(minmaxIndex.get(0)));
+					minutiae.setX(minutiaIndex, contour.getContourX().get(minmaxIndex.get(0)));
+					minutiae.setY(minutiaIndex, contour.getContourY().get(minmaxIndex.get(0)));
+					minutiae.setEx(minutiaIndex, contour.getContourEx().get(minmaxIndex.get(0)));
+					minutiae.setEy(minutiaIndex, contour.getContourEy().get(minmaxIndex.get(0)));
 
 					/* Must check if adjusted minutia is now in INVALID block ... */
-					blockX = minutia.getX() / lfsParams.getBlockSize();
-					blockY = minutia.getY() / lfsParams.getBlockSize();
-					if (getPixelValueFromAtomicArray(directionMap, blockX, blockY, mappedImageWidth, mappedImageHeight) == ILfs.INVALID_DIR)
+					blockX = minutiae.getX(minutiaIndex) / lfsParams.getBlockSize();
+					blockY = minutiae.getY(minutiaIndex) / lfsParams.getBlockSize();
+					if (getPixelValueFromBlockMap(directionMap, blockX, blockY, mappedImageWidth, mappedImageHeight) == ILfs.INVALID_DIR)
 					{
 						/* Remove minutia from list. */
 						ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2554,7 +2519,7 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						/* Advance to the next minutia in the list. */
 						minutiaIndex++;
 						if (isShowLogs())
-							LOGGER.info(String.format("AD1 %d,%d\n", minutia.getX(), minutia.getY()));
+							LOGGER.info(String.format("AD1 %d,%d\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 					}
 				}
 				/* If exactly 3 min/max found and they are min-max-min ... */
@@ -2571,19 +2536,19 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 					}
 
 					if (isShowLogs())
-						LOGGER.info(String.format("%d,%d ", minutia.getX(), minutia.getY()));
+						LOGGER.info(String.format("%d,%d ", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 					/* Reset loation of minutia point to contour point at minima. */
-					minutia.setX(contour.getContourX().get(minLoc));
-					minutia.setY(contour.getContourY().get(minLoc));
-					minutia.setEx(contour.getContourEx().get(minLoc));
-					minutia.setEy(contour.getContourEy().get(minLoc));
+					minutiae.setX(minutiaIndex, contour.getContourX().get(minLoc));
+					minutiae.setY(minutiaIndex, contour.getContourY().get(minLoc));
+					minutiae.setEx(minutiaIndex, contour.getContourEx().get(minLoc));
+					minutiae.setEy(minutiaIndex, contour.getContourEy().get(minLoc));
 
 					/* Must check if adjusted minutia is now in INVALID block ... */
-					blockX = minutia.getX() / lfsParams.getBlockSize();
-					blockY = minutia.getY() / lfsParams.getBlockSize();
+					blockX = minutiae.getX(minutiaIndex) / lfsParams.getBlockSize();
+					blockY = minutiae.getY(minutiaIndex) / lfsParams.getBlockSize();
 
-					if (getPixelValueFromAtomicArray(directionMap, blockX, blockY, mappedImageWidth, mappedImageHeight) == ILfs.INVALID_DIR)
+					if (getPixelValueFromBlockMap(directionMap, blockX, blockY, mappedImageWidth, mappedImageHeight) == ILfs.INVALID_DIR)
 					{
 					   /* Remove minutia from list. */
 						ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -2612,14 +2577,14 @@ public class RemoveMinutia extends MindTct implements IRemoveMinutia {
 						/* Advance to the next minutia in the list. */
 						minutiaIndex++;
 						if (isShowLogs())
-							LOGGER.info(String.format("AD2 %d,%d\n", minutia.getX(), minutia.getY()));
+							LOGGER.info(String.format("AD2 %d,%d\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 					}
 				 }
 				 /* Otherwise, ... */
 				else
 				{					
 					if (isShowLogs())
-						LOGGER.info(String.format("%d,%d RM4\n", minutia.getX(), minutia.getY()));
+						LOGGER.info(String.format("%d,%d RM4\n", minutiae.getX(minutiaIndex), minutiae.getY(minutiaIndex)));
 
 					/* Remove minutia from list. */
 					ret.set(getMinutiaHelper().removeMinutia(minutiaIndex, oMinutiae));
@@ -7,6 +7,9 @@ import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.common.ILfs.BitBlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.BlockMap;
+import org.mosip.nist.nfiq1.common.ILfs.ByteBlockMap;
 import org.mosip.nist.nfiq1.common.ILfs.IResults;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
 import org.mosip.nist.nfiq1.common.ILfs.RotGrids;
@@ -32,8 +35,8 @@ public class Results extends MindTct implements IResults {
     }
     
 	public int writeTextResults(File file, int m1flag, int imageWidth, int imageHeight,
-		AtomicReference<Minutiae> oMinutiae, AtomicIntegerArray oQualityMap, AtomicIntegerArray oDirectionMap,
-		AtomicIntegerArray oLowContrastMap, AtomicIntegerArray oLowFlowMap, AtomicIntegerArray oHighCurveMap,
+		AtomicReference<Minutiae> oMinutiae, ByteBlockMap oQualityMap, ByteBlockMap oDirectionMap,
+		BitBlockMap oLowContrastMap, BitBlockMap oLowFlowMap, BitBlockMap oHighCurveMap,
 		int mapWidth, int mapHeight) {
 		// TODO Auto-generated method stub
 		return 0;
@@ -56,7 +59,7 @@ public class Results extends MindTct implements IResults {
 	      mapHeight    - height (number of blocks) of map vector
 	 * @throws IOException 
 	**************************************************************************/
-	public void dumpMap(File file, AtomicIntegerArray oMap, int mapWidth, int mapHeight) throws IOException {
+	public void dumpMap(File file, BlockMap oMap, int mapWidth, int mapHeight) throws IOException {
 		int mx;
 		int my;
 		int mapIndex;
@@ -75,12 +78,12 @@ public class Results extends MindTct implements IResults {
 		myWriter.close();
 	}
 
-	public int drawInputBlockImageMap(AtomicIntegerArray oInputBlockImageMap, int mapWidth, int mapHeight,
+	public int drawInputBlockImageMap(ByteBlockMap oInputBlockImageMap, int mapWidth, int mapHeight,
 			int[] imageData, int imageWidth, int imageHeight, RotGrids rotGrids, int drawPixel) {
 		// TODO Auto-generated method stub
 		return 0;
 	}
-	public void drawInputBlockImageMap2(AtomicIntegerArray oInputBlockImageMap, AtomicIntegerArray oBlockOffsets,
+	public void drawInputBlockImageMap2(ByteBlockMap oInputBlockImageMap, AtomicIntegerArray oBlockOffsets,
 			int mapWidth, int mapHeight, int[] paddedImageData, int paddedImageWidth, int paddedImageHeight,
 			double startAngle, int nDirs, int blocksize) {
 		// TODO Auto-generated method stub
@@ -180,13 +183,13 @@ public class Results extends MindTct implements IResults {
 		// TODO Auto-generated method stub
 		
 	}
-	public int drawDirectionMap(StringBuilder fileName, AtomicIntegerArray oDirectionMap,
+	public int drawDirectionMap(StringBuilder fileName, ByteBlockMap oDirectionMap,
 			AtomicIntegerArray oBlockOffsets, int mapWidth, int mapHeight, int blocksize, int[] imageData,
 			int imageWidth, int imageHeight, int flag) {
 		// TODO Auto-generated method stub
 		return 0;
 	}
-	public int drawTFMap(StringBuilder fileName, AtomicIntegerArray oMap, AtomicIntegerArray oBlockOffsets,
+	public int drawTFMap(StringBuilder fileName, BlockMap oMap, AtomicIntegerArray oBlockOffsets,
 			int mapWidth, int mapHeight, int blocksize, int[] imageData, int imageWidth, int imageHeight, int flag) {
 		// TODO Auto-generated method stub
 		return 0;
@@ -9,7 +9,6 @@ import org.mosip.nist.nfiq1.Defs;
 import org.mosip.nist.nfiq1.common.ILfs;
 import org.mosip.nist.nfiq1.common.ILfs.IRidges;
 import org.mosip.nist.nfiq1.common.ILfs.LfsParams;
-import org.mosip.nist.nfiq1.common.ILfs.Minutia;
 import org.mosip.nist.nfiq1.common.ILfs.Minutiae;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -116,6 +115,10 @@ public class Ridges extends MindTct implements IRidges {
 			return (ret);
 		}
 
+		/* Bucket the minutiae by block to search neighbors locally. */
+		MinutiaGrid grid = isSortedOnX(oMinutiae.get()) ? 
+			new MinutiaGrid(oMinutiae.get(), imageWidth, imageHeight, lfsParams.getBlockSize()) : null;
+
 		/* Foreach remaining sorted minutia in list ... */
 		for (minutiaIndex = 0; minutiaIndex < oMinutiae.get().getNum() - 1; minutiaIndex++)
 		{
@@ -123,7 +126,7 @@ public class Ridges extends MindTct implements IRidges {
 			/* NOTE: neighbor and ridge count results are stored in     */
 			/*       oMinutiae->list[i].                                 */
 			if ((ret = countMinutiaRidges(minutiaIndex, oMinutiae, 
-				binarizedImageData, imageWidth, imageHeight, lfsParams)) != ILfs.FALSE)
+				binarizedImageData, imageWidth, imageHeight, lfsParams, grid)) != ILfs.FALSE)
 			{
 				return (ret);
 			}
@@ -133,6 +136,17 @@ public class Ridges extends MindTct implements IRidges {
 		return (ILfs.FALSE);
 	}
 
+	/* Tells whether the x-coords never decrease along the list, as the */
+	/* column sweep of findNeighbors and MinutiaGrid both require.       */
+	private boolean isSortedOnX(Minutiae minutiae) {
+		for (int i = 1; i < minutiae.getNum(); i++)
+		{
+			if (minutiae.getX(i) < minutiae.getX(i - 1))
+				return false;
+		}
+		return true;
+	}
+
 	/*************************************************************************
 	**************************************************************************
 	#cat: countMinutiaRidges - Takes a minutia, and determines its closest
@@ -152,22 +166,41 @@ public class Ridges extends MindTct implements IRidges {
 	**************************************************************************/
 	public int countMinutiaRidges(final int first, AtomicReference<Minutiae> oMinutiae, 
 		int[] binarizedImageData,  final int imageWidth, final int imageHeight, final LfsParams lfsParams) {
+		return countMinutiaRidges(first, oMinutiae, binarizedImageData, imageWidth, imageHeight, lfsParams, null);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: countMinutiaRidges - As above, finding the neighbors with a grid
+	#cat:                over the minutiae when one is given.
+	   Input:
+	      (as above)
+	      grid       - grid over oMinutiae, or null to sweep the list
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int countMinutiaRidges(final int first, AtomicReference<Minutiae> oMinutiae, 
+		int[] binarizedImageData,  final int imageWidth, final int imageHeight, final LfsParams lfsParams, 
+		MinutiaGrid grid) {
 		int i, ret;
-		AtomicIntegerArray nbrList, nbr_nridges;
+		AtomicIntegerArray nbrList;
+		int[] nbrs, nbr_nridges;
 		AtomicInteger oNoOfNbrs = new AtomicInteger(0);
 
 		/* Allocate list of neighbor oMinutiae indices. */
 		nbrList = new AtomicIntegerArray (lfsParams.getMaxNbrs());
 		   
 		/* Find up to the maximum number of qualifying neighbors. */
-		if ((ret = findNeighbors(nbrList, oNoOfNbrs, lfsParams.getMaxNbrs(), first, oMinutiae)) < 0)
+		if ((ret = findNeighbors(nbrList, oNoOfNbrs, lfsParams.getMaxNbrs(), first, oMinutiae, grid)) < 0)
 		{
 			getFree().free(nbrList);
 			return (ret);
 		}
 
 		if (isShowLogs())
-			LOGGER.info(String.format("NBRS FOUND: %d, %d = %d\n", oMinutiae.get().getList().get(first).getX(), oMinutiae.get().getList().get(first).getY(), oNoOfNbrs.get()));
+			LOGGER.info(String.format("NBRS FOUND: %d, %d = %d\n", oMinutiae.get().getX(first), oMinutiae.get().getY(first), oNoOfNbrs.get()));
 
 		/* If no neighors found ... */
 		if (oNoOfNbrs.get() == ILfs.FALSE)
@@ -186,7 +219,8 @@ public class Ridges extends MindTct implements IRidges {
 
 		/* Count ridges between first and neighbors. */
 		/* List of ridge counts, one for each neighbor stored. */
-		nbr_nridges = new AtomicIntegerArray (oNoOfNbrs.get());
+		nbrs = new int[oNoOfNbrs.get()];
+		nbr_nridges = new int[oNoOfNbrs.get()];
 
 		/* Foreach neighbor found and sorted in list ... */
 		for (i = 0; i < oNoOfNbrs.get(); i++)
@@ -205,13 +239,12 @@ public class Ridges extends MindTct implements IRidges {
 			}
 
 			/* Otherwise, ridge count successful, so store ridge count to list. */
-			nbr_nridges.set(i, ret);
+			nbrs[i] = nbrList.get(i);
+			nbr_nridges[i] = ret;
 		}
 
 		/* Assign neighbor indices and ridge counts to primary minutia. */
-		oMinutiae.get().getList().get(first).setNbrs(nbrList);
-		oMinutiae.get().getList().get(first).setRidgeCcounts(nbr_nridges);
-		oMinutiae.get().getList().get(first).setNumNbrs(oNoOfNbrs.get());
+		oMinutiae.get().setNbrs(first, nbrs, nbr_nridges, oNoOfNbrs.get());
 
 		/* Return normally. */
 		return (ILfs.FALSE);
@@ -238,8 +271,41 @@ public class Ridges extends MindTct implements IRidges {
 	**************************************************************************/
 	public int findNeighbors(AtomicIntegerArray oNbrList, AtomicInteger oNoOfNbrs, final int maxNbrs, 
 		final int firstMinutiaIndex, AtomicReference<Minutiae> oMinutiae) {
+		return findNeighbors(oNbrList, oNoOfNbrs, maxNbrs, firstMinutiaIndex, oMinutiae, null);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: findNeighbors - As above.  When a grid over the minutiae is given,
+	#cat:               only the blocks near the primary point are searched
+	#cat:               instead of every column to its right; the neighbors
+	#cat:               and their order are the same.
+	   Input:
+	      (as above)
+	      grid    - grid over oMinutiae, which must be sorted on X and
+	                then on Y, or null to sweep the list
+	   Output:
+	      (as above)
+	   Return Code:
+	      (as above)
+	**************************************************************************/
+	public int findNeighbors(AtomicIntegerArray oNbrList, AtomicInteger oNoOfNbrs, final int maxNbrs, 
+		final int firstMinutiaIndex, AtomicReference<Minutiae> oMinutiae, MinutiaGrid grid) {
+		if (grid != null)
+		{
+			int[] nbrList = new int[maxNbrs];
+			double[] nbrSqrDists = new double[maxNbrs];
+			int noOfNbrs = grid.findNearestNeighbors(nbrList, nbrSqrDists, maxNbrs, firstMinutiaIndex);
+			for (int i = 0; i < noOfNbrs; i++)
+			{
+				oNbrList.set(i, nbrList[i]);
+			}
+			oNoOfNbrs.set(noOfNbrs);
+			return (ILfs.FALSE);
+		}
+
 		int ret, secondMinutiaIndex, lastNbr;
-		Minutia firstMinutia, secondMinutia;
+		Minutiae minutiae = oMinutiae.get();
 		AtomicInteger noOfNbrs = new AtomicInteger(0);
 		AtomicReferenceArray<Double> nbrSqrDists;
 		double xdist, xdist2;
@@ -266,12 +332,8 @@ public class Ridges extends MindTct implements IRidges {
 		/* the right of the primary minutia.                               */
 		while (secondMinutiaIndex < oMinutiae.get().getNum())
 		{
-			/* Assign temporary minutia pointers. */
-			firstMinutia = oMinutiae.get().getList().get(firstMinutiaIndex);
-			secondMinutia = oMinutiae.get().getList().get(secondMinutiaIndex);
-
 			/* Compute squared distance between oMinutiae along x-axis. */
-			xdist = secondMinutia.getX() - firstMinutia.getX();
+			xdist = minutiae.getX(secondMinutiaIndex) - minutiae.getX(firstMinutiaIndex);
 			xdist2 = xdist * xdist;
 
 			/* If the neighbor lists are not full OR the x-distance to current */
@@ -347,18 +409,14 @@ public class Ridges extends MindTct implements IRidges {
 		AtomicInteger oNoOfNbrs, final int maxNbrs, final int firstMinutiaIndex, final int secondMinutiaIndex, 
 		AtomicReference<Minutiae> oMinutiae) {
 		double dist2;
-		Minutia firstMinutia, secondMinutia;
+		Minutiae minutiae = oMinutiae.get();
 		int pos, last_nbr, ret;
 
 		/* Compute position of maximum last neighbor stored. */
 		last_nbr = maxNbrs - 1;
 
-		/* Assigne temporary minutia pointers. */
-		firstMinutia = oMinutiae.get().getList().get(firstMinutiaIndex);
-		secondMinutia = oMinutiae.get().getList().get(secondMinutiaIndex);
-
 		/* Compute squared euclidean distance between minutia pair. */
-		dist2 = getLfsUtil().squaredDistance(firstMinutia.getX(), firstMinutia.getY(), secondMinutia.getX(), secondMinutia.getY());
+		dist2 = getLfsUtil().squaredDistance(minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex));
 
 		/* If maximum number of neighbors not yet stored in lists OR */
 		/* if the squared distance to current secondary is less      */
@@ -504,10 +562,10 @@ public class Ridges extends MindTct implements IRidges {
 			/* Coordinates are swapped and order of points reversed to    */
 			/* account for 0 direction is vertical and positive direction */
 			/* is clockwise.                                              */
-			theta = getLfsUtil().angleToLine(oMinutiae.get().getList().get(minutiaIndex).getY(), 
-					oMinutiae.get().getList().get(minutiaIndex).getX(), 
-					oMinutiae.get().getList().get(firstMinutiaIndex).getY(), 
-					oMinutiae.get().getList().get(firstMinutiaIndex).getX());
+			theta = getLfsUtil().angleToLine(oMinutiae.get().getY(minutiaIndex), 
+					oMinutiae.get().getX(minutiaIndex), 
+					oMinutiae.get().getY(firstMinutiaIndex), 
+					oMinutiae.get().getX(firstMinutiaIndex));
 
 			/* Make sure the angle is positive. */
 			theta += pi2;
@@ -545,7 +603,7 @@ public class Ridges extends MindTct implements IRidges {
 	public int ridgeCount(final int firstMinutiaIndex, final int secondMinutiaIndex, 
 		AtomicReference<Minutiae> oMinutiae, int[] binarizedImageData, final int imageWidth, final int imageHeight, 
 		final LfsParams lfsParams) {
-		Minutia firstMinutia, secondMinutia;
+		Minutiae minutiae = oMinutiae.get();
 		AtomicInteger i = new AtomicInteger(0);
 		int ret, found;
 		int [] xlist, ylist;
@@ -553,11 +611,8 @@ public class Ridges extends MindTct implements IRidges {
 		int ridgeCount, ridgeStart, ridgeEnd;
 		int prevpix, curpix;
 
-		firstMinutia = oMinutiae.get().getList().get(firstMinutiaIndex);
-		secondMinutia = oMinutiae.get().getList().get(secondMinutiaIndex);
-
 		/* If the 2 mintuia have identical pixel coords ... */
-		if ((firstMinutia.getX() == secondMinutia.getX()) && (firstMinutia.getY() == secondMinutia.getY()))
+		if ((minutiae.getX(firstMinutiaIndex) == minutiae.getX(secondMinutiaIndex)) && (minutiae.getY(firstMinutiaIndex) == minutiae.getY(secondMinutiaIndex)))
 		{
 			/* Then zero ridges between points. */
 			return (ILfs.FALSE);
@@ -565,11 +620,11 @@ public class Ridges extends MindTct implements IRidges {
 
 		/* Compute linear trajectory of contiguous pixels between first */
 		/* and second minutia points.                                   */
-		int aSize = Math.max(Math.abs(secondMinutia.getX() - firstMinutia.getX()) + 2, Math.abs(secondMinutia.getY() - firstMinutia.getY()) + 2);
+		int aSize = Math.max(Math.abs(minutiae.getX(secondMinutiaIndex) - minutiae.getX(firstMinutiaIndex)) + 2, Math.abs(minutiae.getY(secondMinutiaIndex) - minutiae.getY(firstMinutiaIndex)) + 2);
 		xlist = new int[aSize]; 
 		ylist= new int[aSize];
 		if ((ret = getLine().linePoints(xlist, ylist, num, 
-			firstMinutia.getX(), firstMinutia.getY(), secondMinutia.getX(), secondMinutia.getY())) != ILfs.FALSE)
+			minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex))) != ILfs.FALSE)
 		{
 			return (ret);
 		}
@@ -611,7 +666,7 @@ public class Ridges extends MindTct implements IRidges {
 		ridgeCount = 0;
 
 		if (isShowLogs())
-			LOGGER.info(String.format("RIDGE COUNT: %d,%d to %d,%d ", firstMinutia.getX(), firstMinutia.getY(), secondMinutia.getX(), secondMinutia.getY()));
+			LOGGER.info(String.format("RIDGE COUNT: %d,%d to %d,%d ", minutiae.getX(firstMinutiaIndex), minutiae.getY(firstMinutiaIndex), minutiae.getX(secondMinutiaIndex), minutiae.getY(secondMinutiaIndex)));
 
 		/* While not at the end of the trajectory ... */
 		while (i.get() < num.get())
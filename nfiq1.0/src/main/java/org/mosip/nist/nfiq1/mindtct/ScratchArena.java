@@ -0,0 +1,307 @@
+package org.mosip.nist.nfiq1.mindtct;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/***********************************************************************
+************************************************************************
+#cat: ScratchArena - Per thread pool of the working buffers of the
+#cat:             MINDTCT stages (padded and binarized images, pixelized
+#cat:             maps, contours, DFT row sums, power ranks and pixel
+#cat:             histograms), so that a thread analysing image after
+#cat:             image reuses them instead of allocating them anew.
+#cat:             Buffers are kept in size classes, powers of two up to
+#cat:             2^16 elements and quarter steps between powers of two
+#cat:             above: a pooled buffer may be longer than requested
+#cat:             and holds the values its last user left in it, so
+#cat:             callers must write every element they read.  Pooling
+#cat:             only happens within a scope; a buffer taken outside
+#cat:             of any scope is a new, zeroed array of the exact
+#cat:             length requested, as before.  Closing a scope returns
+#cat:             every buffer taken in it to the pool, so no buffer
+#cat:             may be used after its scope.  The outermost scope is
+#cat:             opened per image: closing it resets the arena and
+#cat:             trims its free buffers, largest first, to at most
+#cat:             MAX_RETAINED_BYTES, so that one large image does not
+#cat:             pin its buffers for the life of the thread.  An arena
+#cat:             belongs to one thread and is not shared.
+************************************************************************/
+public final class ScratchArena {
+	private static final ThreadLocal<ScratchArena> ARENAS = ThreadLocal.withInitial(ScratchArena::new);
+	/* Smallest size class holds 2^MIN_CLASS_BITS elements */
+	private static final int MIN_CLASS_BITS = 4;
+	/* Classes above 2^FINE_CLASS_BITS elements step by a quarter power */
+	private static final int FINE_CLASS_BITS = 16;
+	private static final int MAX_CLASS_BITS = 30;
+	private static final int NO_OF_POW2_CLASSES = FINE_CLASS_BITS - MIN_CLASS_BITS + 1;
+	private static final int NO_OF_CLASSES = NO_OF_POW2_CLASSES + 4 * (MAX_CLASS_BITS - FINE_CLASS_BITS);
+	/* Free buffers kept by an arena once its outermost scope closes */
+	public static final long MAX_RETAINED_BYTES = 32L << 20;
+
+	/* Element sizes are estimates of the heap held per element */
+	private final Pool ints = new Pool(length -> new int[length], 4);
+	private final Pool bytes = new Pool(length -> new byte[length], 1);
+	private final Pool longs = new Pool(length -> new long[length], 8);
+	private final Pool doubles = new Pool(length -> new double[length], 8);
+	private final Pool contours = new Pool(length -> new Contour(length, true), 16);
+	private final Pool[] pools = { ints, bytes, longs, doubles, contours };
+
+	/* Buffers taken in the open scopes, in order, with their pool and class */
+	private Object[] takenBuffers = new Object[64];
+	private Pool[] takenPools = new Pool[64];
+	private int[] takenClasses = new int[64];
+	private int noOfTaken;
+	/* Value of noOfTaken when each open scope was opened */
+	private int[] marks = new int[8];
+	private int depth;
+
+	private ScratchArena() {
+		super();
+	}
+
+	/* Arena of the calling thread */
+	public static ScratchArena current() {
+		return ARENAS.get();
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: openScope - Starts pooling the buffers taken by the thread until
+	#cat:             the matching closeScope.  Scopes nest.
+	   Return Code:
+	      mark to be passed to closeScope
+	************************************************************************/
+	public int openScope() {
+		if (depth == marks.length)
+		{
+			marks = Arrays.copyOf(marks, depth * 2);
+		}
+		marks[depth++] = noOfTaken;
+		return noOfTaken;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: closeScope - Returns the buffers taken since the matching
+	#cat:             openScope, and not released yet, to the pool.
+	#cat:             Closing the outermost scope also trims the pool.
+	   Input:
+	      mark          - value returned by the matching openScope
+	************************************************************************/
+	public void closeScope(final int mark) {
+		while (noOfTaken > mark)
+		{
+			noOfTaken--;
+			if (takenBuffers[noOfTaken] != null)
+			{
+				takenPools[noOfTaken].give(takenClasses[noOfTaken], takenBuffers[noOfTaken]);
+				takenBuffers[noOfTaken] = null;
+				takenPools[noOfTaken] = null;
+			}
+		}
+		depth--;
+		if (depth == 0)
+		{
+			trim(MAX_RETAINED_BYTES);
+		}
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: trim - Drops free buffers, largest size class first, until the
+	#cat:             pool holds at most maxRetainedBytes.  Buffers taken
+	#cat:             in open scopes are not affected.
+	   Input:
+	      maxRetainedBytes - bytes of free buffers to keep
+	************************************************************************/
+	public void trim(final long maxRetainedBytes) {
+		for (int sizeClass = NO_OF_CLASSES - 1; sizeClass >= 0 && getRetainedBytes() > maxRetainedBytes; sizeClass--)
+		{
+			for (Pool pool : pools)
+			{
+				while (pool.noOfFree[sizeClass] > 0 && getRetainedBytes() > maxRetainedBytes)
+				{
+					pool.take(sizeClass);
+				}
+			}
+		}
+	}
+
+	/* Estimated bytes held by the free buffers of the pool */
+	public long getRetainedBytes() {
+		long retainedBytes = 0;
+		for (Pool pool : pools)
+		{
+			retainedBytes += pool.freeBytes;
+		}
+		return retainedBytes;
+	}
+
+	/* Tells whether buffers are pooled, i.e. a scope is open */
+	public boolean isPooling() {
+		return depth > 0;
+	}
+
+	/* int[] of at least length elements, see the class comment */
+	public int[] getInts(final int length) {
+		return (int[])take(ints, length);
+	}
+
+	/* byte[] of at least length elements, see the class comment */
+	public byte[] getBytes(final int length) {
+		return (byte[])take(bytes, length);
+	}
+
+	/* long[] of at least length elements, see the class comment */
+	public long[] getLongs(final int length) {
+		return (long[])take(longs, length);
+	}
+
+	/* double[] of at least length elements, see the class comment */
+	public double[] getDoubles(final int length) {
+		return (double[])take(doubles, length);
+	}
+
+	/* Contour of at least noOfContour points, see the class comment */
+	public Contour getContour(final int noOfContour) {
+		return (Contour)take(contours, noOfContour);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: release - Returns a buffer to the pool before the end of its
+	#cat:             scope.  The buffer must not be used afterwards.
+	   Input:
+	      buffer        - buffer taken from this arena
+	   Return Code:
+	      true          - the buffer was pooled and is free again
+	      false         - the buffer was not taken in an open scope
+	************************************************************************/
+	public boolean release(final Object buffer) {
+		/* Buffers are mostly released in the reverse order of taking. */
+		for (int i = noOfTaken - 1; i >= 0; i--)
+		{
+			if (takenBuffers[i] == buffer)
+			{
+				takenPools[i].give(takenClasses[i], buffer);
+				/* Entries keep their place, so that the marks of the */
+				/* open scopes stay valid; only the last one is popped. */
+				takenBuffers[i] = null;
+				takenPools[i] = null;
+				/* Holes left on top are popped down to the innermost mark */
+				while (noOfTaken > marks[depth - 1] && takenBuffers[noOfTaken - 1] == null)
+				{
+					noOfTaken--;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Object take(final Pool pool, final int length) {
+		if (depth == 0 || length > (1 << MAX_CLASS_BITS))
+		{
+			return pool.factory.apply(length);
+		}
+
+		int sizeClass = sizeClassOf(length);
+		Object buffer = pool.take(sizeClass);
+		if (noOfTaken == takenBuffers.length)
+		{
+			compact();
+		}
+		if (noOfTaken == takenBuffers.length)
+		{
+			takenBuffers = Arrays.copyOf(takenBuffers, noOfTaken * 2);
+			takenPools = Arrays.copyOf(takenPools, noOfTaken * 2);
+			takenClasses = Arrays.copyOf(takenClasses, noOfTaken * 2);
+		}
+		takenBuffers[noOfTaken] = buffer;
+		takenPools[noOfTaken] = pool;
+		takenClasses[noOfTaken] = sizeClass;
+		noOfTaken++;
+		return buffer;
+	}
+
+	/* Closes the holes left by out of order releases in the innermost */
+	/* scope; those of the outer scopes must keep their marks valid.   */
+	private void compact() {
+		int to = marks[depth - 1];
+		for (int from = to; from < noOfTaken; from++)
+		{
+			if (takenBuffers[from] != null)
+			{
+				takenBuffers[to] = takenBuffers[from];
+				takenPools[to] = takenPools[from];
+				takenClasses[to] = takenClasses[from];
+				to++;
+			}
+		}
+		Arrays.fill(takenBuffers, to, noOfTaken, null);
+		Arrays.fill(takenPools, to, noOfTaken, null);
+		noOfTaken = to;
+	}
+
+	/* Index of the smallest class holding length elements */
+	private static int sizeClassOf(final int length) {
+		if (length <= (1 << FINE_CLASS_BITS))
+		{
+			int bits = (length <= 1) ? 0 : 32 - Integer.numberOfLeadingZeros(length - 1);
+			return Math.max(bits, MIN_CLASS_BITS) - MIN_CLASS_BITS;
+		}
+		/* 2^bits < length <= 2^bits + (quarter + 1) * 2^(bits - 2) */
+		int bits = 31 - Integer.numberOfLeadingZeros(length - 1);
+		int quarter = (length - 1 - (1 << bits)) >> (bits - 2);
+		return NO_OF_POW2_CLASSES + 4 * (bits - FINE_CLASS_BITS) + quarter;
+	}
+
+	/* Number of elements of the buffers of a class */
+	private static int capacityOf(final int sizeClass) {
+		if (sizeClass < NO_OF_POW2_CLASSES)
+		{
+			return 1 << (sizeClass + MIN_CLASS_BITS);
+		}
+		int bits = FINE_CLASS_BITS + (sizeClass - NO_OF_POW2_CLASSES) / 4;
+		int quarter = (sizeClass - NO_OF_POW2_CLASSES) % 4;
+		return (1 << bits) + ((quarter + 1) << (bits - 2));
+	}
+
+	/* Free buffers of one type, a stack per size class */
+	private static final class Pool {
+		private final IntFunction<Object> factory;
+		private final int elementBytes;
+		private final Object[][] free = new Object[NO_OF_CLASSES][];
+		private final int[] noOfFree = new int[NO_OF_CLASSES];
+		private long freeBytes;
+
+		Pool(final IntFunction<Object> factory, final int elementBytes) {
+			this.factory = factory;
+			this.elementBytes = elementBytes;
+		}
+
+		Object take(final int sizeClass) {
+			if (noOfFree[sizeClass] == 0)
+			{
+				return factory.apply(capacityOf(sizeClass));
+			}
+			Object buffer = free[sizeClass][--noOfFree[sizeClass]];
+			free[sizeClass][noOfFree[sizeClass]] = null;
+			freeBytes -= (long)capacityOf(sizeClass) * elementBytes;
+			return buffer;
+		}
+
+		void give(final int sizeClass, final Object buffer) {
+			if (free[sizeClass] == null)
+			{
+				free[sizeClass] = new Object[4];
+			}
+			else if (noOfFree[sizeClass] == free[sizeClass].length)
+			{
+				free[sizeClass] = Arrays.copyOf(free[sizeClass], noOfFree[sizeClass] * 2);
+			}
+			free[sizeClass][noOfFree[sizeClass]++] = buffer;
+			freeBytes += (long)capacityOf(sizeClass) * elementBytes;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package org.mosip.nist.nfiq1.mindtct;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
@@ -7,6 +8,12 @@ import org.mosip.nist.nfiq1.common.ILfs;
 import org.mosip.nist.nfiq1.common.ILfs.ISort;
 
 public class Sort extends MindTct implements ISort {
+	/* Lists up to this length are insertion sorted */
+	private static final int INSERTION_SORT_MAX = 16;
+	/* Lists up to this length are not worth the radix sort counting passes */
+	private static final int RADIX_SORT_MIN = 64;
+	private static final int RADIX_BITS = 11;
+	private static final int RADIX = 1 << RADIX_BITS;
 	private static volatile Sort instance;
     public static Sort getInstance() {
         if (instance == null) {
@@ -40,15 +47,22 @@ public class Sort extends MindTct implements ISort {
 	**************************************************************************/
 	public int sortIndicesIntArrayIncremental(AtomicIntegerArray order, AtomicIntegerArray ranks, final int num) {
 		int i;
+		int[] orderArray = new int[num];
+		int[] rankArray = new int[num];
 
-		/* Initialize list of sequential indices. */
 		for (i = 0; i < num; i++)
 		{
-			order.set(i, i);
+			rankArray[i] = ranks.get(i);
 		}
 
 		/* Sort the indecies into rank order. */
-		bubbleSortIntArrayIncremental2(ranks, order, num);
+		sortIndicesIntArrayIncremental(orderArray, rankArray, num);
+
+		for (i = 0; i < num; i++)
+		{
+			order.set(i, orderArray[i]);
+			ranks.set(i, rankArray[i]);
+		}
 
 		/* Set output pointer to the resulting order of sorted indices. */
 		/* Return normally. */
@@ -73,15 +87,22 @@ public class Sort extends MindTct implements ISort {
 	**************************************************************************/
 	public int sortIndicesDoubleArrayIncremental(AtomicIntegerArray order, AtomicReferenceArray<Double> ranks, final int num) {
 		int i;
-		
-		/* Initialize list of sequential indices. */
+		int[] orderArray = new int[num];
+		double[] rankArray = new double[num];
+
 		for (i = 0; i < num; i++)
 		{
-			order.set(i, i);
+			rankArray[i] = ranks.get(i);
 		}
 
 		/* Sort the indicies into rank order. */
-		bubbleSortDoubleArrayIncremental2(ranks, order, num);
+		sortIndicesDoubleArrayIncremental(orderArray, rankArray, num);
+
+		for (i = 0; i < num; i++)
+		{
+			order.set(i, orderArray[i]);
+			ranks.set(i, rankArray[i]);
+		}
 
 		/* Set output pointer to the resulting order of sorted indices. */
 		/* Return normally. */
@@ -284,6 +305,298 @@ public class Sort extends MindTct implements ISort {
 			n--;
 		}
 	}
-}
 
+	/*************************************************************************
+	**************************************************************************
+	#cat: sortIndicesIntArrayIncremental - Primitive array version of the
+	#cat:                 above.  The sort is stable, so indices of equal
+	#cat:                 ranks keep their input order exactly as with the
+	#cat:                 bubble sort, in O(n log n) time.
+	   Input:
+	      ranks  - list of integers to be sorted
+	      num    - number of integers in the list
+	   Output:
+	      order   - list of indices referencing the integer list in sorted order
+	      ranks  - list of integers in increasing order
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int sortIndicesIntArrayIncremental(int[] order, int[] ranks, final int num) {
+		/* Initialize list of sequential indices. */
+		for (int i = 0; i < num; i++)
+		{
+			order[i] = i;
+		}
+
+		/* Sort the indecies into rank order. */
+		sortIntArrayIncremental2(ranks, order, num);
+
+		/* Return normally. */
+		return (ILfs.FALSE);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: sortIndicesDoubleArrayIncremental - Primitive array version of the
+	#cat:                 above.  The sort is stable, as the bubble sort.
+	   Input:
+	      ranks  - list of doubles to be sorted
+	      num    - number of doubles in the list
+	   Output:
+	      order   - list of indices referencing the double list in sorted order
+	      ranks  - list of doubles in increasing order
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int sortIndicesDoubleArrayIncremental(int[] order, double[] ranks, final int num) {
+		/* Initialize list of sequential indices. */
+		for (int i = 0; i < num; i++)
+		{
+			order[i] = i;
+		}
+
+		/* Sort the indicies into rank order. */
+		sortDoubleArrayIncremental2(ranks, order, num);
+
+		/* Return normally. */
+		return (ILfs.FALSE);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: radixSortIndicesIntArrayIncremental - Takes a list of non-negative
+	#cat:                 integer keys, such as pixel offsets, and returns a
+	#cat:                 list of indices referencing them in increasing order,
+	#cat:                 using a stable LSD radix sort.  The order is the
+	#cat:                 same as sortIndicesIntArrayIncremental.  Short lists
+	#cat:                 and lists holding negative keys are merge sorted.
+	   Input:
+	      ranks  - list of integer keys to be sorted
+	      num    - number of keys in the list
+	   Output:
+	      order   - list of indices referencing the key list in sorted order
+	      ranks  - list of keys in increasing order
+	   Return Code:
+	      Zero      - successful completion
+	      Negative  - system error
+	**************************************************************************/
+	public int radixSortIndicesIntArrayIncremental(int[] order, int[] ranks, final int num) {
+		int i, maxRank = 0;
+
+		/* Find the largest key, checking all keys are non-negative. */
+		for (i = 0; i < num; i++)
+		{
+			if (ranks[i] < 0)
+			{
+				return sortIndicesIntArrayIncremental(order, ranks, num);
+			}
+			maxRank = Math.max(maxRank, ranks[i]);
+		}
+		if (num <= RADIX_SORT_MIN)
+		{
+			return sortIndicesIntArrayIncremental(order, ranks, num);
+		}
+
+		int[] rankTmp = new int[num];
+		int[] orderTmp = new int[num];
+		int[] counts = new int[RADIX + 1];
+		int[] fromRanks = ranks, fromOrder = order, toRanks = rankTmp, toOrder = orderTmp, swap;
+		int digit;
+
+		/* Initialize list of sequential indices. */
+		for (i = 0; i < num; i++)
+		{
+			order[i] = i;
+		}
+
+		/* One counting pass per RADIX_BITS wide digit of the largest key. */
+		for (int shift = 0; shift == 0 || (maxRank >>> shift) != 0; shift += RADIX_BITS)
+		{
+			Arrays.fill(counts, 0);
+			for (i = 0; i < num; i++)
+			{
+				counts[((fromRanks[i] >>> shift) & (RADIX - 1)) + 1]++;
+			}
+			for (digit = 0; digit < RADIX; digit++)
+			{
+				counts[digit + 1] += counts[digit];
+			}
+			for (i = 0; i < num; i++)
+			{
+				digit = (fromRanks[i] >>> shift) & (RADIX - 1);
+				toRanks[counts[digit]] = fromRanks[i];
+				toOrder[counts[digit]++] = fromOrder[i];
+			}
+			swap = fromRanks; fromRanks = toRanks; toRanks = swap;
+			swap = fromOrder; fromOrder = toOrder; toOrder = swap;
+		}
+
+		/* Sorted lists must end up in the caller's arrays. */
+		if (fromRanks != ranks)
+		{
+			System.arraycopy(fromRanks, 0, ranks, 0, num);
+			System.arraycopy(fromOrder, 0, order, 0, num);
+		}
+
+		/* Return normally. */
+		return (ILfs.FALSE);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: sortIntArrayIncremental2 - Stable merge sort of a list of integer
+	#cat:                         ranks into increasing order, moving the
+	#cat:                         corresponding integer attributes.  Results
+	#cat:                         match bubbleSortIntArrayIncremental2.
+	   Input:
+	      ranks     - list of integers to be sort on
+	      items     - list of corresponding integer attributes
+	      len       - number of items in list
+	   Output:
+	      ranks     - list of integers sorted in increasing order
+	      items     - list of attributes in corresponding sorted order
+	**************************************************************************/
+	public void sortIntArrayIncremental2(int[] ranks, int[] items, final int len) {
+		if (len <= INSERTION_SORT_MAX)
+		{
+			insertionSort(ranks, items, 0, len);
+			return;
+		}
+		mergeSort(ranks, items, Arrays.copyOf(ranks, len), Arrays.copyOf(items, len), 0, len);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: sortDoubleArrayIncremental2 - Stable merge sort of a list of double
+	#cat:              ranks into increasing order, moving the corresponding
+	#cat:              integer attributes.  Results match
+	#cat:              bubbleSortDoubleArrayIncremental2.
+	   Input:
+	      ranks     - list of double to be sort on
+	      items     - list of corresponding integer attributes
+	      len       - number of items in list
+	   Output:
+	      ranks     - list of doubles sorted in increasing order
+	      items     - list of attributes in corresponding sorted order
+	**************************************************************************/
+	public void sortDoubleArrayIncremental2(double[] ranks, int[] items, final int len) {
+		if (len <= INSERTION_SORT_MAX)
+		{
+			insertionSort(ranks, items, 0, len, false);
+			return;
+		}
+		mergeSort(ranks, items, Arrays.copyOf(ranks, len), Arrays.copyOf(items, len), 0, len, false);
+	}
+
+	/*************************************************************************
+	**************************************************************************
+	#cat: sortDoubleArrayDecremental2 - Stable merge sort of a list of double
+	#cat:              ranks into decreasing order, moving the corresponding
+	#cat:              integer attributes.  Results match
+	#cat:              bubbleSortDoubleArrayDecremental2.
+	   Input:
+	      ranks - list of values to be sorted
+	      items - list of items, each corresponding to a particular rank value
+	      len   - length of the lists to be sorted
+	   Output:
+	      ranks - list of values sorted in descending order
+	      items - list of items in the corresponding sorted order of the ranks.
+	**************************************************************************/
+	public void sortDoubleArrayDecremental2(double[] ranks, int[] items, final int len) {
+		if (len <= INSERTION_SORT_MAX)
+		{
+			insertionSort(ranks, items, 0, len, true);
+			return;
+		}
+		mergeSort(ranks, items, Arrays.copyOf(ranks, len), Arrays.copyOf(items, len), 0, len, true);
+	}
+
+	/* Sorts [from, to) of ranks and items; an item only passes another */
+	/* when its rank is strictly smaller, which keeps the sort stable.  */
+	private void insertionSort(int[] ranks, int[] items, final int from, final int to) {
+		int i, j, tRank, tItem;
+		for (i = from + 1; i < to; i++)
+		{
+			tRank = ranks[i];
+			tItem = items[i];
+			for (j = i; j > from && ranks[j - 1] > tRank; j--)
+			{
+				ranks[j] = ranks[j - 1];
+				items[j] = items[j - 1];
+			}
+			ranks[j] = tRank;
+			items[j] = tItem;
+		}
+	}
+
+	/* Sorts [from, to) of ranks and items, with srcRanks and srcItems */
+	/* holding a copy of the same range on entry.                      */
+	private void mergeSort(int[] ranks, int[] items, int[] srcRanks, int[] srcItems, final int from, final int to) {
+		if (to - from <= INSERTION_SORT_MAX)
+		{
+			insertionSort(ranks, items, from, to);
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		/* Sort both halves into the source, then merge them back. */
+		mergeSort(srcRanks, srcItems, ranks, items, from, mid);
+		mergeSort(srcRanks, srcItems, ranks, items, mid, to);
+		for (int i = from, left = from, right = mid; i < to; i++)
+		{
+			if (right >= to || (left < mid && !(srcRanks[left] > srcRanks[right])))
+			{
+				ranks[i] = srcRanks[left];
+				items[i] = srcItems[left++];
+			}
+			else
+			{
+				ranks[i] = srcRanks[right];
+				items[i] = srcItems[right++];
+			}
+		}
+	}
+
+	private void insertionSort(double[] ranks, int[] items, final int from, final int to, final boolean decremental) {
+		int i, j, tItem;
+		double tRank;
+		for (i = from + 1; i < to; i++)
+		{
+			tRank = ranks[i];
+			tItem = items[i];
+			for (j = i; j > from && (decremental ? ranks[j - 1] < tRank : ranks[j - 1] > tRank); j--)
+			{
+				ranks[j] = ranks[j - 1];
+				items[j] = items[j - 1];
+			}
+			ranks[j] = tRank;
+			items[j] = tItem;
+		}
+	}
 
+	private void mergeSort(double[] ranks, int[] items, double[] srcRanks, int[] srcItems, final int from, final int to, 
+		final boolean decremental) {
+		if (to - from <= INSERTION_SORT_MAX)
+		{
+			insertionSort(ranks, items, from, to, decremental);
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(srcRanks, srcItems, ranks, items, from, mid, decremental);
+		mergeSort(srcRanks, srcItems, ranks, items, mid, to, decremental);
+		for (int i = from, left = from, right = mid; i < to; i++)
+		{
+			if (right >= to || (left < mid && !(decremental ? srcRanks[left] < srcRanks[right] : srcRanks[left] > srcRanks[right])))
+			{
+				ranks[i] = srcRanks[left];
+				items[i] = srcItems[left++];
+			}
+			else
+			{
+				ranks[i] = srcRanks[right];
+				items[i] = srcItems[right++];
+			}
+		}
+	}
+}
@@ -48,6 +48,11 @@ public class Acs extends Mlp implements IAcs {
 		p.set(index, (double) (0.5d * (1.0d + (double)Math.sin((double)(0.5d * p.get(index))))));
 	}
 
+	/* Sinusoid activation function, value only, on an unboxed value. */
+	public double acVSinusoid(double x) {
+		return 0.5d * (1.0d + Math.sin(0.5d * x));
+	}
+
 	/* Sigmoid activation function (also called the logistic function) and
 	its derivative.  (The idea with SMIN is that it is a large-magnitude
 	negative number, such that exp(-SMIN), a large positive number, just
@@ -69,6 +74,11 @@ public class Acs extends Mlp implements IAcs {
 		p.set(index, (p.get(index) >= SMIN ? 1.0d / (1.0d + (double)Math.exp(- p.get(index))) : 0.0d));
 	}
 
+	/* Sigmoid activation function, value only, on an unboxed value. */
+	public double acVSigmoid(double x) {
+		return (x >= SMIN ? 1.0d / (1.0d + Math.exp(-x)) : 0.0d);
+	}
+
 	/* A linear activation function and its derivative. */
 	public void acLinear(float x, AtomicReference<Double> val, AtomicReference<Double> deriv) {
 		val.set (0.25d * (double)x);
@@ -83,6 +93,11 @@ public class Acs extends Mlp implements IAcs {
 	public void acVLinear(AtomicReferenceArray<Double> p, int index) {
 		p.set(index, 0.25f * p.get(index));
 	}
+
+	/* Linear activation function, value only, on an unboxed value. */
+	public double acVLinear(double x) {
+		return 0.25d * x;
+	}
 }
 
 
@@ -0,0 +1,174 @@
+package org.mosip.nist.nfiq1.mlp;
+
+import org.mosip.nist.nfiq1.Nfiq1Globals;
+import org.mosip.nist.nfiq1.Nfiq1ZNormalization;
+import org.mosip.nist.nfiq1.common.IMlp.IBatchMlp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/***********************************************************************
+************************************************************************
+#cat: BatchMlp - Classifies a matrix of raw NFIQ feature vectors, one
+#cat:             row per image, without re-running MINDTCT.  Rows are
+#cat:             Z-Normalized and run through both MLP layers a block
+#cat:             at a time as matrix-matrix products, so every weight
+#cat:             row loaded is shared by several feature vectors.
+#cat:             Results are identical to classifying each vector on
+#cat:             its own with Nfiq1Helper.classifyNfiq.
+************************************************************************/
+public class BatchMlp implements IBatchMlp {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchMlp.class);
+	/* Feature vectors Z-Normalized and classified together */
+	public static final int BLOCK_ROWS = 256;
+	/* Feature vectors sharing each weight row in the inner kernel */
+	private static final int KERNEL_ROWS = 4;
+
+	private final CompiledMlp mlp;
+	private final double[] zNormMeans;
+	private final double[] zNormStds;
+	private final Nfiq1ZNormalization zNorm = new Nfiq1ZNormalization();
+
+	/* Default Z-Norm statistics and MLP weights */
+	public BatchMlp() {
+		this(CompiledMlp.getInstance(), new Nfiq1Globals());
+	}
+
+	private BatchMlp(CompiledMlp mlp, Nfiq1Globals globals) {
+		this(mlp, globals.getDfltZnormMeans(), globals.getDfltZnormStds());
+	}
+
+	public BatchMlp(CompiledMlp mlp, double[] zNormMeans, double[] zNormStds) {
+		super();
+		this.mlp = mlp;
+		this.zNormMeans = zNormMeans;
+		this.zNormStds = zNormStds;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: classify - Computes NFIQ of each row of a feature vector matrix.
+	#cat:             The input matrix is left unchanged.
+	   Input:
+	      features    - nVectors raw feature vectors of nInps coefs each,
+	                    stored row after row
+	      nVectors    - number of feature vectors
+	   Output:
+	      oNfiq       - resulting NFIQ value of each vector
+	      oConf       - max output class MLP activation of each vector
+	   Return Code:
+	      Zero        - successful completion
+	      Negative    - system error
+	************************************************************************/
+	public int classify(double[] features, final int nVectors, int[] oNfiq, double[] oConf)
+	{
+		final int nInps = mlp.getNInps();
+		final int nHids = mlp.getNHids();
+		final int nOuts = mlp.getNOuts();
+
+		if (nVectors < 0 || features.length < nVectors * nInps || oNfiq.length < nVectors || oConf.length < nVectors)
+		{
+			LOGGER.error(String.format("ERROR : classify : %d feature vectors do not fit the arrays\n", nVectors));
+			return (-2);
+		}
+
+		int blockRows = Math.min(BLOCK_ROWS, nVectors);
+		double[] inputs = new double[blockRows * nInps];
+		double[] hidacs = new double[blockRows * nHids];
+		double[] outacs = new double[blockRows * nOuts];
+
+		for (int first = 0; first < nVectors; first += blockRows)
+		{
+			int rows = Math.min(blockRows, nVectors - first);
+
+			/* ZNormalize block of feature vectors */
+			zNorm.ZNormalizeFeatureMatrix(inputs, 0, features, first * nInps, rows, zNormMeans, zNormStds, nInps);
+
+			/* Hidden layer, then output layer, for the whole block. */
+			runLayer(inputs, rows, nInps, mlp.getW1(), mlp.getB1(), nHids, mlp.getAcFuncHids(), hidacs);
+			runLayer(hidacs, rows, nHids, mlp.getW2(), mlp.getB2(), nOuts, mlp.getAcFuncOuts(), outacs);
+
+			/* Find the hypothetical class and the confidence of each row, */
+			/* counting improvements of the maximum as runMlp2 does.       */
+			for (int row = 0, offset = 0; row < rows; row++, offset += nOuts)
+			{
+				int hypClass = 0;
+				double maxac = outacs[offset], ac;
+				for (int index = 1; index < nOuts; index++)
+				{
+					if ((ac = outacs[offset + index]) > maxac)
+					{
+						maxac = ac;
+						hypClass++;
+					}
+				}
+				oNfiq[first + row] = hypClass + 1;
+				oConf[first + row] = maxac;
+			}
+		}
+
+		return (0);
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: runLayer - Computes out := acFunc(in * w' + b) for a block of
+	#cat:             rows.  Each weight row is applied to KERNEL_ROWS
+	#cat:             input rows at once; every activation still sums its
+	#cat:             products in input order, as CompiledMlp.classify.
+	   Input:
+	      in          - rows x nIn input activations
+	      rows        - number of rows in the block
+	      nIn         - number of inputs of the layer
+	      w           - nOut x nIn weights, one row per node
+	      b           - nOut biases
+	      nOut        - number of nodes of the layer
+	      acFunc      - activation function code of the layer
+	   Output:
+	      out         - rows x nOut activations
+	************************************************************************/
+	private void runLayer(double[] in, final int rows, final int nIn, double[] w, double[] b,
+		final int nOut, final int acFunc, double[] out)
+	{
+		int row = 0, node, i, wRow;
+		double w0, t0, t1, t2, t3;
+
+		for (; row + KERNEL_ROWS <= rows; row += KERNEL_ROWS)
+		{
+			int in0 = row * nIn, in1 = in0 + nIn, in2 = in1 + nIn, in3 = in2 + nIn;
+			int out0 = row * nOut, out1 = out0 + nOut, out2 = out1 + nOut, out3 = out2 + nOut;
+			for (node = 0, wRow = 0; node < nOut; node++, wRow += nIn)
+			{
+				t0 = t1 = t2 = t3 = 0.0d;
+				for (i = 0; i < nIn; i++)
+				{
+					w0 = w[wRow + i];
+					t0 += w0 * in[in0 + i];
+					t1 += w0 * in[in1 + i];
+					t2 += w0 * in[in2 + i];
+					t3 += w0 * in[in3 + i];
+				}
+				out[out0 + node] = mlp.activate(acFunc, b[node] + t0);
+				out[out1 + node] = mlp.activate(acFunc, b[node] + t1);
+				out[out2 + node] = mlp.activate(acFunc, b[node] + t2);
+				out[out3 + node] = mlp.activate(acFunc, b[node] + t3);
+			}
+		}
+
+		/* Remaining rows of the block one at a time. */
+		for (; row < rows; row++)
+		{
+			int in0 = row * nIn, out0 = row * nOut;
+			for (node = 0, wRow = 0; node < nOut; node++, wRow += nIn)
+			{
+				t0 = 0.0d;
+				for (i = 0; i < nIn; i++)
+					t0 += w[wRow + i] * in[in0 + i];
+				out[out0 + node] = mlp.activate(acFunc, b[node] + t0);
+			}
+		}
+	}
+
+	public CompiledMlp getMlp() {
+		return mlp;
+	}
+}
@@ -0,0 +1,272 @@
+package org.mosip.nist.nfiq1.mlp;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.Nfiq1Globals;
+import org.mosip.nist.nfiq1.common.IMlp;
+import org.mosip.nist.nfiq1.common.IMlp.ICompiledMlp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/***********************************************************************
+************************************************************************
+#cat: CompiledMlp - Immutable two layer feedforward MLP.  The weights
+#cat:             are unpacked once into primitive arrays, row-major per
+#cat:             node, so classifying a feature vector allocates nothing.
+#cat:             Results are identical to RunMlp.runMlp2.
+************************************************************************/
+public final class CompiledMlp implements ICompiledMlp {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompiledMlp.class);
+	private static volatile CompiledMlp instance;
+	/* Compiled from the default NFIQ weights */
+	public static CompiledMlp getInstance() {
+		if (instance == null) {
+			synchronized (CompiledMlp.class) {
+				if (instance == null) {
+					Nfiq1Globals globals = new Nfiq1Globals();
+					AtomicReference<CompiledMlp> oMlp = new AtomicReference<CompiledMlp>();
+					compile(oMlp, globals.getDfltNInps(), globals.getDfltNHids(), globals.getDfltNOuts(),
+						globals.getDfltAcFuncHids(), globals.getDfltAcFuncOuts(), globals.getDfltWts());
+					instance = oMlp.get();
+				}
+			}
+		}
+		return instance;
+	}
+
+	private final int nInps;
+	private final int nHids;
+	private final int nOuts;
+	private final int acFuncHids;
+	private final int acFuncOuts;
+	/* nHids x nInps first layer weights, one row per hidden node */
+	private final double[] w1;
+	private final double[] b1;
+	/* nOuts x nHids second layer weights, one row per output node */
+	private final double[] w2;
+	private final double[] b2;
+	/* Copy of the weights the model was compiled from, see isCompiledFrom */
+	private final double[] source;
+
+	private CompiledMlp(final int nInps, final int nHids, final int nOuts,
+		final int acFuncHids, final int acFuncOuts, double[] weights)
+	{
+		super();
+		this.nInps = nInps;
+		this.nHids = nHids;
+		this.nOuts = nOuts;
+		this.acFuncHids = acFuncHids;
+		this.acFuncOuts = acFuncOuts;
+
+		/* Where the weights and biases of the two layers begin in weights. */
+		int w1Index = 0;
+		int b1Index = w1Index + nHids * nInps;
+		int w2Index = b1Index + nHids;
+		int b2Index = w2Index + nOuts * nHids;
+		this.source = Arrays.copyOf(weights, b2Index + nOuts);
+
+		this.w1 = new double[nHids * nInps];
+		this.b1 = new double[nHids];
+		this.w2 = new double[nOuts * nHids];
+		this.b2 = new double[nOuts];
+		System.arraycopy(weights, w1Index, this.w1, 0, this.w1.length);
+		System.arraycopy(weights, b1Index, this.b1, 0, this.b1.length);
+		System.arraycopy(weights, w2Index, this.w2, 0, this.w2.length);
+		System.arraycopy(weights, b2Index, this.b2, 0, this.b2.length);
+	}
+
+	public Acs getAcs() {
+		return Acs.getInstance();
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: compile - Unpacks MLP weights, laid out as by runMlp2, into an
+	#cat:           immutable model.
+	   Input:
+	      nInps, nHids, nOuts - numbers of input, hidden and output nodes
+	      acFuncHids    - activation function code of the hidden nodes
+	      acFuncOuts    - activation function code of the output nodes
+	      weights       - the MLP weights
+	   Output:
+	      oMlp          - the compiled model
+	   Return Code:
+	      Zero          - successful completion
+	      -2            - too many hidden nodes
+	      -3            - unsupported hidden activation function
+	      -4            - unsupported output activation function
+	      -5            - too few weights
+	************************************************************************/
+	public static int compile(AtomicReference<CompiledMlp> oMlp, final int nInps, final int nHids, final int nOuts,
+		final int acFuncHids, final int acFuncOuts, double[] weights)
+	{
+		if (nHids > IMlp.MAX_NHIDS)
+		{
+			LOGGER.error(String.format("ERROR : compile : nHids : %d > %d\n", nHids, IMlp.MAX_NHIDS));
+			return (-2);
+		}
+		if (!isAcFuncCode(acFuncHids))
+		{
+			LOGGER.error(String.format("ERROR : compile : acFuncHids : %d unsupported\n", acFuncHids));
+			return (-3);
+		}
+		if (!isAcFuncCode(acFuncOuts))
+		{
+			LOGGER.error(String.format("ERROR : compile : acFuncOuts : %d unsupported\n", acFuncOuts));
+			return (-4);
+		}
+		if (weights.length < nHids * nInps + nHids + nOuts * nHids + nOuts)
+		{
+			LOGGER.error(String.format("ERROR : compile : weights : %d too few\n", weights.length));
+			return (-5);
+		}
+
+		oMlp.set(new CompiledMlp(nInps, nHids, nOuts, acFuncHids, acFuncOuts, weights));
+		return (0);
+	}
+
+	private static boolean isAcFuncCode(final int acFuncCode)
+	{
+		return (acFuncCode == IMlp.LINEAR || acFuncCode == IMlp.SIGMOID || acFuncCode == IMlp.SINUSOID);
+	}
+
+	/* Tells whether this model was compiled from these attributes and weight values, */
+	/* so that callers holding their own copy of the default weights reuse it.       */
+	public boolean isCompiledFrom(final int nInps, final int nHids, final int nOuts,
+		final int acFuncHids, final int acFuncOuts, double[] weights)
+	{
+		if (this.nInps != nInps || this.nHids != nHids || this.nOuts != nOuts
+			|| this.acFuncHids != acFuncHids || this.acFuncOuts != acFuncOuts
+			|| weights == null || weights.length < source.length)
+		{
+			return false;
+		}
+		/* Only the weights the model uses are compared, as in compile. */
+		for (int i = 0; i < source.length; i++)
+		{
+			if (Double.doubleToLongBits(source[i]) != Double.doubleToLongBits(weights[i]))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getNInps() {
+		return nInps;
+	}
+
+	public int getNHids() {
+		return nHids;
+	}
+
+	public int getNOuts() {
+		return nOuts;
+	}
+
+	int getAcFuncHids() {
+		return acFuncHids;
+	}
+
+	int getAcFuncOuts() {
+		return acFuncOuts;
+	}
+
+	/* Weight arrays are shared with BatchMlp and must not be modified */
+	double[] getW1() {
+		return w1;
+	}
+
+	double[] getB1() {
+		return b1;
+	}
+
+	double[] getW2() {
+		return w2;
+	}
+
+	double[] getB2() {
+		return b2;
+	}
+
+	/* Hidden activations, then output activations, then the confidence */
+	public int getScratchLength() {
+		return nHids + nOuts + 1;
+	}
+
+	public int getOutAcsOffset() {
+		return nHids;
+	}
+
+	public double getConfidence(double[] scratch) {
+		return scratch[nHids + nOuts];
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: classify - Runs the MLP on a feature vector.
+	   Input:
+	      featureVector - the feature vector; its first nInps elts are used
+	      scratch       - caller owned buffer of at least getScratchLength()
+	   Output:
+	      scratch       - output activations from getOutAcsOffset(), and
+	                      the confidence as returned by getConfidence()
+	   Return Code:
+	      the hypothetical class, 0 through nOuts - 1
+	************************************************************************/
+	public int classify(double[] featureVector, double[] scratch)
+	{
+		int outIndex = nHids;
+		int index, row, i;
+		double temp;
+
+		/* First layer biases plus product of weights with feature vector. */
+		for (index = 0, row = 0; index < nHids; index++, row += nInps)
+		{
+			temp = 0.0d;
+			for (i = 0; i < nInps; i++)
+				temp += w1[row + i] * featureVector[i];
+			scratch[index] = activate(acFuncHids, b1[index] + temp);
+		}
+
+		/* Same steps again for second layer. */
+		for (index = 0, row = 0; index < nOuts; index++, row += nHids)
+		{
+			temp = 0.0d;
+			for (i = 0; i < nHids; i++)
+				temp += w2[row + i] * scratch[i];
+			scratch[outIndex + index] = activate(acFuncOuts, b2[index] + temp);
+		}
+
+		/* Find the hypothetical class and the confidence.  As in runMlp2 */
+		/* the class index counts the improvements of the maximum rather */
+		/* than recording where it was found.                            */
+		int hypClass = 0;
+		double maxac = scratch[outIndex], ac;
+		for (index = 1; index < nOuts; index++)
+		{
+			if ((ac = scratch[outIndex + index]) > maxac)
+			{
+				maxac = ac;
+				hypClass++;
+			}
+		}
+		scratch[outIndex + nOuts] = maxac;
+
+		return hypClass;
+	}
+
+	double activate(final int acFuncCode, final double value)
+	{
+		switch (acFuncCode)
+		{
+			case IMlp.LINEAR:
+				return getAcs().acVLinear(value);
+			case IMlp.SIGMOID:
+				return getAcs().acVSigmoid(value);
+			default:
+				return getAcs().acVSinusoid(value);
+		}
+	}
+}
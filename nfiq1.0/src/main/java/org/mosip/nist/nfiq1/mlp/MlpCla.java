@@ -97,10 +97,6 @@ public class MlpCla extends Mlp implements IMlpCla {
     
    Parameter adjustments   
        Function Body */
-    private static int info;
-    private static double temp;
-    private static int lenx, leny, i, j;
-    private static int ix, iy, jx, jy, kx, ky;
 	public int sgemV(AtomicReference<Character> trans, int m, int n, AtomicReference<Double> alpha, 
 		AtomicReferenceArray<Double> a, int lda,
 		AtomicReferenceArray<Double> x, int incx, AtomicReference<Double> beta, 
@@ -110,6 +106,10 @@ public class MlpCla extends Mlp implements IMlpCla {
 		    int a_dim1, a_offset;
 		 */
 		int i1, i2;
+		int info;
+		double temp;
+		int lenx, leny, i, j;
+		int ix, iy, jx, jy, kx, ky;
 
 		info = 0;
 		if (!compareChars(trans, 'N') && !compareChars(trans, 'T') && !compareChars(trans, 'C'))
@@ -460,7 +460,6 @@ public class MlpCla extends Mlp implements IMlpCla {
 	    return ILfs.FALSE;
 	}
 	
-	private static int inta, intb, zcode;
 	private boolean compareChars(AtomicReference<Character> ca, char cb)
 	{
 	/*  -- LAPACK auxiliary routine (version 2.0) --   
@@ -480,6 +479,7 @@ public class MlpCla extends Mlp implements IMlpCla {
 	  
 	       Test if the characters are equal */
 		/* System generated locals */
+		int inta, intb, zcode;
 		boolean ret_val = false;
 		ret_val = ca.get() == cb;
 		if (ret_val)
@@ -0,0 +1,373 @@
+package org.mosip.nist.nfiq1.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.mosip.nist.nfiq1.NfiqEngine;
+import org.mosip.nist.nfiq1.common.ILfs;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
+import org.mosip.nist.nfiq1.imagetools.DecodedImage;
+import org.mosip.nist.nfiq1.imagetools.ImageDecoder;
+import org.mosip.nist.nfiq1.util.ImageUtil;
+import org.mosip.nist.nfiq1.util.LatencyHistograms;
+import org.mosip.nist.nfiq1.util.NfiqMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqServer - Resident NFIQ scoring service on the JDK HTTP server.
+#cat:             POST /nfiq with an ISO 19794-4 record as the request
+#cat:             body (the same bytes ImageDecoder reads from disk) is
+#cat:             decoded and scored on a fixed worker pool, answering
+#cat:             NFIQ, confidence and per-stage timings as JSON.
+#cat:             When all workers are busy and the bounded queue is
+#cat:             full the request is rejected with 429, and a body
+#cat:             larger than maxBody bytes is rejected with 413.
+#cat:             GET /health reports the pool state and GET /metrics
+#cat:             the latency histograms of every NFIQ stage, which are
+#cat:             only recorded when started with metrics=true.
+
+   Usage:
+      java org.mosip.nist.nfiq1.server.NfiqServer [port=8080] [workers=N]
+                 [queue=M] [maxBody=bytes] [warmup=file.iso] [metrics=true]
+************************************************************************/
+public class NfiqServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(NfiqServer.class);	
+
+	public static final int DEFAULT_PORT = 8080;
+	/* Over four times a raw 8 bit record of 2000 x 2000 pixels */
+	public static final int DEFAULT_MAX_BODY_BYTES = 16 * 1024 * 1024;
+	public static final int HTTP_OK = 200;
+	public static final int HTTP_BAD_REQUEST = 400;
+	public static final int HTTP_BAD_METHOD = 405;
+	public static final int HTTP_PAYLOAD_TOO_LARGE = 413;
+	public static final int HTTP_UNPROCESSABLE = 422;
+	public static final int HTTP_TOO_MANY_REQUESTS = 429;
+	public static final int HTTP_INTERNAL_ERROR = 500;
+
+	private final NfiqEngine engine;
+	private final ThreadPoolExecutor workers;
+	private final ExecutorService dispatcher;
+	private final HttpServer server;
+	private final int maxBodyBytes;
+
+	public NfiqServer(int port, int workerCount, int queueCapacity) throws IOException {
+		this(port, workerCount, queueCapacity, DEFAULT_MAX_BODY_BYTES);
+	}
+
+	public NfiqServer(int port, int workerCount, int queueCapacity, int maxBodyBytes) throws IOException {
+		super();
+		this.engine = new NfiqEngine();
+		this.maxBodyBytes = maxBodyBytes;
+		/* Fixed pool with a bounded queue, rejecting instead of blocking */
+		this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+		/* Connection threads read the bodies and wait for the workers: one per */
+		/* worker and queue slot, and as many spare ones again to answer 429    */
+		/* and /health.  Further connections wait unread, so at most that many  */
+		/* bodies of at most maxBodyBytes are held at a time.                    */
+		this.dispatcher = Executors.newFixedThreadPool(2 * workerCount + queueCapacity);
+		this.server = HttpServer.create(new InetSocketAddress(port), 0);
+		this.server.createContext("/nfiq", new ScoreHandler());
+		this.server.createContext("/health", new HealthHandler());
+		this.server.createContext("/metrics", new MetricsHandler());
+		this.server.setExecutor(dispatcher);
+	}
+
+	public void start() {
+		server.start();
+		LOGGER.info(String.format("NFIQ server listening on port %d with %d workers, queue %d",
+			server.getAddress().getPort(), workers.getCorePoolSize(), workers.getQueue().remainingCapacity()));
+	}
+
+	public void stop(int delaySeconds) {
+		server.stop(delaySeconds);
+		workers.shutdown();
+		dispatcher.shutdown();
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: score - Decodes an ISO 19794-4 record and computes its NFIQ,
+	#cat:             recording the time spent in each stage.
+	   Input:
+	      isoData     - ISO 19794-4 finger image record
+	   Return:
+	      ScoreResult - return code, NFIQ, confidence and timings
+	************************************************************************/
+	public ScoreResult score(byte[] isoData) throws Exception {
+		AtomicInteger nfiq = new AtomicInteger(0);
+		AtomicReference<Double> conf = new AtomicReference<Double>(0.0d);
+		ScoreResult result = new ScoreResult();
+
+		long start = System.nanoTime();
+		DecodedImage decodedImage = ImageDecoder.getInstance().decodeGrayscaleImage(isoData);
+		long decoded = System.nanoTime();
+		result.decodeNanos = decoded - start;
+		if (decodedImage.getReturnCode() != ILfs.FALSE)
+		{
+			result.returnCode = decodedImage.getReturnCode();
+			result.decodeFailed = true;
+			return result;
+		}
+
+		ByteImage image = ImageUtil.convertToByteImage(decodedImage.getImage());
+		long converted = System.nanoTime();
+		result.convertNanos = converted - decoded;
+
+		result.returnCode = engine.computeNfiq(nfiq, conf, image, decodedImage.getDepth(), decodedImage.getPPI());
+		result.nfiqNanos = System.nanoTime() - converted;
+		result.nfiq = nfiq.get();
+		result.confidence = conf.get();
+		return result;
+	}
+
+	/* Outcome and stage timings of one request */
+	public static class ScoreResult {
+		private int returnCode;
+		private boolean decodeFailed;
+		private int nfiq;
+		private double confidence;
+		private long queueNanos, decodeNanos, convertNanos, nfiqNanos;
+
+		public int getReturnCode() {
+			return returnCode;
+		}
+
+		public int getNfiq() {
+			return nfiq;
+		}
+
+		public double getConfidence() {
+			return confidence;
+		}
+
+		public String toJson() {
+			return String.format(Locale.ROOT, 
+				"{\"returnCode\":%d,\"nfiq\":%d,\"confidence\":%.6f,\"timings\":{\"queueMs\":%.3f,\"decodeMs\":%.3f,\"convertMs\":%.3f,\"nfiqMs\":%.3f,\"totalMs\":%.3f}}",
+				returnCode, nfiq, confidence, toMillis(queueNanos), toMillis(decodeNanos), toMillis(convertNanos), 
+				toMillis(nfiqNanos), toMillis(queueNanos + decodeNanos + convertNanos + nfiqNanos));
+		}
+
+		private static double toMillis(long nanos) {
+			return nanos / 1000000.0d;
+		}
+	}
+
+	private class ScoreHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try
+			{
+				if (!"POST".equalsIgnoreCase(exchange.getRequestMethod()))
+				{
+					send(exchange, HTTP_BAD_METHOD, "{\"error\":\"POST an ISO 19794-4 record\"}");
+					return;
+				}
+				final byte[] isoData = readBody(exchange, maxBodyBytes);
+				if (isoData == null)
+				{
+					send(exchange, HTTP_PAYLOAD_TOO_LARGE, String.format("{\"error\":\"request body over %d bytes\"}", maxBodyBytes));
+					return;
+				}
+				if (isoData.length == 0)
+				{
+					send(exchange, HTTP_BAD_REQUEST, "{\"error\":\"empty request body\"}");
+					return;
+				}
+
+				final long queued = System.nanoTime();
+				Future<ScoreResult> future;
+				try
+				{
+					future = workers.submit(() -> {
+						long started = System.nanoTime();
+						ScoreResult result = score(isoData);
+						result.queueNanos = started - queued;
+						return result;
+					});
+				}
+				catch (RejectedExecutionException e)
+				{
+					send(exchange, HTTP_TOO_MANY_REQUESTS, "{\"error\":\"server busy\"}");
+					return;
+				}
+
+				ScoreResult result = future.get();
+				int status = HTTP_OK;
+				if (result.decodeFailed)
+				{
+					status = HTTP_UNPROCESSABLE;
+				}
+				else if (result.returnCode < ILfs.FALSE)
+				{
+					status = HTTP_INTERNAL_ERROR;
+				}
+				send(exchange, status, result.toJson());
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				send(exchange, HTTP_INTERNAL_ERROR, "{\"error\":\"interrupted\"}");
+			}
+			catch (ExecutionException e)
+			{
+				/* Bad records fail with return codes, so this is a fault of the server */
+				LOGGER.error(String.format("Error Message %s", e.getCause()), e.getCause());
+				send(exchange, HTTP_INTERNAL_ERROR, "{\"error\":\"could not score record\"}");
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+	}
+
+	private class HealthHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try
+			{
+				send(exchange, HTTP_OK, String.format("{\"status\":\"UP\",\"workers\":%d,\"active\":%d,\"queued\":%d,\"completed\":%d}",
+					workers.getCorePoolSize(), workers.getActiveCount(), workers.getQueue().size(), workers.getCompletedTaskCount()));
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+	}
+
+	private class MetricsHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try
+			{
+				NfiqMetrics metrics = NfiqMetrics.getInstance();
+				send(exchange, HTTP_OK, (metrics instanceof LatencyHistograms) ? ((LatencyHistograms)metrics).toJson() : "{}");
+			}
+			finally
+			{
+				exchange.close();
+			}
+		}
+	}
+
+	/* Request body, or null when it is longer than maxBytes */
+	private static byte[] readBody(HttpExchange exchange, int maxBytes) throws IOException {
+		String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (contentLength != null)
+		{
+			try
+			{
+				if (Long.parseLong(contentLength.trim()) > maxBytes)
+				{
+					return null;
+				}
+			}
+			catch (NumberFormatException e)
+			{
+				/* Left to the capped read below */
+			}
+		}
+
+		InputStream in = exchange.getRequestBody();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1)
+		{
+			if (out.size() + read > maxBytes)
+			{
+				return null;
+			}
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, bytes.length);
+		OutputStream out = exchange.getResponseBody();
+		out.write(bytes);
+		out.close();
+	}
+
+	public static void main(String[] args) throws Exception {
+		int port = DEFAULT_PORT;
+		int workerCount = Runtime.getRuntime().availableProcessors();
+		int queueCapacity = 4 * workerCount;
+		int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+		String warmupFile = null;
+		boolean recordMetrics = false;
+		if (args != null)
+		{
+			for (String arg : args)
+			{
+				String[] keyValue = arg.split("=", 2);
+				if (keyValue.length != 2)
+				{
+					continue;
+				}
+				if (keyValue[0].equals("port"))
+					port = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("workers"))
+					workerCount = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("queue"))
+					queueCapacity = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("maxBody"))
+					maxBodyBytes = Integer.parseInt(keyValue[1]);
+				else if (keyValue[0].equals("warmup"))
+					warmupFile = keyValue[1];
+				else if (keyValue[0].equals("metrics"))
+					recordMetrics = Boolean.parseBoolean(keyValue[1]);
+			}
+		}
+
+		final NfiqServer nfiqServer = new NfiqServer(port, workerCount, queueCapacity, maxBodyBytes);
+		/* Run a few records through every stage so the JIT has compiled them before traffic arrives */
+		if (warmupFile != null)
+		{
+			byte[] isoData = Files.readAllBytes(Paths.get(warmupFile));
+			for (int index = 0; index < 10; index++)
+			{
+				nfiqServer.score(isoData);
+			}
+		}
+		/* Installed after the warm-up, which would skew the tail latencies */
+		if (recordMetrics)
+		{
+			NfiqMetrics.setInstance(new LatencyHistograms());
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> nfiqServer.stop(1)));
+		nfiqServer.start();
+	}
+}
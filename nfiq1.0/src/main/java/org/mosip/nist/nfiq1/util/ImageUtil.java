@@ -1,12 +1,18 @@
 package org.mosip.nist.nfiq1.util;
 
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
 import java.io.*;
 
 import javax.imageio.ImageIO;
 
 import org.mosip.nist.nfiq1.Nist;
+import org.mosip.nist.nfiq1.imagetools.ByteImage;
 
 public final class ImageUtil extends Nist {
 	 // convert BufferedImage to byte[]
@@ -19,33 +25,45 @@ public final class ImageUtil extends Nist {
         return bytes;
     }
 
+    // get pixel values of an 8-bit grayscale image as a single int array;
+    // format is not used
     public static int[] convertTo1DWithoutUsingGetRGB(BufferedImage image, String format) throws IOException {
-    	// get pixel value as single array from buffered Image
-    	final byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData(); 
-    	//get image width value
-    	final int width = image.getWidth(); 
-    	//get image height value
-    	final int height = image.getHeight(); 
-
-    	int[][] result = new int[height][width]; //Initialize the array with height and width
-
-    	//this loop allocates pixels value to two dimensional array
-    	for (int pixel = 0, row = 0, col = 0; pixel < pixels.length; pixel++) {
-          int argb = 0;
-          argb = (int) pixels[pixel];
-          if (argb < 0) { //if pixel value is negative, change to positive //still weird to me
-                argb += 256;
-          }
-          result[row][col] = argb;
-          col++;
-          if (col == width) {
-        	  col = 0;
-        	  row++;
-          }
+    	return convertToByteImage(image).toIntArray();
+	}
+
+    // get 8-bit grayscale pixels of a BufferedImage, one byte per pixel.
+    // A single band byte raster (TYPE_BYTE_GRAY or a decoder's custom gray
+    // image) is wrapped as is, honouring its offset and scanline stride, so
+    // the image must not be modified afterwards.  Any other image is
+    // converted to TYPE_BYTE_GRAY in a single pass.
+    public static ByteImage convertToByteImage(BufferedImage image) {
+    	final WritableRaster raster = image.getRaster();
+    	final SampleModel sampleModel = raster.getSampleModel();
+
+    	if (raster.getNumBands() == 1 && raster.getDataBuffer() instanceof DataBufferByte
+    		&& sampleModel instanceof ComponentSampleModel && ((ComponentSampleModel) sampleModel).getPixelStride() == 1
+    		&& !(image.getColorModel() instanceof IndexColorModel))
+    	{
+    		final ComponentSampleModel componentModel = (ComponentSampleModel) sampleModel;
+    		final DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+    		final int bank = componentModel.getBankIndices()[0];
+    		// offset of image pixel (0, 0), a sub-image raster being translated
+    		final int offset = dataBuffer.getOffsets()[bank] + componentModel.getOffset(
+    			raster.getMinX() - raster.getSampleModelTranslateX(), raster.getMinY() - raster.getSampleModelTranslateY(), 0);
+
+    		return new ByteImage(dataBuffer.getData(bank), image.getWidth(), image.getHeight(), 
+    			offset, componentModel.getScanlineStride());
     	}
 
-    	return twoDConvert (result);
-	}
+    	BufferedImage grayImage = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+    	Graphics2D graphics = grayImage.createGraphics();
+    	try {
+    		graphics.drawImage(image, 0, 0, null);
+    	} finally {
+    		graphics.dispose();
+    	}
+    	return convertToByteImage(grayImage);
+    }
 
     public static int[] twoDConvert(int[][] nums) {
         int[] combined = new int[size(nums)];
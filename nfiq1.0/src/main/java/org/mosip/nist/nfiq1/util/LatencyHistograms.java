@@ -0,0 +1,173 @@
+package org.mosip.nist.nfiq1.util;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/***********************************************************************
+************************************************************************
+#cat: LatencyHistograms - NfiqMetrics keeping one latency histogram per
+#cat:             stage, for a long-running process to query or export.
+#cat:             Recording is lock-free: one atomic increment of a
+#cat:             bucket plus the count, sum and max.  Buckets are
+#cat:             log-linear, 8 per power of two, so a percentile is the
+#cat:             upper bound of its bucket and overstates the true value
+#cat:             by at most 12.5%.  The max is exact.
+************************************************************************/
+public class LatencyHistograms extends NfiqMetrics {
+	/* Linear sub-buckets per power of two, as a number of bits */
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+	private final AtomicLongArray[] buckets;
+	private final LongAdder[] sums;
+	private final AtomicLong[] maxs;
+
+	public LatencyHistograms() {
+		super();
+		int stages = Stage.values().length;
+		this.buckets = new AtomicLongArray[stages];
+		this.sums = new LongAdder[stages];
+		this.maxs = new AtomicLong[stages];
+		for (int index = 0; index < stages; index++)
+		{
+			buckets[index] = new AtomicLongArray(BUCKETS);
+			sums[index] = new LongAdder();
+			maxs[index] = new AtomicLong();
+		}
+	}
+
+	@Override
+	public void stageCompleted(Stage stage, long nanos) {
+		int index = stage.ordinal();
+		nanos = Math.max(0L, nanos);
+		buckets[index].incrementAndGet(bucketOf(nanos));
+		sums[index].add(nanos);
+		maxs[index].accumulateAndGet(nanos, Math::max);
+	}
+
+	/* Exact below SUB_BUCKETS, then SUB_BUCKETS buckets per power of two */
+	private static int bucketOf(final long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return (int)nanos;
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+	}
+
+	/* Largest value falling in a bucket */
+	private static long upperBoundOf(final int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long lowerBound = (long)(SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+	/* Number of times a stage was recorded */
+	public long getCount(Stage stage) {
+		AtomicLongArray counts = buckets[stage.ordinal()];
+		long count = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			count += counts.get(bucket);
+		}
+		return count;
+	}
+
+	/* Mean latency (in nanoseconds) of a stage, 0 when never recorded */
+	public double getMean(Stage stage) {
+		long count = getCount(stage);
+		return (count == 0) ? 0.0d : sums[stage.ordinal()].sum() / (double)count;
+	}
+
+	/* Largest latency (in nanoseconds) of a stage */
+	public long getMax(Stage stage) {
+		return maxs[stage.ordinal()].get();
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: getPercentile - Returns the latency below which a given fraction
+	#cat:             of the recorded latencies of a stage fall.  Counts
+	#cat:             recorded while the buckets are scanned may or may not
+	#cat:             be included.
+	   Input:
+	      stage         - stage to query
+	      fraction      - fraction on the range (0..1], e.g. 0.99 for p99
+	   Return Code:
+	      latency (in nanoseconds), 0 when the stage was never recorded
+	************************************************************************/
+	public long getPercentile(Stage stage, final double fraction) {
+		AtomicLongArray counts = buckets[stage.ordinal()];
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			snapshot[bucket] = counts.get(bucket);
+			total += snapshot[bucket];
+		}
+		if (total == 0)
+			return 0L;
+
+		long rank = Math.max(1L, (long)Math.ceil(fraction * total));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++)
+		{
+			seen += snapshot[bucket];
+			if (seen >= rank)
+			{
+				return Math.min(upperBoundOf(bucket), getMax(stage));
+			}
+		}
+		return getMax(stage);
+	}
+
+	/* Empties every histogram */
+	public void reset() {
+		for (int index = 0; index < buckets.length; index++)
+		{
+			for (int bucket = 0; bucket < BUCKETS; bucket++)
+			{
+				buckets[index].set(bucket, 0L);
+			}
+			sums[index].reset();
+			maxs[index].set(0L);
+		}
+	}
+
+	/* Recorded stages as a JSON object, latencies in milliseconds */
+	public String toJson() {
+		StringBuilder builder = new StringBuilder("{");
+		for (Stage stage : Stage.values())
+		{
+			long count = getCount(stage);
+			if (count == 0)
+				continue;
+			if (builder.length() > 1)
+				builder.append(',');
+			builder.append(String.format(Locale.ROOT, "\"%s\":{\"count\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}", 
+				stage, count, getMean(stage) / 1000000.0d, getPercentile(stage, 0.50d) / 1000000.0d, 
+				getPercentile(stage, 0.99d) / 1000000.0d, getMax(stage) / 1000000.0d));
+		}
+		return builder.append('}').toString();
+	}
+
+	/* One line per recorded stage, latencies in microseconds */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		for (Stage stage : Stage.values())
+		{
+			long count = getCount(stage);
+			if (count == 0)
+				continue;
+			builder.append(String.format("%s\tcount=%d\tmean=%.1f\tp50=%.1f\tp99=%.1f\tmax=%.1f (usecs)\n", 
+				stage, count, getMean(stage) / 1000.0d, getPercentile(stage, 0.50d) / 1000.0d, 
+				getPercentile(stage, 0.99d) / 1000.0d, getMax(stage) / 1000.0d));
+		}
+		return builder.toString();
+	}
+}
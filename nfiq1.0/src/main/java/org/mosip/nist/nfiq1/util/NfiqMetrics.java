@@ -0,0 +1,70 @@
+package org.mosip.nist.nfiq1.util;
+
+/***********************************************************************
+************************************************************************
+#cat: NfiqMetrics - Listener told how long each stage of an NFIQ
+#cat:             computation took, in nanoseconds.  One listener is
+#cat:             installed for the whole process and is called from
+#cat:             every computing thread at once, so implementations
+#cat:             must be thread-safe and should not block.  The default
+#cat:             listener, NONE, is disabled: start and stop then never
+#cat:             read the clock and cost a volatile read and a branch.
+************************************************************************/
+public abstract class NfiqMetrics {
+	/* Timed stages, in the order an image goes through them.  NFIQ   */
+	/* scoring runs REMOVE_REDUNDANT where MINDTCT runs RIDGE_COUNT.  */
+	public enum Stage {
+		DECODE, PAD, MAPS, BINARIZE, DETECT, REMOVE, REMOVE_REDUNDANT, RIDGE_COUNT, QUALITY, MLP
+	}
+
+	/* Listener ignoring every measure */
+	public static final NfiqMetrics NONE = new NfiqMetrics() {
+		@Override
+		public boolean isEnabled() {
+			return false;
+		}
+
+		@Override
+		public void stageCompleted(Stage stage, long nanos) {
+		}
+	};
+
+	private static volatile NfiqMetrics instance = NONE;
+
+	public static NfiqMetrics getInstance() {
+		return instance;
+	}
+
+	/* Installs a listener for all later computations, NONE when null */
+	public static void setInstance(NfiqMetrics metrics) {
+		instance = (metrics != null) ? metrics : NONE;
+	}
+
+	/* Tells whether stages should be timed at all */
+	public boolean isEnabled() {
+		return true;
+	}
+
+	/***********************************************************************
+	************************************************************************
+	#cat: stageCompleted - Called once a stage of one image is done, also
+	#cat:             when it returned an error code.
+	   Input:
+	      stage         - stage that completed
+	      nanos         - elapsed time (in nanoseconds) of the stage
+	************************************************************************/
+	public abstract void stageCompleted(Stage stage, long nanos);
+
+	/* Start time of a stage, to be passed to stop; 0 when disabled */
+	public final long start() {
+		return isEnabled() ? System.nanoTime() : 0L;
+	}
+
+	/* Reports the time elapsed since a start time returned by start */
+	public final void stop(Stage stage, long startTime) {
+		if (isEnabled())
+		{
+			stageCompleted(stage, System.nanoTime() - startTime);
+		}
+	}
+}